@@ -26,6 +26,7 @@ import os
 import sys
 import logging
 import argparse
+import base64
 from argparse import Namespace
 import json
 import glob
@@ -426,6 +427,56 @@ CVR_SELECTION_QUERY = """
     ;
 """
 
+def decode_long_list(column):
+    """Decode a list of ids from a Round ballot_sequence or audit_subsequence
+    column. Columns written by CompactLongListConverter are a '#' followed by
+    unpadded Base64 of the element count and the zigzag-encoded differences
+    between consecutive elements, as varints. Older columns are JSON arrays.
+
+    >>> decode_long_list('#AwYEAQ')
+    [3, 5, 4]
+    >>> decode_long_list('#AtAPzQ8')
+    [1000, 1]
+    >>> decode_long_list('#AA')
+    []
+    >>> decode_long_list('[3, 5, 4]')
+    [3, 5, 4]
+    >>> decode_long_list(None) is None
+    True
+    """
+
+    if column is None:
+        return None
+    if not column.startswith('#'):
+        return json.loads(column)
+
+    payload = column[1:]
+    data = bytearray(base64.b64decode(payload + '=' * (-len(payload) % 4)))
+    values = []
+    position = 0
+    while position < len(data):
+        value = 0
+        shift = 0
+        while True:
+            byte = data[position]
+            position += 1
+            value |= (byte & 0x7f) << shift
+            shift += 7
+            if not byte & 0x80:
+                break
+        values.append(value)
+
+    count = values[0]
+    if len(values) != count + 1:
+        raise ValueError("malformed long list column: %s" % column)
+    result = []
+    previous = 0
+    for zigzag in values[1:]:
+        previous += (zigzag >> 1) ^ -(zigzag & 1)
+        result.append(previous)
+    return result
+
+
 def random_sequence(args, connection, cursor, county_id, county_name):
     "Export list of ballots to be audited by county in random selection order, with dups"
 
@@ -453,8 +504,8 @@ def random_sequence(args, connection, cursor, county_id, county_name):
             prefix = 0
             for sequences in rows:
                 round_number = sequences['round_number']
-                ballot_sequence = json.loads(sequences['ballot_sequence'])
-                audit_subsequence = json.loads(sequences['audit_subsequence'])
+                ballot_sequence = decode_long_list(sequences['ballot_sequence'])
+                audit_subsequence = decode_long_list(sequences['audit_subsequence'])
 
                 logging.debug("random_sequence: ballot_sequence for county %s, round %d: %s" %
                               (county_name, round_number, ballot_sequence))
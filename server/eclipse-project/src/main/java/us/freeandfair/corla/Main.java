@@ -59,6 +59,7 @@ import us.freeandfair.corla.asm.CountyDashboardASM;
 import us.freeandfair.corla.asm.DoSDashboardASM;
 import us.freeandfair.corla.asm.PersistentASMState;
 import us.freeandfair.corla.auth.AuthenticationInterface;
+import us.freeandfair.corla.controller.LogChainVerifier;
 import us.freeandfair.corla.endpoint.CORSFilter;
 import us.freeandfair.corla.endpoint.Endpoint;
 import us.freeandfair.corla.json.FreeAndFairNamingStrategy;
@@ -86,6 +87,12 @@ public final class Main {
    */
   public static final String DEFAULT_PROPERTIES =
       "us/freeandfair/corla/default.properties";
+  
+  /**
+   * The command line option for verifying the hash chain of the log instead
+   * of starting the server.
+   */
+  public static final String VERIFY_LOG_OPTION = "--verify-log";
 
   /**
    * The path to the resource containing the list of endpoint classes.
@@ -606,49 +613,111 @@ public final class Main {
   }
  
   
+  /**
+   * Verifies the hash chain of the log, logs the result, and exits with
+   * status 0 if the chain is intact, 1 if it is broken, and 2 if it cannot
+   * be verified.
+   */
+  @SuppressWarnings("PMD.DoNotCallSystemExit")
+  public void verifyLog() {
+    LOGGER.info("verifying log hash chain, server version " + VERSION);
+    Persistence.setProperties(static_properties);
+    int status = 2;
+    try {
+      if (Persistence.beginTransaction()) {
+        final LogChainVerifier.Result result = LogChainVerifier.verify();
+        Persistence.commitTransaction();
+        LOGGER.info(GSON.toJson(result));
+        if (result.intact()) {
+          status = 0;
+        } else {
+          status = 1;
+        }
+      } else {
+        LOGGER.error("could not open database connection");
+      }
+    } catch (final PersistenceException | IllegalStateException e) {
+      LOGGER.error("could not verify log: " + e);
+    }
+    System.exit(status);
+  }
+  
+  /**
+   * Loads properties from the specified file, which may be in either plain or
+   * XML format.
+   * 
+   * @param the_path The path to the file.
+   * @param the_defaults The default properties.
+   * @return the properties, or null if they could not be loaded.
+   */
+  private static Properties loadProperties(final String the_path, 
+                                           final Properties the_defaults) {
+    final File file = new File(the_path);
+    Properties result = new Properties(the_defaults);
+    try {
+      LOGGER.info("attempting to load properties from " + file);
+      result.load(new FileInputStream(file));
+    } catch (final IOException e) {
+      // could not load properties that way, let's try XML
+      try {
+        LOGGER.info("load failed, attempting to load XML properties from " + file);
+        result = new Properties(the_defaults);
+        result.loadFromXML(new FileInputStream(file));
+      } catch (final IOException ex) {
+        // could not load properties that way either
+        result = null;
+      }
+    }
+    return result;
+  }
+  
   /**
    * The main method. Starts the server using the specified properties
-   * file.
+   * file or, if the first argument is VERIFY_LOG_OPTION, verifies the
+   * hash chain of the log using the specified properties file.
    * 
-   * @param the_args Command line arguments. Only the first one is
-   * considered, and it is interpreted as the path to a properties
-   * file. If no arguments are supplied, default properties are
-   * used. If the specified properties file cannot be loaded, the
-   * server does not start.
+   * @param the_args Command line arguments. Only the first one (or the
+   * first one after VERIFY_LOG_OPTION) is considered, and it is 
+   * interpreted as the path to a properties file. If no properties file
+   * is supplied, default properties are used. If the specified properties
+   * file cannot be loaded, the server does not start.
    */
   public static void main(final String... the_args) {
     // set headless mode - this prevents Apache POI from starting a GUI when
     // generating Excel files
     System.setProperty("java.awt.headless", "true");
     
+    final boolean verify_log = 
+        the_args.length > 0 && VERIFY_LOG_OPTION.equals(the_args[0]);
+    final int properties_arg;
+    if (verify_log) {
+      properties_arg = 1;
+    } else {
+      properties_arg = 0;
+    }
+    
     final Properties default_properties = defaultProperties();
     Properties properties = new Properties(default_properties);
-    if (the_args.length > 0) {
-      final File file = new File(the_args[0]);
-      try {
-        LOGGER.info("attempting to load properties from " + file);
-        properties.load(new FileInputStream(file));
-      } catch (final IOException e) {
-        // could not load properties that way, let's try XML
-        try {
-          LOGGER.info("load failed, attempting to load XML properties from " + file);
-          properties = new Properties(default_properties);
-          properties.loadFromXML(new FileInputStream(file));
-        } catch (final IOException ex) {
-          // could not load properties that way either, let's abort
-          LOGGER.error("could not load properties, exiting");
-          return;
-        }
+    if (the_args.length > properties_arg) {
+      properties = loadProperties(the_args[properties_arg], default_properties);
+      if (properties == null) {
+        // could not load properties, let's abort
+        LOGGER.error("could not load properties, exiting");
+        return;
       }
     } else {
       LOGGER.info("no property file specified, using default properties");
     }
 
     final Main main = new Main(properties);
-    try {
-      main.start();
-    } catch (final IllegalStateException e) {
-      LOGGER.error("unable to run: " + e);
+    if (verify_log) {
+      main.verifyLog();
+    } else {
+      try {
+        main.start();
+      } catch (final IllegalStateException e) {
+        LOGGER.error("unable to run: " + e);
+      }
     }
   }
 }
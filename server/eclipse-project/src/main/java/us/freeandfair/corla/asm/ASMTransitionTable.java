@@ -0,0 +1,184 @@
+/*
+ * Free & Fair Colorado RLA System
+ * 
+ * @title ColoradoRLA
+ * @created Oct 18, 2026
+ * @copyright 2026 Colorado Department of State
+ * @license SPDX-License-Identifier: AGPL-3.0-or-later
+ * @creator Daniel M. Zimmerman <dmz@freeandfair.us>
+ * @description A system to assist in conducting statewide risk-limiting audits.
+ */
+
+package us.freeandfair.corla.asm;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The transition function of an ASM, compiled into a table indexed by the
+ * ordinals of its states and events. The states of an ASM must all belong
+ * to one enumeration, and its events to another. The table is immutable,
+ * so one table is shared by all the ASMs of a class.
+ *
+ * @author Daniel M. Zimmerman <dmz@freeandfair.us>
+ * @version 1.0.0
+ */
+final class ASMTransitionTable {
+  /**
+   * The enumeration of the states.
+   */
+  private final Class<?> my_state_class;
+
+  /**
+   * The enumeration of the events.
+   */
+  private final Class<?> my_event_class;
+
+  /**
+   * The end state for each start state and event, or null if the event
+   * is not enabled in the start state.
+   */
+  private final ASMState[][] my_end_states;
+
+  /**
+   * The (unmodifiable) set of events enabled in each state.
+   */
+  private final List<Set<ASMEvent>> my_enabled_events;
+
+  /**
+   * Compiles a transition function.
+   *
+   * @param the_transitions The transition function.
+   * @param the_initial_state The initial state, which determines the
+   * enumeration of the states.
+   * @param the_events The events, which determine the enumeration of
+   * the events.
+   * @exception IllegalArgumentException if the states or events are not all
+   * constants of the same enumeration, or if the transition function is
+   * not deterministic.
+   */
+  ASMTransitionTable(final Set<ASMTransition> the_transitions,
+                     final ASMState the_initial_state,
+                     final Set<ASMEvent> the_events) {
+    my_state_class = enumClass(the_initial_state);
+    my_event_class = enumClass(the_events.iterator().next());
+    final int state_count = my_state_class.getEnumConstants().length;
+    final int event_count = my_event_class.getEnumConstants().length;
+    my_end_states = new ASMState[state_count][event_count];
+
+    final List<Set<ASMEvent>> enabled_events = new ArrayList<>(state_count);
+    for (int i = 0; i < state_count; i++) {
+      enabled_events.add(noEvents(my_event_class));
+    }
+    for (final ASMTransition t : the_transitions) {
+      for (final ASMState s : t.startStates()) {
+        final int state = ordinal(s, my_state_class);
+        for (final ASMEvent e : t.events()) {
+          final int event = ordinal(e, my_event_class);
+          final ASMState end = my_end_states[state][event];
+          if (end != null && !end.equals(t.endState())) {
+            throw new IllegalArgumentException("nondeterministic transition on (" +
+                                               s + ", " + e + ")");
+          }
+          my_end_states[state][event] = t.endState();
+          enabled_events.get(state).add(e);
+        }
+      }
+    }
+    for (int i = 0; i < state_count; i++) {
+      enabled_events.set(i, Collections.unmodifiableSet(enabled_events.get(i)));
+    }
+    my_enabled_events = enabled_events;
+  }
+
+  /**
+   * Gets the events enabled in the specified state.
+   *
+   * @param the_state The state.
+   * @return the (unmodifiable) set of events.
+   */
+  Set<ASMEvent> enabledEvents(final ASMState the_state) {
+    final Set<ASMEvent> result;
+    if (belongsTo(the_state, my_state_class)) {
+      result = my_enabled_events.get(((Enum<?>) the_state).ordinal());
+    } else {
+      result = Collections.emptySet();
+    }
+    return result;
+  }
+
+  /**
+   * Gets the state reached from the specified state on the specified event.
+   *
+   * @param the_state The state.
+   * @param the_event The event.
+   * @return the end state, or null if the event is not enabled in the state.
+   */
+  ASMState endState(final ASMState the_state, final ASMEvent the_event) {
+    ASMState result = null;
+    if (belongsTo(the_state, my_state_class) && belongsTo(the_event, my_event_class)) {
+      result = my_end_states[((Enum<?>) the_state).ordinal()]
+                            [((Enum<?>) the_event).ordinal()];
+    }
+    return result;
+  }
+
+  /**
+   * Gets the enumeration of a state or event.
+   *
+   * @param the_constant The state or event.
+   * @return the enumeration.
+   * @exception IllegalArgumentException if the state or event is not an
+   * enumeration constant.
+   */
+  private static Class<?> enumClass(final Object the_constant) {
+    if (!(the_constant instanceof Enum<?>)) {
+      throw new IllegalArgumentException(the_constant + " is not an enumeration constant");
+    }
+    return ((Enum<?>) the_constant).getDeclaringClass();
+  }
+
+  /**
+   * Gets the ordinal of a state or event.
+   *
+   * @param the_constant The state or event.
+   * @param the_class The enumeration it must belong to.
+   * @return the ordinal.
+   * @exception IllegalArgumentException if the state or event does not
+   * belong to the enumeration.
+   */
+  private static int ordinal(final Object the_constant, final Class<?> the_class) {
+    if (!belongsTo(the_constant, the_class)) {
+      throw new IllegalArgumentException(the_constant + " is not a constant of " +
+                                         the_class.getSimpleName());
+    }
+    return ((Enum<?>) the_constant).ordinal();
+  }
+
+  /**
+   * Checks whether a state or event belongs to an enumeration.
+   *
+   * @param the_constant The state or event.
+   * @param the_class The enumeration.
+   * @return true if it does, false otherwise.
+   */
+  private static boolean belongsTo(final Object the_constant, final Class<?> the_class) {
+    return the_constant instanceof Enum<?> &&
+           ((Enum<?>) the_constant).getDeclaringClass() == the_class;
+  }
+
+  /**
+   * Creates an empty set of events of an enumeration of events.
+   *
+   * @param the_class The enumeration.
+   * @return the set.
+   */
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  private static Set<ASMEvent> noEvents(final Class<?> the_class) {
+    // the constants of the enumeration are all ASMEvents
+    return (Set<ASMEvent>) EnumSet.noneOf((Class) the_class);
+  }
+}
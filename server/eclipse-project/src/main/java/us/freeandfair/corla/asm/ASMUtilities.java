@@ -11,22 +11,82 @@
 
 package us.freeandfair.corla.asm;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Constructor;
-import java.lang.reflect.InvocationTargetException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.persistence.PersistenceException;
 
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+
 import us.freeandfair.corla.Main;
+import us.freeandfair.corla.controller.DashboardChangeNotifier;
 import us.freeandfair.corla.persistence.Persistence;
 import us.freeandfair.corla.query.PersistentASMStateQueries;
+import us.freeandfair.corla.util.Pair;
 
 /**
  * Utility classes that are generally useful for working with ASMs.
  * 
+ * The committed state of each ASM is cached, so that ASMs are read from the
+ * database only once. Saves write through to the database with a check of
+ * the version of the state the ASM was loaded from, so a save that would
+ * overwrite a state committed by another transaction in the meantime fails
+ * instead; states saved by a transaction are visible to that transaction at
+ * once, and to everyone else when it commits. This assumes that this server
+ * is the only writer of ASM states; anything else that changes them must
+ * call invalidateAll().
+ * 
  * @author Daniel M. Zimmerman <dmz@freeandfair.us>
  * @version 1.0.0
  */
 public final class ASMUtilities {
+  /**
+   * The query that writes an ASM state, if it has not changed since it was
+   * read.
+   */
+  private static final String UPDATE_QUERY =
+      "update PersistentASMState set my_state_class = :state_class, " +
+      "my_state_value = :state_value, my_version = my_version + 1 " +
+      "where my_id = :id and my_version = :version";
+  
+  /**
+   * The type of the constructor handles.
+   */
+  private static final MethodType CONSTRUCTOR_TYPE = 
+      MethodType.methodType(AbstractStateMachine.class, String.class);
+  
+  /**
+   * The constructor handles, by ASM class; each takes the ASM identity.
+   */
+  private static final Map<Class<?>, MethodHandle> CONSTRUCTORS = 
+      new ConcurrentHashMap<>();
+  
+  /**
+   * The committed ASM states, by ASM class name and identity.
+   */
+  private static final Map<Pair<String, String>, CachedState> CACHE = 
+      new ConcurrentHashMap<>();
+  
+  /**
+   * The ASM states saved by the current thread's transaction, by ASM class
+   * name and identity.
+   */
+  private static final ThreadLocal<Map<Pair<String, String>, CachedState>> PENDING =
+      ThreadLocal.withInitial(HashMap::new);
+  
+  /**
+   * The number of invalidations so far; a state read or saved while this
+   * changes might be out of date, so it is not cached.
+   */
+  private static final AtomicLong GENERATION = new AtomicLong();
+  
   /**
    * Private constructor to prevent instantiation.
    */
@@ -44,51 +104,209 @@ public final class ASMUtilities {
    */
   public static <T extends AbstractStateMachine> T asmFor(final Class<T> the_class, 
                                                           final String the_identity) {
-    T result = null;
+    final T result = construct(the_class, the_identity);
+    
+    final Pair<String, String> key = keyFor(the_class, the_identity);
+    CachedState state = PENDING.get().get(key);
+    if (state == null) {
+      state = CACHE.get(key);
+    }
+    if (state == null) {
+      state = load(the_class, the_identity);
+    }
+    
+    if (state == null) {
+      Main.LOGGER.error("Unable to retrieve ASM state for class " + the_class + 
+                        " with identity " + the_identity);
+    } else if (result != null) {
+      result.setCurrentState(state.my_state);
+      result.setPersistentState(state.my_id, state.my_version);
+    } 
     
+    return result;
+  }
+  
+  /**
+   * Constructs an ASM of the specified class, in its initial state.
+   * 
+   * @param the_class The class.
+   * @param the_identity The identity.
+   * @return the ASM, or null if the ASM cannot be instantiated.
+   */
+  @SuppressWarnings("PMD.AvoidCatchingThrowable")
+  static <T extends AbstractStateMachine> T construct(final Class<T> the_class, 
+                                                      final String the_identity) {
+    T result = null;
+    final MethodHandle constructor = 
+        CONSTRUCTORS.computeIfAbsent(the_class, ASMUtilities::findConstructor);
+    if (constructor == null) {
+      Main.LOGGER.error("No usable constructor for ASM of class " + the_class);
+    } else {
+      try {
+        result = the_class.cast((AbstractStateMachine) constructor.invokeExact(the_identity));
+      } catch (final Error e) {
+        throw e;
+      } catch (final Throwable e) {
+        Main.LOGGER.error("Unable to construct ASM of class " + the_class +
+                          " with identity " + the_identity);
+      }
+    }
+    return result;
+  }
+  
+  /**
+   * Finds the constructor to use for the specified ASM class: a public 
+   * no-argument constructor, or a public constructor that takes the identity.
+   * 
+   * @param the_class The class.
+   * @return a handle for the constructor that takes the identity (and ignores
+   * it, for a no-argument constructor), or null if there is none.
+   */
+  private static MethodHandle findConstructor(final Class<?> the_class) {
+    MethodHandle result = null;
     try {
-      // first, check for a no-argument constructor
-      final Constructor<?>[] constructors = the_class.getConstructors();
-      for (final Constructor<?> c : constructors) {
-        @SuppressWarnings("unchecked") // this cast is safe because of the call above
-        final Constructor<T> constructor = (Constructor<T>) c;
-        if (constructor.getParameterTypes().length == 0) {
+      for (final Constructor<?> c : the_class.getConstructors()) {
+        if (c.getParameterTypes().length == 0) {
           // default constructor
-          result = constructor.newInstance();
+          result = MethodHandles.dropArguments(MethodHandles.publicLookup().
+                                               unreflectConstructor(c), 0, String.class);
           break;
-        } else if (constructor.getParameterTypes().length == 1 &&
-                   constructor.getParameterTypes()[0].equals(String.class)) {
+        } else if (c.getParameterTypes().length == 1 &&
+                   c.getParameterTypes()[0].equals(String.class)) {
           // 1-argument constructor that takes a String
-          result = constructor.newInstance(the_identity);
+          result = MethodHandles.publicLookup().unreflectConstructor(c);
           break;
         }
       }
-    } catch (final IllegalAccessException | InstantiationException | 
-                   InvocationTargetException e) {
-      Main.LOGGER.error("Unable to construct ASM of class " + the_class +
-                        " with identity " + the_identity);
+    } catch (final IllegalAccessException e) {
+      Main.LOGGER.error("Unable to access constructor for ASM of class " + the_class);
     }
-    
+    if (result != null) {
+      result = result.asType(CONSTRUCTOR_TYPE);
+    }
+    return result;
+  }
+  
+  /**
+   * Reads the state of the specified ASM from the database and caches it.
+   * 
+   * @param the_class The class.
+   * @param the_identity The identity.
+   * @return the state, or null if it cannot be read.
+   * @exception IllegalArgumentException if the persistent state contains
+   * invalid information.
+   */
+  private static CachedState load(final Class<? extends AbstractStateMachine> the_class,
+                                  final String the_identity) {
+    CachedState result = null;
+    final long generation = GENERATION.get();
     final PersistentASMState asm_state = 
         PersistentASMStateQueries.get(the_class, the_identity);
-    
-    if (asm_state == null) {
-      Main.LOGGER.error("Unable to retrieve ASM state for class " + the_class + 
-                        " with identity " + the_identity);
-    } else if (result != null) {
-      asm_state.applyTo(result);
-    } 
-    
+    if (asm_state != null) {
+      final ASMState state = PersistentASMState.asmStateFor(asm_state);
+      if (state == null) {
+        throw new IllegalArgumentException("no ASM state found for state " + asm_state);
+      }
+      result = new CachedState(asm_state.id(), asm_state.version(), state);
+      if (asm_state.version() != null && GENERATION.get() == generation) {
+        CACHE.merge(keyFor(the_class, the_identity), result, ASMUtilities::newer);
+      }
+    }
     return result;
   }
   
   /**
-   * Saves the state of the specified ASM to the database.
+   * Saves the state of the specified ASM to the database. If the ASM was
+   * loaded by asmFor(), this fails if its state has been changed by another
+   * transaction since.
    * 
    * @param the_asm The ASM.
    * @return true if the save was successful, false otherwise
    */
   public static boolean save(final AbstractStateMachine the_asm) {
+    final boolean result;
+    if (the_asm.persistentVersion() == null) {
+      result = saveEntity(the_asm);
+    } else {
+      result = writeThrough(the_asm);
+    }
+    if (result) {
+      notifyDashboardChange(the_asm);
+    }
+    return result;
+  }
+  
+  /**
+   * Saves the state of an ASM that was loaded from the database, if that
+   * state has not been changed by another transaction since.
+   * 
+   * @param the_asm The ASM.
+   * @return true if the save was successful, false otherwise
+   */
+  private static boolean writeThrough(final AbstractStateMachine the_asm) {
+    boolean result = false;
+    final Pair<String, String> key = keyFor(the_asm.getClass(), the_asm.identity());
+    final CachedState pending = PENDING.get().get(key);
+    // a state saved earlier in this transaction is ours to overwrite
+    final Long version;
+    if (pending == null) {
+      version = the_asm.persistentVersion();
+    } else {
+      version = pending.my_version;
+    }
+    final PersistentASMState new_state = PersistentASMState.stateFor(the_asm);
+    try {
+      final int updated = Persistence.currentSession().createQuery(UPDATE_QUERY).
+          setParameter("state_class", new_state.stateClass()).
+          setParameter("state_value", new_state.stateValue()).
+          setParameter("id", the_asm.persistentID()).
+          setParameter("version", version).
+          executeUpdate();
+      if (updated == 1) {
+        refreshManaged(the_asm.persistentID());
+        the_asm.setPersistentState(the_asm.persistentID(), version + 1);
+        addPending(key, new CachedState(the_asm.persistentID(), version + 1, 
+                                        the_asm.currentState()));
+        result = true;
+      } else {
+        Main.LOGGER.error("State for ASM " + the_asm + " was changed concurrently");
+        discard(key);
+      }
+    } catch (final PersistenceException e) {
+      Main.LOGGER.error("Could not save state for ASM " + the_asm);
+    }
+    return result;
+  }
+  
+  /**
+   * Refreshes the persistent state with the specified ID from the database,
+   * if the current session holds it (as it does if the state was read in
+   * this transaction); the update query bypasses the session, so the
+   * session's copy would otherwise keep its old version and fail the version
+   * check when next saved.
+   * 
+   * @param the_id The ID.
+   */
+  private static void refreshManaged(final Long the_id) {
+    final SharedSessionContractImplementor session = 
+        (SharedSessionContractImplementor) Persistence.currentSession();
+    final EntityPersister persister = 
+        session.getFactory().getMetamodel().entityPersister(PersistentASMState.class);
+    final Object managed = session.getPersistenceContext().
+        getEntity(session.generateEntityKey(the_id, persister));
+    if (managed != null) {
+      Persistence.currentSession().refresh(managed);
+    }
+  }
+  
+  /**
+   * Saves the state of an ASM that was not loaded from the database, by
+   * loading its persistent state and updating that.
+   * 
+   * @param the_asm The ASM.
+   * @return true if the save was successful, false otherwise
+   */
+  private static boolean saveEntity(final AbstractStateMachine the_asm) {
     boolean result = false;
     
     final PersistentASMState asm_state = 
@@ -100,6 +318,9 @@ public final class ASMUtilities {
       asm_state.updateFrom(the_asm);
       try {
         Persistence.saveOrUpdate(asm_state);
+        final Pair<String, String> key = keyFor(the_asm.getClass(), the_asm.identity());
+        discard(key);
+        Persistence.afterCompletion(the_committed -> discard(key));
         result = true;
       } catch (final PersistenceException e) {
         Main.LOGGER.error("Could not save state for ASM " + the_asm);
@@ -109,6 +330,121 @@ public final class ASMUtilities {
     return result;
   }
   
+  /**
+   * Records a state saved by the current thread's transaction, to be cached 
+   * when the transaction commits.
+   * 
+   * @param the_key The key.
+   * @param the_state The state.
+   */
+  private static void addPending(final Pair<String, String> the_key, 
+                                 final CachedState the_state) {
+    final Map<Pair<String, String>, CachedState> pending = PENDING.get();
+    final boolean first = pending.isEmpty();
+    pending.put(the_key, the_state);
+    if (first) {
+      final long generation = GENERATION.get();
+      Persistence.afterCompletion(the_committed -> completePending(the_committed, 
+                                                                   generation));
+    }
+  }
+  
+  /**
+   * Caches the states saved by the current thread's transaction if it 
+   * committed, and forgets them either way.
+   * 
+   * @param the_committed true if the transaction committed, false otherwise.
+   * @param the_generation The number of invalidations when the first state
+   * was saved.
+   */
+  private static void completePending(final boolean the_committed, 
+                                      final long the_generation) {
+    final Map<Pair<String, String>, CachedState> pending = PENDING.get();
+    if (the_committed && GENERATION.get() == the_generation) {
+      for (final Map.Entry<Pair<String, String>, CachedState> e : pending.entrySet()) {
+        CACHE.merge(e.getKey(), e.getValue(), ASMUtilities::newer);
+      }
+    }
+    pending.clear();
+  }
+  
+  /**
+   * Discards all cached ASM states, both now and when the current transaction
+   * completes (so that states read in the meantime are discarded as well).
+   * This must be called by anything that changes ASM states other than
+   * save().
+   */
+  public static void invalidateAll() {
+    discardAll();
+    Persistence.afterCompletion(the_committed -> discardAll());
+  }
+  
+  /**
+   * Discards all cached ASM states.
+   */
+  private static void discardAll() {
+    GENERATION.incrementAndGet();
+    CACHE.clear();
+  }
+  
+  /**
+   * Discards the cached state of one ASM.
+   * 
+   * @param the_key The key.
+   */
+  private static void discard(final Pair<String, String> the_key) {
+    GENERATION.incrementAndGet();
+    CACHE.remove(the_key);
+  }
+  
+  /**
+   * Gets the cache key for an ASM.
+   * 
+   * @param the_class The ASM class.
+   * @param the_identity The ASM identity.
+   * @return the key.
+   */
+  private static Pair<String, String> keyFor(final Class<?> the_class,
+                                             final String the_identity) {
+    return new Pair<>(the_class.getName(), the_identity);
+  }
+  
+  /**
+   * Chooses the newer of two states of the same ASM.
+   * 
+   * @param the_first The first state.
+   * @param the_second The second state.
+   * @return whichever state has the higher version.
+   */
+  private static CachedState newer(final CachedState the_first, 
+                                   final CachedState the_second) {
+    final CachedState result;
+    if (the_second.my_version > the_first.my_version) {
+      result = the_second;
+    } else {
+      result = the_first;
+    }
+    return result;
+  }
+  
+  /**
+   * Reports a change to the dashboards affected by the specified ASM.
+   * 
+   * @param the_asm The ASM.
+   */
+  private static void notifyDashboardChange(final AbstractStateMachine the_asm) {
+    if (the_asm instanceof DoSDashboardASM) {
+      DashboardChangeNotifier.stateChanged();
+    } else {
+      try {
+        DashboardChangeNotifier.countyChanged(Long.valueOf(the_asm.identity()));
+      } catch (final NumberFormatException e) {
+        Main.LOGGER.error("Unexpected identity for ASM " + the_asm);
+        DashboardChangeNotifier.stateChanged();
+      }
+    }
+  }
+  
   /**
    * Attempts to step with the specified event on the ASM of the specified
    * class and identity, and persist the resulting state.
@@ -133,4 +469,37 @@ public final class ASMUtilities {
 
     return result;
   }
+  
+  /**
+   * A committed or pending ASM state.
+   */
+  private static final class CachedState {
+    /**
+     * The database ID of the persistent state.
+     */
+    private final Long my_id;
+    
+    /**
+     * The version of the persistent state.
+     */
+    private final Long my_version;
+    
+    /**
+     * The state.
+     */
+    private final ASMState my_state;
+    
+    /**
+     * Constructs a new cached state.
+     * 
+     * @param the_id The database ID of the persistent state.
+     * @param the_version The version of the persistent state.
+     * @param the_state The state.
+     */
+    CachedState(final Long the_id, final Long the_version, final ASMState the_state) {
+      my_id = the_id;
+      my_version = the_version;
+      my_state = the_state;
+    }
+  }
 }
@@ -14,7 +14,9 @@ package us.freeandfair.corla.asm;
 import java.io.Serializable;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import us.freeandfair.corla.Main;
 
@@ -33,6 +35,19 @@ public abstract class AbstractStateMachine implements Serializable {
    */
   private static final long serialVersionUID = 1; 
   
+  /**
+   * The compiled transition functions, by ASM class.
+   */
+  private static final Map<Class<?>, ASMTransitionTable> TABLES = 
+      new ConcurrentHashMap<>();
+  
+  /**
+   * The relation between UI events and ASM transitions, which is the same
+   * for all ASMs.
+   */
+  private static final UIToASMEventRelation UI_TO_ASM_RELATION = 
+      new UIToASMEventRelation();
+  
   /**
    * This ASM's set of states.
    */
@@ -61,8 +76,7 @@ public abstract class AbstractStateMachine implements Serializable {
   /**
    * The relation between UI events and ASM transitions.
    */
-  protected final UIToASMEventRelation my_ui_to_asm_relation = 
-      new UIToASMEventRelation();
+  protected final UIToASMEventRelation my_ui_to_asm_relation = UI_TO_ASM_RELATION;
   
   /**
    * The current state of this ASM. Initialized to the initial state
@@ -76,9 +90,28 @@ public abstract class AbstractStateMachine implements Serializable {
    */
   protected String my_identity;
   
+  /**
+   * The database ID of the persistent state this ASM was loaded from, or
+   * null if it was not loaded from the database.
+   */
+  private transient Long my_persistent_id;
+  
+  /**
+   * The version of the persistent state this ASM was loaded from, or null
+   * if it was not loaded from the database.
+   */
+  private transient Long my_persistent_version;
+  
+  /**
+   * The compiled transition function of this ASM.
+   */
+  private transient ASMTransitionTable my_table;
+  
   /**
    * Constructs an ASM. This constructor takes ownership of all the 
-   * Collections passed to it.
+   * Collections passed to it. The transition function is compiled the 
+   * first time an ASM of a class is constructed, and must be the same
+   * for all the ASMs of that class.
    * 
    * @param the_states the states of the new ASM.
    * @param the_events the events of the new ASM.
@@ -103,6 +136,18 @@ public abstract class AbstractStateMachine implements Serializable {
     my_current_state = the_initial_state;
     my_final_states = the_final_states;
     my_identity = the_identity;
+    my_table = table();
+  }
+  
+  /**
+   * @return the compiled transition function of this ASM.
+   */
+  private ASMTransitionTable table() {
+    if (my_table == null) {
+      my_table = TABLES.computeIfAbsent(getClass(), c -> 
+          new ASMTransitionTable(my_transition_function, my_initial_state, my_events));
+    }
+    return my_table;
   }
   
   /**
@@ -155,6 +200,33 @@ public abstract class AbstractStateMachine implements Serializable {
     my_identity = the_identity;
   }
   
+  /**
+   * @return the database ID of the persistent state this ASM was loaded
+   * from, or null if it was not loaded from the database.
+   */
+  Long persistentID() {
+    return my_persistent_id;
+  }
+  
+  /**
+   * @return the version of the persistent state this ASM was loaded from,
+   * or null if it was not loaded from the database.
+   */
+  Long persistentVersion() {
+    return my_persistent_version;
+  }
+  
+  /**
+   * Records the persistent state this ASM was loaded from, or saved to.
+   * 
+   * @param the_id The database ID of the persistent state.
+   * @param the_version The version of the persistent state.
+   */
+  void setPersistentState(final Long the_id, final Long the_version) {
+    my_persistent_id = the_id;
+    my_persistent_version = the_version;
+  }
+  
   /**
    * @return the UI events enabled in this ASM.  I.e., which UI events
    * correspond to those states reachable from the current state?
@@ -172,17 +244,11 @@ public abstract class AbstractStateMachine implements Serializable {
   /**
    * @return the transitions of this ASM that are enabled. I.e., which
    * states are reachable from the current state, given any possible
-   * event?
+   * event? The returned set is unmodifiable.
    * @trace asm.enabled_events
    */
   public Set<ASMEvent> enabledASMEvents() {
-    final Set<ASMEvent> result = new HashSet<>();
-    for (final ASMTransition t : my_transition_function) {
-      if (t.startStates().contains(my_current_state)) {
-        result.addAll(t.events());
-      }
-    }
-    return result;
+    return table().enabledEvents(my_current_state);
   }
   
   /**
@@ -220,17 +286,9 @@ public abstract class AbstractStateMachine implements Serializable {
    * @throws IllegalStateException is this ASM cannot transition given
    * the provided event.
    */
-  @SuppressWarnings("PMD.CyclomaticComplexity")
   public ASMState stepEvent(final ASMEvent the_event)
       throws IllegalStateException {  
-    ASMState result = null;
-    for (final ASMTransition t : my_transition_function) {
-      if (t.startStates().contains(my_current_state) &&
-          t.events().contains(the_event)) {
-        result = t.endState();
-        break;
-      }
-    }
+    final ASMState result = table().endState(my_current_state, the_event);
     if (result == null) {
       Main.LOGGER.error("ASM event " + the_event + 
                         " failed from state " + my_current_state); 
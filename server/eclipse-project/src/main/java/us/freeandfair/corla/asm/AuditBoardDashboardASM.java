@@ -12,7 +12,9 @@
 package us.freeandfair.corla.asm;
 
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.Set;
 
 import javax.persistence.DiscriminatorValue;
 import javax.persistence.Entity;
@@ -36,6 +38,24 @@ public class AuditBoardDashboardASM extends AbstractStateMachine {
    */
   private static final long serialVersionUID = 1; 
 
+  /**
+   * The states of this ASM.
+   */
+  private static final Set<ASMState> STATES = Collections.unmodifiableSet(
+      new HashSet<ASMState>(Arrays.asList(AuditBoardDashboardState.values())));
+  
+  /**
+   * The events of this ASM.
+   */
+  private static final Set<ASMEvent> EVENTS = Collections.unmodifiableSet(
+      new HashSet<ASMEvent>(Arrays.asList(AuditBoardDashboardEvent.values())));
+  
+  /**
+   * The transition function of this ASM.
+   */
+  private static final Set<ASMTransition> TRANSITIONS = Collections.unmodifiableSet(
+      transitionsFor(Arrays.asList(AuditBoardDashboardTransitionFunction.values())));
+  
   /**
    * The final states of this ASM.
    */
@@ -52,10 +72,9 @@ public class AuditBoardDashboardASM extends AbstractStateMachine {
    */
   //@ requires the_county_id != null;
   public AuditBoardDashboardASM(final String the_county_id) {
-    super(new HashSet<ASMState>(Arrays.asList(AuditBoardDashboardState.values())),
-          new HashSet<ASMEvent>(Arrays.asList(AuditBoardDashboardEvent.values())),
-          transitionsFor(Arrays.
-                         asList(AuditBoardDashboardTransitionFunction.values())),
+    super(STATES,
+          EVENTS,
+          TRANSITIONS,
           AuditBoardDashboardState.AUDIT_INITIAL_STATE,
           SetCreator.setOf(FINAL_STATES),
           the_county_id);
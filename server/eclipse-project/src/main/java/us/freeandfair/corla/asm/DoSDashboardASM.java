@@ -12,7 +12,9 @@
 package us.freeandfair.corla.asm;
 
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.Set;
 
 import javax.persistence.DiscriminatorValue;
 import javax.persistence.Entity;
@@ -41,6 +43,24 @@ public class DoSDashboardASM extends AbstractStateMachine {
    */
   private static final long serialVersionUID = 1; 
 
+  /**
+   * The states of this ASM.
+   */
+  private static final Set<ASMState> STATES = Collections.unmodifiableSet(
+      new HashSet<ASMState>(Arrays.asList(DoSDashboardState.values())));
+  
+  /**
+   * The events of this ASM.
+   */
+  private static final Set<ASMEvent> EVENTS = Collections.unmodifiableSet(
+      new HashSet<ASMEvent>(Arrays.asList(DoSDashboardEvent.values())));
+  
+  /**
+   * The transition function of this ASM.
+   */
+  private static final Set<ASMTransition> TRANSITIONS = Collections.unmodifiableSet(
+      transitionsFor(Arrays.asList(DoSDashboardTransitionFunction.values())));
+  
   /**
    * The final states of this ASM.
    */
@@ -52,10 +72,9 @@ public class DoSDashboardASM extends AbstractStateMachine {
    * @trace asm.dos_asm 
    */
   public DoSDashboardASM() {
-    super(new HashSet<ASMState>(Arrays.asList(DoSDashboardState.values())),
-          new HashSet<ASMEvent>(Arrays.asList(DoSDashboardEvent.values())),
-          transitionsFor(Arrays.
-                         asList(DoSDashboardTransitionFunction.values())),
+    super(STATES,
+          EVENTS,
+          TRANSITIONS,
           DoSDashboardState.DOS_INITIAL_STATE,
           SetCreator.setOf(FINAL_STATES),
           IDENTITY); // there is only one DoS dashboard
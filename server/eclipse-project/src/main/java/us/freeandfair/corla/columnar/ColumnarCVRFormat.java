@@ -0,0 +1,282 @@
+/*
+ * Free & Fair Colorado RLA System
+ * 
+ * @title ColoradoRLA
+ * @created Oct 18, 2026
+ * @copyright 2026 Colorado Department of State
+ * @license SPDX-License-Identifier: AGPL-3.0-or-later
+ * @creator Daniel M. Zimmerman <dmz@freeandfair.us>
+ * @description A system to assist in conducting statewide risk-limiting audits.
+ */
+
+package us.freeandfair.corla.columnar;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import us.freeandfair.corla.util.Varints;
+
+/**
+ * The columnar CVR export format, which is written by ColumnarCVRWriter and
+ * read by ColumnarCVRReader.
+ *
+ * A file is MAGIC, a version byte, a sequence of blocks, and an end marker
+ * (a zero varint). A block holds up to BLOCK_SIZE CVRs; it is its
+ * uncompressed length and compressed length, as varints, followed by its
+ * payload, compressed with Deflate. Blocks can be decoded one at a time,
+ * so neither writer nor reader holds more than one block in memory.
+ *
+ * Contests (ID and name), the choices of each contest, and repeated values
+ * (record types, ballot types and consensus values) are interned to
+ * dictionaries that are shared by all the blocks of a file; each block
+ * starts with the dictionary entries first used in it. The rest of a block
+ * is a sequence of columns, each its length (as a varint) followed by its
+ * values: one value per CVR for the CVR fields, one value per contest
+ * information record for the contest information fields, and, for each
+ * contest, a column of the votes in that contest as fixed-width bitsets
+ * over the contest's choices. Numeric columns are delta-encoded within the
+ * block, so runs of similar values compress well.
+ *
+ * Because votes are stored as bitsets, the choices of a contest information
+ * record are read back in dictionary order. The writer seeds the choice
+ * dictionary of each contest with the contest's declared choices, so that
+ * is the declared order; choices that were not declared follow, in the
+ * order they were first seen.
+ *
+ * @author Daniel M. Zimmerman <dmz@freeandfair.us>
+ * @version 1.0.0
+ */
+final class ColumnarCVRFormat {
+  /**
+   * The bytes at the start of every file.
+   */
+  static final byte[] MAGIC = "CORLACVR".getBytes(StandardCharsets.US_ASCII);
+
+  /**
+   * The format version.
+   */
+  static final int VERSION = 1;
+
+  /**
+   * The maximum number of CVRs in a block.
+   */
+  static final int BLOCK_SIZE = 4096;
+
+  /**
+   * The encoding of a null value.
+   */
+  static final long NULL = 0;
+
+  /**
+   * Private constructor to prevent instantiation.
+   */
+  private ColumnarCVRFormat() {
+    // do nothing
+  }
+
+  /**
+   * Computes the width of the bitsets of a contest.
+   *
+   * @param the_choice_count The number of choices in the contest.
+   * @return the width, in bytes.
+   */
+  static int bitsetWidth(final int the_choice_count) {
+    return (the_choice_count + Byte.SIZE - 1) / Byte.SIZE;
+  }
+
+  /**
+   * The CVR columns, in the order they are written.
+   */
+  enum CVRColumn {
+    ID, RECORD_TYPE, SECONDS, NANOS, COUNTY_ID, CVR_NUMBER, SEQUENCE_NUMBER,
+    SCANNER_ID, BATCH_ID, RECORD_ID, IMPRINTED_ID, BALLOT_TYPE, INFO_COUNT;
+  }
+
+  /**
+   * The contest information columns, in the order they are written.
+   */
+  enum InfoColumn {
+    CONTEST, CONSENSUS, COMMENT;
+  }
+
+  /**
+   * The values of one column of a block, as they are written.
+   */
+  static final class Output {
+    /**
+     * The encoded values.
+     */
+    private final ByteArrayOutputStream my_bytes = new ByteArrayOutputStream();
+
+    /**
+     * The last non-null value written by writeDelta.
+     */
+    private long my_previous;
+
+    /**
+     * Writes an unsigned value.
+     *
+     * @param the_value The value.
+     */
+    void writeUnsigned(final long the_value) {
+      Varints.writeUnsigned(my_bytes, the_value);
+    }
+
+    /**
+     * Writes a value as the difference from the last value written by this
+     * method; null is allowed.
+     *
+     * @param the_value The value.
+     */
+    void writeDelta(final Number the_value) {
+      if (the_value == null) {
+        writeUnsigned(NULL);
+      } else {
+        final long value = the_value.longValue();
+        writeUnsigned(Varints.zigzag(value - my_previous) + 1);
+        my_previous = value;
+      }
+    }
+
+    /**
+     * Writes a string; null is allowed.
+     *
+     * @param the_value The string.
+     */
+    void writeString(final String the_value) {
+      if (the_value == null) {
+        writeUnsigned(NULL);
+      } else {
+        final byte[] bytes = the_value.getBytes(StandardCharsets.UTF_8);
+        writeUnsigned(bytes.length + 1L);
+        my_bytes.write(bytes, 0, bytes.length);
+      }
+    }
+
+    /**
+     * Writes bytes, padded with zeros or truncated to the specified length.
+     *
+     * @param the_bytes The bytes.
+     * @param the_length The length.
+     */
+    void writeBytes(final byte[] the_bytes, final int the_length) {
+      my_bytes.write(Arrays.copyOf(the_bytes, the_length), 0, the_length);
+    }
+
+    /**
+     * Writes the length of this column followed by its values, and
+     * empties it for the next block.
+     *
+     * @param the_out The stream to write to.
+     */
+    void writeTo(final ByteArrayOutputStream the_out) {
+      Varints.writeUnsigned(the_out, my_bytes.size());
+      final byte[] bytes = my_bytes.toByteArray();
+      the_out.write(bytes, 0, bytes.length);
+      my_bytes.reset();
+      my_previous = 0;
+    }
+  }
+
+  /**
+   * The values of one column of a block, as they are read.
+   */
+  static final class Input {
+    /**
+     * The bytes of the block.
+     */
+    private final byte[] my_bytes;
+
+    /**
+     * The position of the next value.
+     */
+    private final int[] my_position;
+
+    /**
+     * The position of the end of the column.
+     */
+    private final int my_end;
+
+    /**
+     * The last non-null value read by readDelta.
+     */
+    private long my_previous;
+
+    /**
+     * Constructs an Input for the column at the specified position in a
+     * block, and advances the position past it.
+     *
+     * @param the_bytes The bytes of the block.
+     * @param the_position A one-element array holding the position of the
+     * column.
+     * @exception IllegalArgumentException if the column is malformed.
+     */
+    Input(final byte[] the_bytes, final int[] the_position) {
+      final long length = Varints.readUnsigned(the_bytes, the_position);
+      if (the_bytes.length - the_position[0] < length) {
+        throw new IllegalArgumentException("truncated column");
+      }
+      my_bytes = the_bytes;
+      my_position = new int[] {the_position[0]};
+      my_end = the_position[0] + (int) length;
+      the_position[0] = my_end;
+    }
+
+    /**
+     * @return the next value, as an unsigned value.
+     * @exception IllegalArgumentException if the column has no more values.
+     */
+    long readUnsigned() {
+      if (my_end <= my_position[0]) {
+        throw new IllegalArgumentException("column too short");
+      }
+      return Varints.readUnsigned(my_bytes, my_position);
+    }
+
+    /**
+     * @return the next value written by Output.writeDelta.
+     * @exception IllegalArgumentException if the column has no more values.
+     */
+    Long readDelta() {
+      final long encoded = readUnsigned();
+      Long result = null;
+      if (encoded != NULL) {
+        my_previous = my_previous + Varints.unzigzag(encoded - 1);
+        result = my_previous;
+      }
+      return result;
+    }
+
+    /**
+     * @return the next string.
+     * @exception IllegalArgumentException if the column has no more values.
+     */
+    String readString() {
+      final long encoded = readUnsigned();
+      String result = null;
+      if (encoded != NULL) {
+        final int length = (int) (encoded - 1);
+        result = new String(readBytes(length), StandardCharsets.UTF_8);
+      }
+      return result;
+    }
+
+    /**
+     * Reads the specified number of bytes.
+     *
+     * @param the_length The number of bytes.
+     * @return the bytes.
+     * @exception IllegalArgumentException if the column has too few bytes.
+     */
+    byte[] readBytes(final int the_length) {
+      if (the_length < 0 || my_end - my_position[0] < the_length) {
+        throw new IllegalArgumentException("column too short");
+      }
+      final byte[] result =
+          Arrays.copyOfRange(my_bytes, my_position[0], my_position[0] + the_length);
+      my_position[0] = my_position[0] + the_length;
+      return result;
+    }
+  }
+}
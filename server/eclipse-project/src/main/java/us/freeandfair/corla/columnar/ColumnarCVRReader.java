@@ -0,0 +1,360 @@
+/*
+ * Free & Fair Colorado RLA System
+ * 
+ * @title ColoradoRLA
+ * @created Oct 18, 2026
+ * @copyright 2026 Colorado Department of State
+ * @license SPDX-License-Identifier: AGPL-3.0-or-later
+ * @creator Daniel M. Zimmerman <dmz@freeandfair.us>
+ * @description A system to assist in conducting statewide risk-limiting audits.
+ */
+
+package us.freeandfair.corla.columnar;
+
+import static us.freeandfair.corla.query.CastVoteRecordRows.BALLOT_TYPE;
+import static us.freeandfair.corla.query.CastVoteRecordRows.BATCH_ID;
+import static us.freeandfair.corla.query.CastVoteRecordRows.CHOICES;
+import static us.freeandfair.corla.query.CastVoteRecordRows.COMMENT;
+import static us.freeandfair.corla.query.CastVoteRecordRows.CONSENSUS;
+import static us.freeandfair.corla.query.CastVoteRecordRows.CONTEST_ID;
+import static us.freeandfair.corla.query.CastVoteRecordRows.CONTEST_NAME;
+import static us.freeandfair.corla.query.CastVoteRecordRows.COUNTY_ID;
+import static us.freeandfair.corla.query.CastVoteRecordRows.CVR_NUMBER;
+import static us.freeandfair.corla.query.CastVoteRecordRows.ID;
+import static us.freeandfair.corla.query.CastVoteRecordRows.IMPRINTED_ID;
+import static us.freeandfair.corla.query.CastVoteRecordRows.RECORD_ID;
+import static us.freeandfair.corla.query.CastVoteRecordRows.RECORD_TYPE;
+import static us.freeandfair.corla.query.CastVoteRecordRows.SCANNER_ID;
+import static us.freeandfair.corla.query.CastVoteRecordRows.SEQUENCE_NUMBER;
+import static us.freeandfair.corla.query.CastVoteRecordRows.TIMESTAMP;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedWriter;
+import java.io.DataInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import com.google.gson.stream.JsonWriter;
+
+import us.freeandfair.corla.columnar.ColumnarCVRFormat.CVRColumn;
+import us.freeandfair.corla.columnar.ColumnarCVRFormat.InfoColumn;
+import us.freeandfair.corla.columnar.ColumnarCVRFormat.Input;
+import us.freeandfair.corla.json.CastVoteRecordRowJsonWriter;
+import us.freeandfair.corla.model.CVRContestInfo.ConsensusValue;
+import us.freeandfair.corla.model.CastVoteRecord.RecordType;
+import us.freeandfair.corla.query.CastVoteRecordRows.RowHandler;
+import us.freeandfair.corla.util.Varints;
+
+/**
+ * Reads files in the columnar CVR export format (see ColumnarCVRFormat),
+ * producing the same rows that CastVoteRecordRows reads from the database.
+ * Run as a program, it converts a file to the JSON of the CVR download
+ * endpoints.
+ *
+ * @author Daniel M. Zimmerman <dmz@freeandfair.us>
+ * @version 1.0.0
+ */
+@SuppressWarnings("PMD.TooManyStaticImports")
+public final class ColumnarCVRReader {
+  /**
+   * The stream to read from.
+   */
+  private final DataInputStream my_in;
+
+  /**
+   * The contest IDs, by contest dictionary index.
+   */
+  private final List<Long> my_contest_ids = new ArrayList<>();
+
+  /**
+   * The contest names, by contest dictionary index.
+   */
+  private final List<String> my_contest_names = new ArrayList<>();
+
+  /**
+   * The choices of each contest, by contest dictionary index.
+   */
+  private final List<List<String>> my_choices = new ArrayList<>();
+
+  /**
+   * The repeated values, by value dictionary index.
+   */
+  private final List<String> my_values = new ArrayList<>();
+
+  /**
+   * Constructs a new ColumnarCVRReader and reads the start of the file.
+   *
+   * @param the_in The stream to read from; it is not closed by this reader.
+   * @exception IOException if the stream cannot be read or is not in the
+   * columnar CVR export format.
+   */
+  public ColumnarCVRReader(final InputStream the_in) throws IOException {
+    my_in = new DataInputStream(the_in);
+    final byte[] magic = new byte[ColumnarCVRFormat.MAGIC.length];
+    my_in.readFully(magic);
+    if (!Arrays.equals(magic, ColumnarCVRFormat.MAGIC)) {
+      throw new IOException("not a columnar CVR file");
+    }
+    final int version = my_in.readUnsignedByte();
+    if (version != ColumnarCVRFormat.VERSION) {
+      throw new IOException("unsupported columnar CVR file version " + version);
+    }
+  }
+
+  /**
+   * Reads the rest of the file.
+   *
+   * @param the_handler The handler for the rows read.
+   * @return the number of CVRs read.
+   * @exception IOException if the stream cannot be read or is malformed, or
+   * if the handler throws one.
+   */
+  public long read(final RowHandler the_handler) throws IOException {
+    long result = 0;
+    long length = Varints.readUnsigned(my_in);
+    while (length != ColumnarCVRFormat.NULL) {
+      final byte[] compressed = new byte[toInt(Varints.readUnsigned(my_in))];
+      my_in.readFully(compressed);
+      final byte[] payload = inflate(compressed, toInt(length));
+      try {
+        result = result + readBlock(payload, the_handler);
+      } catch (final IllegalArgumentException e) {
+        throw new IOException("malformed block", e);
+      }
+      length = Varints.readUnsigned(my_in);
+    }
+    return result;
+  }
+
+  /**
+   * Reads a block.
+   *
+   * @param the_payload The uncompressed payload of the block.
+   * @param the_handler The handler for the rows read.
+   * @return the number of CVRs read.
+   * @exception IOException if the handler throws one.
+   * @exception IllegalArgumentException if the block is malformed.
+   */
+  private int readBlock(final byte[] the_payload, final RowHandler the_handler)
+      throws IOException {
+    final int[] position = {0};
+    final int count = toInt(Varints.readUnsigned(the_payload, position));
+    readDictionaries(the_payload, position);
+
+    final Input[] cvr_columns = new Input[CVRColumn.values().length];
+    for (int i = 0; i < cvr_columns.length; i++) {
+      cvr_columns[i] = new Input(the_payload, position);
+    }
+    final Input[] info_columns = new Input[InfoColumn.values().length];
+    for (int i = 0; i < info_columns.length; i++) {
+      info_columns[i] = new Input(the_payload, position);
+    }
+    final Map<Integer, Input> votes = new HashMap<>();
+    final Map<Integer, Integer> widths = new HashMap<>();
+    final long vote_columns = Varints.readUnsigned(the_payload, position);
+    for (long i = 0; i < vote_columns; i++) {
+      final int contest = toInt(Varints.readUnsigned(the_payload, position));
+      widths.put(contest, toInt(Varints.readUnsigned(the_payload, position)));
+      votes.put(contest, new Input(the_payload, position));
+    }
+
+    for (int i = 0; i < count; i++) {
+      final Object[] cvr = new Object[CONTEST_NAME + 1];
+      cvr[ID] = cvr_columns[CVRColumn.ID.ordinal()].readDelta();
+      cvr[RECORD_TYPE] =
+          RecordType.valueOf(value(cvr_columns[CVRColumn.RECORD_TYPE.ordinal()]));
+      final Long seconds = cvr_columns[CVRColumn.SECONDS.ordinal()].readDelta();
+      if (seconds != null) {
+        cvr[TIMESTAMP] =
+            Instant.ofEpochSecond(seconds,
+                                  cvr_columns[CVRColumn.NANOS.ordinal()].readUnsigned());
+      }
+      cvr[COUNTY_ID] = cvr_columns[CVRColumn.COUNTY_ID.ordinal()].readDelta();
+      cvr[CVR_NUMBER] = toInteger(cvr_columns[CVRColumn.CVR_NUMBER.ordinal()]);
+      cvr[SEQUENCE_NUMBER] = toInteger(cvr_columns[CVRColumn.SEQUENCE_NUMBER.ordinal()]);
+      cvr[SCANNER_ID] = toInteger(cvr_columns[CVRColumn.SCANNER_ID.ordinal()]);
+      cvr[BATCH_ID] = toInteger(cvr_columns[CVRColumn.BATCH_ID.ordinal()]);
+      cvr[RECORD_ID] = toInteger(cvr_columns[CVRColumn.RECORD_ID.ordinal()]);
+      cvr[IMPRINTED_ID] = cvr_columns[CVRColumn.IMPRINTED_ID.ordinal()].readString();
+      cvr[BALLOT_TYPE] = value(cvr_columns[CVRColumn.BALLOT_TYPE.ordinal()]);
+
+      final long info_count = cvr_columns[CVRColumn.INFO_COUNT.ordinal()].readUnsigned();
+      if (info_count == 0) {
+        the_handler.handle(cvr);
+      }
+      for (long j = 0; j < info_count; j++) {
+        final Object[] row = Arrays.copyOf(cvr, cvr.length);
+        final int contest =
+            toInt(info_columns[InfoColumn.CONTEST.ordinal()].readUnsigned());
+        if (my_contest_ids.size() <= contest || !votes.containsKey(contest)) {
+          throw new IllegalArgumentException("unknown contest " + contest);
+        }
+        row[CONTEST_ID] = my_contest_ids.get(contest);
+        row[CONTEST_NAME] = my_contest_names.get(contest);
+        final String consensus = value(info_columns[InfoColumn.CONSENSUS.ordinal()]);
+        if (consensus != null) {
+          row[CONSENSUS] = ConsensusValue.valueOf(consensus);
+        }
+        row[COMMENT] = info_columns[InfoColumn.COMMENT.ordinal()].readString();
+        final BitSet bits = BitSet.valueOf(votes.get(contest).readBytes(widths.get(contest)));
+        final List<String> contest_choices = my_choices.get(contest);
+        final List<String> choices = new ArrayList<>();
+        for (int b = bits.nextSetBit(0); 0 <= b; b = bits.nextSetBit(b + 1)) {
+          if (contest_choices.size() <= b) {
+            throw new IllegalArgumentException("unknown choice " + b);
+          }
+          choices.add(contest_choices.get(b));
+        }
+        row[CHOICES] = choices;
+        the_handler.handle(row);
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Reads the dictionary entries at the start of a block.
+   *
+   * @param the_payload The uncompressed payload of the block.
+   * @param the_position A one-element array holding the position of the
+   * dictionary entries, which is advanced past them.
+   * @exception IllegalArgumentException if the entries are malformed.
+   */
+  private void readDictionaries(final byte[] the_payload, final int[] the_position) {
+    final long contests = Varints.readUnsigned(the_payload, the_position);
+    final Input new_contests = new Input(the_payload, the_position);
+    for (long i = 0; i < contests; i++) {
+      my_contest_ids.add(new_contests.readUnsigned());
+      my_contest_names.add(new_contests.readString());
+      my_choices.add(new ArrayList<>());
+    }
+    final long choices = Varints.readUnsigned(the_payload, the_position);
+    final Input new_choices = new Input(the_payload, the_position);
+    for (long i = 0; i < choices; i++) {
+      final int contest = toInt(new_choices.readUnsigned());
+      if (my_choices.size() <= contest) {
+        throw new IllegalArgumentException("unknown contest " + contest);
+      }
+      my_choices.get(contest).add(new_choices.readString());
+    }
+    final long values = Varints.readUnsigned(the_payload, the_position);
+    final Input new_values = new Input(the_payload, the_position);
+    for (long i = 0; i < values; i++) {
+      my_values.add(new_values.readString());
+    }
+  }
+
+  /**
+   * Reads a repeated value.
+   *
+   * @param the_column The column to read from.
+   * @return the value, or null if it is null.
+   * @exception IllegalArgumentException if the value is not in the dictionary.
+   */
+  private String value(final Input the_column) {
+    final long encoded = the_column.readUnsigned();
+    String result = null;
+    if (encoded != ColumnarCVRFormat.NULL) {
+      if (my_values.size() < encoded) {
+        throw new IllegalArgumentException("unknown value " + encoded);
+      }
+      result = my_values.get((int) (encoded - 1));
+    }
+    return result;
+  }
+
+  /**
+   * Decompresses a block.
+   *
+   * @param the_compressed The compressed block.
+   * @param the_length The uncompressed length of the block.
+   * @return the uncompressed block.
+   * @exception IOException if the block cannot be decompressed to the
+   * specified length.
+   */
+  private static byte[] inflate(final byte[] the_compressed, final int the_length)
+      throws IOException {
+    final byte[] result = new byte[the_length];
+    final Inflater inflater = new Inflater();
+    try {
+      inflater.setInput(the_compressed);
+      int inflated = 0;
+      while (inflated < the_length && !inflater.finished() && !inflater.needsInput()) {
+        inflated = inflated + inflater.inflate(result, inflated, the_length - inflated);
+      }
+      if (inflated != the_length || !inflater.finished()) {
+        throw new IOException("block has the wrong length");
+      }
+    } catch (final DataFormatException e) {
+      throw new IOException("malformed compressed block", e);
+    } finally {
+      inflater.end();
+    }
+    return result;
+  }
+
+  /**
+   * Reads a nullable delta-encoded integer.
+   *
+   * @param the_column The column to read from.
+   * @return the integer, or null if it is null.
+   */
+  private static Integer toInteger(final Input the_column) {
+    final Long value = the_column.readDelta();
+    Integer result = null;
+    if (value != null) {
+      result = value.intValue();
+    }
+    return result;
+  }
+
+  /**
+   * Converts a length or index to an int.
+   *
+   * @param the_value The value.
+   * @return the value, as an int.
+   * @exception IllegalArgumentException if the value is too large.
+   */
+  private static int toInt(final long the_value) {
+    if (the_value < 0 || Integer.MAX_VALUE < the_value) {
+      throw new IllegalArgumentException("value out of range: " + the_value);
+    }
+    return (int) the_value;
+  }
+
+  /**
+   * Converts a columnar CVR file to JSON, written to standard output.
+   *
+   * @param the_args The name of the file; standard input is read if there
+   * is none.
+   */
+  @SuppressWarnings({"PMD.SystemPrintln", "PMD.DoNotCallSystemExit"})
+  public static void main(final String... the_args) {
+    try (InputStream in = new BufferedInputStream(the_args.length == 0 ?
+                                                  System.in :
+                                                  new FileInputStream(the_args[0]));
+         JsonWriter jw = new JsonWriter(new BufferedWriter(
+             new OutputStreamWriter(System.out, StandardCharsets.UTF_8)))) {
+      final CastVoteRecordRowJsonWriter cvrs = new CastVoteRecordRowJsonWriter(jw);
+      jw.beginArray();
+      new ColumnarCVRReader(in).read(cvrs);
+      cvrs.finish();
+      jw.endArray();
+    } catch (final IOException | IllegalArgumentException e) {
+      System.err.println("could not convert columnar CVR file: " + e.getMessage());
+      System.exit(1);
+    }
+  }
+}
@@ -0,0 +1,420 @@
+/*
+ * Free & Fair Colorado RLA System
+ * 
+ * @title ColoradoRLA
+ * @created Oct 18, 2026
+ * @copyright 2026 Colorado Department of State
+ * @license SPDX-License-Identifier: AGPL-3.0-or-later
+ * @creator Daniel M. Zimmerman <dmz@freeandfair.us>
+ * @description A system to assist in conducting statewide risk-limiting audits.
+ */
+
+package us.freeandfair.corla.columnar;
+
+import static us.freeandfair.corla.query.CastVoteRecordRows.BALLOT_TYPE;
+import static us.freeandfair.corla.query.CastVoteRecordRows.BATCH_ID;
+import static us.freeandfair.corla.query.CastVoteRecordRows.CHOICES;
+import static us.freeandfair.corla.query.CastVoteRecordRows.COMMENT;
+import static us.freeandfair.corla.query.CastVoteRecordRows.CONSENSUS;
+import static us.freeandfair.corla.query.CastVoteRecordRows.CONTEST_ID;
+import static us.freeandfair.corla.query.CastVoteRecordRows.CONTEST_NAME;
+import static us.freeandfair.corla.query.CastVoteRecordRows.COUNTY_ID;
+import static us.freeandfair.corla.query.CastVoteRecordRows.CVR_NUMBER;
+import static us.freeandfair.corla.query.CastVoteRecordRows.ID;
+import static us.freeandfair.corla.query.CastVoteRecordRows.IMPRINTED_ID;
+import static us.freeandfair.corla.query.CastVoteRecordRows.RECORD_ID;
+import static us.freeandfair.corla.query.CastVoteRecordRows.RECORD_TYPE;
+import static us.freeandfair.corla.query.CastVoteRecordRows.SCANNER_ID;
+import static us.freeandfair.corla.query.CastVoteRecordRows.SEQUENCE_NUMBER;
+import static us.freeandfair.corla.query.CastVoteRecordRows.TIMESTAMP;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+import us.freeandfair.corla.columnar.ColumnarCVRFormat.CVRColumn;
+import us.freeandfair.corla.columnar.ColumnarCVRFormat.InfoColumn;
+import us.freeandfair.corla.columnar.ColumnarCVRFormat.Output;
+import us.freeandfair.corla.query.CastVoteRecordRows.RowHandler;
+import us.freeandfair.corla.util.Varints;
+
+/**
+ * Writes the rows read by CastVoteRecordRows in the columnar CVR export
+ * format (see ColumnarCVRFormat). Rows are buffered a block at a time;
+ * finish() must be called to write the last block and the end of the file.
+ *
+ * @author Daniel M. Zimmerman <dmz@freeandfair.us>
+ * @version 1.0.0
+ */
+@SuppressWarnings({"PMD.TooManyFields", "PMD.TooManyStaticImports"})
+public final class ColumnarCVRWriter implements RowHandler {
+  /**
+   * The stream to write to.
+   */
+  private final OutputStream my_out;
+
+  /**
+   * The declared choices of each contest, by contest ID.
+   */
+  private final Function<Long, List<String>> my_declared_choices;
+
+  /**
+   * The dictionary index of each contest, by contest ID.
+   */
+  private final Map<Object, Integer> my_contests = new HashMap<>();
+
+  /**
+   * The dictionary index of each choice, for each contest dictionary index.
+   */
+  private final List<Map<String, Integer>> my_choices = new ArrayList<>();
+
+  /**
+   * The dictionary index of each repeated value.
+   */
+  private final Map<String, Integer> my_values = new HashMap<>();
+
+  /**
+   * The contest dictionary entries first used in the current block.
+   */
+  private final Output my_new_contests = new Output();
+
+  /**
+   * The choice dictionary entries first used in the current block.
+   */
+  private final Output my_new_choices = new Output();
+
+  /**
+   * The value dictionary entries first used in the current block.
+   */
+  private final Output my_new_values = new Output();
+
+  /**
+   * The CVR columns, in the order they are written.
+   */
+  private final Output[] my_cvr_columns = new Output[CVRColumn.values().length];
+
+  /**
+   * The contest information columns, in the order they are written.
+   */
+  private final Output[] my_info_columns = new Output[InfoColumn.values().length];
+
+  /**
+   * The votes in the current block, by contest dictionary index.
+   */
+  private final Map<Integer, List<BitSet>> my_votes = new TreeMap<>();
+
+  /**
+   * The number of contest dictionary entries first used in the current block.
+   */
+  private int my_new_contest_count;
+
+  /**
+   * The number of choice dictionary entries first used in the current block.
+   */
+  private int my_new_choice_count;
+
+  /**
+   * The number of value dictionary entries first used in the current block.
+   */
+  private int my_new_value_count;
+
+  /**
+   * The number of CVRs in the current block.
+   */
+  private int my_block_count;
+
+  /**
+   * The ID of the CVR being written, or null if there is none.
+   */
+  private Object my_current_id;
+
+  /**
+   * The number of contest information records of the CVR being written.
+   */
+  private int my_current_info_count;
+
+  /**
+   * The number of CVRs written.
+   */
+  private long my_count;
+
+  /**
+   * Constructs a new ColumnarCVRWriter and writes the start of the file.
+   *
+   * @param the_out The stream to write to; it is not closed by this writer.
+   * @param the_declared_choices A function from a contest ID to the names of
+   * the contest's choices, in their declared order, or to null if they are
+   * not known; it is called once per contest, and the choices of the contest
+   * are read back in that order.
+   * @exception IOException if the start of the file cannot be written.
+   */
+  public ColumnarCVRWriter(final OutputStream the_out,
+                           final Function<Long, List<String>> the_declared_choices)
+      throws IOException {
+    my_out = the_out;
+    my_declared_choices = the_declared_choices;
+    for (int i = 0; i < my_cvr_columns.length; i++) {
+      my_cvr_columns[i] = new Output();
+    }
+    for (int i = 0; i < my_info_columns.length; i++) {
+      my_info_columns[i] = new Output();
+    }
+    my_out.write(ColumnarCVRFormat.MAGIC);
+    my_out.write(ColumnarCVRFormat.VERSION);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void handle(final Object[] the_row) throws IOException {
+    if (!the_row[ID].equals(my_current_id)) {
+      finishCVR();
+      startCVR(the_row);
+    }
+    if (the_row[CONTEST_ID] != null) {
+      writeContestInfo(the_row);
+    }
+  }
+
+  /**
+   * Writes the last block, if any, and the end of the file, and flushes
+   * the stream.
+   *
+   * @exception IOException if the file cannot be written.
+   */
+  public void finish() throws IOException {
+    finishCVR();
+    if (0 < my_block_count) {
+      writeBlock();
+    }
+    final ByteArrayOutputStream end = new ByteArrayOutputStream();
+    Varints.writeUnsigned(end, ColumnarCVRFormat.NULL);
+    end.writeTo(my_out);
+    my_out.flush();
+  }
+
+  /**
+   * @return the number of CVRs written.
+   */
+  public long count() {
+    return my_count;
+  }
+
+  /**
+   * Writes the CVR fields of a row.
+   *
+   * @param the_row The first row of the CVR.
+   */
+  private void startCVR(final Object[] the_row) {
+    my_current_id = the_row[ID];
+    my_current_info_count = 0;
+    column(CVRColumn.ID).writeDelta((Number) the_row[ID]);
+    column(CVRColumn.RECORD_TYPE).writeUnsigned(value(the_row[RECORD_TYPE]));
+    final Instant timestamp = (Instant) the_row[TIMESTAMP];
+    if (timestamp == null) {
+      column(CVRColumn.SECONDS).writeDelta(null);
+    } else {
+      column(CVRColumn.SECONDS).writeDelta(timestamp.getEpochSecond());
+      column(CVRColumn.NANOS).writeUnsigned(timestamp.getNano());
+    }
+    column(CVRColumn.COUNTY_ID).writeDelta((Number) the_row[COUNTY_ID]);
+    column(CVRColumn.CVR_NUMBER).writeDelta((Number) the_row[CVR_NUMBER]);
+    column(CVRColumn.SEQUENCE_NUMBER).writeDelta((Number) the_row[SEQUENCE_NUMBER]);
+    column(CVRColumn.SCANNER_ID).writeDelta((Number) the_row[SCANNER_ID]);
+    column(CVRColumn.BATCH_ID).writeDelta((Number) the_row[BATCH_ID]);
+    column(CVRColumn.RECORD_ID).writeDelta((Number) the_row[RECORD_ID]);
+    column(CVRColumn.IMPRINTED_ID).writeString((String) the_row[IMPRINTED_ID]);
+    column(CVRColumn.BALLOT_TYPE).writeUnsigned(value(the_row[BALLOT_TYPE]));
+  }
+
+  /**
+   * Writes the contest information fields of a row.
+   *
+   * @param the_row The row.
+   */
+  private void writeContestInfo(final Object[] the_row) {
+    final int contest = contest(the_row[CONTEST_ID], (String) the_row[CONTEST_NAME]);
+    column(InfoColumn.CONTEST).writeUnsigned(contest);
+    column(InfoColumn.CONSENSUS).writeUnsigned(value(the_row[CONSENSUS]));
+    column(InfoColumn.COMMENT).writeString((String) the_row[COMMENT]);
+    final BitSet votes = new BitSet();
+    if (the_row[CHOICES] != null) {
+      for (final Object choice : (List<?>) the_row[CHOICES]) {
+        votes.set(choice(contest, (String) choice));
+      }
+    }
+    my_votes.computeIfAbsent(contest, c -> new ArrayList<>()).add(votes);
+    my_current_info_count = my_current_info_count + 1;
+  }
+
+  /**
+   * Finishes the CVR being written, if any, and writes the block if it
+   * is full.
+   *
+   * @exception IOException if the block cannot be written.
+   */
+  private void finishCVR() throws IOException {
+    if (my_current_id != null) {
+      column(CVRColumn.INFO_COUNT).writeUnsigned(my_current_info_count);
+      my_current_id = null;
+      my_block_count = my_block_count + 1;
+      my_count = my_count + 1;
+      if (my_block_count == ColumnarCVRFormat.BLOCK_SIZE) {
+        writeBlock();
+      }
+    }
+  }
+
+  /**
+   * Writes the current block and empties it.
+   *
+   * @exception IOException if the block cannot be written.
+   */
+  private void writeBlock() throws IOException {
+    final ByteArrayOutputStream payload = new ByteArrayOutputStream();
+    Varints.writeUnsigned(payload, my_block_count);
+    Varints.writeUnsigned(payload, my_new_contest_count);
+    my_new_contests.writeTo(payload);
+    Varints.writeUnsigned(payload, my_new_choice_count);
+    my_new_choices.writeTo(payload);
+    Varints.writeUnsigned(payload, my_new_value_count);
+    my_new_values.writeTo(payload);
+    for (final Output column : my_cvr_columns) {
+      column.writeTo(payload);
+    }
+    for (final Output column : my_info_columns) {
+      column.writeTo(payload);
+    }
+    Varints.writeUnsigned(payload, my_votes.size());
+    final Output votes = new Output();
+    for (final Map.Entry<Integer, List<BitSet>> entry : my_votes.entrySet()) {
+      final int width = ColumnarCVRFormat.bitsetWidth(my_choices.get(entry.getKey()).size());
+      Varints.writeUnsigned(payload, entry.getKey());
+      Varints.writeUnsigned(payload, width);
+      for (final BitSet bits : entry.getValue()) {
+        votes.writeBytes(bits.toByteArray(), width);
+      }
+      votes.writeTo(payload);
+    }
+
+    final ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+    final Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+    try (DeflaterOutputStream dos = new DeflaterOutputStream(compressed, deflater)) {
+      payload.writeTo(dos);
+    } finally {
+      deflater.end();
+    }
+    final ByteArrayOutputStream header = new ByteArrayOutputStream();
+    Varints.writeUnsigned(header, payload.size());
+    Varints.writeUnsigned(header, compressed.size());
+    header.writeTo(my_out);
+    compressed.writeTo(my_out);
+
+    my_new_contest_count = 0;
+    my_new_choice_count = 0;
+    my_new_value_count = 0;
+    my_block_count = 0;
+    my_votes.clear();
+  }
+
+  /**
+   * Gets the dictionary index of a contest, adding it and its declared
+   * choices to the dictionaries if necessary.
+   *
+   * @param the_id The contest ID.
+   * @param the_name The contest name.
+   * @return the index.
+   */
+  private int contest(final Object the_id, final String the_name) {
+    Integer result = my_contests.get(the_id);
+    if (result == null) {
+      result = my_contests.size();
+      my_contests.put(the_id, result);
+      my_choices.add(new HashMap<>());
+      my_new_contests.writeUnsigned(((Number) the_id).longValue());
+      my_new_contests.writeString(the_name);
+      my_new_contest_count = my_new_contest_count + 1;
+      final List<String> declared = my_declared_choices.apply(((Number) the_id).longValue());
+      if (declared != null) {
+        for (final String choice : declared) {
+          choice(result, choice);
+        }
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Gets the dictionary index of a choice in a contest, adding it to the
+   * dictionary if necessary; choices that were not declared are added as
+   * they are first seen.
+   *
+   * @param the_contest The contest dictionary index.
+   * @param the_choice The choice.
+   * @return the index.
+   */
+  private int choice(final int the_contest, final String the_choice) {
+    final Map<String, Integer> choices = my_choices.get(the_contest);
+    Integer result = choices.get(the_choice);
+    if (result == null) {
+      result = choices.size();
+      choices.put(the_choice, result);
+      my_new_choices.writeUnsigned(the_contest);
+      my_new_choices.writeString(the_choice);
+      my_new_choice_count = my_new_choice_count + 1;
+    }
+    return result;
+  }
+
+  /**
+   * Gets the encoding of a repeated value, adding it to the dictionary if
+   * necessary.
+   *
+   * @param the_value The value, which is written as its string
+   * representation; null is allowed.
+   * @return the encoding: NULL for null, or one more than the dictionary
+   * index.
+   */
+  private long value(final Object the_value) {
+    long result = ColumnarCVRFormat.NULL;
+    if (the_value != null) {
+      final String value = the_value.toString();
+      Integer index = my_values.get(value);
+      if (index == null) {
+        index = my_values.size();
+        my_values.put(value, index);
+        my_new_values.writeString(value);
+        my_new_value_count = my_new_value_count + 1;
+      }
+      result = index + 1L;
+    }
+    return result;
+  }
+
+  /**
+   * @param the_column The column.
+   * @return the output for a CVR column.
+   */
+  private Output column(final CVRColumn the_column) {
+    return my_cvr_columns[the_column.ordinal()];
+  }
+
+  /**
+   * @param the_column The column.
+   * @return the output for a contest information column.
+   */
+  private Output column(final InfoColumn the_column) {
+    return my_info_columns[the_column.ordinal()];
+  }
+}
@@ -0,0 +1,186 @@
+/*
+ * Free & Fair Colorado RLA System
+ * 
+ * @title ColoradoRLA
+ * @created Oct 18, 2026
+ * @copyright 2026 Colorado Department of State
+ * @license SPDX-License-Identifier: AGPL-3.0-or-later
+ * @creator Daniel M. Zimmerman <dmz@freeandfair.us>
+ * @description A system to assist in conducting statewide risk-limiting audits.
+ */
+
+package us.freeandfair.corla.controller;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import us.freeandfair.corla.Main;
+import us.freeandfair.corla.crypto.PseudoRandomNumberGenerator;
+
+/**
+ * A process-wide cache of the audit random sequence for each county. The
+ * sequence for a county depends only on the random seed and the number of
+ * uploaded CVRs, so each county's generator is kept, keyed by those two values,
+ * and extended only as far as the highest index requested so far. A request
+ * with a different seed or CVR count replaces the county's generator.
+ *
+ * @author Daniel M. Zimmerman <dmz@freeandfair.us>
+ * @version 1.0.0
+ */
+public final class AuditSequenceCache {
+  /**
+   * The cached sequences, by county ID.
+   */
+  private static final Map<Long, CachedSequence> SEQUENCES = new ConcurrentHashMap<>();
+
+  /**
+   * The number of requests served entirely from already-generated draws.
+   */
+  private static final AtomicLong HITS = new AtomicLong();
+
+  /**
+   * The number of requests that required new draws.
+   */
+  private static final AtomicLong MISSES = new AtomicLong();
+
+  /**
+   * The number of times a county's cached sequence was discarded.
+   */
+  private static final AtomicLong INVALIDATIONS = new AtomicLong();
+
+  /**
+   * Private constructor to prevent instantiation.
+   */
+  private AuditSequenceCache() {
+    // do nothing
+  }
+
+  /**
+   * Gets the specified range of the audit sequence for the specified county,
+   * generating only those draws that have not been generated before.
+   *
+   * @param the_county_id The county ID.
+   * @param the_seed The random seed.
+   * @param the_cvr_count The number of uploaded CVRs in the county.
+   * @param the_min_index The minimum index to return.
+   * @param the_max_index The maximum index to return (inclusive).
+   * @return the list of sequence numbers, of size
+   * the_max_index - the_min_index + 1.
+   */
+  public static List<Integer> sequence(final Long the_county_id,
+                                       final String the_seed,
+                                       final int the_cvr_count,
+                                       final int the_min_index,
+                                       final int the_max_index) {
+    final CachedSequence cached =
+        SEQUENCES.compute(the_county_id, (the_id, the_old) -> {
+          if (the_old != null && the_old.matches(the_seed, the_cvr_count)) {
+            return the_old;
+          }
+          if (the_old != null) {
+            INVALIDATIONS.incrementAndGet();
+            Main.LOGGER.debug("discarding audit sequence for county " + the_id +
+                              " after seed or CVR count change");
+          }
+          return new CachedSequence(the_seed, the_cvr_count);
+        });
+
+    synchronized (cached) {
+      if (the_max_index < cached.my_prng.size()) {
+        HITS.incrementAndGet();
+      } else {
+        MISSES.incrementAndGet();
+      }
+      return cached.my_prng.getRandomNumbers(the_min_index, the_max_index);
+    }
+  }
+
+  /**
+   * Discards the cached sequence for the specified county, if there is one.
+   *
+   * @param the_county_id The county ID.
+   */
+  public static void invalidate(final Long the_county_id) {
+    if (SEQUENCES.remove(the_county_id) != null) {
+      INVALIDATIONS.incrementAndGet();
+    }
+  }
+
+  /**
+   * Discards all cached sequences.
+   */
+  public static void invalidateAll() {
+    INVALIDATIONS.addAndGet(SEQUENCES.size());
+    SEQUENCES.clear();
+  }
+
+  /**
+   * @return the number of requests served entirely from the cache.
+   */
+  public static long hits() {
+    return HITS.get();
+  }
+
+  /**
+   * @return the number of requests that required new draws.
+   */
+  public static long misses() {
+    return MISSES.get();
+  }
+
+  /**
+   * @return the number of cached sequences that have been discarded.
+   */
+  public static long invalidations() {
+    return INVALIDATIONS.get();
+  }
+
+  /**
+   * A county's generator, together with the seed and CVR count it was
+   * created for.
+   */
+  private static final class CachedSequence {
+    /**
+     * The seed.
+     */
+    private final String my_seed;
+
+    /**
+     * The CVR count.
+     */
+    private final int my_cvr_count;
+
+    /**
+     * The generator.
+     */
+    private final PseudoRandomNumberGenerator my_prng;
+
+    /**
+     * Constructs a new cached sequence.
+     *
+     * @param the_seed The seed.
+     * @param the_cvr_count The CVR count.
+     */
+    CachedSequence(final String the_seed, final int the_cvr_count) {
+      my_seed = the_seed;
+      my_cvr_count = the_cvr_count;
+      // the sequence generator generates a sequence of the numbers
+      // minimum ... maximum inclusive, and CVRs are indexed from 0
+      my_prng = new PseudoRandomNumberGenerator(the_seed, true, 0, the_cvr_count - 1);
+    }
+
+    /**
+     * Checks whether this sequence was created for the specified seed and
+     * CVR count.
+     *
+     * @param the_seed The seed.
+     * @param the_cvr_count The CVR count.
+     * @return true if it was, false otherwise.
+     */
+    boolean matches(final String the_seed, final int the_cvr_count) {
+      return my_cvr_count == the_cvr_count && my_seed.equals(the_seed);
+    }
+  }
+}
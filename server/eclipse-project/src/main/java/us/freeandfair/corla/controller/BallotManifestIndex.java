@@ -0,0 +1,224 @@
+/*
+ * Free & Fair Colorado RLA System
+ * 
+ * @title ColoradoRLA
+ * @created Oct 18, 2026
+ * @copyright 2026 Colorado Department of State
+ * @license SPDX-License-Identifier: AGPL-3.0-or-later
+ * @creator Daniel M. Zimmerman <dmz@freeandfair.us>
+ * @description A system to assist in conducting statewide risk-limiting audits.
+ */
+
+package us.freeandfair.corla.controller;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import us.freeandfair.corla.model.BallotManifestInfo;
+import us.freeandfair.corla.persistence.Persistence;
+import us.freeandfair.corla.query.BallotManifestInfoQueries;
+
+/**
+ * An index of a county's ballot manifest that maps ballot numbers onto
+ * physical ballots. The ballots of the county are numbered from 0, batch by
+ * batch in order of scanner and batch ID, and the index holds the number of
+ * the first ballot in each batch; the batch containing a ballot is found by
+ * binary search.
+ *
+ * Indexes are cached per county and loaded on first use; the cached index
+ * for a county must be invalidated when its manifest is imported.
+ *
+ * @author Daniel M. Zimmerman <dmz@freeandfair.us>
+ * @version 1.0.0
+ */
+public final class BallotManifestIndex {
+  /**
+   * The order of batches in the index.
+   */
+  private static final Comparator<BallotManifestInfo> BATCH_ORDER =
+      Comparator.comparing(BallotManifestInfo::scannerID).
+      thenComparing(BallotManifestInfo::batchID);
+
+  /**
+   * The cached indexes, by county ID.
+   */
+  private static final Map<Long, BallotManifestIndex> INDEXES = new ConcurrentHashMap<>();
+
+  /**
+   * The number of invalidations so far; an index loaded while this changes
+   * might be out of date, so it is not cached.
+   */
+  private static final AtomicLong GENERATION = new AtomicLong();
+
+  /**
+   * The batches with at least one ballot, in order.
+   */
+  private final BallotManifestInfo[] my_batches;
+
+  /**
+   * The number of the first ballot in each batch.
+   */
+  private final long[] my_starts;
+
+  /**
+   * The total number of ballots.
+   */
+  private final long my_ballot_count;
+
+  /**
+   * Constructs a new index.
+   *
+   * @param the_batches The batches of a county's manifest, in any order.
+   */
+  public BallotManifestIndex(final Collection<BallotManifestInfo> the_batches) {
+    final List<BallotManifestInfo> batches = new ArrayList<>(the_batches.size());
+    for (final BallotManifestInfo bmi : the_batches) {
+      if (bmi.batchSize() > 0) {
+        batches.add(bmi);
+      }
+    }
+    batches.sort(BATCH_ORDER);
+
+    my_batches = batches.toArray(new BallotManifestInfo[batches.size()]);
+    my_starts = new long[my_batches.length];
+    long count = 0;
+    for (int i = 0; i < my_batches.length; i++) {
+      my_starts[i] = count;
+      count = count + my_batches[i].batchSize();
+    }
+    my_ballot_count = count;
+  }
+
+  /**
+   * Gets the index for the specified county, loading it if necessary. This
+   * must be called within a transaction.
+   *
+   * @param the_county_id The county ID.
+   * @return the index, or null if the manifest cannot be loaded.
+   */
+  public static BallotManifestIndex forCounty(final Long the_county_id) {
+    BallotManifestIndex result = INDEXES.get(the_county_id);
+    if (result == null) {
+      final long generation = GENERATION.get();
+      final List<BallotManifestInfo> batches =
+          BallotManifestInfoQueries.getForCounty(the_county_id);
+      if (batches != null) {
+        result = new BallotManifestIndex(batches);
+        if (GENERATION.get() == generation) {
+          INDEXES.put(the_county_id, result);
+        }
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Discards the cached index for the specified county, both now and when
+   * the current transaction commits (so that an index loaded in the meantime
+   * from the old manifest is discarded as well).
+   *
+   * @param the_county_id The county ID.
+   */
+  public static void invalidate(final Long the_county_id) {
+    discard(the_county_id);
+    Persistence.afterCommit(() -> discard(the_county_id));
+  }
+
+  /**
+   * Discards all cached indexes.
+   */
+  public static void invalidateAll() {
+    GENERATION.incrementAndGet();
+    INDEXES.clear();
+  }
+
+  /**
+   * Discards the cached index for the specified county.
+   *
+   * @param the_county_id The county ID.
+   */
+  private static void discard(final Long the_county_id) {
+    GENERATION.incrementAndGet();
+    INDEXES.remove(the_county_id);
+  }
+
+  /**
+   * @return the total number of ballots in the manifest.
+   */
+  public long ballotCount() {
+    return my_ballot_count;
+  }
+
+  /**
+   * @return the number of batches with at least one ballot.
+   */
+  public int batchCount() {
+    return my_batches.length;
+  }
+
+  /**
+   * Finds the physical ballot with the specified number.
+   *
+   * @param the_ballot The ballot number, from 0 to ballotCount() - 1.
+   * @return the ballot's location.
+   * @exception IndexOutOfBoundsException if there is no such ballot.
+   */
+  public Location locate(final long the_ballot) {
+    if (the_ballot < 0 || my_ballot_count <= the_ballot) {
+      throw new IndexOutOfBoundsException("ballot " + the_ballot + " of " +
+                                          my_ballot_count);
+    }
+    int batch = Arrays.binarySearch(my_starts, the_ballot);
+    if (batch < 0) {
+      // the ballot is in the batch before the insertion point
+      batch = -batch - 2;
+    }
+    return new Location(my_batches[batch], (int) (the_ballot - my_starts[batch]) + 1);
+  }
+
+  /**
+   * The location of a physical ballot.
+   */
+  public static final class Location {
+    /**
+     * The batch.
+     */
+    private final BallotManifestInfo my_batch;
+
+    /**
+     * The position in the batch, from 1.
+     */
+    private final int my_position;
+
+    /**
+     * Constructs a new location.
+     *
+     * @param the_batch The batch.
+     * @param the_position The position in the batch, from 1.
+     */
+    Location(final BallotManifestInfo the_batch, final int the_position) {
+      my_batch = the_batch;
+      my_position = the_position;
+    }
+
+    /**
+     * @return the batch.
+     */
+    public BallotManifestInfo batch() {
+      return my_batch;
+    }
+
+    /**
+     * @return the position in the batch, from 1.
+     */
+    public int position() {
+      return my_position;
+    }
+  }
+}
@@ -13,7 +13,7 @@ package us.freeandfair.corla.controller;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -25,9 +25,9 @@ import java.util.SortedSet;
 import java.util.TreeSet;
 
 import us.freeandfair.corla.Main;
-import us.freeandfair.corla.crypto.PseudoRandomNumberGenerator;
 import us.freeandfair.corla.model.AuditReason;
 import us.freeandfair.corla.model.AuditType;
+import us.freeandfair.corla.model.BallotReportFact;
 import us.freeandfair.corla.model.CVRAuditInfo;
 import us.freeandfair.corla.model.CVRContestInfo;
 import us.freeandfair.corla.model.CVRContestInfo.ConsensusValue;
@@ -42,8 +42,11 @@ import us.freeandfair.corla.model.CountyDashboard;
 import us.freeandfair.corla.model.DoSDashboard;
 import us.freeandfair.corla.model.Round;
 import us.freeandfair.corla.persistence.Persistence;
+import us.freeandfair.corla.query.BallotReportFactQueries;
+import us.freeandfair.corla.query.CVRAuditInfoQueries;
 import us.freeandfair.corla.query.CastVoteRecordQueries;
 import us.freeandfair.corla.query.CountyContestResultQueries;
+import us.freeandfair.corla.util.SortedLongSet;
 
 /**
  * Controller methods relevant to comparison audits.
@@ -84,19 +87,10 @@ public final class ComparisonAuditController {
 
     final String seed = 
         Persistence.getByID(DoSDashboard.ID, DoSDashboard.class).auditInfo().seed();
-    final boolean with_replacement = true;
-    // assuming that CVRs are indexed from 0
-    final int minimum = 0;
-    // the number of CVRs for the_contest_to_audit - note that the sequence
-    // generator generates a sequence of the numbers minimum ... maximum 
-    // inclusive, so we subtract 1 from the number of CVRs to give it the
-    // correct range for our actual list of CVRs (indexed from 0).
-    final int maximum = (int) count.getAsLong() - 1;
-
-    final PseudoRandomNumberGenerator prng = 
-        new PseudoRandomNumberGenerator(seed, with_replacement,
-                                        minimum, maximum);
-    return prng.getRandomNumbers(the_min_index, the_max_index);
+    // the sequence is sampled with replacement from the CVRs, indexed from 0;
+    // the cache extends the county's sequence only as far as necessary
+    return AuditSequenceCache.sequence(the_county.id(), seed, (int) count.getAsLong(),
+                                       the_min_index, the_max_index);
   }
   
   /**
@@ -140,30 +134,44 @@ public final class ComparisonAuditController {
   }
   
   /**
-   * Gets all CVRs to audit in the specified round for the specified county
-   * dashboard. This returns a list in audit random sequence order.
+   * Gets the report data for the CVRs to audit in each round for the 
+   * specified county dashboard, in ballot order. The data for all rounds
+   * is read with a single query; CVRs that entered the audit before report
+   * data was kept have their report data computed from their CVRAuditInfo
+   * objects instead.
    * 
-   * @param the_dashboard The dashboard.
-   * @param the_round_number The round number (indexed from 1).
-   * @return the CVRs to audit in the specified round.
-   * @exception IllegalArgumentException if the specified round doesn't exist.
+   * @param the_cdb The dashboard.
+   * @return the report data for the CVRs to audit, by round number.
+   * @exception IllegalStateException if the database cannot be queried.
    */
-  public static List<CVRAuditInfo> cvrsToAuditInRound(final CountyDashboard the_cdb,
-                                                      final int the_round_number) {
-    if (the_round_number < 1 || the_cdb.rounds().size() < the_round_number) {
-      throw new IllegalArgumentException("invalid round specified");
-    }
-    final Round round = the_cdb.rounds().get(the_round_number - 1);
-    final Set<Long> id_set = new HashSet<>();
-    final List<CVRAuditInfo> result = new ArrayList<>();
-    
-    for (final Long cvr_id : round.auditSubsequence()) {
-      if (!id_set.contains(cvr_id)) {
-        id_set.add(cvr_id);
-        result.add(Persistence.getByID(cvr_id, CVRAuditInfo.class));
+  public static Map<Integer, List<BallotReportFact>> 
+      ballotReportFactsByRound(final CountyDashboard the_cdb) {
+    final Map<Long, BallotReportFact> facts = 
+        BallotReportFactQueries.forCounty(the_cdb.id());
+    if (facts == null) {
+      throw new IllegalStateException("unable to load report data for CVRs");
+    }
+    final Set<Long> missing_ids = new HashSet<>();
+    for (final Round round : the_cdb.rounds()) {
+      missing_ids.addAll(round.auditSubsequence());
+    }
+    missing_ids.removeAll(facts.keySet());
+    if (!missing_ids.isEmpty()) {
+      // these are not saved, because this may be called in a read-only session
+      for (final CVRAuditInfo info : auditInfos(missing_ids).values()) {
+        facts.put(info.id(), new BallotReportFact(info));
       }
     }
     
+    final Map<Integer, List<BallotReportFact>> result = new HashMap<>();
+    for (final Round round : the_cdb.rounds()) {
+      final List<BallotReportFact> round_facts = new ArrayList<>();
+      for (final Long cvr_id : new HashSet<>(round.auditSubsequence())) {
+        round_facts.add(facts.get(cvr_id));
+      }
+      round_facts.sort(new BallotReportFact.BallotOrderComparator());
+      result.put(round.number(), round_facts);
+    }
     return result;
   }
   
@@ -228,10 +236,11 @@ public final class ComparisonAuditController {
            (!the_duplicates && cvr_set.size() < possible_ballots)) {
       final List<CastVoteRecord> new_cvrs = 
           getCVRsInAuditSequence(the_cdb.county(), start, end);
+      final Set<Long> audited_ids = auditedIDs(new_cvrs);
       for (int i = 0; i < new_cvrs.size(); i++) {
         final CastVoteRecord cvr = new_cvrs.get(i);
         if (!cvr_set.contains(cvr)) {
-          cvr.setAuditFlag(audited(the_cdb, cvr));
+          cvr.setAuditFlag(audited_ids.contains(cvr.id()));
         }
         if ((the_duplicates || !cvr_set.contains(cvr)) && 
             (the_audited || !cvr.auditFlag())) {
@@ -277,22 +286,24 @@ public final class ComparisonAuditController {
         getCVRsInAuditSequence(the_cdb.county(), the_start_index, 
                                the_desired_prefix_length - 1); // end is inclusive
     final Set<CastVoteRecord> cvr_set = new HashSet<>();
-    final Set<CastVoteRecord> previous_cvr_set = new HashSet<>();
+    final Set<Integer> previous_seq_nums = new HashSet<>();
     final List<CastVoteRecord> cvr_to_audit_list = new ArrayList<>();
+    final Set<Long> audited_ids = auditedIDs(cvrs);
     
     // we should always exclude records that occurred in the sequence before 
     // the_start_index, since they are no longer relevant to the requested
-    // stage of the audit
+    // stage of the audit; the prefix comes from the cached sequence, so we 
+    // compare sequence numbers rather than loading its CVRs
     
     if (the_start_index > 0) {
-      previous_cvr_set.addAll(getCVRsInAuditSequence(the_cdb.county(), 0, 
-                                                     the_start_index - 1));
+      previous_seq_nums.addAll(getCVRSeqNumsInAuditSequence(the_cdb.county(), 0, 
+                                                            the_start_index - 1));
     }
 
     for (int i = 0; i < cvrs.size(); i++) {
       final CastVoteRecord cvr = cvrs.get(i);
-      if (!cvr_set.contains(cvr) && !previous_cvr_set.contains(cvr)) {
-        cvr.setAuditFlag(audited(the_cdb, cvr));
+      if (!cvr_set.contains(cvr) && !previous_seq_nums.contains(cvr.sequenceNumber())) {
+        cvr.setAuditFlag(audited_ids.contains(cvr.id()));
         if (the_audited || !cvr.auditFlag()) {
           cvr_to_audit_list.add(cvr);
         }
@@ -326,9 +337,10 @@ public final class ComparisonAuditController {
     
     // we already have the list of CVR IDs for the round
     final List<CastVoteRecord> cvrs = CastVoteRecordQueries.get(round.ballotSequence());
+    final Set<Long> audited_ids = auditedIDs(cvrs);
     
     for (final CastVoteRecord cvr : cvrs) {
-      cvr.setAuditFlag(audited(the_cdb, cvr));
+      cvr.setAuditFlag(audited_ids.contains(cvr.id()));
     }
 
     return cvrs;
@@ -466,18 +478,9 @@ public final class ComparisonAuditController {
       new_cvr_ids.add(cvr.id());
     }
     
-    // the unique IDs of the CVRs to audit
-    final Set<Long> unique_new_cvr_ids = new HashSet<>(new_cvr_ids);
-    
-    for (final Round round : the_cdb.rounds()) {
-      for (final Long cvr_id : round.ballotSequence()) {
-        if (unique_new_cvr_ids.contains(cvr_id)) {
-          unique_new_cvr_ids.remove(cvr_id);
-          sorted_deduplicated_new_cvrs.remove(Persistence.getByID(cvr_id, 
-                                                                  CastVoteRecord.class));
-        }
-      }
-    }
+    // remove the CVRs that were already audited in previous rounds
+    final SortedLongSet previous_ids = the_cdb.selectedCVRIDs();
+    sorted_deduplicated_new_cvrs.removeIf(cvr -> previous_ids.contains(cvr.id()));
     
     if (sorted_deduplicated_new_cvrs.isEmpty()) {
       return false;
@@ -537,6 +540,7 @@ public final class ComparisonAuditController {
       final SortedSet<CastVoteRecord> sorted_deduplicated_new_cvrs = 
           new TreeSet<>(new CastVoteRecord.BallotOrderComparator());
       final List<CastVoteRecord> new_cvrs = new ArrayList<>();
+      final SortedLongSet previous_ids = the_cdb.selectedCVRIDs();
       int expected_prefix_length = 0;
       while (sorted_deduplicated_new_cvrs.isEmpty()) {
         expected_prefix_length = computeEstimatedSamplesToAudit(the_cdb);
@@ -547,20 +551,7 @@ public final class ComparisonAuditController {
           new_cvrs.addAll(extra_cvrs);
           Persistence.saveOrUpdate(the_cdb);
           sorted_deduplicated_new_cvrs.addAll(new_cvrs);
-          
-          final Set<Long> unique_new_cvr_ids = new HashSet<>();
-          for (final CastVoteRecord cvr : sorted_deduplicated_new_cvrs) {
-            unique_new_cvr_ids.add(cvr.id());
-          }
-          for (final Round round : the_cdb.rounds()) {
-            for (final Long cvr_id : round.ballotSequence()) {
-              if (unique_new_cvr_ids.contains(cvr_id)) {
-                unique_new_cvr_ids.remove(cvr_id);
-                sorted_deduplicated_new_cvrs.remove(Persistence.getByID(cvr_id, 
-                                                                        CastVoteRecord.class));
-              }
-            }
-          }
+          sorted_deduplicated_new_cvrs.removeIf(cvr -> previous_ids.contains(cvr.id()));
         }
       }
 
@@ -652,6 +643,7 @@ public final class ComparisonAuditController {
         setOptimisticSamplesToAudit(computeOptimisticSamplesToAudit(the_cdb) -
                                     the_cdb.auditedSampleCount());
     the_cdb.updateAuditStatus();
+    DashboardChangeNotifier.countyChanged(the_cdb.id());
     return result;
   }
   
@@ -698,22 +690,37 @@ public final class ComparisonAuditController {
   }
   
   /**
-   * Checks to see if the specified CVR has been audited on the specified county
-   * dashboard. This check sets the audit flag on the CVR record in memory, 
-   * so its result can be accessed later without an expensive database hit.
+   * Determines which of the specified CVRs have been audited, using one
+   * bulk query rather than one query per CVR.
    * 
-   * @param the_cdb The county dashboard.
-   * @param the_cvr The CVR.
-   * @return true if the specified CVR has been audited, false otherwise.
+   * @param the_cvrs The CVRs.
+   * @return the IDs of the CVRs that have been audited.
    */
-  public static boolean audited(final CountyDashboard the_cdb, 
-                                final CastVoteRecord the_cvr) {
-    final CVRAuditInfo info = Persistence.getByID(the_cvr.id(), CVRAuditInfo.class);
-    final boolean result;
-    if (info == null || info.acvr() == null) {
-      result = false;
-    } else {
-      result = true;
+  private static Set<Long> auditedIDs(final List<CastVoteRecord> the_cvrs) {
+    final Set<Long> ids = new HashSet<>();
+    for (final CastVoteRecord cvr : the_cvrs) {
+      ids.add(cvr.id());
+    }
+    final Set<Long> result = new HashSet<>();
+    for (final CVRAuditInfo info : auditInfos(ids).values()) {
+      if (info.acvr() != null) {
+        result.add(info.id());
+      }
+    }
+    return result;
+  }
+  
+  /**
+   * Bulk-loads the CVRAuditInfo objects with the specified IDs.
+   * 
+   * @param the_ids The IDs.
+   * @return the CVRAuditInfo objects that exist, mapped by ID.
+   * @exception IllegalStateException if the database cannot be queried.
+   */
+  private static Map<Long, CVRAuditInfo> auditInfos(final Collection<Long> the_ids) {
+    final Map<Long, CVRAuditInfo> result = CVRAuditInfoQueries.get(the_ids);
+    if (result == null) {
+      throw new IllegalStateException("unable to load audit info for CVRs");
     }
     return result;
   }
@@ -731,17 +738,35 @@ public final class ComparisonAuditController {
    */
   private static void updateRound(final CountyDashboard the_cdb, 
                                   final Round the_round) {
-    for (final Long cvr_id : new HashSet<>(the_round.auditSubsequence())) {
+    // the number of times each CVR appears in the audit subsequence
+    final Map<Long, Integer> multiplicities = new HashMap<>();
+    for (final Long cvr_id : the_round.auditSubsequence()) {
+      multiplicities.merge(cvr_id, 1, Integer::sum);
+    }
+    
+    final Map<Long, CVRAuditInfo> infos = auditInfos(multiplicities.keySet());
+    final Set<Long> missing_ids = new HashSet<>(multiplicities.keySet());
+    missing_ids.removeAll(infos.keySet());
+    final Map<Long, CastVoteRecord> missing_cvrs = 
+        CastVoteRecordQueries.getByIDs(missing_ids);
+    if (missing_cvrs == null) {
+      throw new IllegalStateException("unable to load CVRs for round");
+    }
+    
+    for (final Map.Entry<Long, Integer> entry : multiplicities.entrySet()) {
+      final Long cvr_id = entry.getKey();
+      final int multiplicity = entry.getValue();
       final Map<Contest, AuditReason> audit_reasons = new HashMap<>();
       final Set<AuditReason> discrepancies = new HashSet<>();
       final Set<AuditReason> disagreements = new HashSet<>();
-      CVRAuditInfo cvrai = Persistence.getByID(cvr_id, CVRAuditInfo.class);
+      final CVRAuditInfo cvrai = infos.get(cvr_id);
       
       if (cvrai == null) {
         // create it if it doesn't exist
-        cvrai = new CVRAuditInfo(Persistence.getByID(cvr_id, CastVoteRecord.class));
-        cvrai.setMultiplicity(Collections.frequency(the_round.auditSubsequence(), cvr_id));
-        Persistence.saveOrUpdate(cvrai);
+        final CVRAuditInfo new_cvrai = new CVRAuditInfo(missing_cvrs.get(cvr_id));
+        new_cvrai.setMultiplicity(multiplicity);
+        Persistence.saveOrUpdate(new_cvrai);
+        Persistence.saveOrUpdate(new BallotReportFact(new_cvrai));
       } else if (cvrai.acvr() != null) {
         // update the round statistics as necessary
         for (final CountyContestComparisonAudit ca : the_cdb.comparisonAudits()) {
@@ -758,8 +783,6 @@ public final class ComparisonAuditController {
           }
         }
         
-        final int multiplicity = Collections.frequency(the_round.auditSubsequence(),
-                                                       cvr_id);
         for (int i = 0; i < multiplicity; i++) {
           the_round.addDiscrepancy(discrepancies);
           the_round.addDisagreement(disagreements);
@@ -823,6 +846,7 @@ public final class ComparisonAuditController {
     the_info.setDisagreement(disagreements);
     the_info.setCounted(the_info.multiplicity());
     Persistence.saveOrUpdate(the_info);
+    updateReportFact(the_info);
 
     if (the_update_counters) {
       the_cdb.addDiscrepancy(discrepancies);
@@ -879,6 +903,7 @@ public final class ComparisonAuditController {
     the_info.setDiscrepancy(null);
     the_info.setCounted(0);
     Persistence.saveOrUpdate(the_info);
+    updateReportFact(the_info);
     
     the_cdb.removeDiscrepancy(discrepancies);
     the_cdb.removeDisagreement(disagreements);
@@ -886,6 +911,22 @@ public final class ComparisonAuditController {
     return result;
   }
   
+  /**
+   * Updates the report data for a CVRAuditInfo, creating it if it does
+   * not exist.
+   * 
+   * @param the_info The CVRAuditInfo.
+   */
+  private static void updateReportFact(final CVRAuditInfo the_info) {
+    final BallotReportFact fact = Persistence.getByID(the_info.id(), BallotReportFact.class);
+    if (fact == null) {
+      Persistence.saveOrUpdate(new BallotReportFact(the_info));
+    } else {
+      fact.update(the_info);
+      Persistence.saveOrUpdate(fact);
+    }
+  }
+  
   /**
    * Updates the current CVR to audit index of the specified county
    * dashboard to the first CVR after the current CVR under audit that
@@ -900,13 +941,23 @@ public final class ComparisonAuditController {
     // start from where we are in the current round
     final Round round = the_cdb.currentRound();
     if (round != null) {
+      final List<Long> subsequence = round.auditSubsequence();
       final Set<Long> checked_ids = new HashSet<>();
+      // the audit info is prefetched a window at a time, since the scan 
+      // usually stops early but can also run through the whole round
+      final Map<Long, CVRAuditInfo> window = new HashMap<>();
       int index = round.actualAuditedPrefixLength() - round.startAuditedPrefixLength();
-      while (index < round.auditSubsequence().size()) {
-        final Long cvr_id = round.auditSubsequence().get(index);
+      while (index < subsequence.size()) {
+        final Long cvr_id = subsequence.get(index);
         if (!checked_ids.contains(cvr_id)) {
           checked_ids.add(cvr_id);
-          final CVRAuditInfo cai = Persistence.getByID(cvr_id, CVRAuditInfo.class);
+          if (!window.containsKey(cvr_id)) {
+            window.clear();
+            window.putAll(auditInfos(subsequence.subList(index, 
+                Math.min(index + CastVoteRecordQueries.IN_CLAUSE_CHUNK_SIZE, 
+                         subsequence.size()))));
+          }
+          final CVRAuditInfo cai = window.get(cvr_id);
           if (cai.acvr() == null) {
             break;
           } else {
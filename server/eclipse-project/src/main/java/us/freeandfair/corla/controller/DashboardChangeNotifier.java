@@ -0,0 +1,217 @@
+/*
+ * Free & Fair Colorado RLA System
+ * 
+ * @title ColoradoRLA
+ * @created Oct 18, 2026
+ * @copyright 2026 Colorado Department of State
+ * @license SPDX-License-Identifier: AGPL-3.0-or-later
+ * @creator Daniel M. Zimmerman <dmz@freeandfair.us>
+ * @description A system to assist in conducting statewide risk-limiting audits.
+ */
+
+package us.freeandfair.corla.controller;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import us.freeandfair.corla.Main;
+import us.freeandfair.corla.json.DoSDashboardRefreshCache;
+import us.freeandfair.corla.persistence.Persistence;
+
+/**
+ * Version numbers for the dashboards, which change whenever a change that
+ * might affect a dashboard is committed, and on which clients can wait
+ * instead of repeatedly refreshing their dashboards.
+ *
+ * There is a version for each county (covering both the county and audit
+ * board dashboards), which also changes whenever the state-wide audit
+ * changes, and a version for the Department of State dashboard, which
+ * changes whenever anything does. Versions start over when the server is
+ * restarted, so clients should treat any difference from the version they
+ * last saw as a change.
+ *
+ * Changes are reported within the transactions that make them, and published
+ * only when those transactions commit.
+ *
+ * @author Daniel M. Zimmerman <dmz@freeandfair.us>
+ * @version 1.0.0
+ */
+public final class DashboardChangeNotifier {
+  /**
+   * The name of the maximum wait time property.
+   */
+  public static final String TIMEOUT_PROPERTY = "dashboard_poll_timeout_msec";
+
+  /**
+   * The name of the maximum number of waiting clients property.
+   */
+  public static final String MAX_WAITERS_PROPERTY = "dashboard_poll_max_waiters";
+
+  /**
+   * The default maximum wait time, in milliseconds.
+   */
+  private static final long DEFAULT_TIMEOUT = 25_000;
+
+  /**
+   * The default maximum number of waiting clients.
+   */
+  private static final int DEFAULT_MAX_WAITERS = 100;
+
+  /**
+   * The lock that guards the versions, and on which clients wait.
+   */
+  private static final Object LOCK = new Object();
+
+  /**
+   * The number of changes to each county, by county ID; guarded by LOCK.
+   */
+  private static final Map<Long, Long> COUNTY_CHANGES = new HashMap<>();
+
+  /**
+   * The number of clients currently waiting.
+   */
+  private static final AtomicInteger WAITERS = new AtomicInteger();
+
+  /**
+   * The number of state-wide changes; guarded by LOCK.
+   */
+  private static long state_changes;
+
+  /**
+   * The total number of changes; guarded by LOCK.
+   */
+  private static long all_changes;
+
+  /**
+   * Private constructor to prevent instantiation.
+   */
+  private DashboardChangeNotifier() {
+    // do nothing
+  }
+
+  /**
+   * Reports a change to the specified county's dashboards, which is
+   * published when the current transaction commits.
+   *
+   * @param the_county_id The county ID.
+   */
+  public static void countyChanged(final Long the_county_id) {
+    Persistence.afterCommit(() -> publishCountyChange(the_county_id));
+  }
+
+  /**
+   * Reports a state-wide change, which might affect every dashboard and is
+   * published when the current transaction commits.
+   */
+  public static void stateChanged() {
+    Persistence.afterCommit(DashboardChangeNotifier::publishStateChange);
+  }
+
+  /**
+   * Gets the current version of a dashboard.
+   *
+   * @param the_county_id The county ID, or null for the Department of State
+   * dashboard.
+   * @return the version.
+   */
+  public static long version(final Long the_county_id) {
+    synchronized (LOCK) {
+      final long result;
+      if (the_county_id == null) {
+        result = all_changes;
+      } else {
+        result = state_changes + COUNTY_CHANGES.getOrDefault(the_county_id, 0L);
+      }
+      return result;
+    }
+  }
+
+  /**
+   * Waits until the version of a dashboard differs from the specified one,
+   * or the maximum wait time passes. If too many clients are already
+   * waiting, this returns immediately.
+   *
+   * @param the_county_id The county ID, or null for the Department of State
+   * dashboard.
+   * @param the_version The version the client has.
+   * @return the version at the time of return.
+   * @exception InterruptedException if the thread is interrupted while waiting.
+   */
+  public static long await(final Long the_county_id, final long the_version)
+      throws InterruptedException {
+    if (WAITERS.incrementAndGet() > maxWaiters()) {
+      WAITERS.decrementAndGet();
+      return version(the_county_id);
+    }
+    try {
+      final long deadline = System.currentTimeMillis() + timeout();
+      synchronized (LOCK) {
+        long remaining = deadline - System.currentTimeMillis();
+        while (version(the_county_id) == the_version && remaining > 0) {
+          LOCK.wait(remaining);
+          remaining = deadline - System.currentTimeMillis();
+        }
+        return version(the_county_id);
+      }
+    } finally {
+      WAITERS.decrementAndGet();
+    }
+  }
+
+  /**
+   * Publishes a committed change to a county's dashboards.
+   *
+   * @param the_county_id The county ID.
+   */
+  private static void publishCountyChange(final Long the_county_id) {
+    synchronized (LOCK) {
+      COUNTY_CHANGES.merge(the_county_id, 1L, Long::sum);
+      all_changes = all_changes + 1;
+      LOCK.notifyAll();
+    }
+    DoSDashboardRefreshCache.invalidate(the_county_id);
+  }
+
+  /**
+   * Publishes a committed state-wide change.
+   */
+  private static void publishStateChange() {
+    synchronized (LOCK) {
+      state_changes = state_changes + 1;
+      all_changes = all_changes + 1;
+      LOCK.notifyAll();
+    }
+    DoSDashboardRefreshCache.invalidateAll();
+  }
+
+  /**
+   * @return the maximum wait time, in milliseconds.
+   */
+  private static long timeout() {
+    long result;
+    try {
+      result = Long.parseLong(Main.properties().
+                              getProperty(TIMEOUT_PROPERTY,
+                                          String.valueOf(DEFAULT_TIMEOUT)).trim());
+    } catch (final NumberFormatException e) {
+      result = DEFAULT_TIMEOUT;
+    }
+    return result;
+  }
+
+  /**
+   * @return the maximum number of waiting clients.
+   */
+  private static int maxWaiters() {
+    int result;
+    try {
+      result = Integer.parseInt(Main.properties().
+                                getProperty(MAX_WAITERS_PROPERTY,
+                                            String.valueOf(DEFAULT_MAX_WAITERS)).trim());
+    } catch (final NumberFormatException e) {
+      result = DEFAULT_MAX_WAITERS;
+    }
+    return result;
+  }
+}
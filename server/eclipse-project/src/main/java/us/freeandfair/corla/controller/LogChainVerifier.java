@@ -0,0 +1,440 @@
+/*
+ * Free & Fair Colorado RLA System
+ * 
+ * @title ColoradoRLA
+ * @created Oct 18, 2026
+ * @copyright 2026 Colorado Department of State
+ * @license SPDX-License-Identifier: AGPL-3.0-or-later
+ * @creator Daniel M. Zimmerman <dmz@freeandfair.us>
+ * @description A system to assist in conducting statewide risk-limiting audits.
+ */
+
+package us.freeandfair.corla.controller;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import javax.persistence.PersistenceException;
+
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.query.Query;
+
+import us.freeandfair.corla.Main;
+import us.freeandfair.corla.model.LogEntry;
+import us.freeandfair.corla.persistence.ParallelTransactionRunner;
+import us.freeandfair.corla.persistence.ParallelTransactionRunner.CommitPolicy;
+import us.freeandfair.corla.persistence.ParallelTransactionRunner.Outcome;
+import us.freeandfair.corla.persistence.Persistence;
+
+/**
+ * Verifies the hash chain of the log. In ID order, each log entry must refer
+ * to the entry before it (the first to none), and its hash must be the hash
+ * of its contents and the previous entry's hash (the root hash, for the
+ * first). The range of IDs is split into segments that are read, with
+ * forward-only cursors, and checked in parallel; the first entry of each
+ * segment is checked afterwards, against the last entry of the segment
+ * before it.
+ *
+ * @author Daniel M. Zimmerman <dmz@freeandfair.us>
+ * @version 1.0.0
+ */
+public final class LogChainVerifier {
+  /**
+   * The name of the thread count property.
+   */
+  public static final String THREADS_PROPERTY = "log_verification_threads";
+
+  /**
+   * The default thread count.
+   */
+  private static final int DEFAULT_THREADS = 4;
+
+  /**
+   * The number of segments per thread, so that uneven segments even out.
+   */
+  private static final int SEGMENTS_PER_THREAD = 4;
+
+  /**
+   * The number of rows to fetch from the database at a time.
+   */
+  private static final int FETCH_SIZE = 1000;
+
+  /**
+   * The number of milliseconds in a second.
+   */
+  private static final double MSEC_PER_SEC = 1000.0;
+
+  /**
+   * The query for the rows of a segment.
+   */
+  private static final String SEGMENT_QUERY =
+      "select e.my_id, e.my_result_code, e.my_information, e.my_timestamp, " +
+      "p.my_id, e.my_hash from LogEntry e left join e.my_previous_entry p " +
+      "where e.my_id between :lo and :hi order by e.my_id";
+
+  /**
+   * Private constructor to prevent instantiation.
+   */
+  private LogChainVerifier() {
+    // do nothing
+  }
+
+  /**
+   * Verifies the hash chain of the log. This must be called within a
+   * transaction, which is used only to find the range of IDs.
+   *
+   * @return the result of the verification.
+   * @exception PersistenceException if the log cannot be read.
+   */
+  public static Result verify() {
+    final long start_time = System.currentTimeMillis();
+    final Object[] range =
+        Persistence.currentSession().
+        createQuery("select min(e.my_id), max(e.my_id) from LogEntry e", Object[].class).
+        getSingleResult();
+    final int threads = threads();
+    final List<long[]> segments = new ArrayList<>();
+    if (range[0] != null) {
+      final long min = (Long) range[0];
+      final long max = (Long) range[1];
+      final long count = (long) threads * SEGMENTS_PER_THREAD;
+      final long width = Math.max(1, (max - min) / count + 1);
+      for (long lo = min; lo <= max; lo = lo + width) {
+        segments.add(new long[] {lo, Math.min(max, lo + width - 1)});
+      }
+    }
+
+    final Map<long[], Outcome<Segment>> outcomes =
+        ParallelTransactionRunner.run(segments, LogChainVerifier::checkSegment, threads,
+                                      CommitPolicy.PER_TASK, 0);
+
+    // stitch the segments together, in order
+    long checked = 0;
+    Long last_id = null;
+    String last_hash = LogEntry.ROOT_HASH;
+    Long broken_id = null;
+    String broken_reason = null;
+    for (final long[] s : segments) {
+      final Outcome<Segment> outcome = outcomes.get(s);
+      if (outcome.failure() != null) {
+        throw new PersistenceException("could not read log entries " + s[0] + "-" + s[1],
+                                       outcome.failure());
+      }
+      final Segment segment = outcome.value();
+      if (segment.my_count == 0) {
+        continue;
+      }
+      checked = checked + segment.my_count;
+      broken_reason = check(segment.my_first, last_id, last_hash);
+      if (broken_reason == null) {
+        broken_reason = segment.my_broken_reason;
+        if (broken_reason != null) {
+          broken_id = segment.my_broken_id;
+        }
+      } else {
+        broken_id = segment.my_first.my_id;
+      }
+      if (broken_reason != null) {
+        break;
+      }
+      last_id = segment.my_last_id;
+      last_hash = segment.my_last_hash;
+    }
+
+    final long elapsed = Math.max(1, System.currentTimeMillis() - start_time);
+    final Result result = new Result(checked, segments.size(), broken_id, broken_reason,
+                                     elapsed, checked * MSEC_PER_SEC / elapsed);
+    if (broken_reason == null) {
+      Main.LOGGER.info("log hash chain verified: " + checked + " entries in " +
+                       elapsed + " ms");
+    } else {
+      Main.LOGGER.error("log hash chain broken at entry " + broken_id + ": " +
+                        broken_reason);
+    }
+    return result;
+  }
+
+  /**
+   * Reads and checks one segment of the log, stopping at its first broken
+   * link; the link from its first entry to the previous segment is not
+   * checked.
+   *
+   * @param the_range The range of IDs in the segment.
+   * @return the segment.
+   */
+  private static Segment checkSegment(final long[] the_range) {
+    final Query<Object[]> query =
+        Persistence.currentSession().createQuery(SEGMENT_QUERY, Object[].class);
+    query.setParameter("lo", the_range[0]);
+    query.setParameter("hi", the_range[1]);
+    query.setFetchSize(FETCH_SIZE);
+    query.setReadOnly(true);
+
+    final Segment result = new Segment();
+    final ScrollableResults rows = query.scroll(ScrollMode.FORWARD_ONLY);
+    try {
+      while (rows.next()) {
+        final Row row = new Row(rows.get());
+        if (result.my_count == 0) {
+          result.my_first = row;
+        } else {
+          final String reason = check(row, result.my_last_id, result.my_last_hash);
+          if (reason != null) {
+            result.my_broken_id = row.my_id;
+            result.my_broken_reason = reason;
+            result.my_count = result.my_count + 1;
+            break;
+          }
+        }
+        result.my_count = result.my_count + 1;
+        result.my_last_id = row.my_id;
+        result.my_last_hash = row.my_hash;
+      }
+    } finally {
+      rows.close();
+    }
+    return result;
+  }
+
+  /**
+   * Checks one link of the chain.
+   *
+   * @param the_row The log entry.
+   * @param the_previous_id The ID of the entry before it, or null if there
+   * is none.
+   * @param the_previous_hash The hash of the entry before it, or the root
+   * hash if there is none.
+   * @return null if the link is intact, or a description of the problem.
+   */
+  private static String check(final Row the_row, final Long the_previous_id,
+                              final String the_previous_hash) {
+    String result = null;
+    if (!Objects.equals(the_row.my_previous_id, the_previous_id)) {
+      result = "previous entry is " + the_row.my_previous_id + ", expected " +
+               the_previous_id;
+    } else if (the_row.my_result_code == null || the_row.my_information == null ||
+               the_row.my_timestamp == null) {
+      result = "entry contents are incomplete";
+    } else {
+      final String hash =
+          LogEntry.chainHash(LogEntry.hashString(the_row.my_result_code,
+                                                 the_row.my_information,
+                                                 the_row.my_timestamp),
+                             the_previous_hash);
+      if (!hash.equals(the_row.my_hash)) {
+        result = "hash is " + the_row.my_hash + ", expected " + hash;
+      }
+    }
+    return result;
+  }
+
+  /**
+   * @return the number of threads to use.
+   */
+  private static int threads() {
+    int result;
+    try {
+      result = Integer.parseInt(Main.properties().
+                                getProperty(THREADS_PROPERTY,
+                                            String.valueOf(DEFAULT_THREADS)).trim());
+    } catch (final NumberFormatException e) {
+      result = DEFAULT_THREADS;
+    }
+    return Math.max(1, result);
+  }
+
+  /**
+   * The data of one log entry needed to check the chain.
+   */
+  private static final class Row {
+    /**
+     * The ID.
+     */
+    private final Long my_id;
+
+    /**
+     * The result code.
+     */
+    private final Integer my_result_code;
+
+    /**
+     * The information.
+     */
+    private final String my_information;
+
+    /**
+     * The timestamp.
+     */
+    private final Instant my_timestamp;
+
+    /**
+     * The ID of the previous entry.
+     */
+    private final Long my_previous_id;
+
+    /**
+     * The hash.
+     */
+    private final String my_hash;
+
+    /**
+     * Constructs a row from a result of the segment query.
+     *
+     * @param the_columns The columns.
+     */
+    Row(final Object... the_columns) {
+      my_id = (Long) the_columns[0];
+      my_result_code = (Integer) the_columns[1];
+      my_information = (String) the_columns[2];
+      my_timestamp = (Instant) the_columns[3];
+      my_previous_id = (Long) the_columns[4];
+      my_hash = (String) the_columns[5];
+    }
+  }
+
+  /**
+   * The outcome of checking one segment.
+   */
+  private static final class Segment {
+    /**
+     * The number of entries read.
+     */
+    private long my_count;
+
+    /**
+     * The first entry, or null if there are none.
+     */
+    private Row my_first;
+
+    /**
+     * The ID of the last entry read.
+     */
+    private Long my_last_id;
+
+    /**
+     * The hash of the last entry read.
+     */
+    private String my_last_hash;
+
+    /**
+     * The ID of the first broken entry, if any.
+     */
+    private Long my_broken_id;
+
+    /**
+     * The description of the first broken link, or null if there is none.
+     */
+    private String my_broken_reason;
+  }
+
+  /**
+   * The result of a verification.
+   */
+  public static final class Result {
+    /**
+     * The number of entries checked.
+     */
+    private final long my_entries_checked;
+
+    /**
+     * The number of segments.
+     */
+    private final int my_segments;
+
+    /**
+     * The ID of the first broken entry, or null if the chain is intact.
+     */
+    private final Long my_first_broken_id;
+
+    /**
+     * The description of the first broken link, or null if the chain is
+     * intact.
+     */
+    private final String my_first_broken_reason;
+
+    /**
+     * The elapsed time, in milliseconds.
+     */
+    private final long my_elapsed_msec;
+
+    /**
+     * The number of entries checked per second.
+     */
+    private final double my_entries_per_second;
+
+    /**
+     * Constructs a new result.
+     *
+     * @param the_entries_checked The number of entries checked.
+     * @param the_segments The number of segments.
+     * @param the_first_broken_id The ID of the first broken entry.
+     * @param the_first_broken_reason The description of the first broken link.
+     * @param the_elapsed_msec The elapsed time, in milliseconds.
+     * @param the_entries_per_second The number of entries checked per second.
+     */
+    Result(final long the_entries_checked, final int the_segments,
+           final Long the_first_broken_id, final String the_first_broken_reason,
+           final long the_elapsed_msec, final double the_entries_per_second) {
+      my_entries_checked = the_entries_checked;
+      my_segments = the_segments;
+      my_first_broken_id = the_first_broken_id;
+      my_first_broken_reason = the_first_broken_reason;
+      my_elapsed_msec = the_elapsed_msec;
+      my_entries_per_second = the_entries_per_second;
+    }
+
+    /**
+     * @return true if the chain is intact, false otherwise.
+     */
+    public boolean intact() {
+      return my_first_broken_reason == null;
+    }
+
+    /**
+     * @return the number of entries checked.
+     */
+    public long entriesChecked() {
+      return my_entries_checked;
+    }
+
+    /**
+     * @return the number of segments.
+     */
+    public int segments() {
+      return my_segments;
+    }
+
+    /**
+     * @return the ID of the first broken entry, or null if the chain is intact.
+     */
+    public Long firstBrokenID() {
+      return my_first_broken_id;
+    }
+
+    /**
+     * @return the description of the first broken link, or null if the chain
+     * is intact.
+     */
+    public String firstBrokenReason() {
+      return my_first_broken_reason;
+    }
+
+    /**
+     * @return the elapsed time, in milliseconds.
+     */
+    public long elapsedMsec() {
+      return my_elapsed_msec;
+    }
+
+    /**
+     * @return the number of entries checked per second.
+     */
+    public double entriesPerSecond() {
+      return my_entries_per_second;
+    }
+  }
+}
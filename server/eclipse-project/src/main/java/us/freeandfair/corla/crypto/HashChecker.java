@@ -72,8 +72,7 @@ public final class HashChecker {
         do {
           bytes = dis.read(buffer);
         } while (bytes != -1);
-        final BigInteger bi = new BigInteger(1, md.digest());
-        result = String.format("%0" + (md.digest().length << 1) + "X", bi);
+        result = toHex(md.digest());
       } finally {
         dis.close();
       }
@@ -90,4 +89,14 @@ public final class HashChecker {
     
     return result;
   }
+  
+  /**
+   * @param a_digest A digest.
+   * @return the digest encoded as an uppercase hexadecimal string, in the
+   * same format as the hashes computed by hashFile.
+   */
+  public static String toHex(final byte[] a_digest) {
+    final BigInteger bi = new BigInteger(1, a_digest);
+    return String.format("%0" + (a_digest.length << 1) + "X", bi);
+  }
 }
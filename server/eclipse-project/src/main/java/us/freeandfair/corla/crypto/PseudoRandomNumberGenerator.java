@@ -11,12 +11,15 @@
 
 package us.freeandfair.corla.crypto;
 
-import java.math.BigInteger;
 import java.nio.charset.StandardCharsets;
+import java.security.DigestException;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
-import java.util.LinkedList;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.List;
+import java.util.RandomAccess;
 
 /**
  * A pseudo-random number generator based on Philip Stark's pseudo-random number
@@ -24,6 +27,11 @@ import java.util.List;
  * <a href="https://www.stat.berkeley.edu/~stark/Java/Html/sha256Rand.htm">
  * https://www.stat.berkeley.edu/~stark/Java/Html/sha256Rand.htm</a>.
  * 
+ * The generated numbers are kept in a primitive array, so range queries are
+ * random-access, and each draw hashes a preallocated input buffer and reduces
+ * the digest with fixed-width arithmetic instead of building a String and a
+ * BigInteger.
+ * 
  * @author Joey Dodds <jdodds@freeandfair.us>
  * @author Joseph R. Kiniry <kiniry@freeandfair.us>
  * @version 1.0.0
@@ -37,15 +45,69 @@ public class PseudoRandomNumberGenerator {
    */
   public static final int MINIMUM_SEED_LENGTH = 20;
   
+  /**
+   * The initial capacity of the array of generated numbers.
+   */
+  private static final int INITIAL_CAPACITY = 64;
+  
+  /**
+   * The length of a SHA-256 digest, in bytes.
+   */
+  private static final int DIGEST_LENGTH = 32;
+  
+  /**
+   * The maximum number of decimal digits in a positive int.
+   */
+  private static final int MAX_COUNT_DIGITS = 10;
+  
+  /**
+   * The number of values in a byte.
+   */
+  private static final int BYTE_RANGE = 256;
+  
+  /**
+   * The radix used to write the count into the hash input.
+   */
+  private static final int RADIX = 10;
+  
   /**
    * The message digest we will use for generating hashes.
    */
   private MessageDigest my_sha256_digest;
 
   /**
-   * The random numbers generated so far.
+   * The random numbers generated so far; only the first my_size elements
+   * are meaningful.
    */
-  private final List<Integer> my_random_numbers;
+  private int[] my_random_numbers;
+  
+  /**
+   * The number of random numbers generated so far.
+   */
+  //@ private invariant 0 <= my_size && my_size <= my_random_numbers.length;
+  private int my_size;
+  
+  /**
+   * The numbers drawn so far (offset by the minimum), used to reject repeats
+   * when generating without replacement; null when generating with replacement.
+   */
+  private final BitSet my_drawn;
+  
+  /**
+   * The hash input buffer; it holds the seed, a comma, and room for the 
+   * decimal digits of the count.
+   */
+  private final byte[] my_hash_input;
+  
+  /**
+   * The hash output buffer.
+   */
+  private final byte[] my_hash_output;
+  
+  /**
+   * The length of the seed and comma prefix of the hash input buffer.
+   */
+  private final int my_prefix_length;
 
   /**
    * The current number to use for generation.
@@ -108,13 +170,22 @@ public class PseudoRandomNumberGenerator {
     } catch (final NoSuchAlgorithmException e) {
       assert false;
     }
-    my_random_numbers = new LinkedList<Integer>();
+    my_random_numbers = new int[INITIAL_CAPACITY];
     my_with_replacement = the_with_replacement;
     my_seed = the_seed;
     assert the_minimum < the_maximum;
     my_minimum = the_minimum;
     my_maximum = the_maximum;
     my_maximum_index = my_maximum - my_minimum + 1;
+    if (my_with_replacement) {
+      my_drawn = null;
+    } else {
+      my_drawn = new BitSet(my_maximum_index);
+    }
+    final byte[] seed_bytes = (my_seed + ",").getBytes(StandardCharsets.UTF_8);
+    my_prefix_length = seed_bytes.length;
+    my_hash_input = Arrays.copyOf(seed_bytes, my_prefix_length + MAX_COUNT_DIGITS);
+    my_hash_output = new byte[DIGEST_LENGTH];
   }
 
   /**
@@ -123,7 +194,8 @@ public class PseudoRandomNumberGenerator {
    * @param the_from the "index" of the first random number to give
    * @param the_to the "index" of the final random number to give
    * 
-   * @return A list containing the_to - the_from + 1 random numbers
+   * @return An unmodifiable random-access list containing 
+   * the_to - the_from + 1 random numbers
    */
   //@ requires the_from <= the_to;
   // @todo kiniry Refine this specification to include public model fields.
@@ -131,11 +203,47 @@ public class PseudoRandomNumberGenerator {
   public List<Integer> getRandomNumbers(final int the_from, final int the_to) {
     assert the_from <= the_to;
     assert my_with_replacement || the_to <= my_maximum_index;
-    if (the_to + 1 > my_random_numbers.size()) {
-      extendList(the_to + 1);
-    }
-    // subList has an exclusive upper bound, but we have an inclusive one
-    return my_random_numbers.subList(the_from, the_to + 1);
+    extendList(the_to + 1);
+    // the range is inclusive; elements that have already been generated never
+    // change, so the view remains valid even if the array is later reallocated
+    return new RangeView(my_random_numbers, the_from, the_to - the_from + 1);
+  }
+  
+  /**
+   * Generate the specified range of random numbers into an array.
+   * 
+   * @param the_from the "index" of the first random number to give
+   * @param the_to the "index" of the final random number to give
+   * 
+   * @return A new array containing the_to - the_from + 1 random numbers
+   */
+  //@ requires the_from <= the_to;
+  public int[] getRandomNumberArray(final int the_from, final int the_to) {
+    assert the_from <= the_to;
+    assert my_with_replacement || the_to <= my_maximum_index;
+    extendList(the_to + 1);
+    return Arrays.copyOfRange(my_random_numbers, the_from, the_to + 1);
+  }
+  
+  /**
+   * Generate the random number at the specified index.
+   * 
+   * @param the_index the "index" of the random number to give
+   * 
+   * @return the random number
+   */
+  //@ requires 0 <= the_index;
+  public int getRandomNumber(final int the_index) {
+    assert my_with_replacement || the_index < my_maximum_index;
+    extendList(the_index + 1);
+    return my_random_numbers[the_index];
+  }
+  
+  /**
+   * @return the number of random numbers generated so far.
+   */
+  public int size() {
+    return my_size;
   }
 
   /**
@@ -144,9 +252,14 @@ public class PseudoRandomNumberGenerator {
    */
   //@ private behavior
   //@   requires 0 <= the_length;
-  //@   ensures my_random_numbers.size() == the_length;
+  //@   ensures the_length <= my_size;
   private void extendList(final int the_length) {
-    while (my_random_numbers.size() < the_length) {
+    if (my_random_numbers.length < the_length) {
+      my_random_numbers = 
+          Arrays.copyOf(my_random_numbers, 
+                        Math.max(the_length, my_random_numbers.length * 2));
+    }
+    while (my_size < the_length) {
       generateNext();
     }
   }
@@ -160,19 +273,64 @@ public class PseudoRandomNumberGenerator {
     my_count++;
     assert my_with_replacement || my_count <= my_maximum_index;
 
-    final String hash_input = my_seed + "," + my_count;
-
-    final byte[] hash_output =
-        my_sha256_digest.digest(hash_input.getBytes(StandardCharsets.UTF_8));
-    final BigInteger int_output = new BigInteger(1, hash_output);
-
-    final BigInteger in_range =
-        int_output.mod(BigInteger.valueOf(my_maximum - my_minimum + 1));
-    final int pick = my_minimum + in_range.intValueExact();
+    // the hash input is the seed, a comma, and the decimal count
+    final int input_length = writeCount();
+    my_sha256_digest.update(my_hash_input, 0, input_length);
+    try {
+      my_sha256_digest.digest(my_hash_output, 0, DIGEST_LENGTH);
+    } catch (final DigestException e) {
+      // this can't happen because the output buffer is exactly the digest length
+      throw new IllegalStateException("could not compute digest", e);
+    }
+    
+    // the digest, interpreted as an unsigned big-endian integer, reduced modulo
+    // the range size one byte at a time; the remainder is always less than 2^32, 
+    // so the intermediate value always fits in a long
+    final long range = (long) my_maximum - my_minimum + 1;
+    long in_range = 0;
+    for (final byte b : my_hash_output) {
+      in_range = (in_range * BYTE_RANGE + (b & (BYTE_RANGE - 1))) % range;
+    }
+    final int pick = my_minimum + (int) in_range;
 
-    if (my_with_replacement || !my_random_numbers.contains(pick)) {
-      my_random_numbers.add(pick);
+    if (my_with_replacement) {
+      append(pick);
+    } else if (!my_drawn.get(pick - my_minimum)) {
+      my_drawn.set(pick - my_minimum);
+      append(pick);
+    }
+  }
+  
+  /**
+   * Writes the decimal representation of the current count into the hash 
+   * input buffer after the seed prefix.
+   * 
+   * @return the total length of the hash input.
+   */
+  private int writeCount() {
+    int digits = 1;
+    for (int c = my_count / RADIX; c > 0; c = c / RADIX) {
+      digits = digits + 1;
+    }
+    int value = my_count;
+    for (int i = my_prefix_length + digits - 1; i >= my_prefix_length; i--) {
+      my_hash_input[i] = (byte) ('0' + value % RADIX);
+      value = value / RADIX;
+    }
+    return my_prefix_length + digits;
+  }
+  
+  /**
+   * Appends a number to the array of generated numbers, growing it if necessary.
+   * 
+   * @param the_pick The number to append.
+   */
+  private void append(final int the_pick) {
+    if (my_size == my_random_numbers.length) {
+      my_random_numbers = Arrays.copyOf(my_random_numbers, my_size * 2);
     }
+    my_random_numbers[my_size] = the_pick;
+    my_size = my_size + 1;
   }
   
   /**
@@ -191,4 +349,59 @@ public class PseudoRandomNumberGenerator {
     }
     return true;
   }
+  
+  /**
+   * An unmodifiable, random-access view of a range of generated numbers.
+   */
+  private static final class RangeView extends AbstractList<Integer>
+      implements RandomAccess {
+    /**
+     * The backing array.
+     */
+    private final int[] my_array;
+    
+    /**
+     * The offset of the first element of the view.
+     */
+    private final int my_offset;
+    
+    /**
+     * The number of elements in the view.
+     */
+    private final int my_length;
+    
+    /**
+     * Constructs a new view.
+     * 
+     * @param the_array The backing array.
+     * @param the_offset The offset of the first element.
+     * @param the_length The number of elements.
+     */
+    RangeView(final int[] the_array, final int the_offset, final int the_length) {
+      super();
+      my_array = the_array;
+      my_offset = the_offset;
+      my_length = the_length;
+    }
+    
+    /**
+     * @return the element at the specified index.
+     * @param the_index The index.
+     */
+    @Override
+    public Integer get(final int the_index) {
+      if (the_index < 0 || my_length <= the_index) {
+        throw new IndexOutOfBoundsException("index " + the_index);
+      }
+      return my_array[my_offset + the_index];
+    }
+    
+    /**
+     * @return the number of elements in the view.
+     */
+    @Override
+    public int size() {
+      return my_length;
+    }
+  }
 }
@@ -0,0 +1,191 @@
+/*
+ * Free & Fair Colorado RLA System
+ * 
+ * @title ColoradoRLA
+ * @created Oct 18, 2026
+ * @copyright 2026 Colorado Department of State
+ * @license SPDX-License-Identifier: AGPL-3.0-or-later
+ * @creator Daniel M. Zimmerman <dmz@freeandfair.us>
+ * @description A system to assist in conducting statewide risk-limiting audits.
+ */
+
+package us.freeandfair.corla.csv;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Splits CSV text from a Reader into chunks of whole records, without
+ * tokenizing them, so that the chunks can be tokenized independently (for
+ * example, on different threads). Record boundaries are line breaks (LF, CR
+ * or CRLF) outside double-quoted fields; empty lines are dropped, as they
+ * are by CSVFormat.DEFAULT.
+ *
+ * @author Daniel M. Zimmerman <dmz@freeandfair.us>
+ * @version 1.0.0
+ */
+public class CSVRecordChunker {
+  /**
+   * The size of the read buffer.
+   */
+  private static final int BUFFER_SIZE = 65536;
+
+  /**
+   * The quote character.
+   */
+  private static final char QUOTE = '"';
+
+  /**
+   * The line feed character.
+   */
+  private static final char LF = '\n';
+
+  /**
+   * The carriage return character.
+   */
+  private static final char CR = '\r';
+
+  /**
+   * The reader.
+   */
+  private final Reader my_reader;
+
+  /**
+   * The read buffer.
+   */
+  private final char[] my_buffer = new char[BUFFER_SIZE];
+
+  /**
+   * The position of the next unread character in the buffer.
+   */
+  private int my_position;
+
+  /**
+   * The number of valid characters in the buffer.
+   */
+  private int my_limit;
+
+  /**
+   * True if the previous character was a carriage return that ended a record.
+   */
+  private boolean my_after_cr;
+
+  /**
+   * Constructs a new chunker.
+   *
+   * @param the_reader The reader to read CSV text from.
+   */
+  public CSVRecordChunker(final Reader the_reader) {
+    my_reader = the_reader;
+  }
+
+  /**
+   * Reads the next chunk of records.
+   *
+   * @param the_max_records The maximum number of records in the chunk.
+   * @return the chunk, or null if there are no more records.
+   * @exception IOException if the reader fails.
+   */
+  @SuppressWarnings({"PMD.CyclomaticComplexity", "PMD.ModifiedCyclomaticComplexity",
+      "PMD.StdCyclomaticComplexity"})
+  public Chunk next(final int the_max_records) throws IOException {
+    final StringBuilder text = new StringBuilder();
+    int records = 0;
+    boolean in_quotes = false;
+    int record_start = 0;
+    while (records < the_max_records && fill()) {
+      final char c = my_buffer[my_position];
+      my_position = my_position + 1;
+      if (my_after_cr && c == LF) {
+        // the second half of a CRLF that already ended a record; the CR
+        // alone is enough to end it
+        my_after_cr = false;
+        continue;
+      }
+      my_after_cr = false;
+      text.append(c);
+      if (c == QUOTE) {
+        // an escaped quote toggles twice, so this tracks quoting correctly
+        in_quotes = !in_quotes;
+      } else if (!in_quotes && (c == LF || c == CR)) {
+        my_after_cr = c == CR;
+        if (text.length() - 1 == record_start) {
+          // an empty line, which is not a record
+          text.setLength(record_start);
+        } else {
+          records = records + 1;
+        }
+        record_start = text.length();
+      }
+    }
+    if (record_start < text.length()) {
+      // the last record in the input has no line break
+      records = records + 1;
+    }
+
+    Chunk result = null;
+    if (0 < records) {
+      result = new Chunk(text.toString(), records);
+    }
+    return result;
+  }
+
+  /**
+   * Ensures that the buffer has at least one unread character, if the
+   * reader has any more.
+   *
+   * @return true if there is an unread character, false at end of input.
+   * @exception IOException if the reader fails.
+   */
+  private boolean fill() throws IOException {
+    while (my_position == my_limit) {
+      final int read = my_reader.read(my_buffer);
+      if (read < 0) {
+        return false;
+      }
+      my_position = 0;
+      my_limit = read;
+    }
+    return true;
+  }
+
+  /**
+   * A chunk of whole CSV records.
+   */
+  public static final class Chunk {
+    /**
+     * The text of the records.
+     */
+    private final String my_text;
+
+    /**
+     * The number of records.
+     */
+    private final int my_records;
+
+    /**
+     * Constructs a new chunk.
+     *
+     * @param the_text The text.
+     * @param the_records The number of records.
+     */
+    Chunk(final String the_text, final int the_records) {
+      my_text = the_text;
+      my_records = the_records;
+    }
+
+    /**
+     * @return the text of the records, including their line breaks.
+     */
+    public String text() {
+      return my_text;
+    }
+
+    /**
+     * @return the number of records.
+     */
+    public int records() {
+      return my_records;
+    }
+  }
+}
@@ -0,0 +1,148 @@
+/*
+ * Free & Fair Colorado RLA System
+ * 
+ * @title ColoradoRLA
+ * @created Oct 18, 2026
+ * @copyright 2026 Colorado Department of State
+ * @license SPDX-License-Identifier: AGPL-3.0-or-later
+ * @creator Daniel M. Zimmerman <dmz@freeandfair.us>
+ * @description A system to assist in conducting statewide risk-limiting audits.
+ */
+
+package us.freeandfair.corla.csv;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import us.freeandfair.corla.model.CVRContestInfo;
+import us.freeandfair.corla.model.CastVoteRecord;
+import us.freeandfair.corla.model.Choice;
+import us.freeandfair.corla.model.Contest;
+import us.freeandfair.corla.model.CountyContestResult;
+
+/**
+ * Vote totals for the contests in a county, accumulated in primitive arrays
+ * indexed by contest and choice position while CVRs are imported, and written
+ * to the county contest results once at the end of the import.
+ *
+ * @author Daniel M. Zimmerman <dmz@freeandfair.us>
+ * @version 1.0.0
+ */
+public class ContestTally {
+  /**
+   * The contests, by index.
+   */
+  private final List<Contest> my_contests;
+
+  /**
+   * The contest indexes; CVRs refer to the same Contest instances the tally
+   * was constructed with, so identity lookup is sufficient.
+   */
+  private final Map<Contest, Integer> my_contest_indexes = new IdentityHashMap<>();
+
+  /**
+   * The choice names, by contest index and choice index.
+   */
+  private final String[][] my_choices;
+
+  /**
+   * The choice indexes, by contest index.
+   */
+  private final List<Map<String, Integer>> my_choice_indexes;
+
+  /**
+   * The vote totals, by contest index and choice index.
+   */
+  private final int[][] my_votes;
+
+  /**
+   * The number of ballots containing each contest, by contest index.
+   */
+  private final int[] my_contest_ballots;
+
+  /**
+   * The number of ballots tallied.
+   */
+  private int my_county_ballots;
+
+  /**
+   * Constructs a new, empty tally for the specified contests.
+   *
+   * @param the_contests The contests, in the order that defines their indexes.
+   */
+  public ContestTally(final List<Contest> the_contests) {
+    my_contests = new ArrayList<>(the_contests);
+    my_choices = new String[my_contests.size()][];
+    my_choice_indexes = new ArrayList<>(my_contests.size());
+    my_votes = new int[my_contests.size()][];
+    my_contest_ballots = new int[my_contests.size()];
+    for (int i = 0; i < my_contests.size(); i++) {
+      final Contest contest = my_contests.get(i);
+      my_contest_indexes.put(contest, i);
+      final List<Choice> choices = contest.choices();
+      my_choices[i] = new String[choices.size()];
+      final Map<String, Integer> indexes = new HashMap<>();
+      for (int j = 0; j < choices.size(); j++) {
+        my_choices[i][j] = choices.get(j).name();
+        indexes.put(my_choices[i][j], j);
+      }
+      my_choice_indexes.add(indexes);
+      my_votes[i] = new int[choices.size()];
+    }
+  }
+
+  /**
+   * Adds the votes in the specified CVR to the tally. Contest information
+   * for contests not in the tally is ignored.
+   *
+   * @param the_cvr The CVR.
+   * @exception IllegalArgumentException if the CVR contains a vote for a
+   * choice that is not in its contest.
+   */
+  public void add(final CastVoteRecord the_cvr) {
+    for (final CVRContestInfo ci : the_cvr.contestInfo()) {
+      final Integer contest_index = my_contest_indexes.get(ci.contest());
+      if (contest_index != null) {
+        final int c = contest_index;
+        final Map<String, Integer> indexes = my_choice_indexes.get(c);
+        for (final String choice : ci.choices()) {
+          final Integer choice_index = indexes.get(choice);
+          if (choice_index == null) {
+            throw new IllegalArgumentException("invalid choice " + choice +
+                                               " for contest " + ci.contest());
+          }
+          my_votes[c][choice_index] = my_votes[c][choice_index] + 1;
+        }
+        my_contest_ballots[c] = my_contest_ballots[c] + 1;
+      }
+    }
+    my_county_ballots = my_county_ballots + 1;
+  }
+
+  /**
+   * Adds the tally for the contest with the specified index to the specified
+   * result.
+   *
+   * @param the_index The contest index.
+   * @param the_result The result for that contest.
+   */
+  public void addTo(final int the_index, final CountyContestResult the_result) {
+    final Map<String, Integer> votes = new HashMap<>();
+    for (int j = 0; j < my_choices[the_index].length; j++) {
+      if (my_votes[the_index][j] > 0) {
+        votes.put(my_choices[the_index][j], my_votes[the_index][j]);
+      }
+    }
+    the_result.addTally(votes, my_contest_ballots[the_index], my_county_ballots);
+  }
+
+  /**
+   * @return the number of contests in the tally.
+   */
+  public int size() {
+    return my_contests.size();
+  }
+}
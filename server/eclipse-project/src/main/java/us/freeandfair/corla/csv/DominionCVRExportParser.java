@@ -13,10 +13,12 @@ package us.freeandfair.corla.csv;
 
 import java.io.IOException;
 import java.io.Reader;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -26,6 +28,10 @@ import java.util.NoSuchElementException;
 import java.util.OptionalInt;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import javax.persistence.PersistenceException;
 
@@ -34,6 +40,7 @@ import org.apache.commons.csv.CSVParser;
 import org.apache.commons.csv.CSVRecord;
 
 import us.freeandfair.corla.Main;
+import us.freeandfair.corla.controller.DashboardChangeNotifier;
 import us.freeandfair.corla.model.CVRContestInfo;
 import us.freeandfair.corla.model.CastVoteRecord;
 import us.freeandfair.corla.model.CastVoteRecord.RecordType;
@@ -42,6 +49,7 @@ import us.freeandfair.corla.model.Contest;
 import us.freeandfair.corla.model.County;
 import us.freeandfair.corla.model.CountyContestResult;
 import us.freeandfair.corla.model.CountyDashboard;
+import us.freeandfair.corla.persistence.CastVoteRecordCopyLoader;
 import us.freeandfair.corla.persistence.Persistence;
 import us.freeandfair.corla.query.CountyContestResultQueries;
 import us.freeandfair.corla.util.ExponentialBackoffHelper;
@@ -65,6 +73,32 @@ public class DominionCVRExportParser implements CVRExportParser {
    */
   public static final String BATCH_SIZE_PROPERTY = "cvr_import_batch_size";
   
+  /**
+   * The name of the parse threads property.
+   */
+  public static final String PARSE_THREADS_PROPERTY = "cvr_import_parse_threads";
+  
+  /**
+   * The name of the parse chunk size property.
+   */
+  public static final String PARSE_CHUNK_SIZE_PROPERTY = "cvr_import_parse_chunk_size";
+  
+  /**
+   * The name of the loader property, whose value is either "hibernate" (the 
+   * default) or "copy".
+   */
+  public static final String LOADER_PROPERTY = "cvr_import_loader";
+  
+  /**
+   * The value of the loader property that selects bulk loading with COPY.
+   */
+  public static final String COPY_LOADER = "copy";
+  
+  /**
+   * The name of the COPY batch size property.
+   */
+  public static final String COPY_BATCH_SIZE_PROPERTY = "cvr_import_copy_batch_size";
+  
   /**
    * The number of times to retry a county dashboard update operation.
    */
@@ -90,6 +124,27 @@ public class DominionCVRExportParser implements CVRExportParser {
    */
   private static final int DEFAULT_TRANSACTION_SIZE = 400;
   
+  /**
+   * The default number of threads used to tokenize and convert CVRs; 1
+   * means the file is parsed sequentially, on the calling thread.
+   */
+  private static final int DEFAULT_PARSE_THREADS = 1;
+  
+  /**
+   * The default number of CVRs in a chunk handed to a parse thread.
+   */
+  private static final int DEFAULT_PARSE_CHUNK_SIZE = 500;
+  
+  /**
+   * The default number of CVRs in a COPY batch.
+   */
+  private static final int DEFAULT_COPY_BATCH_SIZE = 5000;
+  
+  /**
+   * The number of header lines at the start of a Dominion export file.
+   */
+  private static final int HEADER_LINES = 4;
+  
   /**
    * The column containing the CVR number in a Dominion export file.
    */
@@ -160,10 +215,15 @@ public class DominionCVRExportParser implements CVRExportParser {
   private String my_error_message;
   
   /**
-   * The parser to be used.
+   * The parser to be used, or null if the file is parsed in parallel.
    */
   private final CSVParser my_parser;
   
+  /**
+   * The reader to be chunked, or null if the file is parsed sequentially.
+   */
+  private final Reader my_reader;
+  
   /**
    * The map from column names to column numbers.
    */
@@ -174,10 +234,35 @@ public class DominionCVRExportParser implements CVRExportParser {
    */
   private int my_first_contest_column;
   
+  /**
+   * The indexes of the required columns, in the order of REQUIRED_HEADERS;
+   * these are looked up once, after the headers are processed.
+   */
+  private int[] my_required_columns;
+  
   /**
    * The list of contests parsed from the supplied data export.
    */
   private final List<Contest> my_contests = new ArrayList<Contest>();
+  
+  /**
+   * The names of the choices in each contest, indexed in the same order as
+   * my_contests and then in column order. Parse threads use this copy rather
+   * than the contests, which belong to this thread's session.
+   */
+  private String[][] my_choice_names;
+  
+  /**
+   * Flags indicating whether each choice is fictitious, indexed in the same
+   * order as my_choice_names.
+   */
+  private boolean[][] my_fictitious_choices;
+  
+  /**
+   * The vote tally for the contests, indexed in the same order as my_contests 
+   * and my_results.
+   */
+  private ContestTally my_tally;
 
   /**
    * The list of county contest results we build from the supplied
@@ -217,6 +302,32 @@ public class DominionCVRExportParser implements CVRExportParser {
    */
   private final boolean my_multi_transaction;
   
+  /**
+   * The number of threads used to tokenize and convert CVRs.
+   */
+  private final int my_parse_threads;
+  
+  /**
+   * The number of CVRs in a chunk handed to a parse thread.
+   */
+  private final int my_parse_chunk_size;
+  
+  /**
+   * A flag that indicates whether CVRs should be bulk loaded with COPY, if
+   * the database supports it.
+   */
+  private final boolean my_copy_requested;
+  
+  /**
+   * The number of CVRs in a COPY batch.
+   */
+  private final int my_copy_batch_size;
+  
+  /**
+   * The bulk loader, or null if CVRs are saved through Hibernate.
+   */
+  private CastVoteRecordCopyLoader my_copy_loader;
+  
   /**
    * Construct a new Dominion CVR export parser using the specified Reader,
    * for CVRs provided by the specified county.
@@ -224,7 +335,7 @@ public class DominionCVRExportParser implements CVRExportParser {
    * @param the_reader The reader from which to read the CSV to parse.
    * @param the_county The county whose CVRs are to be parsed.
    * @param the_properties The properties from which to read any overrides to the 
-   * default transaction and batch sizes.
+   * default transaction and batch sizes, and the parallel parsing settings.
    * @param the_multi_transaction true to commit the CVRs in multiple transactions,
    * false otherwise. If this is true, the parser assumes that a transaction is
    * in progress when invoked, and periodically commits that transaction and 
@@ -235,13 +346,28 @@ public class DominionCVRExportParser implements CVRExportParser {
                                  final Properties the_properties,
                                  final boolean the_multi_transaction) 
       throws IOException {
-    my_parser = new CSVParser(the_reader, CSVFormat.DEFAULT);
     my_county = the_county;
     my_multi_transaction = the_multi_transaction;
     my_batch_size = parseProperty(the_properties, BATCH_SIZE_PROPERTY, 
                                   DEFAULT_BATCH_SIZE);
     my_transaction_size = parseProperty(the_properties, TRANSACTION_SIZE_PROPERTY, 
                                         DEFAULT_TRANSACTION_SIZE);
+    my_parse_threads = Math.max(1, parseProperty(the_properties, PARSE_THREADS_PROPERTY,
+                                                 DEFAULT_PARSE_THREADS));
+    my_parse_chunk_size = Math.max(1, parseProperty(the_properties, 
+                                                    PARSE_CHUNK_SIZE_PROPERTY,
+                                                    DEFAULT_PARSE_CHUNK_SIZE));
+    my_copy_requested = 
+        COPY_LOADER.equalsIgnoreCase(the_properties.getProperty(LOADER_PROPERTY, "").trim());
+    my_copy_batch_size = parseProperty(the_properties, COPY_BATCH_SIZE_PROPERTY,
+                                       DEFAULT_COPY_BATCH_SIZE);
+    if (my_parse_threads > 1) {
+      my_parser = null;
+      my_reader = the_reader;
+    } else {
+      my_parser = new CSVParser(the_reader, CSVFormat.DEFAULT);
+      my_reader = null;
+    }
   }
   
   /**
@@ -255,10 +381,15 @@ public class DominionCVRExportParser implements CVRExportParser {
   public DominionCVRExportParser(final String the_string, final County the_county)
       throws IOException {
     my_parser = CSVParser.parse(the_string, CSVFormat.DEFAULT);
+    my_reader = null;
     my_county = the_county;
     my_multi_transaction = false;
     my_batch_size = DEFAULT_BATCH_SIZE;
     my_transaction_size = DEFAULT_TRANSACTION_SIZE;
+    my_parse_threads = 1;
+    my_parse_chunk_size = DEFAULT_PARSE_CHUNK_SIZE;
+    my_copy_requested = false;
+    my_copy_batch_size = DEFAULT_COPY_BATCH_SIZE;
   }
   
   /**
@@ -291,10 +422,11 @@ public class DominionCVRExportParser implements CVRExportParser {
    * @return the stripped value, as a String, or the original String if it 
    * does not have the '="..."' form.
    */
-  private String stripEqualQuotes(final String the_value) {
+  private static String stripEqualQuotes(final String the_value) {
     String result = the_value;
-    if (the_value.startsWith("=\"") && the_value.endsWith("\"")) {
-      result = the_value.substring(0, the_value.length() - 1).replaceFirst("=\"", "");
+    if (the_value.length() >= 3 && the_value.startsWith("=\"") && 
+        the_value.endsWith("\"")) {
+      result = the_value.substring(2, the_value.length() - 1);
     }
     return result;
   }
@@ -353,6 +485,8 @@ public class DominionCVRExportParser implements CVRExportParser {
                            final Map<String, Integer> the_choice_counts) {
     int index = my_first_contest_column;
     int contest_count = 0;
+    my_choice_names = new String[the_contest_names.size()][];
+    my_fictitious_choices = new boolean[the_contest_names.size()][];
     for (final String cn : the_contest_names) {
       final List<Choice> choices = new ArrayList<Choice>();
       final int end = index + the_choice_counts.get(cn); 
@@ -371,6 +505,12 @@ public class DominionCVRExportParser implements CVRExportParser {
         }
         index = index + 1;
       }
+      my_choice_names[contest_count] = new String[choices.size()];
+      my_fictitious_choices[contest_count] = new boolean[choices.size()];
+      for (int i = 0; i < choices.size(); i++) {
+        my_choice_names[contest_count][i] = choices.get(i).name();
+        my_fictitious_choices[contest_count][i] = choices.get(i).fictitious();
+      }
       // now that we have all the choices, we can create a Contest object for 
       // this contest (note the empty contest description at the moment, below, 
       // as that's not in the CVR files and may not actually be used)
@@ -387,6 +527,7 @@ public class DominionCVRExportParser implements CVRExportParser {
       my_contests.add(c);
       my_results.add(r);
     }
+    my_tally = new ContestTally(my_contests);
   }
   
   /**
@@ -413,6 +554,9 @@ public class DominionCVRExportParser implements CVRExportParser {
    */
   private void commitCVRsAndUpdateCountyDashboard() {
     // commit all the CVR records and contest tracking data
+    if (my_copy_loader != null) {
+      my_copy_loader.flush();
+    }
     Persistence.commitTransaction();
     
     boolean success = false;
@@ -432,6 +576,7 @@ public class DominionCVRExportParser implements CVRExportParser {
         } else {
           cdb.setCVRsImported(my_record_count);
           Persistence.saveOrUpdate(cdb);
+          DashboardChangeNotifier.countyChanged(my_county.id());
           Persistence.commitTransaction();
           success = true;
         }
@@ -468,70 +613,74 @@ public class DominionCVRExportParser implements CVRExportParser {
   } 
   
   /**
-   * Extract a CVR from a line of the file.
+   * Extract a CVR from a line of the file, and record it.
    * 
    * @param the_line The line representing the CVR.
-   * @param the_timestamp The import timestamp.
-   * @return the resulting CVR.
+   * @return the resulting CVR, or null if the line is malformed.
    */
-  @SuppressWarnings("PMD.CyclomaticComplexity")
   private CastVoteRecord extractCVR(final CSVRecord the_line) {
+    final ParsedCVR parsed = parseCVR(the_line, my_record_count);
+    CastVoteRecord result = null;
+    if (parsed != null) {
+      result = buildCVR(parsed);
+      recordCVR(result);
+    }
+    return result;
+  }
+  
+  /**
+   * Parses a line of the file. This uses only the column indexes and choice
+   * arrays, not the database, the contests or any other state of the parser 
+   * that changes, so it can run on any thread once the headers and contests
+   * have been processed.
+   * 
+   * @param the_line The line representing the CVR.
+   * @param the_sequence_number The sequence number of the CVR in the file.
+   * @return the parsed line, or null if the line is malformed.
+   */
+  @SuppressWarnings("PMD.CyclomaticComplexity")
+  private ParsedCVR parseCVR(final CSVRecord the_line, 
+                             final int the_sequence_number) {
     try {
-      final int cvr_id =
-          Integer.parseInt(stripEqualQuotes(the_line.get(my_columns.get(CVR_NUMBER_HEADER))));
+      // the required columns, in the order of REQUIRED_HEADERS
+      final int cvr_id = 
+          Integer.parseInt(stripEqualQuotes(the_line.get(my_required_columns[0])));
       final int tabulator_id = 
-          Integer.parseInt(stripEqualQuotes(the_line.get(my_columns.
-                                                         get(TABULATOR_NUMBER_HEADER))));
+          Integer.parseInt(stripEqualQuotes(the_line.get(my_required_columns[1])));
       final int batch_id = 
-          Integer.parseInt(stripEqualQuotes(the_line.get(my_columns.get(BATCH_ID_HEADER))));
+          Integer.parseInt(stripEqualQuotes(the_line.get(my_required_columns[2])));
       final int record_id = 
-          Integer.parseInt(stripEqualQuotes(the_line.get(my_columns.get(RECORD_ID_HEADER))));
-      final String imprinted_id = 
-          stripEqualQuotes(the_line.get(my_columns.get(IMPRINTED_ID_HEADER)));
-      final String ballot_type = 
-          stripEqualQuotes(the_line.get(my_columns.get(BALLOT_TYPE_HEADER)));
-      final List<CVRContestInfo> contest_info = new ArrayList<CVRContestInfo>();
+          Integer.parseInt(stripEqualQuotes(the_line.get(my_required_columns[3])));
+      final String imprinted_id = stripEqualQuotes(the_line.get(my_required_columns[4]));
+      final String ballot_type = stripEqualQuotes(the_line.get(my_required_columns[5]));
+      final List<List<String>> votes = new ArrayList<>(my_choice_names.length);
       
       // for each contest, see if choices exist on the CVR; "0" or "1" are
       // votes or absences of votes; "" means that the contest is not in this style
       int index = my_first_contest_column;
-      for (final Contest co : my_contests) {
+      for (int c = 0; c < my_choice_names.length; c++) {
         boolean present = false;
-        final List<String> votes = new ArrayList<String>();
-        for (final Choice ch : co.choices()) {
+        final List<String> contest_votes = new ArrayList<String>();
+        for (int i = 0; i < my_choice_names[c].length; i++) {
           final String mark_string = the_line.get(index);
           final boolean p = !mark_string.isEmpty();
           final boolean mark = "1".equals(mark_string);
           present |= p;
-          if (!ch.fictitious() && p && mark) {
-            votes.add(ch.name());
+          if (!my_fictitious_choices[c][i] && p && mark) {
+            contest_votes.add(my_choice_names[c][i]);
           }
           index = index + 1;
         }
-        // if this contest was on the ballot, add it to the votes
+        // if this contest was on the ballot, keep its votes
         if (present) {
-          contest_info.add(new CVRContestInfo(co, null, null, votes));
+          votes.add(contest_votes);
+        } else {
+          votes.add(null);
         }
       }
       
-      // we don't need to look for an existing CVR with this data because,
-      // by definition, there cannot be one unless the same line appears
-      // twice in the CVR export file... and if it does, we need it to
-      // appear twice here too. 
-      final CastVoteRecord new_cvr = 
-          new CastVoteRecord(RecordType.UPLOADED, null, my_county.id(),
-                             cvr_id, my_record_count, tabulator_id, 
-                             batch_id, record_id, imprinted_id, 
-                             ballot_type, contest_info);
-      Persistence.saveOrUpdate(new_cvr);
-      my_parsed_cvrs.add(new_cvr);
-      
-      // add the CVR to all of our results
-      for (final CountyContestResult r : my_results) {
-        r.addCVR(new_cvr);
-      }
-      Main.LOGGER.debug("parsed CVR: " + new_cvr);
-      return new_cvr;
+      return new ParsedCVR(cvr_id, the_sequence_number, tabulator_id, batch_id, 
+                           record_id, imprinted_id, ballot_type, votes);
     } catch (final NumberFormatException e) {
       return null;
     } catch (final ArrayIndexOutOfBoundsException e) {
@@ -539,6 +688,155 @@ public class DominionCVRExportParser implements CVRExportParser {
     }
   }
   
+  /**
+   * Builds a CVR from a parsed line. This must be called on the thread that
+   * owns the transaction, since the CVR refers to the contests.
+   * 
+   * @param the_parsed The parsed line.
+   * @return the CVR.
+   */
+  private CastVoteRecord buildCVR(final ParsedCVR the_parsed) {
+    final List<CVRContestInfo> contest_info = new ArrayList<CVRContestInfo>();
+    for (int c = 0; c < my_contests.size(); c++) {
+      final List<String> votes = the_parsed.my_votes.get(c);
+      if (votes != null) {
+        contest_info.add(new CVRContestInfo(my_contests.get(c), null, null, votes));
+      }
+    }
+    
+    // we don't need to look for an existing CVR with this data because,
+    // by definition, there cannot be one unless the same line appears
+    // twice in the CVR export file... and if it does, we need it to
+    // appear twice here too. 
+    return new CastVoteRecord(RecordType.UPLOADED, null, my_county.id(),
+                              the_parsed.my_cvr_id, the_parsed.my_sequence_number, 
+                              the_parsed.my_tabulator_id, the_parsed.my_batch_id, 
+                              the_parsed.my_record_id, the_parsed.my_imprinted_id, 
+                              the_parsed.my_ballot_type, contest_info);
+  }
+  
+  /**
+   * Records a parsed CVR: saves it, and adds it to all of our results. 
+   * This must be called on the thread that owns the transaction, in 
+   * sequence number order.
+   * 
+   * @param the_cvr The CVR.
+   */
+  private void recordCVR(final CastVoteRecord the_cvr) {
+    if (my_copy_loader == null) {
+      Persistence.saveOrUpdate(the_cvr);
+      my_parsed_cvrs.add(the_cvr);
+    } else {
+      my_copy_loader.add(the_cvr);
+    }
+    
+    // add the CVR to the tally for all of our results
+    my_tally.add(the_cvr);
+    Main.LOGGER.debug("parsed CVR: " + the_cvr);
+  }
+  
+  /**
+   * Counts a successfully parsed CVR, logging progress periodically.
+   */
+  private void countCVR() {
+    my_record_count = my_record_count + 1;
+    if (my_record_count % PROGRESS_INTERVAL == 0) {
+      Main.LOGGER.info("parsed " + my_record_count + 
+                       " CVRs for county " + my_county.id());
+    }
+  }
+  
+  /**
+   * Parses a chunk of CVR lines. This runs on a parse thread.
+   * 
+   * @param the_chunk The chunk.
+   * @param the_first_sequence_number The sequence number of the first CVR
+   * in the chunk.
+   * @return the result.
+   */
+  private ChunkResult convertChunk(final CSVRecordChunker.Chunk the_chunk,
+                                   final int the_first_sequence_number) {
+    final List<ParsedCVR> cvrs = new ArrayList<>(the_chunk.records());
+    String malformed = null;
+    try (CSVParser parser = CSVParser.parse(the_chunk.text(), CSVFormat.DEFAULT)) {
+      int sequence_number = the_first_sequence_number;
+      for (final CSVRecord line : parser) {
+        final ParsedCVR cvr = parseCVR(line, sequence_number);
+        if (cvr == null) {
+          malformed = line.toString();
+          break;
+        }
+        cvrs.add(cvr);
+        sequence_number = sequence_number + 1;
+      }
+    } catch (final IOException | IllegalStateException e) {
+      malformed = "could not tokenize records starting at CVR " + 
+                  the_first_sequence_number;
+    }
+    return new ChunkResult(cvrs, malformed);
+  }
+  
+  /**
+   * Parses the CVR lines from the specified chunker, tokenizing and parsing
+   * chunks of lines on a pool of parse threads while this thread builds and
+   * records the resulting CVRs in file order.
+   * 
+   * @param the_chunker The chunker, positioned after the header lines.
+   * @return true if the CVR lines were parsed successfully, false otherwise; 
+   * this method also sets the error message if necessary.
+   * @exception IOException if the file cannot be read.
+   */
+  @SuppressWarnings("PMD.AvoidCatchingGenericException")
+  private boolean parseCVRsInParallel(final CSVRecordChunker the_chunker) 
+      throws IOException {
+    boolean result = true;
+    final ExecutorService pool = Executors.newFixedThreadPool(my_parse_threads);
+    final Deque<Future<ChunkResult>> pending = new ArrayDeque<>();
+    int next_sequence_number = 0;
+    boolean done_reading = false;
+    try {
+      while (result && !(done_reading && pending.isEmpty())) {
+        // keep a bounded number of chunks in flight
+        while (!done_reading && pending.size() < 2 * my_parse_threads) {
+          final CSVRecordChunker.Chunk chunk = the_chunker.next(my_parse_chunk_size);
+          if (chunk == null) {
+            done_reading = true;
+          } else {
+            final int first = next_sequence_number;
+            pending.add(pool.submit(() -> convertChunk(chunk, first)));
+            next_sequence_number = next_sequence_number + chunk.records();
+          }
+        }
+        if (!pending.isEmpty()) {
+          final ChunkResult chunk_result = pending.remove().get();
+          for (final ParsedCVR parsed : chunk_result.my_cvrs) {
+            recordCVR(buildCVR(parsed));
+            countCVR();
+            checkForFlush();
+          }
+          if (chunk_result.my_malformed != null) {
+            Main.LOGGER.error("Could not parse malformed CVR record (" + 
+                              chunk_result.my_malformed + ")");
+            my_error_message = "malformed CVR record (" + chunk_result.my_malformed + ")";
+            result = false;
+          }
+        }
+      }
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      my_error_message = "CVR parsing was interrupted";
+      result = false;
+    } catch (final ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new IllegalStateException(e.getCause());
+    } finally {
+      pool.shutdownNow();
+    }
+    return result;
+  }
+  
   /**
    * Processes the headers from the specified CSV record. This includes checking
    * for the use of forbidden headers, and that all required headers are 
@@ -579,6 +877,13 @@ public class DominionCVRExportParser implements CVRExportParser {
     
     result = prohibited_headers.isEmpty() && required_headers.isEmpty();
     
+    if (result) {
+      my_required_columns = new int[REQUIRED_HEADERS.length];
+      for (int i = 0; i < REQUIRED_HEADERS.length; i++) {
+        my_required_columns[i] = my_columns.get(REQUIRED_HEADERS[i]);
+      }
+    }
+    
     if (!result) {
       final StringBuilder sb = new StringBuilder();
       sb.append("malformed CVR file: ");
@@ -648,14 +953,37 @@ public class DominionCVRExportParser implements CVRExportParser {
     
     Main.LOGGER.info("parsing CVR export for county " + my_county.id() + 
                      ", batch_size=" + my_batch_size + 
-                     ", transaction_size=" + my_transaction_size);
+                     ", transaction_size=" + my_transaction_size + 
+                     ", parse_threads=" + my_parse_threads);
     
     boolean result = true; // presume the parse will succeed
-    final Iterator<CSVRecord> records = my_parser.iterator();
-    
     my_record_count = 0;
     
+    if (my_copy_requested) {
+      if (CastVoteRecordCopyLoader.isSupported()) {
+        Main.LOGGER.info("bulk loading CVRs with COPY, batch_size=" + my_copy_batch_size);
+        my_copy_loader = new CastVoteRecordCopyLoader(my_copy_batch_size);
+      } else {
+        Main.LOGGER.info("database does not support COPY, saving CVRs through Hibernate");
+      }
+    }
+    
     try {
+      // in parallel mode, the header lines are the first chunk
+      final CSVRecordChunker chunker;
+      final Iterator<CSVRecord> records;
+      if (my_parser == null) {
+        chunker = new CSVRecordChunker(my_reader);
+        final CSVRecordChunker.Chunk header_chunk = chunker.next(HEADER_LINES);
+        if (header_chunk == null) {
+          throw new NoSuchElementException();
+        }
+        records = CSVParser.parse(header_chunk.text(), CSVFormat.DEFAULT).iterator();
+      } else {
+        chunker = null;
+        records = my_parser.iterator();
+      }
+      
       // we expect the first line to be the election name, which we currently discard
       records.next();
       
@@ -691,7 +1019,10 @@ public class DominionCVRExportParser implements CVRExportParser {
                     contest_votes_allowed, contest_choice_counts);
 
         // subsequent lines contain cast vote records
-        while (records.hasNext()) {
+        if (chunker != null) {
+          result = parseCVRsInParallel(chunker);
+        }
+        while (chunker == null && records.hasNext()) {
           final CSVRecord cvr_line = records.next();
           final CastVoteRecord cvr = extractCVR(cvr_line);
           if (cvr == null) {
@@ -701,16 +1032,14 @@ public class DominionCVRExportParser implements CVRExportParser {
             result = false;   
             break;
           } else {
-            my_record_count = my_record_count + 1;
-            if (my_record_count % PROGRESS_INTERVAL == 0) {
-              Main.LOGGER.info("parsed " + my_record_count + 
-                               " CVRs for county " + my_county.id());
-            }
+            countCVR();
           }
           checkForFlush();
         }
         
-        for (final CountyContestResult r : my_results) {
+        for (int i = 0; i < my_results.size(); i++) {
+          final CountyContestResult r = my_results.get(i);
+          my_tally.addTo(i, r);
           r.updateResults();
           Persistence.saveOrUpdate(r);
         }
@@ -727,6 +1056,10 @@ public class DominionCVRExportParser implements CVRExportParser {
       Main.LOGGER.error("Could not parse CVR file because it was malformed");
       my_error_message = "malformed CVR file";
       result = false;
+    } catch (final IOException e) {
+      Main.LOGGER.error("Could not read CVR file: " + e.getMessage());
+      my_error_message = "unable to read CVR file";
+      result = false;
     }
     
     // if we had any kind of parse error, we scrap the whole import
@@ -756,4 +1089,103 @@ public class DominionCVRExportParser implements CVRExportParser {
   public synchronized String errorMessage() {
     return my_error_message;
   }
+  
+  /**
+   * A CVR line parsed by a parse thread, from which the CVR is built.
+   */
+  private static final class ParsedCVR {
+    /**
+     * The CVR number.
+     */
+    private final int my_cvr_id;
+    
+    /**
+     * The sequence number of the CVR in the file.
+     */
+    private final int my_sequence_number;
+    
+    /**
+     * The tabulator number.
+     */
+    private final int my_tabulator_id;
+    
+    /**
+     * The batch ID.
+     */
+    private final int my_batch_id;
+    
+    /**
+     * The record ID.
+     */
+    private final int my_record_id;
+    
+    /**
+     * The imprinted ID.
+     */
+    private final String my_imprinted_id;
+    
+    /**
+     * The ballot type.
+     */
+    private final String my_ballot_type;
+    
+    /**
+     * The choices voted for in each contest, indexed in the same order as
+     * my_contests; null for contests that are not on the ballot.
+     */
+    private final List<List<String>> my_votes;
+    
+    /**
+     * Constructs a new parsed CVR line.
+     * 
+     * @param the_cvr_id The CVR number.
+     * @param the_sequence_number The sequence number.
+     * @param the_tabulator_id The tabulator number.
+     * @param the_batch_id The batch ID.
+     * @param the_record_id The record ID.
+     * @param the_imprinted_id The imprinted ID.
+     * @param the_ballot_type The ballot type.
+     * @param the_votes The votes in each contest.
+     */
+    @SuppressWarnings("PMD.ExcessiveParameterList")
+    ParsedCVR(final int the_cvr_id, final int the_sequence_number, 
+              final int the_tabulator_id, final int the_batch_id, 
+              final int the_record_id, final String the_imprinted_id, 
+              final String the_ballot_type, final List<List<String>> the_votes) {
+      my_cvr_id = the_cvr_id;
+      my_sequence_number = the_sequence_number;
+      my_tabulator_id = the_tabulator_id;
+      my_batch_id = the_batch_id;
+      my_record_id = the_record_id;
+      my_imprinted_id = the_imprinted_id;
+      my_ballot_type = the_ballot_type;
+      my_votes = the_votes;
+    }
+  }
+  
+  /**
+   * The lines parsed from a chunk, up to the first malformed line.
+   */
+  private static final class ChunkResult {
+    /**
+     * The parsed lines, in file order.
+     */
+    private final List<ParsedCVR> my_cvrs;
+    
+    /**
+     * A description of the first malformed line, or null if there was none.
+     */
+    private final String my_malformed;
+    
+    /**
+     * Constructs a new chunk result.
+     * 
+     * @param the_cvrs The parsed lines.
+     * @param the_malformed The malformed line description, or null.
+     */
+    ChunkResult(final List<ParsedCVR> the_cvrs, final String the_malformed) {
+      my_cvrs = the_cvrs;
+      my_malformed = the_malformed;
+    }
+  }
 }
@@ -15,8 +15,6 @@ import java.io.BufferedWriter;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
-import java.io.UncheckedIOException;
-import java.util.stream.Stream;
 
 import javax.persistence.PersistenceException;
 
@@ -25,11 +23,9 @@ import com.google.gson.stream.JsonWriter;
 import spark.Request;
 import spark.Response;
 
-import us.freeandfair.corla.Main;
-import us.freeandfair.corla.model.CastVoteRecord;
+import us.freeandfair.corla.json.CastVoteRecordRowJsonWriter;
 import us.freeandfair.corla.model.CastVoteRecord.RecordType;
-import us.freeandfair.corla.persistence.Persistence;
-import us.freeandfair.corla.query.CastVoteRecordQueries;
+import us.freeandfair.corla.query.CastVoteRecordRows;
 import us.freeandfair.corla.util.SparkHelper;
 
 /**
@@ -68,29 +64,20 @@ public class ACVRDownload extends AbstractEndpoint {
    * {@inheritDoc}
    */
   @Override
-  // necessary to break out of the lambda expression in case of IOException
-  @SuppressWarnings("PMD.ExceptionAsFlowControl")
   public String endpointBody(final Request the_request, final Response the_response) {
     try (OutputStream os = SparkHelper.getRaw(the_response).getOutputStream();
          BufferedWriter bw = new BufferedWriter(new OutputStreamWriter(os, "UTF-8"));
          JsonWriter jw = new JsonWriter(bw)) {
       jw.beginArray();
-      final Stream<CastVoteRecord> matches = 
-          Stream.concat(CastVoteRecordQueries.getMatching(RecordType.AUDITOR_ENTERED),
-                        CastVoteRecordQueries.getMatching(RecordType.PHANTOM_BALLOT));
-      matches.forEach((the_cvr) -> {
-        try {
-          jw.jsonValue(Main.GSON.toJson(Persistence.unproxy(the_cvr)));
-          Persistence.evict(the_cvr);
-        } catch (final IOException e) {
-          throw new UncheckedIOException(e);
-        } 
-      });
+      final CastVoteRecordRowJsonWriter cvrs = new CastVoteRecordRowJsonWriter(jw);
+      CastVoteRecordRows.scroll(RecordType.AUDITOR_ENTERED, cvrs);
+      CastVoteRecordRows.scroll(RecordType.PHANTOM_BALLOT, cvrs);
+      cvrs.finish();
       jw.endArray();
       jw.flush();
       jw.close();
       ok(the_response);
-    } catch (final UncheckedIOException | IOException | PersistenceException e) {
+    } catch (final IOException | PersistenceException e) {
       serverError(the_response, "Unable to stream response");
     }
     return my_endpoint_result.get();
@@ -0,0 +1,145 @@
+/*
+ * Free & Fair Colorado RLA System
+ * 
+ * @title ColoradoRLA
+ * @created Oct 18, 2026
+ * @copyright 2026 Colorado Department of State
+ * @license SPDX-License-Identifier: AGPL-3.0-or-later
+ * @creator Daniel M. Zimmerman <dmz@freeandfair.us>
+ * @description A system to assist in conducting statewide risk-limiting audits.
+ */
+
+package us.freeandfair.corla.endpoint;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.persistence.PersistenceException;
+
+import spark.Request;
+import spark.Response;
+
+import us.freeandfair.corla.columnar.ColumnarCVRWriter;
+import us.freeandfair.corla.model.CastVoteRecord.RecordType;
+import us.freeandfair.corla.model.Choice;
+import us.freeandfair.corla.model.Contest;
+import us.freeandfair.corla.persistence.Persistence;
+import us.freeandfair.corla.query.CastVoteRecordRows;
+import us.freeandfair.corla.util.SparkHelper;
+
+/**
+ * The audit CVR download endpoint for the columnar CVR export format. With
+ * no parameters, it downloads the audit CVRs of all counties; otherwise,
+ * the parameter names are the IDs of the counties to download.
+ * 
+ * @author Daniel M. Zimmerman <dmz@freeandfair.us>
+ * @version 1.0.0
+ */
+@SuppressWarnings("PMD.AtLeastOneConstructor")
+public class ACVRDownloadColumnar extends AbstractEndpoint {
+  /**
+   * The name of the downloaded file.
+   */
+  private static final String FILENAME = "acvrs.cvrc";
+  
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public EndpointType endpointType() {
+    return EndpointType.GET;
+  }
+  
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public String endpointName() {
+    return "/acvr/columnar";
+  }
+
+  /**
+   * This endpoint requires any kind of authentication.
+   */
+  @Override
+  public AuthorizationType requiredAuthorization() {
+    return AuthorizationType.EITHER;
+  }
+  
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public String endpointBody(final Request the_request, final Response the_response) {
+    final Set<Long> county_set = new HashSet<Long>();
+    for (final String s : the_request.queryParams()) {
+      county_set.add(Long.valueOf(s));
+    }
+    the_response.type("application/octet-stream");
+    the_response.raw().setHeader("Content-Disposition", 
+                                 "attachment; filename=\"" + FILENAME + "\"");
+    try (OutputStream os = 
+             new BufferedOutputStream(SparkHelper.getRaw(the_response).getOutputStream())) {
+      final ColumnarCVRWriter cvrs = 
+          new ColumnarCVRWriter(os, ACVRDownloadColumnar::declaredChoices);
+      if (county_set.isEmpty()) {
+        CastVoteRecordRows.scroll(RecordType.AUDITOR_ENTERED, cvrs);
+        CastVoteRecordRows.scroll(RecordType.PHANTOM_BALLOT, cvrs);
+      } else {
+        for (final Long county : county_set) {
+          CastVoteRecordRows.scroll(county, RecordType.AUDITOR_ENTERED, cvrs);
+          CastVoteRecordRows.scroll(county, RecordType.PHANTOM_BALLOT, cvrs);
+        }
+      }
+      cvrs.finish();
+      ok(the_response);
+    } catch (final IOException | PersistenceException e) {
+      serverError(the_response, "Unable to stream response");
+    }
+    return my_endpoint_result.get();
+  }
+  
+  /**
+   * Gets the names of the choices of a contest, in their declared order.
+   * 
+   * @param the_contest_id The contest ID.
+   * @return the names, or null if the contest cannot be found.
+   */
+  private static List<String> declaredChoices(final Long the_contest_id) {
+    final Contest contest = Persistence.getByID(the_contest_id, Contest.class);
+    List<String> result = null;
+    if (contest != null) {
+      result = new ArrayList<>();
+      for (final Choice choice : contest.choices()) {
+        result.add(choice.name());
+      }
+    }
+    return result;
+  }
+  
+  /**
+   * For this endpoint, the parameter names must all be integers.
+   * 
+   * @param the_request The request.
+   * @return true if the parameters are valid, false otherwise.
+   */
+  protected boolean validateParameters(final Request the_request) {
+    boolean result = true;
+    
+    for (final String s : the_request.queryParams()) {
+      try {
+        Integer.parseInt(s);
+      } catch (final NumberFormatException e) {
+        result = false;
+        break;
+      }
+    }
+    
+    return result;
+  }
+}
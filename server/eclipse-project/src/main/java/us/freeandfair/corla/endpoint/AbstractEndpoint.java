@@ -34,11 +34,13 @@ import us.freeandfair.corla.asm.ASMEvent;
 import us.freeandfair.corla.asm.ASMUtilities;
 import us.freeandfair.corla.asm.AbstractStateMachine;
 import us.freeandfair.corla.auth.AuthenticationInterface;
+import us.freeandfair.corla.controller.DashboardChangeNotifier;
 import us.freeandfair.corla.json.Result;
 import us.freeandfair.corla.model.Administrator;
+import us.freeandfair.corla.model.County;
 import us.freeandfair.corla.model.LogEntry;
+import us.freeandfair.corla.persistence.LogEntryWriter;
 import us.freeandfair.corla.persistence.Persistence;
-import us.freeandfair.corla.query.LogEntryQueries;
 import us.freeandfair.corla.util.SuppressFBWarnings;
 
 /**
@@ -63,11 +65,6 @@ public abstract class AbstractEndpoint implements Endpoint {
    */
   public static final boolean DISABLE_ASM = false;
   
-  /**
-   * The number of times to retry committing logs for failed transactions.
-   */
-  public static final int LOG_COMMIT_RETRIES = 5;
-  
   /**
    * The "Retry-After" value for a transaction failure response, in seconds.
    */
@@ -187,7 +184,12 @@ public abstract class AbstractEndpoint implements Endpoint {
       illegalTransition(the_response, e.getMessage(), false);
       return false;
     }
-    return ASMUtilities.save(my_asm.get());
+    final boolean result = ASMUtilities.save(my_asm.get());
+    if (!result) {
+      transactionFailure(the_response, "could not save the audit state, " + 
+                                       "possibly because of a concurrent change");
+    }
+    return result;
   }
   
   /**
@@ -228,6 +230,19 @@ public abstract class AbstractEndpoint implements Endpoint {
     my_endpoint_result.set(the_json);
   }
   
+  /**
+   * Indicate and log that the client's cached copy of the response is still
+   * current; no body is sent.
+   * 
+   * @param the_response The HTTP response.
+   */
+  public void notModified(final Response the_response) {
+    my_log_entries.get().add(new LogEntry(HttpStatus.NOT_MODIFIED_304, endpointName(), 
+                                          Instant.now()));
+    my_status.set(HttpStatus.NOT_MODIFIED_304);
+    my_endpoint_result.set("");
+  }
+  
   /**
    * Indicate the client has violated an invariant or precondition relating data
    * to the endpoint in question. E.g., a digest is incorrect with regards to
@@ -494,52 +509,75 @@ public abstract class AbstractEndpoint implements Endpoint {
   }
   
   /**
-   * Persists, and logs to the system logger, all accumulated log entries for
-   * this endpoint.
+   * Logs a log entry to the system logger.
    * 
-   * @param the_request The request (used to get the hostname of the client 
-   * and the authentication data for the log).
+   * @param the_log_entry The log entry.
+   * @param the_admin_data The authentication data for the log entry.
+   * @param the_client_host The client host for the log entry.
    */
-  private void sendToLogger(final LogEntry the_log_entry) {
+  private void sendToLogger(final LogEntry the_log_entry, final String the_admin_data,
+                            final String the_client_host) {
     if (the_log_entry.resultCode() == null) {
       Main.LOGGER.log(logLevel(), 
                       the_log_entry.information() + " by " + 
-                      the_log_entry.authenticationData() + " from " + 
-                      the_log_entry.clientHost());
-    } else if (HttpStatus.isSuccess(the_log_entry.resultCode())) {
+                      the_admin_data + " from " + the_client_host);
+    } else if (isSuccess(the_log_entry.resultCode())) {
       Main.LOGGER.log(logLevel(), 
                       "successful " + the_log_entry.information() + " by " + 
-                      the_log_entry.authenticationData() + " from " + 
-                      the_log_entry.clientHost());
+                      the_admin_data + " from " + the_client_host);
     } else {
       Main.LOGGER.error("error " + the_log_entry.resultCode() + " " + 
                         the_log_entry.information() + " by " + 
-                        the_log_entry.authenticationData() + " from " + 
-                        the_log_entry.clientHost());
+                        the_admin_data + " from " + the_client_host);
     }
   }
 
-  private void persistLogEntries(final Request the_request) {
-    LogEntry previous_entry = LogEntryQueries.last();
+  /**
+   * @param the_request The request.
+   * @return the authentication data for the log entries of the request.
+   */
+  private String adminData(final Request the_request) {
     final Object admin_attribute = 
         the_request.session().attribute(AuthenticationInterface.ADMIN);
-    final String admin_data;
+    final String result;
     if (admin_attribute instanceof Administrator) {
-      admin_data = ((Administrator) admin_attribute).username();
+      result = ((Administrator) admin_attribute).username();
     } else {
-      admin_data = "(unauthenticated)";
+      result = "(unauthenticated)";
+    }
+    return result;
+  }
+  
+  /**
+   * Logs to the system logger all accumulated log entries for this endpoint,
+   * and, unless they have already been committed with the endpoint's 
+   * transaction, hands them to the log entry writer to be hash-chained and 
+   * persisted. The response of an endpoint that can change state is not sent
+   * until the writer has committed its entries, and becomes a server error if
+   * it cannot; the entries of GET endpoints are persisted asynchronously.
+   * 
+   * @param the_request The request (used to get the hostname of the client 
+   * and the authentication data for the log).
+   * @param the_committed true if the entries were committed with the 
+   * endpoint's transaction, false otherwise.
+   */
+  private void writeLogEntries(final Request the_request, final boolean the_committed) {
+    if (my_log_entries.get().isEmpty()) {
+      return;
     }
+    final String admin_data = adminData(the_request);
     
     for (final LogEntry entry : my_log_entries.get()) {
-      // create and persist a new hash-chained log entry for each log entry
-      final LogEntry real_entry =
-          new LogEntry(entry.resultCode(), entry.information(), 
-                       admin_data, the_request.host(),
-                       entry.timestamp(), previous_entry);
-      Persistence.save(real_entry);
-      sendToLogger(real_entry);
-      previous_entry = real_entry;
+      sendToLogger(entry, admin_data, the_request.host());
     }
+    if (!the_committed &&
+        !LogEntryWriter.write(my_log_entries.get(), admin_data, the_request.host(),
+                              endpointType() != EndpointType.GET)) {
+      Main.LOGGER.error("could not persist log entries for " + endpointName());
+      my_status.set(HttpStatus.INTERNAL_SERVER_ERROR_500);
+      my_endpoint_result.set(Main.GSON.toJson(new Result("could not persist log entries")));
+    }
+    my_log_entries.get().clear();
   }
   
   /**
@@ -548,32 +586,16 @@ public abstract class AbstractEndpoint implements Endpoint {
    */
   private boolean successful() {
     return !my_log_entries.get().isEmpty() &&
-           HttpStatus.isSuccess(my_log_entries.
-                                get().get(my_log_entries.get().size() - 1).resultCode());
+           isSuccess(my_log_entries.get().get(my_log_entries.get().size() - 1).resultCode());
   }
   
   /**
-   * Attempts to commit, in a separate transaction, any straggling log entries that
-   * could not be committed due to error.
-   * 
-   * @param the_request The request (used for log data).
+   * @param the_code An HTTP status code.
+   * @return true if the code indicates success, including a 304 (Not Modified) 
+   * response to a conditional request, false otherwise.
    */
-  private void finalizeLogs(final Request the_request) {
-    int log_commit_retries = 0;
-    if (!my_log_entries.get().isEmpty() && log_commit_retries < LOG_COMMIT_RETRIES) {
-      try {
-        log_commit_retries = log_commit_retries + 1;
-        Persistence.beginTransaction();
-        persistLogEntries(the_request);
-        Persistence.commitTransaction();
-        my_log_entries.get().clear();
-      } catch (final PersistenceException e) {
-        Main.LOGGER.error("could not persist log entries for error response after " + 
-                          log_commit_retries + " attempt(s)");
-      }
-    } else if (!my_log_entries.get().isEmpty()) {
-      Main.LOGGER.error("maximum number of log entry commit attempts reached, aborting");
-    }
+  private static boolean isSuccess(final int the_code) {
+    return HttpStatus.isSuccess(the_code) || the_code == HttpStatus.NOT_MODIFIED_304;
   }
   
   /**
@@ -585,34 +607,39 @@ public abstract class AbstractEndpoint implements Endpoint {
   public void afterAfter(final Request the_request, final Response the_response) {
     // try to take the transition for this endpoint in the ASM and save it to the DB
     // note that we do not try to commit when we have an error code in the response
+    boolean logs_committed = false;
     if (successful() && 
         transitionAndSaveASM(the_response) && 
         Persistence.isTransactionActive()) {
+      // the log entries of endpoints that can change state are committed 
+      // together with the changes, if so configured
+      final boolean chain_logs = endpointType() != EndpointType.GET &&
+                                 LogEntryWriter.chainsInTransaction();
       try {
-        // since the transition finished, let's log all the log entries and commit
-        persistLogEntries(the_request);
+        if (chain_logs) {
+          LogEntryWriter.chainInTransaction(my_log_entries.get(), adminData(the_request),
+                                            the_request.host());
+        }
+        // since the transition finished, let's commit
         Persistence.commitTransaction();
-        my_log_entries.get().clear();
-      } catch (final PersistenceException e) {
+        logs_committed = chain_logs;
+        notifyDashboardChange(the_request);
+      } catch (final PersistenceException | IllegalStateException e) {
         // this is an internal server error because we don't know what didn't
         // get committed
+        if (Persistence.isTransactionActive()) {
+          rollback();
+        }
         transactionFailure(the_response, 
                            "could not commit changes to persistent storage");
+      } finally {
+        LogEntryWriter.releaseChain();
       }
     } else {
-      if (Persistence.canTransactionRollback()) {
-        try {
-          Persistence.rollbackTransaction();
-        } catch (final PersistenceException ex) {
-          Main.LOGGER.error("could not roll back transaction for error response: " +
-                            ex.getMessage());
-        }
-      } else {
-        Main.LOGGER.error("could not roll back transaction for error response");
-      }
+      rollback();
     }
-    // if there are still log entries left, we need to persist them and print them
-    finalizeLogs(the_request);
+    // the log entries are written whether or not the transaction committed
+    writeLogEntries(the_request, logs_committed);
     Integer status = my_status.get();
     String endpoint_result = my_endpoint_result.get();
     if (status == null) {
@@ -624,6 +651,41 @@ public abstract class AbstractEndpoint implements Endpoint {
     the_response.status(status);
   }
   
+  /**
+   * Rolls back the current transaction, if possible.
+   */
+  private void rollback() {
+    if (Persistence.canTransactionRollback()) {
+      try {
+        Persistence.rollbackTransaction();
+      } catch (final PersistenceException ex) {
+        Main.LOGGER.error("could not roll back transaction for error response: " +
+                          ex.getMessage());
+      }
+    } else {
+      Main.LOGGER.error("could not roll back transaction for error response");
+    }
+  }
+  
+  /**
+   * Reports a dashboard change after this endpoint has committed changes; 
+   * GET endpoints are assumed not to change anything that appears on a 
+   * dashboard. Changes made through county endpoints are reported as changes
+   * to that county only.
+   * 
+   * @param the_request The request.
+   */
+  private void notifyDashboardChange(final Request the_request) {
+    if (endpointType() != EndpointType.GET) {
+      final County county = Main.authentication().authenticatedCounty(the_request);
+      if (requiredAuthorization() == AuthorizationType.COUNTY && county != null) {
+        DashboardChangeNotifier.countyChanged(county.id());
+      } else {
+        DashboardChangeNotifier.stateChanged();
+      }
+    }
+  }
+  
   /**
    * @return the type of authorization required to use this endpoint.
    * The default is NONE.
@@ -29,6 +29,7 @@ import spark.Response;
 
 import us.freeandfair.corla.Main;
 import us.freeandfair.corla.asm.ASMEvent;
+import us.freeandfair.corla.controller.BallotManifestIndex;
 import us.freeandfair.corla.csv.BallotManifestParser;
 import us.freeandfair.corla.csv.ColoradoBallotManifestParser;
 import us.freeandfair.corla.model.County;
@@ -123,6 +124,7 @@ public class BallotManifestImport extends AbstractCountyDashboardEndpoint {
           new ColoradoBallotManifestParser(bmi_isr, 
                                            the_file.county().id());
       final int deleted = BallotManifestInfoQueries.deleteMatching(the_file.county().id());
+      BallotManifestIndex.invalidate(the_file.county().id());
       if (parser.parse()) {
         final int imported = parser.recordCount().getAsInt();
         Main.LOGGER.info(imported + " ballot manifest records parsed from file " + 
@@ -40,6 +40,7 @@ import us.freeandfair.corla.asm.ASMState;
 import us.freeandfair.corla.asm.ASMState.CountyDashboardState;
 import us.freeandfair.corla.asm.ASMUtilities;
 import us.freeandfair.corla.asm.CountyDashboardASM;
+import us.freeandfair.corla.controller.AuditSequenceCache;
 import us.freeandfair.corla.csv.DominionCVRExportParser;
 import us.freeandfair.corla.model.AuditReason;
 import us.freeandfair.corla.model.AuditType;
@@ -573,6 +574,7 @@ public class CVRExportImport extends AbstractCountyDashboardEndpoint {
           result = 
               CastVoteRecordQueries.deleteMatching(the_county.id(), RecordType.UPLOADED);
           CountyContestResultQueries.deleteForCounty(the_county.id());
+          AuditSequenceCache.invalidate(the_county.id());
           final CountyDashboard cdb = 
               Persistence.getByID(the_county.id(), CountyDashboard.class);
           cdb.setCVRFile(null);
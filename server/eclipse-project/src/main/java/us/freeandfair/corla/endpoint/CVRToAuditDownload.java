@@ -235,9 +235,14 @@ public class CVRToAuditDownload extends AbstractEndpoint {
                                                          duplicates, audited);
       }
      
+      final List<String> locations = 
+          BallotManifestInfoQueries.locationsFor(cvr_to_audit_list);
+      if (locations == null) {
+        serverError(the_response, "could not find ballot locations");
+      }
       for (int i = 0; i < cvr_to_audit_list.size(); i++) {
         final CastVoteRecord cvr = cvr_to_audit_list.get(i);
-        final String location = BallotManifestInfoQueries.locationFor(cvr);
+        final String location = locations.get(i);
         response_list.add(new CVRToAuditResponse(i, cvr.scannerID(), 
                                                  cvr.batchID(), cvr.recordID(), 
                                                  cvr.imprintedID(), 
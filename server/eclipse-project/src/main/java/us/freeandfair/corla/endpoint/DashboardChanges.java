@@ -0,0 +1,138 @@
+/*
+ * Free & Fair Colorado RLA System
+ * 
+ * @title ColoradoRLA
+ * @created Oct 18, 2026
+ * @copyright 2026 Colorado Department of State
+ * @license SPDX-License-Identifier: AGPL-3.0-or-later
+ * @creator Daniel M. Zimmerman <dmz@freeandfair.us>
+ * @description A system to assist in conducting statewide risk-limiting audits.
+ */
+
+package us.freeandfair.corla.endpoint;
+
+import org.apache.log4j.Level;
+
+import spark.Request;
+import spark.Response;
+
+import us.freeandfair.corla.Main;
+import us.freeandfair.corla.controller.DashboardChangeNotifier;
+import us.freeandfair.corla.json.DashboardChangeResponse;
+import us.freeandfair.corla.model.County;
+import us.freeandfair.corla.persistence.Persistence;
+
+/**
+ * The endpoint for waiting for a change to the dashboards of the authenticated
+ * administrator: the county and audit board dashboards for a county 
+ * administrator, and the Department of State dashboard for a state 
+ * administrator. A client passes the dashboard version it last saw as the
+ * "version" parameter; the response is sent as soon as the version differs
+ * from that one, or when the maximum wait time passes, and the client only
+ * needs to refresh its dashboard if the version has changed. Without the
+ * parameter, the current version is returned immediately.
+ *
+ * @author Daniel M. Zimmerman <dmz@freeandfair.us>
+ * @version 1.0.0
+ */
+// endpoints don't need constructors
+@SuppressWarnings("PMD.AtLeastOneConstructor")
+public class DashboardChanges extends AbstractEndpoint {
+  /**
+   * The version parameter.
+   */
+  public static final String VERSION = "version";
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public EndpointType endpointType() {
+    return EndpointType.GET;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public String endpointName() {
+    return "/dashboard-changes";
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Level logLevel() {
+    return Level.DEBUG;
+  }
+
+  /**
+   * This endpoint requires either kind of authorization.
+   */
+  @Override
+  public AuthorizationType requiredAuthorization() {
+    return AuthorizationType.EITHER;
+  }
+
+  /**
+   * Validates the parameters of this request. The version, if present,
+   * must be a number.
+   *
+   * @param the_request The request.
+   * @return true if the parameters are valid, false otherwise.
+   */
+  @Override
+  protected boolean validateParameters(final Request the_request) {
+    final String version = the_request.queryParams(VERSION);
+    boolean result = true;
+    if (version != null) {
+      try {
+        Long.parseLong(version);
+      } catch (final NumberFormatException e) {
+        result = false;
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Waits for a dashboard change. The transaction opened for this request is
+   * committed before waiting, so that waiting clients do not hold database
+   * connections, and a new one is opened afterwards for logging.
+   *
+   * @param the_request The request.
+   * @param the_response The response.
+   */
+  @Override
+  public String endpointBody(final Request the_request, final Response the_response) {
+    final County county = Main.authentication().authenticatedCounty(the_request);
+    final Long county_id;
+    if (county == null) {
+      county_id = null;
+    } else {
+      county_id = county.id();
+    }
+    final String version_param = the_request.queryParams(VERSION);
+
+    long version = DashboardChangeNotifier.version(county_id);
+    boolean changed = false;
+    if (version_param != null) {
+      final long client_version = Long.parseLong(version_param);
+      if (version == client_version) {
+        Persistence.commitTransaction();
+        try {
+          version = DashboardChangeNotifier.await(county_id, client_version);
+        } catch (final InterruptedException e) {
+          Thread.currentThread().interrupt();
+          version = DashboardChangeNotifier.version(county_id);
+        } finally {
+          Persistence.beginTransaction();
+        }
+      }
+      changed = version != client_version;
+    }
+    okJSON(the_response, Main.GSON.toJson(new DashboardChangeResponse(version, changed)));
+    return my_endpoint_result.get();
+  }
+}
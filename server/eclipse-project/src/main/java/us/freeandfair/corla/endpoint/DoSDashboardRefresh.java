@@ -18,10 +18,7 @@ import org.apache.log4j.Level;
 import spark.Request;
 import spark.Response;
 
-import us.freeandfair.corla.Main;
-import us.freeandfair.corla.json.DoSDashboardRefreshResponse;
-import us.freeandfair.corla.model.DoSDashboard;
-import us.freeandfair.corla.persistence.Persistence;
+import us.freeandfair.corla.json.DoSDashboardRefreshCache;
 
 /**
  * The endpoint for refreshing the Department of State dashboard status.
@@ -32,6 +29,26 @@ import us.freeandfair.corla.persistence.Persistence;
 // endpoints don't need constructors
 @SuppressWarnings("PMD.AtLeastOneConstructor")
 public class DoSDashboardRefresh extends AbstractDoSDashboardEndpoint {
+  /**
+   * The If-None-Match header.
+   */
+  private static final String IF_NONE_MATCH = "If-None-Match";
+  
+  /**
+   * The ETag header.
+   */
+  private static final String ETAG = "ETag";
+  
+  /**
+   * The Cache-Control header.
+   */
+  private static final String CACHE_CONTROL = "Cache-Control";
+  
+  /**
+   * The Cache-Control value that makes clients revalidate every time.
+   */
+  private static final String NO_CACHE = "no-cache";
+  
   /**
    * {@inheritDoc}
    */
@@ -57,7 +74,9 @@ public class DoSDashboardRefresh extends AbstractDoSDashboardEndpoint {
   }
   
   /**
-   * Provides information about the DoS dashboard.
+   * Provides information about the DoS dashboard. The response is served from
+   * a cached snapshot, and a client that presents the snapshot's ETag in 
+   * If-None-Match gets a 304 (Not Modified) response.
    * 
    * @param the_request The request.
    * @param the_response The response.
@@ -65,9 +84,19 @@ public class DoSDashboardRefresh extends AbstractDoSDashboardEndpoint {
   @Override
   public String endpointBody(final Request the_request, final Response the_response) {
     try {
-      okJSON(the_response, 
-             Main.GSON.toJson(DoSDashboardRefreshResponse.createResponse
-                              (Persistence.getByID(DoSDashboard.ID, DoSDashboard.class))));
+      final String if_none_match = the_request.headers(IF_NONE_MATCH);
+      final String current_etag = DoSDashboardRefreshCache.currentETag();
+      if (current_etag != null && current_etag.equals(if_none_match)) {
+        the_response.header(ETAG, current_etag);
+        the_response.header(CACHE_CONTROL, NO_CACHE);
+        notModified(the_response);
+      } else {
+        final DoSDashboardRefreshCache.Snapshot snapshot = 
+            DoSDashboardRefreshCache.snapshot();
+        the_response.header(ETAG, snapshot.eTag());
+        the_response.header(CACHE_CONTROL, NO_CACHE);
+        okJSON(the_response, snapshot.json());
+      }
     } catch (final PersistenceException e) {
       serverError(the_response, "could not obtain dashboard state");
     }
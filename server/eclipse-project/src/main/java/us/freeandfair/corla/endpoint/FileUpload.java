@@ -14,16 +14,9 @@ package us.freeandfair.corla.endpoint;
 import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.io.LineNumberReader;
-import java.io.OutputStream;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.sql.Blob;
 import java.text.SimpleDateFormat;
 import java.time.Instant;
@@ -47,7 +40,6 @@ import spark.Request;
 import spark.Response;
 
 import us.freeandfair.corla.Main;
-import us.freeandfair.corla.crypto.HashChecker;
 import us.freeandfair.corla.model.County;
 import us.freeandfair.corla.model.UploadedFile;
 import us.freeandfair.corla.model.UploadedFile.FileStatus;
@@ -55,7 +47,7 @@ import us.freeandfair.corla.model.UploadedFile.HashStatus;
 import us.freeandfair.corla.persistence.Persistence;
 import us.freeandfair.corla.util.FileHelper;
 import us.freeandfair.corla.util.SparkHelper;
-import us.freeandfair.corla.util.SuppressFBWarnings;
+import us.freeandfair.corla.util.UploadTeeOutputStream;
 
 /**
  * The file upload endpoint.
@@ -119,23 +111,17 @@ public class FileUpload extends AbstractEndpoint {
    * @param the_county The county that uploaded the file.
    * @return the resulting entity if successful, null otherwise
    */
-  // we are deliberately ignoring the return value of lnr.skip()
-  @SuppressFBWarnings("SR_NOT_CHECKED")
   private UploadedFile attemptFilePersistence(final Response the_response, 
                                               final UploadInformation the_info,
                                               final County the_county) {
     UploadedFile result = null;
     
-    try (FileInputStream is = new FileInputStream(the_info.my_file);
-         LineNumberReader lnr = 
-             new LineNumberReader(new InputStreamReader(new FileInputStream(the_info.my_file), 
-                                                        "UTF-8"))) {
+    // this is the only time the temp file is read after the upload; the
+    // hash and the approximate number of records were computed as it arrived
+    try (FileInputStream is = new FileInputStream(the_info.my_file)) {
       final Blob blob = Persistence.blobFor(is, the_info.my_file.length());
       final HashStatus hash_status;
-      
-      // first, compute the approximate number of records in the file
-      lnr.skip(Integer.MAX_VALUE);
-      final int approx_records = lnr.getLineNumber();
+      final int approx_records = the_info.my_line_count;
       
       if (the_info.my_computed_hash == null) {
         hash_status = HashStatus.NOT_CHECKED;
@@ -187,17 +173,25 @@ public class FileUpload extends AbstractEndpoint {
           final FileItemStream item = fii.next();
           final String name = item.getFieldName();
           final InputStream stream = item.openStream();
-          final InputStream stream2 = item.openStream();
           
           if (item.isFormField()) {
             the_info.my_form_fields.put(item.getFieldName(), Streams.asString(stream));
           } else if (FILE.equals(name)) {
-            // save the file
+            // save the file, hashing, counting lines and archiving as it arrives
             the_info.my_filename = item.getName();
             the_info.my_file = File.createTempFile("upload", ".csv");
-            final OutputStream os = new FileOutputStream(the_info.my_file);
-            final int total =
-                FileHelper.bufferedCopy(stream, os, BUFFER_SIZE, MAX_UPLOAD_SIZE);
+            the_info.my_archive_file_name = archiveFileName(the_info.my_filename);
+            final UploadTeeOutputStream os = 
+                new UploadTeeOutputStream(the_info.my_file, 
+                                          new File(the_info.my_archive_file_name));
+            final int total;
+            try {
+              total = FileHelper.bufferedCopy(stream, os, BUFFER_SIZE, MAX_UPLOAD_SIZE);
+            } finally {
+              os.close();
+            }
+            the_info.my_computed_hash = os.hash();
+            the_info.my_line_count = os.lineCount();
 
             if (total >= MAX_UPLOAD_SIZE) {
               Main.LOGGER.info("attempt to upload file greater than max size from " +
@@ -208,7 +202,6 @@ public class FileUpload extends AbstractEndpoint {
               Main.LOGGER.info("successfully saved file of size " + total + " from " +
                                raw.getRemoteHost());
             }
-            os.close();
           }
         }
       }
@@ -230,30 +223,52 @@ public class FileUpload extends AbstractEndpoint {
 
   
   /**
-   * Copies uploaded file which is in a temporary location and it's hash into an archival location
+   * Determines the archival location for an uploaded file, so that the archive
+   * copy can be written while the file is being uploaded.
    * 
    * Steps:
    *  1. Based on operating system, fetches archival file path from property file
    *  2. Creates the file path if not existing
-   *  3. Appends timestamp to file and archives it by making a copy of the temporary file.
-   *  4. Appends the same timestamp to create a new file that would contain the hash value and archives it.  
+   *  3. Prepends a timestamp to the uploaded file name.
    *  
-   * @param uploadInformation contains all the specifices of the uploaded file that is in temporary location along with its hash value.
+   * @param uploadedFileName the name of the uploaded file.
+   * @return the path and file name of the archive copy.
    */
-  private void archive(UploadInformation uploadInformation) {
-    
-      // name of file that was uploaded  
-      String uploadedFileName = uploadInformation.my_filename; 
-      
+  private String archiveFileName(String uploadedFileName) {
       // Prepend timestamp to file name.
       // Not append timestamp as we can't assure if file names follow filename.ext format) 
       // Example: 2018-05-17-T10-44-04.244-Arapahoe 2016 Primary Ballot Manifest.csv
       // Cannot use ':' as in HH:mm:ss because, when running in Windows, it throws java.nio.file.InvalidPathException
       String arvchiveFileName = new SimpleDateFormat("yyyy-MM-dd-'T'HH-mm-ss.SSS-").format(new Date()) + uploadedFileName;
       
+      // fetch location where file needs to be uploaded to for archival
+      String archiveFilePath = fetchArchiveFilePath();    
+      // create directory if not existing
+      File archiveFileDir = new File(archiveFilePath);      
+      archiveFileDir.mkdirs();    
+      
+      return archiveFilePath + arvchiveFileName;
+  }
+
+  /**
+   * Archives the hash of an uploaded file next to its archive copy, which was
+   * written during the upload.
+   * 
+   * Appends "-Hash.txt" to the archive file name (in place of the uploaded 
+   * file's extension, if any) to create a new file that contains the hash 
+   * value, and archives it.
+   *  
+   * @param uploadInformation contains all the specifices of the uploaded file along with its hash value.
+   */
+  private void archive(UploadInformation uploadInformation) {
+    
+      String arvchiveFileName = uploadInformation.my_archive_file_name;
+      
       // create corresponding hash file name to archive. Prepend archiveFileName so it is paired correctly 
       String archiveHashFileName = null;      
-      if (StringUtils.contains(uploadedFileName, ".")) { // file name contains a "."
+      // the uploaded file name is checked, since the timestamp prefix of the
+      // archive file name always contains a "."
+      if (StringUtils.contains(uploadInformation.my_filename, ".")) { // file name contains a "."
          // get the file name till the "." and append "-Hash.text" to it
          // Example: 
          //        Archive File Name:      2018-05-17-T10-44-04.390-Arapahoe 2016 Primary Ballot Manifest.csv
@@ -267,42 +282,11 @@ public class FileUpload extends AbstractEndpoint {
         archiveHashFileName = arvchiveFileName + "-Hash.txt";
       }
   
-      // fetch location where file needs to be uploaded to for archival
-      String archiveFilePath = fetchArchiveFilePath();    
-      // create directory if not existing
-      File archiveFileDir = new File(archiveFilePath);      
-      archiveFileDir.mkdirs();    
-      
-      // archive file by copying it to destination
-      archiveFile (archiveFilePath+arvchiveFileName, uploadInformation.my_file.toPath());
       // create corresponding hash text file with hash value in it
-      archiveHashFile(archiveFilePath+archiveHashFileName, uploadInformation.my_uploaded_hash);      
+      archiveHashFile(archiveHashFileName, uploadInformation.my_uploaded_hash);      
 
   }
 
-  /**
-   * Copies passed in temporary file into archive destination, also renames it to its original name
-   * 
-   * @param filePathAndName path and file name of the  file to be archived
-   * @param sourcePath path and file name of the temporary file created by the server
-   */
-  private void archiveFile(String filePathAndName, Path sourcePath)  {
-    try {        
-        // copy the temp file into archive destination
-        Path path = Files.copy( sourcePath, Paths.get(filePathAndName));        
-        
-        if (path != null) {
-           Main.LOGGER.info("Successfully archived file (" + filePathAndName + ")." );
-         } else {
-           Main.LOGGER.info("Error archiving file (" + filePathAndName + ")." );           
-         }
-                   
-      } catch (IOException e) {
-          Main.LOGGER.info("Encountered exception while archiving file (" + filePathAndName  + ") - " + e.getMessage());
-      }
-  }
-  
-
   /**
    * Creates a new hash file and copies passed in hash value and archives it.
    * 
@@ -369,7 +353,6 @@ public class FileUpload extends AbstractEndpoint {
       UploadedFile uploaded_file = null;
     
       if (info.my_ok) {
-        info.my_computed_hash = HashChecker.hashFile(info.my_file);
         info.my_uploaded_hash = 
             info.my_form_fields.get(HASH).toUpperCase(Locale.US).trim();
         uploaded_file = attemptFilePersistence(the_response, info, county);
@@ -433,5 +416,15 @@ public class FileUpload extends AbstractEndpoint {
      * The computed hash.
      */
     protected String my_computed_hash;
+    
+    /**
+     * The number of lines in the uploaded file.
+     */
+    protected int my_line_count;
+    
+    /**
+     * The path and file name of the archive copy of the uploaded file.
+     */
+    protected String my_archive_file_name;
   }
 }
@@ -0,0 +1,71 @@
+/*
+ * Free & Fair Colorado RLA System
+ * 
+ * @title ColoradoRLA
+ * @created Oct 18, 2026
+ * @copyright 2026 Colorado Department of State
+ * @license SPDX-License-Identifier: AGPL-3.0-or-later
+ * @creator Daniel M. Zimmerman <dmz@freeandfair.us>
+ * @description A system to assist in conducting statewide risk-limiting audits.
+ */
+
+package us.freeandfair.corla.endpoint;
+
+import javax.persistence.PersistenceException;
+
+import spark.Request;
+import spark.Response;
+
+import us.freeandfair.corla.Main;
+import us.freeandfair.corla.controller.LogChainVerifier;
+
+/**
+ * The endpoint for verifying the hash chain of the log.
+ *
+ * @author Daniel M. Zimmerman <dmz@freeandfair.us>
+ * @version 1.0.0
+ */
+// endpoints don't need constructors
+@SuppressWarnings("PMD.AtLeastOneConstructor")
+public class LogVerification extends AbstractEndpoint {
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public EndpointType endpointType() {
+    return EndpointType.GET;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public String endpointName() {
+    return "/verify-log";
+  }
+
+  /**
+   * This endpoint requires STATE authorization.
+   */
+  @Override
+  public AuthorizationType requiredAuthorization() {
+    return AuthorizationType.STATE;
+  }
+
+  /**
+   * Verifies the hash chain of the log, and reports the first broken link
+   * (if any) and the throughput achieved.
+   *
+   * @param the_request The request.
+   * @param the_response The response.
+   */
+  @Override
+  public String endpointBody(final Request the_request, final Response the_response) {
+    try {
+      okJSON(the_response, Main.GSON.toJson(LogChainVerifier.verify()));
+    } catch (final PersistenceException e) {
+      serverError(the_response, "could not verify log: " + e.getMessage());
+    }
+    return my_endpoint_result.get();
+  }
+}
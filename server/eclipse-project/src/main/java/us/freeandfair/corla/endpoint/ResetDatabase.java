@@ -14,14 +14,18 @@ package us.freeandfair.corla.endpoint;
 import spark.Request;
 import spark.Response;
 
+import us.freeandfair.corla.asm.ASMUtilities;
 import us.freeandfair.corla.asm.AbstractStateMachine;
 import us.freeandfair.corla.asm.AuditBoardDashboardASM;
 import us.freeandfair.corla.asm.CountyDashboardASM;
 import us.freeandfair.corla.asm.DoSDashboardASM;
 import us.freeandfair.corla.asm.PersistentASMState;
+import us.freeandfair.corla.controller.AuditSequenceCache;
+import us.freeandfair.corla.controller.BallotManifestIndex;
 import us.freeandfair.corla.model.County;
 import us.freeandfair.corla.model.CountyDashboard;
 import us.freeandfair.corla.model.DoSDashboard;
+import us.freeandfair.corla.persistence.LogEntryWriter;
 import us.freeandfair.corla.persistence.Persistence;
 import us.freeandfair.corla.query.DatabaseResetQueries;
 import us.freeandfair.corla.query.PersistentASMStateQueries;
@@ -84,9 +88,13 @@ public class ResetDatabase extends AbstractEndpoint {
   @Override
   public String endpointBody(final Request the_request,
                          final Response the_response) {
-    // delete everything
+    // delete everything, including the log, whose chain starts over
     
+    LogEntryWriter.restartChainInTransaction();
     DatabaseResetQueries.resetDatabase();
+    AuditSequenceCache.invalidateAll();
+    BallotManifestIndex.invalidateAll();
+    ASMUtilities.invalidateAll();
     
     // create new dashboards
     final DoSDashboard dosdb = new DoSDashboard();
@@ -22,6 +22,7 @@ import spark.Response;
 
 import us.freeandfair.corla.Main;
 import us.freeandfair.corla.asm.ASMEvent;
+import us.freeandfair.corla.controller.AuditSequenceCache;
 import us.freeandfair.corla.model.AuditInfo;
 import us.freeandfair.corla.model.DoSDashboard;
 import us.freeandfair.corla.persistence.Persistence;
@@ -92,6 +93,7 @@ public class SetRandomSeed extends AbstractDoSDashboardEndpoint {
             new AuditInfo(null, null, null, submitted.seed(), null);
         dosdb.updateAuditInfo(seed);
         Persistence.saveOrUpdate(dosdb);
+        AuditSequenceCache.invalidateAll();
         ok(the_response, "random seed set to " + seed.seed());
       } else {
         invariantViolation(the_response, "invalid random seed specified: " + submitted.seed());
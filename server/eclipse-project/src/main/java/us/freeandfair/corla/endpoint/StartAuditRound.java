@@ -18,7 +18,11 @@ import static us.freeandfair.corla.asm.ASMState.DoSDashboardState.RANDOM_SEED_PU
 import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
 
+import javax.persistence.OptimisticLockException;
 import javax.persistence.PersistenceException;
 
 import com.google.gson.JsonParseException;
@@ -28,6 +32,7 @@ import spark.Response;
 
 import us.freeandfair.corla.Main;
 import us.freeandfair.corla.asm.ASMEvent;
+import us.freeandfair.corla.asm.AbstractStateMachine;
 import us.freeandfair.corla.asm.ASMState.CountyDashboardState;
 import us.freeandfair.corla.asm.ASMUtilities;
 import us.freeandfair.corla.asm.AuditBoardDashboardASM;
@@ -35,11 +40,17 @@ import us.freeandfair.corla.asm.CountyDashboardASM;
 import us.freeandfair.corla.controller.ComparisonAuditController;
 import us.freeandfair.corla.json.SubmittedAuditRoundStart;
 import us.freeandfair.corla.model.CountyDashboard;
+import us.freeandfair.corla.persistence.ParallelTransactionRunner;
+import us.freeandfair.corla.persistence.ParallelTransactionRunner.CommitPolicy;
+import us.freeandfair.corla.persistence.ParallelTransactionRunner.Outcome;
 import us.freeandfair.corla.persistence.Persistence;
 import us.freeandfair.corla.util.SuppressFBWarnings;
 
 /**
- * Starts a new audit round for one or more counties.
+ * Starts a new audit round for one or more counties. The round_start_policy
+ * property determines how the counties are committed: all together, in this
+ * endpoint's transaction ("atomic", the default), or independently, in 
+ * parallel, using up to round_start_threads worker threads ("per_county").
  * 
  * @author Daniel M. Zimmerman <dmz@freeandfair.us>
  * @version 1.0.0
@@ -48,11 +59,34 @@ import us.freeandfair.corla.util.SuppressFBWarnings;
                    "PMD.AtLeastOneConstructor", "PMD.ModifiedCyclomaticComplexity",
                    "PMD.NPathComplexity"})
 public class StartAuditRound extends AbstractDoSDashboardEndpoint {
+  /**
+   * The name of the property that sets the number of worker threads used
+   * to start rounds in multiple counties at once.
+   */
+  public static final String THREADS_PROPERTY = "round_start_threads";
+  
+  /**
+   * The name of the property that sets the commit policy for multi-county
+   * round starts ("atomic" or "per_county").
+   */
+  public static final String POLICY_PROPERTY = "round_start_policy";
+  
   /**
    * The "county " string.
    */
   private static final String COUNTY = "county ";
   
+  /**
+   * The default number of worker threads.
+   */
+  private static final int DEFAULT_THREADS = 1;
+  
+  /**
+   * The number of times to retry a county's round start transaction when
+   * counties commit independently.
+   */
+  private static final int ROUND_START_RETRIES = 3;
+  
   /**
    * The event to return for this endpoint.
    */
@@ -125,72 +159,24 @@ public class StartAuditRound extends AbstractDoSDashboardEndpoint {
   public String startRoundOne(final Request the_request, final Response the_response) {
     // update every county dashboard with a list of ballots to audit
     try {
-      final List<CountyDashboard> cdbs = Persistence.getAll(CountyDashboard.class);
+      final List<Long> county_ids = new ArrayList<>();
+      for (final CountyDashboard cdb : Persistence.getAll(CountyDashboard.class)) {
+        county_ids.add(cdb.id());
+      }
+      
+      // when counties commit separately, a retried request skips the counties
+      // that were started by an earlier attempt
+      final boolean skip_started = commitPolicy() != CommitPolicy.ATOMIC;
+      final Map<Long, Outcome<Boolean>> outcomes = 
+          runForCounties(county_ids, the_id -> startRoundOne(the_id, skip_started));
+      reportFailures(the_response, outcomes, "round 1");
       
       // this flag starts off true if we're going to conjoin it with all the ASM
       // states, and false otherwise as we just assume audit reasonableness in the 
       // absence of ASMs
       boolean audit_complete = !DISABLE_ASM;
-      
-      for (final CountyDashboard cdb : cdbs) {
-        try {
-          if (cdb.cvrFile() == null || cdb.manifestFile() == null) {
-            Main.LOGGER.info(COUNTY + cdb.id() + " missed the file upload deadline");
-          } else {
-            // find the initial window
-            final boolean started = ComparisonAuditController.initializeAuditData(cdb);
-            if (started) {
-              Main.LOGGER.info(COUNTY + cdb.id() + " estimated to audit " + 
-                               cdb.estimatedSamplesToAudit() + " ballots in round 1");
-            } else if (cdb.drivingContests().isEmpty()) {
-              Main.LOGGER.info(COUNTY + cdb.id() + " has no driving contests, its " +
-                               "audit is complete.");
-            } else if (cdb.estimatedSamplesToAudit() == 0) {
-              Main.LOGGER.info(COUNTY + cdb.id() + " needs to audit 0 ballots to " +
-                               "achieve its risk limit, its audit is complete.");
-            } else {
-              Main.LOGGER.error("unable to start audit for county " + cdb.id());
-            }
-            Persistence.saveOrUpdate(cdb);
-          } 
-          // update the ASMs for the county and audit board
-          if (!DISABLE_ASM) {
-            final CountyDashboardASM asm = 
-                ASMUtilities.asmFor(CountyDashboardASM.class, String.valueOf(cdb.id()));
-            asm.stepEvent(COUNTY_START_AUDIT_EVENT);
-            final ASMEvent audit_event;
-            if (asm.currentState().equals(CountyDashboardState.COUNTY_AUDIT_UNDERWAY)) {
-              if (cdb.comparisonAudits().isEmpty()) {
-                // the county made its deadline but was assigned no contests to audit
-                audit_event = NO_CONTESTS_TO_AUDIT_EVENT;
-                asm.stepEvent(COUNTY_AUDIT_COMPLETE_EVENT);
-              } else if (cdb.estimatedSamplesToAudit() <= 0) {
-                // the county made its deadline but has already achieved its risk limit
-                audit_event = RISK_LIMIT_ACHIEVED_EVENT;
-                asm.stepEvent(COUNTY_AUDIT_COMPLETE_EVENT);
-              } else {
-                // the audit started normally
-                audit_event = ROUND_START_EVENT;
-              }
-            } else {
-              // the county missed its deadline
-              audit_event = COUNTY_DEADLINE_MISSED_EVENT;
-            }
-            ASMUtilities.step(audit_event, AuditBoardDashboardASM.class,
-                              String.valueOf(cdb.id()));
-            ASMUtilities.save(asm);
-            
-            // figure out whether this county is done, or whether there's an audit to run
-            audit_complete &= asm.isInFinalState();
-          }
-        } catch (final IllegalArgumentException e) {
-          e.printStackTrace(System.out);
-          serverError(the_response, "could not start round 1 for county " + 
-                      cdb.id());
-          Main.LOGGER.info("could not start round 1 for county " + cdb.id());
-        } catch (final IllegalStateException e) {
-          illegalTransition(the_response, e.getMessage());
-        }
+      for (final Outcome<Boolean> outcome : outcomes.values()) {
+        audit_complete &= Boolean.TRUE.equals(outcome.value());
       }
       
       if (audit_complete) {
@@ -205,6 +191,95 @@ public class StartAuditRound extends AbstractDoSDashboardEndpoint {
     
     return my_endpoint_result.get();
   }
+  
+  /**
+   * Starts the first audit round for a single county, using the session
+   * and transaction of the current thread.
+   * 
+   * @param the_county_id The county ID.
+   * @param the_skip_started true to skip the county if its audit has already
+   * been started, false to treat that as an illegal transition.
+   * @return true if the county's audit is complete, false otherwise.
+   * @exception IllegalArgumentException if the round cannot be started.
+   * @exception IllegalStateException if an ASM transition is illegal.
+   * @exception OptimisticLockException if an ASM state was changed by another
+   * transaction.
+   */
+  private static Boolean startRoundOne(final Long the_county_id, 
+                                       final boolean the_skip_started) {
+    final CountyDashboard cdb = Persistence.getByID(the_county_id, CountyDashboard.class);
+    final CountyDashboardASM asm = 
+        ASMUtilities.asmFor(CountyDashboardASM.class, String.valueOf(cdb.id()));
+    if (!DISABLE_ASM && the_skip_started && auditStarted(asm)) {
+      Main.LOGGER.info(COUNTY + cdb.id() + " was already started, skipping");
+      return asm.isInFinalState();
+    }
+    
+    if (cdb.cvrFile() == null || cdb.manifestFile() == null) {
+      Main.LOGGER.info(COUNTY + cdb.id() + " missed the file upload deadline");
+    } else {
+      // find the initial window
+      final boolean started = ComparisonAuditController.initializeAuditData(cdb);
+      if (started) {
+        Main.LOGGER.info(COUNTY + cdb.id() + " estimated to audit " + 
+                         cdb.estimatedSamplesToAudit() + " ballots in round 1");
+      } else if (cdb.drivingContests().isEmpty()) {
+        Main.LOGGER.info(COUNTY + cdb.id() + " has no driving contests, its " +
+                         "audit is complete.");
+      } else if (cdb.estimatedSamplesToAudit() == 0) {
+        Main.LOGGER.info(COUNTY + cdb.id() + " needs to audit 0 ballots to " +
+                         "achieve its risk limit, its audit is complete.");
+      } else {
+        Main.LOGGER.error("unable to start audit for county " + cdb.id());
+      }
+      Persistence.saveOrUpdate(cdb);
+    } 
+    
+    if (DISABLE_ASM) {
+      return true;
+    }
+    
+    // update the ASMs for the county and audit board
+    asm.stepEvent(COUNTY_START_AUDIT_EVENT);
+    final ASMEvent audit_event;
+    if (asm.currentState().equals(CountyDashboardState.COUNTY_AUDIT_UNDERWAY)) {
+      if (cdb.comparisonAudits().isEmpty()) {
+        // the county made its deadline but was assigned no contests to audit
+        audit_event = NO_CONTESTS_TO_AUDIT_EVENT;
+        asm.stepEvent(COUNTY_AUDIT_COMPLETE_EVENT);
+      } else if (cdb.estimatedSamplesToAudit() <= 0) {
+        // the county made its deadline but has already achieved its risk limit
+        audit_event = RISK_LIMIT_ACHIEVED_EVENT;
+        asm.stepEvent(COUNTY_AUDIT_COMPLETE_EVENT);
+      } else {
+        // the audit started normally
+        audit_event = ROUND_START_EVENT;
+      }
+    } else {
+      // the county missed its deadline
+      audit_event = COUNTY_DEADLINE_MISSED_EVENT;
+    }
+    if (!ASMUtilities.step(audit_event, AuditBoardDashboardASM.class,
+                           String.valueOf(cdb.id()))) {
+      throw new OptimisticLockException("could not save audit board state for county " + 
+                                        cdb.id());
+    }
+    saveASM(asm, cdb.id());
+    
+    // figure out whether this county is done, or whether there's an audit to run
+    return asm.isInFinalState();
+  }
+
+  /**
+   * Checks whether a county's audit has already been started, as it may have
+   * been by an earlier attempt to start round 1.
+   * 
+   * @param the_asm The county dashboard ASM.
+   * @return true if the audit has been started, false otherwise.
+   */
+  static boolean auditStarted(final CountyDashboardASM the_asm) {
+    return !the_asm.enabledASMEvents().contains(COUNTY_START_AUDIT_EVENT);
+  }
 
   /**
    * Starts a subsequent audit round.
@@ -239,51 +314,30 @@ public class StartAuditRound extends AbstractDoSDashboardEndpoint {
         }
       }
     
-      for (final CountyDashboard cdb : cdbs) {
-        final AuditBoardDashboardASM asm = 
-            ASMUtilities.asmFor(AuditBoardDashboardASM.class, cdb.id().toString());
-        if (asm.isInInitialState() || asm.isInFinalState()) {
-          // there is no audit happening in this county, so go to the next one
-          Main.LOGGER.debug("no audit ongoing in county " + cdb.id() + 
-                           ", skipping round start");
-          continue;
-        }
-        // if the county is in the middle of a round, error out
-        if (cdb.currentRound() != null) {
-          invariantViolation(the_response, 
-                             "audit round already in progress for county " + cdb.id());
-        }
-        
-        final ASMEvent audit_event;
-        final boolean round_started;
-        final BigDecimal multiplier;
-        if (start.multiplier() == null) {
-          multiplier = BigDecimal.ONE;
-        } else {
-          multiplier = start.multiplier();
-        }
-        if (start.useEstimates()) {
-          round_started = 
-              ComparisonAuditController.startNewRoundFromEstimates(cdb, multiplier);
-        } else {
-          round_started = ComparisonAuditController.
-              startNewRoundOfLength(cdb, start.countyBallots().get(cdb.id()), multiplier);
-        }
-        if (round_started) {
-          Main.LOGGER.debug("round started for county " + cdb.id());       
-          audit_event = ROUND_START_EVENT;
-        } else {
-          // we don't know why the round didn't start, so we need to abort the audit
-          Main.LOGGER.debug("no round started for county " + cdb.id());       
-          audit_event = ABORT_AUDIT_EVENT;
-        }
-        
-        // update the ASM for the audit board
-        if (!DISABLE_ASM) {
-          asm.stepEvent(audit_event);
-          ASMUtilities.save(asm);
-        }
-      }      
+      // when counties commit separately, a retried request skips the counties
+      // that were started by an earlier attempt
+      final List<Long> county_ids;
+      try {
+        county_ids = 
+            countiesToStart(cdbs, the_id -> ASMUtilities.asmFor(AuditBoardDashboardASM.class,
+                                                                the_id.toString()),
+                            commitPolicy() != CommitPolicy.ATOMIC);
+      } catch (final IllegalStateException e) {
+        invariantViolation(the_response, e.getMessage());
+        return my_endpoint_result.get();
+      }
+      
+      final BigDecimal multiplier;
+      if (start.multiplier() == null) {
+        multiplier = BigDecimal.ONE;
+      } else {
+        multiplier = start.multiplier();
+      }
+      final SubmittedAuditRoundStart round_start = start;
+      final Map<Long, Outcome<Boolean>> outcomes = 
+          runForCounties(county_ids, 
+                         the_id -> startSubsequentRound(the_id, round_start, multiplier));
+      reportFailures(the_response, outcomes, "new audit round");
       ok(the_response, "new audit round started");
     } catch (final PersistenceException e) {
       serverError(the_response, "could not start new audit round");
@@ -291,4 +345,208 @@ public class StartAuditRound extends AbstractDoSDashboardEndpoint {
     
     return my_endpoint_result.get();
   }
+  
+  /**
+   * Determines the counties in which to start a subsequent audit round: those
+   * with an audit ongoing, skipping any whose audit board ASM is in its
+   * initial or final state.
+   * 
+   * @param the_cdbs The county dashboards.
+   * @param the_asms A function that gets the audit board ASM for a county ID.
+   * @param the_skip_started true to skip counties in the middle of a round, 
+   * false to treat them as an error.
+   * @return the IDs of the counties, in the order of the_cdbs.
+   * @exception IllegalStateException if a county is in the middle of a round,
+   * and the_skip_started is false.
+   */
+  static List<Long> countiesToStart(final List<CountyDashboard> the_cdbs,
+                                    final Function<Long, AuditBoardDashboardASM> the_asms,
+                                    final boolean the_skip_started) {
+    final List<Long> result = new ArrayList<>();
+    for (final CountyDashboard cdb : the_cdbs) {
+      final AuditBoardDashboardASM asm = the_asms.apply(cdb.id());
+      if (asm.isInInitialState() || asm.isInFinalState()) {
+        // there is no audit happening in this county, so go to the next one
+        Main.LOGGER.debug("no audit ongoing in county " + cdb.id() + 
+                         ", skipping round start");
+        continue;
+      }
+      if (cdb.currentRound() != null) {
+        if (!the_skip_started) {
+          throw new IllegalStateException("audit round already in progress for county " + 
+                                          cdb.id());
+        }
+        Main.LOGGER.info("audit round already in progress for county " + cdb.id() + 
+                         ", skipping round start");
+        continue;
+      }
+      result.add(cdb.id());
+    }
+    return result;
+  }
+  
+  /**
+   * Starts a subsequent audit round for a single county, using the session
+   * and transaction of the current thread.
+   * 
+   * @param the_county_id The county ID.
+   * @param the_start The submitted round start parameters.
+   * @param the_multiplier The multiplier.
+   * @return true if a round was started, false if the audit was aborted.
+   * @exception IllegalStateException if an ASM transition is illegal.
+   * @exception OptimisticLockException if the ASM state was changed by 
+   * another transaction.
+   */
+  private static Boolean startSubsequentRound(final Long the_county_id,
+                                              final SubmittedAuditRoundStart the_start,
+                                              final BigDecimal the_multiplier) {
+    final CountyDashboard cdb = Persistence.getByID(the_county_id, CountyDashboard.class);
+    final AuditBoardDashboardASM asm = 
+        ASMUtilities.asmFor(AuditBoardDashboardASM.class, cdb.id().toString());
+    final ASMEvent audit_event;
+    final boolean round_started;
+    if (the_start.useEstimates()) {
+      round_started = 
+          ComparisonAuditController.startNewRoundFromEstimates(cdb, the_multiplier);
+    } else {
+      round_started = ComparisonAuditController.
+          startNewRoundOfLength(cdb, the_start.countyBallots().get(cdb.id()), 
+                                the_multiplier);
+    }
+    if (round_started) {
+      Main.LOGGER.debug("round started for county " + cdb.id());       
+      audit_event = ROUND_START_EVENT;
+    } else {
+      // we don't know why the round didn't start, so we need to abort the audit
+      Main.LOGGER.debug("no round started for county " + cdb.id());       
+      audit_event = ABORT_AUDIT_EVENT;
+    }
+    
+    // update the ASM for the audit board
+    if (!DISABLE_ASM) {
+      asm.stepEvent(audit_event);
+      saveASM(asm, cdb.id());
+    }
+    return round_started;
+  }
+  
+  /**
+   * Saves the state of a county's ASM.
+   * 
+   * @param the_asm The ASM.
+   * @param the_county_id The county ID.
+   * @exception OptimisticLockException if the state was changed by another
+   * transaction, and so cannot be saved.
+   */
+  private static void saveASM(final AbstractStateMachine the_asm, 
+                              final Long the_county_id) {
+    if (!ASMUtilities.save(the_asm)) {
+      throw new OptimisticLockException("could not save " + 
+                                        the_asm.getClass().getSimpleName() + 
+                                        " state for county " + the_county_id);
+    }
+  }
+  
+  /**
+   * Runs a per-county round start task for each of the specified counties.
+   * With the atomic policy, the tasks run one after another in this 
+   * endpoint's transaction; otherwise, they run on a pool of worker threads
+   * with their own transactions.
+   * 
+   * @param the_county_ids The county IDs.
+   * @param the_task The task.
+   * @return the outcome for each county.
+   */
+  private Map<Long, Outcome<Boolean>> runForCounties(final List<Long> the_county_ids,
+                                                     final Function<Long, Boolean> the_task) {
+    final int threads = threads();
+    final CommitPolicy policy = commitPolicy();
+    final long statements_before = Persistence.statementCount();
+    final Map<Long, Outcome<Boolean>> result;
+    if (policy == CommitPolicy.ATOMIC) {
+      result = ParallelTransactionRunner.runInCurrentTransaction(the_county_ids, the_task);
+    } else {
+      Main.LOGGER.info("starting round for " + the_county_ids.size() + " counties on " + 
+                       threads + " threads, commit policy " + policy);
+      result = ParallelTransactionRunner.run(the_county_ids, the_task, threads, policy, 
+                                             ROUND_START_RETRIES);
+    }
+    if (0 <= statements_before) {
+      Main.LOGGER.info("round start for " + the_county_ids.size() + " counties issued " + 
+                       (Persistence.statementCount() - statements_before) + 
+                       " SQL statements");
+    }
+    return result;
+  }
+  
+  /**
+   * Reports any failures in the specified county outcomes, halting the endpoint
+   * if there are any. If no county's changes were committed, the first failure
+   * is reported as it would be for a single county; otherwise, the response 
+   * lists the counties that were and were not started.
+   * 
+   * @param the_response The response.
+   * @param the_outcomes The outcomes.
+   * @param the_round A description of the round being started.
+   */
+  private void reportFailures(final Response the_response,
+                              final Map<Long, Outcome<Boolean>> the_outcomes,
+                              final String the_round) {
+    final List<Long> committed = new ArrayList<>();
+    final Map<Long, String> failures = new TreeMap<>();
+    Long first_failure = null;
+    for (final Map.Entry<Long, Outcome<Boolean>> entry : the_outcomes.entrySet()) {
+      final Outcome<Boolean> outcome = entry.getValue();
+      if (outcome.committed()) {
+        committed.add(entry.getKey());
+      }
+      if (outcome.failure() != null) {
+        Main.LOGGER.info("could not start " + the_round + " for county " + 
+                         entry.getKey() + ": " + outcome.failure());
+        failures.put(entry.getKey(), String.valueOf(outcome.failure().getMessage()));
+        if (first_failure == null) {
+          first_failure = entry.getKey();
+        }
+      }
+    }
+    
+    if (first_failure == null) {
+      return;
+    }
+    if (committed.isEmpty()) {
+      final RuntimeException failure = the_outcomes.get(first_failure).failure();
+      if (failure instanceof IllegalStateException) {
+        illegalTransition(the_response, failure.getMessage());
+      } else {
+        serverError(the_response, "could not start " + the_round + " for county " + 
+                                  first_failure);
+      }
+    } else {
+      serverError(the_response, the_round + " started for counties " + committed + 
+                                "; could not start for counties " + failures);
+    }
+  }
+  
+  /**
+   * @return the number of worker threads to use for starting rounds.
+   */
+  private static int threads() {
+    int result;
+    try {
+      result = Integer.parseInt(Main.properties().
+                                getProperty(THREADS_PROPERTY, 
+                                            String.valueOf(DEFAULT_THREADS)).trim());
+    } catch (final NumberFormatException e) {
+      result = DEFAULT_THREADS;
+    }
+    return result;
+  }
+  
+  /**
+   * @return the commit policy to use for starting rounds.
+   */
+  private static CommitPolicy commitPolicy() {
+    return CommitPolicy.parse(Main.properties().getProperty(POLICY_PROPERTY), 
+                              CommitPolicy.ATOMIC);
+  }
 }
@@ -90,23 +90,16 @@ public class StateReportDownload extends AbstractEndpoint {
     
     final boolean pdf = "pdf".equalsIgnoreCase(the_request.queryParams("file_type"));
     final StateReport sr = new StateReport();
-    byte[] file = new byte[0];
-    String filename = "";
+    final String filename;
     
     if (pdf) {
       the_response.type("application/pdf");
       filename = sr.filenamePDF();
-      file = sr.generatePDF();
     } else {
       the_response.type("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
       // the file name should be constructed from the election type and date, and
       // the county name and round
       filename = sr.filenameExcel();
-      try {
-        file = sr.generateExcel();
-      } catch (final IOException e) {
-        serverError(the_response, "Unable to generate Excel file");
-      }
     }
     
     try {
@@ -118,7 +111,12 @@ public class StateReportDownload extends AbstractEndpoint {
     
     try (OutputStream os = SparkHelper.getRaw(the_response).getOutputStream();
          BufferedOutputStream bos = new BufferedOutputStream(os)) {
-      bos.write(file);
+      if (pdf) {
+        bos.write(sr.generatePDF());
+      } else {
+        // the workbook is streamed to the response, with no copy in memory
+        sr.writeExcel(bos);
+      }
       bos.flush();
       ok(the_response);
     } catch (final IOException | PersistenceException e) {
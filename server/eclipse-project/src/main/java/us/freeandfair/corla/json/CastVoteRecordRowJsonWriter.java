@@ -0,0 +1,170 @@
+/*
+ * Free & Fair Colorado RLA System
+ * 
+ * @title ColoradoRLA
+ * @created Oct 18, 2026
+ * @copyright 2026 Colorado Department of State
+ * @license SPDX-License-Identifier: AGPL-3.0-or-later
+ * @creator Daniel M. Zimmerman <dmz@freeandfair.us>
+ * @description A system to assist in conducting statewide risk-limiting audits.
+ */
+
+package us.freeandfair.corla.json;
+
+import static us.freeandfair.corla.query.CastVoteRecordRows.BALLOT_TYPE;
+import static us.freeandfair.corla.query.CastVoteRecordRows.BATCH_ID;
+import static us.freeandfair.corla.query.CastVoteRecordRows.CHOICES;
+import static us.freeandfair.corla.query.CastVoteRecordRows.COMMENT;
+import static us.freeandfair.corla.query.CastVoteRecordRows.CONSENSUS;
+import static us.freeandfair.corla.query.CastVoteRecordRows.CONTEST_ID;
+import static us.freeandfair.corla.query.CastVoteRecordRows.COUNTY_ID;
+import static us.freeandfair.corla.query.CastVoteRecordRows.CVR_NUMBER;
+import static us.freeandfair.corla.query.CastVoteRecordRows.ID;
+import static us.freeandfair.corla.query.CastVoteRecordRows.IMPRINTED_ID;
+import static us.freeandfair.corla.query.CastVoteRecordRows.RECORD_ID;
+import static us.freeandfair.corla.query.CastVoteRecordRows.RECORD_TYPE;
+import static us.freeandfair.corla.query.CastVoteRecordRows.SCANNER_ID;
+import static us.freeandfair.corla.query.CastVoteRecordRows.SEQUENCE_NUMBER;
+import static us.freeandfair.corla.query.CastVoteRecordRows.TIMESTAMP;
+
+import java.io.IOException;
+import java.util.List;
+
+import com.google.gson.stream.JsonWriter;
+
+import us.freeandfair.corla.query.CastVoteRecordRows.RowHandler;
+
+/**
+ * Writes the rows read by CastVoteRecordRows as JSON CVRs, in the same
+ * form as the CastVoteRecord entities they come from would be written by
+ * Main.GSON (null fields are omitted). Each CVR is written as soon as its
+ * last row has been seen, so the CVRs are never held in memory; finish()
+ * must be called to write the last one.
+ *
+ * @author Daniel M. Zimmerman <dmz@freeandfair.us>
+ * @version 1.0.0
+ */
+public final class CastVoteRecordRowJsonWriter implements RowHandler {
+  /**
+   * The writer to write to.
+   */
+  private final JsonWriter my_writer;
+
+  /**
+   * The ID of the CVR being written, or null if there is none.
+   */
+  private Object my_current_id;
+
+  /**
+   * The number of CVRs written.
+   */
+  private long my_count;
+
+  /**
+   * Constructs a new CastVoteRecordRowJsonWriter.
+   *
+   * @param the_writer The writer to write to; the CVRs are written as
+   * successive values, so it would typically be in an array.
+   */
+  public CastVoteRecordRowJsonWriter(final JsonWriter the_writer) {
+    my_writer = the_writer;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void handle(final Object[] the_row) throws IOException {
+    if (!the_row[ID].equals(my_current_id)) {
+      finish();
+      startCVR(the_row);
+      my_current_id = the_row[ID];
+    }
+    if (the_row[CONTEST_ID] != null) {
+      writeContestInfo(the_row);
+    }
+  }
+
+  /**
+   * Finishes writing the last CVR, if any.
+   *
+   * @exception IOException if the CVR cannot be written.
+   */
+  public void finish() throws IOException {
+    if (my_current_id != null) {
+      my_writer.endArray();
+      my_writer.endObject();
+      my_current_id = null;
+      my_count = my_count + 1;
+    }
+  }
+
+  /**
+   * @return the number of CVRs written.
+   */
+  public long count() {
+    return my_count;
+  }
+
+  /**
+   * Writes the fields of a CVR, up to the start of its contest information.
+   *
+   * @param the_row The first row of the CVR.
+   * @exception IOException if the CVR cannot be written.
+   */
+  private void startCVR(final Object[] the_row) throws IOException {
+    my_writer.beginObject();
+    field("id", the_row[ID]);
+    field("record_type", the_row[RECORD_TYPE]);
+    field("timestamp", the_row[TIMESTAMP]);
+    field("county_id", the_row[COUNTY_ID]);
+    field("cvr_number", the_row[CVR_NUMBER]);
+    field("sequence_number", the_row[SEQUENCE_NUMBER]);
+    field("scanner_id", the_row[SCANNER_ID]);
+    field("batch_id", the_row[BATCH_ID]);
+    field("record_id", the_row[RECORD_ID]);
+    field("imprinted_id", the_row[IMPRINTED_ID]);
+    field("ballot_type", the_row[BALLOT_TYPE]);
+    my_writer.name("contest_info");
+    my_writer.beginArray();
+  }
+
+  /**
+   * Writes the contest information in a row, as CVRContestInfoJsonAdapter
+   * does.
+   *
+   * @param the_row The row.
+   * @exception IOException if the contest information cannot be written.
+   */
+  private void writeContestInfo(final Object[] the_row) throws IOException {
+    my_writer.beginObject();
+    field("contest", the_row[CONTEST_ID]);
+    field("comment", the_row[COMMENT]);
+    field("consensus", the_row[CONSENSUS]);
+    my_writer.name("choices");
+    my_writer.beginArray();
+    if (the_row[CHOICES] != null) {
+      for (final Object c : (List<?>) the_row[CHOICES]) {
+        my_writer.value((String) c);
+      }
+    }
+    my_writer.endArray();
+    my_writer.endObject();
+  }
+
+  /**
+   * Writes a field, unless its value is null. Numbers are written as
+   * numbers, and everything else as its string representation.
+   *
+   * @param the_name The name.
+   * @param the_value The value.
+   * @exception IOException if the field cannot be written.
+   */
+  private void field(final String the_name, final Object the_value) throws IOException {
+    if (the_value instanceof Number) {
+      my_writer.name(the_name).value((Number) the_value);
+    } else if (the_value != null) {
+      my_writer.name(the_name).value(the_value.toString());
+    }
+  }
+}
@@ -0,0 +1,57 @@
+/*
+ * Free & Fair Colorado RLA System
+ * 
+ * @title ColoradoRLA
+ * @created Oct 18, 2026
+ * @copyright 2026 Colorado Department of State
+ * @license SPDX-License-Identifier: AGPL-3.0-or-later
+ * @creator Daniel M. Zimmerman <dmz@freeandfair.us>
+ * @description A system to assist in conducting statewide risk-limiting audits.
+ */
+
+package us.freeandfair.corla.json;
+
+/**
+ * The response to a wait for a dashboard change.
+ *
+ * @author Daniel M. Zimmerman <dmz@freeandfair.us>
+ * @version 1.0.0
+ */
+public class DashboardChangeResponse {
+  /**
+   * The current dashboard version.
+   */
+  private final long my_dashboard_version;
+
+  /**
+   * Whether the version differs from the one the client had.
+   */
+  private final boolean my_changed;
+
+  /**
+   * Constructs a new DashboardChangeResponse.
+   *
+   * @param the_dashboard_version The current dashboard version.
+   * @param the_changed Whether the version differs from the one the client had.
+   */
+  public DashboardChangeResponse(final long the_dashboard_version,
+                                 final boolean the_changed) {
+    my_dashboard_version = the_dashboard_version;
+    my_changed = the_changed;
+  }
+
+  /**
+   * @return the current dashboard version.
+   */
+  public long dashboardVersion() {
+    return my_dashboard_version;
+  }
+
+  /**
+   * @return true if the version differs from the one the client had, false
+   * otherwise.
+   */
+  public boolean changed() {
+    return my_changed;
+  }
+}
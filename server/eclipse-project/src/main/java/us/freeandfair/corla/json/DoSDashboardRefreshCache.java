@@ -0,0 +1,249 @@
+/*
+ * Free & Fair Colorado RLA System
+ * 
+ * @title ColoradoRLA
+ * @created Oct 18, 2026
+ * @copyright 2026 Colorado Department of State
+ * @license SPDX-License-Identifier: AGPL-3.0-or-later
+ * @creator Daniel M. Zimmerman <dmz@freeandfair.us>
+ * @description A system to assist in conducting statewide risk-limiting audits.
+ */
+
+package us.freeandfair.corla.json;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import us.freeandfair.corla.Main;
+import us.freeandfair.corla.model.DoSDashboard;
+import us.freeandfair.corla.persistence.Persistence;
+
+/**
+ * A cache of the serialized DoS dashboard refresh response. Each snapshot
+ * of the response is identified by a version number, which increases
+ * whenever a change that might affect the response is committed. When a
+ * snapshot is rebuilt, only the statuses of the counties that have changed
+ * since the last snapshot are reloaded; the state-wide parts of the response
+ * are always recomputed.
+ *
+ * Snapshots also expire after a maximum age, in case a change was made
+ * without invalidating the cache; if an expired snapshot is rebuilt with the
+ * same contents, it keeps its version.
+ *
+ * @author Daniel M. Zimmerman <dmz@freeandfair.us>
+ * @version 1.0.0
+ */
+public final class DoSDashboardRefreshCache {
+  /**
+   * The name of the maximum snapshot age property.
+   */
+  public static final String MAX_AGE_PROPERTY = "dos_dashboard_cache_max_age_msec";
+
+  /**
+   * The default maximum snapshot age, in milliseconds.
+   */
+  private static final long DEFAULT_MAX_AGE = 30_000;
+
+  /**
+   * A prefix for ETags that distinguishes this server process from earlier
+   * ones, whose versions started from the same number.
+   */
+  private static final String ETAG_PREFIX = 
+      "dos-" + Long.toString(System.currentTimeMillis(), Character.MAX_RADIX) + "-";
+
+  /**
+   * The current version.
+   */
+  private static final AtomicLong VERSION = new AtomicLong();
+
+  /**
+   * The counties whose statuses have changed since the last snapshot.
+   */
+  private static final Set<Long> CHANGED_COUNTIES = ConcurrentHashMap.newKeySet();
+
+  /**
+   * True if the statuses of all counties must be reloaded.
+   */
+  private static final AtomicBoolean ALL_CHANGED = new AtomicBoolean(true);
+
+  /**
+   * The county statuses, as of the last snapshot; guarded by the class lock.
+   */
+  private static final SortedMap<Long, CountyDashboardRefreshResponse> COUNTY_STATUS =
+      new TreeMap<>();
+
+  /**
+   * The last snapshot, or null if there is none.
+   */
+  private static volatile Snapshot snapshot;
+
+  /**
+   * Private constructor to prevent instantiation.
+   */
+  private DoSDashboardRefreshCache() {
+    // do nothing
+  }
+
+  /**
+   * Records that the specified county's dashboard or state may have changed.
+   * This should be called after the change is committed.
+   *
+   * @param the_county_id The county identifier.
+   */
+  public static void invalidate(final Long the_county_id) {
+    // the county is recorded before the version changes, so that a rebuild
+    // that sees the new version also sees the county
+    CHANGED_COUNTIES.add(the_county_id);
+    VERSION.incrementAndGet();
+  }
+
+  /**
+   * Records that any part of the response may have changed. This should be
+   * called after the change is committed.
+   */
+  public static void invalidateAll() {
+    ALL_CHANGED.set(true);
+    VERSION.incrementAndGet();
+  }
+
+  /**
+   * @return the ETag of the current snapshot, or null if there is no current
+   * snapshot (in which case the next call to snapshot() rebuilds it).
+   */
+  public static String currentETag() {
+    final Snapshot current = snapshot;
+    String result = null;
+    if (current != null && isCurrent(current)) {
+      result = current.eTag();
+    }
+    return result;
+  }
+
+  /**
+   * Gets a current snapshot of the response, rebuilding it if necessary.
+   * Rebuilding uses the current session, and must take place in a
+   * transaction.
+   *
+   * @return the snapshot.
+   */
+  public static synchronized Snapshot snapshot() {
+    final Snapshot previous = snapshot;
+    if (previous != null && isCurrent(previous)) {
+      return previous;
+    }
+
+    // the version is read before the changes are collected, so any change
+    // not collected here makes this snapshot out of date
+    long version = VERSION.get();
+    final boolean expired = previous != null && previous.my_version == version;
+    final String json;
+    try {
+      if (ALL_CHANGED.getAndSet(false) || expired) {
+        CHANGED_COUNTIES.clear();
+        COUNTY_STATUS.clear();
+        COUNTY_STATUS.putAll(DoSDashboardRefreshResponse.countyStatusMap());
+      } else {
+        final Set<Long> changed = new HashSet<>(CHANGED_COUNTIES);
+        CHANGED_COUNTIES.removeAll(changed);
+        for (final Long id : changed) {
+          COUNTY_STATUS.put(id, DoSDashboardRefreshResponse.countyStatus(id));
+        }
+      }
+      final DoSDashboard dashboard = 
+          Persistence.getByID(DoSDashboard.ID, DoSDashboard.class);
+      json = Main.GSON.toJson(DoSDashboardRefreshResponse.
+                              createResponse(dashboard, new TreeMap<>(COUNTY_STATUS)));
+    } catch (final RuntimeException e) {
+      // the collected changes may be only partly applied, so start over next time
+      ALL_CHANGED.set(true);
+      throw e;
+    }
+    if (expired && !previous.json().equals(json) && 
+        VERSION.compareAndSet(version, version + 1)) {
+      // something changed without invalidating the cache; if the version has 
+      // changed during the rebuild, the snapshot is out of date anyway
+      version = version + 1;
+    }
+    snapshot = new Snapshot(version, json, System.currentTimeMillis());
+    return snapshot;
+  }
+
+  /**
+   * Checks whether a snapshot is current.
+   *
+   * @param the_snapshot The snapshot.
+   * @return true if the snapshot has the current version and has not expired.
+   */
+  private static boolean isCurrent(final Snapshot the_snapshot) {
+    return the_snapshot.my_version == VERSION.get() &&
+           System.currentTimeMillis() - the_snapshot.my_time < maxAge();
+  }
+
+  /**
+   * @return the maximum snapshot age, in milliseconds.
+   */
+  private static long maxAge() {
+    long result;
+    try {
+      result = Long.parseLong(Main.properties().
+                              getProperty(MAX_AGE_PROPERTY,
+                                          String.valueOf(DEFAULT_MAX_AGE)).trim());
+    } catch (final NumberFormatException e) {
+      result = DEFAULT_MAX_AGE;
+    }
+    return result;
+  }
+
+  /**
+   * A snapshot of the serialized response.
+   */
+  public static final class Snapshot {
+    /**
+     * The version.
+     */
+    private final long my_version;
+
+    /**
+     * The serialized response.
+     */
+    private final String my_json;
+
+    /**
+     * The time the snapshot was built, in milliseconds since the epoch.
+     */
+    private final long my_time;
+
+    /**
+     * Constructs a new snapshot.
+     *
+     * @param the_version The version.
+     * @param the_json The serialized response.
+     * @param the_time The time the snapshot was built.
+     */
+    Snapshot(final long the_version, final String the_json, final long the_time) {
+      my_version = the_version;
+      my_json = the_json;
+      my_time = the_time;
+    }
+
+    /**
+     * @return the serialized response.
+     */
+    public String json() {
+      return my_json;
+    }
+
+    /**
+     * @return the ETag for this snapshot, including the quotes required by
+     * HTTP.
+     */
+    public String eTag() {
+      return "\"" + ETAG_PREFIX + my_version + "\"";
+    }
+  }
+}
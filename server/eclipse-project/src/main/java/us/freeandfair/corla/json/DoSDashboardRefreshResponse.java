@@ -150,9 +150,26 @@ public class DoSDashboardRefreshResponse {
    * @exception NullPointerException if necessary information to construct the
    * response does not exist.
    */
-  @SuppressWarnings("checkstyle:magicnumber")
   public static DoSDashboardRefreshResponse 
       createResponse(final DoSDashboard the_dashboard) {
+    return createResponse(the_dashboard, countyStatusMap());
+  }
+  
+  /**
+   * Gets the DoSDashboardRefreshResponse for the specified DoS dashboard, 
+   * using the specified county statuses.
+   * 
+   * @param the_dashboard The dashboard.
+   * @param the_county_status A map from county identifiers to statuses, as 
+   * returned by countyStatusMap() or kept up to date by the caller.
+   * @return the response.
+   * @exception NullPointerException if necessary information to construct the
+   * response does not exist.
+   */
+  @SuppressWarnings("checkstyle:magicnumber")
+  public static DoSDashboardRefreshResponse 
+      createResponse(final DoSDashboard the_dashboard,
+                     final SortedMap<Long, CountyDashboardRefreshResponse> the_county_status) {
     // construct the various audit info from the contests to audit in the dashboard
     final SortedMap<Long, AuditReason> audited_contests = 
         new TreeMap<Long, AuditReason>();
@@ -222,7 +239,7 @@ public class DoSDashboardRefreshResponse {
                                            estimated_ballots_to_audit,
                                            optimistic_ballots_to_audit,
                                            discrepancy_count,
-                                           countyStatusMap(),
+                                           the_county_status,
                                            hand_count_contests,
                                            the_dashboard.auditInfo(),
                                            audit_reasons,
@@ -234,21 +251,30 @@ public class DoSDashboardRefreshResponse {
    * 
    * @return a map from county identifiers to statuses.
    */
-  private static SortedMap<Long, CountyDashboardRefreshResponse> countyStatusMap() {
+  public static SortedMap<Long, CountyDashboardRefreshResponse> countyStatusMap() {
     final SortedMap<Long, CountyDashboardRefreshResponse> status_map = 
         new TreeMap<Long, CountyDashboardRefreshResponse>();
     final List<County> counties = Persistence.getAll(County.class);
     
     for (final County c : counties) {
-      final CountyDashboard db = Persistence.getByID(c.id(), CountyDashboard.class);
-      if (db == null) {
-        throw new PersistenceException("unable to read county dashboard state.");
-      } else {   
-        status_map.put(db.id(), 
-                       CountyDashboardRefreshResponse.createAbbreviatedResponse(db));
-      }
+      status_map.put(c.id(), countyStatus(c.id()));
     }
     
     return status_map;
   }
+  
+  /**
+   * Gets the status of the specified county.
+   * 
+   * @param the_county_id The county identifier.
+   * @return the status.
+   * @exception PersistenceException if the county dashboard cannot be read.
+   */
+  public static CountyDashboardRefreshResponse countyStatus(final Long the_county_id) {
+    final CountyDashboard db = Persistence.getByID(the_county_id, CountyDashboard.class);
+    if (db == null) {
+      throw new PersistenceException("unable to read county dashboard state.");
+    }
+    return CountyDashboardRefreshResponse.createAbbreviatedResponse(db);
+  }
 }
@@ -0,0 +1,323 @@
+/*
+ * Free & Fair Colorado RLA System
+ * 
+ * @title ColoradoRLA
+ * @created Oct 18, 2026
+ * @copyright 2026 Colorado Department of State
+ * @license SPDX-License-Identifier: AGPL-3.0-or-later
+ * @creator Daniel M. Zimmerman <dmz@freeandfair.us>
+ * @description A system to assist in conducting statewide risk-limiting audits.
+ */
+
+package us.freeandfair.corla.model;
+
+import static us.freeandfair.corla.util.EqualsHashcodeHelper.nullableEquals;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Set;
+
+import javax.persistence.Cacheable;
+import javax.persistence.Column;
+import javax.persistence.Convert;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+import javax.persistence.Version;
+
+import us.freeandfair.corla.model.CastVoteRecord.RecordType;
+import us.freeandfair.corla.persistence.AuditReasonSetConverter;
+import us.freeandfair.corla.persistence.PersistentEntity;
+
+/**
+ * The report data for one ballot selected for audit: the columns of the
+ * ballot listings in the county and state reports. One of these is kept
+ * for each CVRAuditInfo, and is updated whenever the CVRAuditInfo is
+ * audited or unaudited, so that reports can list the ballots of a county
+ * with a single query instead of loading each CVR and audit CVR.
+ *
+ * @author Daniel M. Zimmerman <dmz@freeandfair.us>
+ * @version 1.0.0
+ */
+@Entity
+@Cacheable(true)
+@Table(name = "ballot_report_fact",
+       indexes = { @Index(name = "idx_brf_county", columnList = "county_id") })
+// this class has many fields that would normally be declared final, but
+// cannot be for compatibility with Hibernate and JPA.
+@SuppressWarnings("PMD.ImmutableField")
+public class BallotReportFact implements PersistentEntity, Serializable {
+  /**
+   * The serialVersionUID.
+   */
+  private static final long serialVersionUID = 1;
+
+  /**
+   * The ID number. This is always the same as the CVR ID number.
+   */
+  @Id
+  @Column(updatable = false, nullable = false)
+  private Long my_id;
+
+  /**
+   * The version (for optimistic locking).
+   */
+  @Version
+  private Long my_version;
+
+  /**
+   * The county ID of the CVR.
+   */
+  @Column(name = "county_id", updatable = false, nullable = false)
+  private Long my_county_id;
+
+  /**
+   * The scanner ID of the CVR.
+   */
+  @Column(updatable = false, nullable = false)
+  private Integer my_scanner_id;
+
+  /**
+   * The batch ID of the CVR.
+   */
+  @Column(updatable = false, nullable = false)
+  private Integer my_batch_id;
+
+  /**
+   * The record ID of the CVR.
+   */
+  @Column(updatable = false, nullable = false)
+  private Integer my_record_id;
+
+  /**
+   * The imprinted ID of the CVR.
+   */
+  @Column(updatable = false, nullable = false)
+  private String my_imprinted_id;
+
+  /**
+   * A flag indicating whether an auditor has entered an audit CVR for
+   * the CVR.
+   */
+  @Column(nullable = false)
+  private Boolean my_audited = false;
+
+  /**
+   * The audit reasons for which the CVR is marked as a discrepancy.
+   */
+  @Column(nullable = false, name = "discrepancy", columnDefinition = "text")
+  @Convert(converter = AuditReasonSetConverter.class)
+  private Set<AuditReason> my_discrepancy = new HashSet<>();
+
+  /**
+   * The audit reasons for which the CVR is marked as a disagreement.
+   */
+  @Column(nullable = false, name = "disagreement", columnDefinition = "text")
+  @Convert(converter = AuditReasonSetConverter.class)
+  private Set<AuditReason> my_disagreement = new HashSet<>();
+
+  /**
+   * Constructs an empty BallotReportFact, solely for persistence.
+   */
+  public BallotReportFact() {
+    super();
+  }
+
+  /**
+   * Constructs a new BallotReportFact from the specified CVRAuditInfo.
+   *
+   * @param the_info The CVRAuditInfo.
+   */
+  public BallotReportFact(final CVRAuditInfo the_info) {
+    super();
+    final CastVoteRecord cvr = the_info.cvr();
+    my_id = the_info.id();
+    my_county_id = cvr.countyID();
+    my_scanner_id = cvr.scannerID();
+    my_batch_id = cvr.batchID();
+    my_record_id = cvr.recordID();
+    my_imprinted_id = cvr.imprintedID();
+    update(the_info);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Long id() {
+    return my_id;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void setID(final Long the_id) {
+    my_id = the_id;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Long version() {
+    return my_version;
+  }
+
+  /**
+   * Updates this fact from the current state of the specified CVRAuditInfo,
+   * which must be the one it was constructed from.
+   *
+   * @param the_info The CVRAuditInfo.
+   */
+  public final void update(final CVRAuditInfo the_info) {
+    my_audited = the_info.acvr() != null &&
+                 the_info.acvr().recordType() == RecordType.AUDITOR_ENTERED;
+    my_discrepancy.clear();
+    my_discrepancy.addAll(the_info.discrepancy());
+    my_disagreement.clear();
+    my_disagreement.addAll(the_info.disagreement());
+  }
+
+  /**
+   * @return the county ID of the CVR.
+   */
+  public Long countyID() {
+    return my_county_id;
+  }
+
+  /**
+   * @return the scanner ID of the CVR.
+   */
+  public Integer scannerID() {
+    return my_scanner_id;
+  }
+
+  /**
+   * @return the batch ID of the CVR.
+   */
+  public Integer batchID() {
+    return my_batch_id;
+  }
+
+  /**
+   * @return the record ID of the CVR.
+   */
+  public Integer recordID() {
+    return my_record_id;
+  }
+
+  /**
+   * @return the imprinted ID of the CVR.
+   */
+  public String imprintedID() {
+    return my_imprinted_id;
+  }
+
+  /**
+   * @return true if an auditor has entered an audit CVR for the CVR,
+   * false otherwise.
+   */
+  public boolean audited() {
+    return my_audited;
+  }
+
+  /**
+   * @return the audit reasons for which the CVR is marked as a discrepancy.
+   */
+  public Set<AuditReason> discrepancy() {
+    return Collections.unmodifiableSet(my_discrepancy);
+  }
+
+  /**
+   * @return the audit reasons for which the CVR is marked as a disagreement.
+   */
+  public Set<AuditReason> disagreement() {
+    return Collections.unmodifiableSet(my_disagreement);
+  }
+
+  /**
+   * @return a String representation of this fact.
+   */
+  @Override
+  public String toString() {
+    return "BallotReportFact [id=" + my_id + ", imprinted_id=" + my_imprinted_id +
+           ", audited=" + my_audited + "]";
+  }
+
+  /**
+   * Compare this object with another for equivalence.
+   *
+   * @param the_other The other object.
+   * @return true if the objects are equivalent, false otherwise.
+   */
+  @Override
+  public boolean equals(final Object the_other) {
+    boolean result = true;
+    if (id() != null && the_other instanceof BallotReportFact) {
+      final BallotReportFact other_fact = (BallotReportFact) the_other;
+      // we compare by database ID
+      result &= nullableEquals(other_fact.id(), id());
+    } else {
+      result = false;
+    }
+    return result;
+  }
+
+  /**
+   * @return a hash code for this object.
+   */
+  @Override
+  public int hashCode() {
+    if (id() == null) {
+      return 0;
+    } else {
+      return id().hashCode();
+    }
+  }
+
+  /**
+   * A comparator to sort BallotReportFact objects by scanner ID, then
+   * batch ID, then record ID.
+   */
+  @SuppressWarnings("PMD.AtLeastOneConstructor")
+  public static class BallotOrderComparator
+      implements Serializable, Comparator<BallotReportFact> {
+    /**
+     * The serialVersionUID.
+     */
+    private static final long serialVersionUID = 1;
+
+    /**
+     * Orders two BallotReportFacts lexicographically by the triple
+     * (scanner_id, batch_id, record_id).
+     *
+     * @param the_first The first fact.
+     * @param the_second The second fact.
+     * @return a positive, negative, or 0 value as the first fact is
+     * greater than, equal to, or less than the second, respectively.
+     */
+    @SuppressWarnings("PMD.ConfusingTernary")
+    public int compare(final BallotReportFact the_first,
+                       final BallotReportFact the_second) {
+      final int scanner = the_first.scannerID() - the_second.scannerID();
+      final int batch = the_first.batchID() - the_second.batchID();
+      final int record = the_first.recordID() - the_second.recordID();
+
+      final int result;
+
+      if (scanner != 0) {
+        result = scanner;
+      } else if (batch != 0) {
+        result = batch;
+      } else {
+        result = record;
+      }
+
+      return result;
+    }
+  }
+}
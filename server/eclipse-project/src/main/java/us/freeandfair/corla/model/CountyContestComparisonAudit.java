@@ -40,7 +40,6 @@ import javax.persistence.MapKeyJoinColumn;
 import javax.persistence.Table;
 import javax.persistence.Version;
 
-import ch.obermuhlner.math.big.BigDecimalMath;
 import us.freeandfair.corla.Main;
 import us.freeandfair.corla.model.CVRContestInfo.ConsensusValue;
 import us.freeandfair.corla.model.CastVoteRecord.RecordType;
@@ -288,6 +287,12 @@ public class CountyContestComparisonAudit implements PersistentEntity {
                                               referencedColumnName = "my_id"))
   private Set<CVRAuditInfo> my_disagreements = new HashSet<>();
   
+  /**
+   * The discrepancy kernel for this audit, built from the contest result the 
+   * first time a discrepancy is computed; it is not stored in the database.
+   */
+  private transient DiscrepancyKernel my_discrepancy_kernel;
+  
   /**
    * Constructs a new, empty CountyContestAudit (solely for persistence).
    */
@@ -515,42 +520,17 @@ public class CountyContestComparisonAudit implements PersistentEntity {
       // (for lack of a better number)
       result = BigDecimal.valueOf(my_contest_result.countyBallotCount());
     } else {
-      final BigDecimal invgamma = BigDecimal.ONE.divide(my_gamma, MathContext.DECIMAL128);
-      final BigDecimal twogamma = BigDecimal.valueOf(2).multiply(my_gamma);
-      final BigDecimal invtwogamma = 
-          BigDecimal.ONE.divide(twogamma, MathContext.DECIMAL128);
-      final BigDecimal two_under_bd = BigDecimal.valueOf(the_two_under);
-      final BigDecimal one_under_bd = BigDecimal.valueOf(the_one_under);
-      final BigDecimal one_over_bd = BigDecimal.valueOf(the_one_over);
-      final BigDecimal two_over_bd = BigDecimal.valueOf(the_two_over);
-
-      final BigDecimal over_under_sum = 
-          two_under_bd.add(one_under_bd).add(one_over_bd).add(two_over_bd);
-      final BigDecimal two_under = 
-          two_under_bd.multiply(BigDecimalMath.log(BigDecimal.ONE.add(invgamma), 
-                                                   MathContext.DECIMAL128));
-      final BigDecimal one_under =
-          one_under_bd.multiply(BigDecimalMath.log(BigDecimal.ONE.add(invtwogamma), 
-                                                   MathContext.DECIMAL128));
-      final BigDecimal one_over = 
-          one_over_bd.multiply(BigDecimalMath.log(BigDecimal.ONE.subtract(invtwogamma), 
-                                                  MathContext.DECIMAL128));
-      final BigDecimal two_over =
-          two_over_bd.multiply(BigDecimalMath.log(BigDecimal.ONE.subtract(invgamma),
-                                                  MathContext.DECIMAL128));
-      final BigDecimal numerator =
-          twogamma.negate().
-          multiply(BigDecimalMath.log(my_risk_limit, MathContext.DECIMAL128).
-                   add(two_under.add(one_under).add(one_over).add(two_over)));
-      final BigDecimal ceil =
-          numerator.divide(my_contest_result.countyDilutedMargin(),
-                           MathContext.DECIMAL128).setScale(0, RoundingMode.CEILING);
-      result = ceil.max(over_under_sum);
+      result = BigDecimal.valueOf(estimator().
+                                  samplesToAudit(my_contest_result.countyDilutedMargin(),
+                                                 the_two_under, the_one_under,
+                                                 the_one_over, the_two_over));
     }
     
-    Main.LOGGER.info("estimate for contest " + contest().name() + 
-                     ", diluted margin " + contestResult().countyDilutedMargin() + 
-                     ": " + result);
+    if (Main.LOGGER.isDebugEnabled()) {
+      Main.LOGGER.debug("estimate for contest " + contest().name() + 
+                        ", diluted margin " + contestResult().countyDilutedMargin() + 
+                        ": " + result);
+    }
     return result;
   }
   
@@ -814,6 +794,23 @@ public class CountyContestComparisonAudit implements PersistentEntity {
     return result;
   }
   
+  /**
+   * @return the sample size estimator for this audit's gamma and risk limit.
+   */
+  private SampleSizeEstimator estimator() {
+    return SampleSizeEstimator.forParameters(my_gamma, my_risk_limit);
+  }
+  
+  /**
+   * @return the discrepancy kernel for this audit.
+   */
+  private DiscrepancyKernel discrepancyKernel() {
+    if (my_discrepancy_kernel == null) {
+      my_discrepancy_kernel = new DiscrepancyKernel(my_contest_result);
+    }
+    return my_discrepancy_kernel;
+  }
+  
   /**
    * Computes the discrepancy between two ballots. This method returns an optional 
    * int that, if present, indicates a discrepancy. There are 5 possible types of 
@@ -832,6 +829,16 @@ public class CountyContestComparisonAudit implements PersistentEntity {
                      "checkstyle:methodlength"})
   private OptionalInt computeAuditedBallotDiscrepancy(final CVRContestInfo the_cvr_info,
                                                       final CVRContestInfo the_acvr_info) {
+    final DiscrepancyKernel kernel = discrepancyKernel();
+    final long cvr_mask = kernel.mask(the_cvr_info.choices());
+    final long acvr_mask = kernel.mask(the_acvr_info.choices());
+    if (cvr_mask != DiscrepancyKernel.UNKNOWN && acvr_mask != DiscrepancyKernel.UNKNOWN) {
+      return kernel.auditedDiscrepancy(cvr_mask, acvr_mask, 
+                                       the_acvr_info.choices().size());
+    }
+    
+    // the kernel can't represent these choices, so we compare them as sets
+    
     // check for overvotes
     final Set<String> acvr_choices = new HashSet<>();
     if (the_acvr_info.choices().size() <= my_contest.votesAllowed()) {
@@ -948,12 +955,17 @@ public class CountyContestComparisonAudit implements PersistentEntity {
       result = 2;
     } else {
       // this contest does appear in the CVR, so we can actually check
-      final Set<String> winner_votes = new HashSet<>(the_info.choices());    
-      winner_votes.removeAll(my_contest_result.losers());
-      if (winner_votes.isEmpty()) {
-        result = 1;
-      } else { 
-        result = 2;
+      final long mask = discrepancyKernel().mask(the_info.choices());
+      if (mask == DiscrepancyKernel.UNKNOWN) {
+        final Set<String> winner_votes = new HashSet<>(the_info.choices());    
+        winner_votes.removeAll(my_contest_result.losers());
+        if (winner_votes.isEmpty()) {
+          result = 1;
+        } else { 
+          result = 2;
+        }
+      } else {
+        result = discrepancyKernel().phantomDiscrepancy(mask);
       }
     }
     
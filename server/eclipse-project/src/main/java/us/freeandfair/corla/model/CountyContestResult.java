@@ -492,6 +492,24 @@ public class CountyContestResult implements PersistentEntity, Serializable {
     my_county_ballot_count = Integer.valueOf(my_county_ballot_count + 1);
   }
   
+  /**
+   * Update the vote totals using a tally of many CVRs at once; this has the
+   * same effect as adding each of the tallied CVRs with addCVR.
+   * 
+   * @param the_votes A map from choices to the number of votes each received
+   * in the tallied CVRs.
+   * @param the_contest_ballots The number of tallied CVRs containing this contest.
+   * @param the_county_ballots The number of tallied CVRs.
+   */
+  public void addTally(final Map<String, Integer> the_votes, 
+                       final int the_contest_ballots, final int the_county_ballots) {
+    for (final Entry<String, Integer> e : the_votes.entrySet()) {
+      my_vote_totals.put(e.getKey(), my_vote_totals.get(e.getKey()) + e.getValue());
+    }
+    my_contest_ballot_count = Integer.valueOf(my_contest_ballot_count + the_contest_ballots);
+    my_county_ballot_count = Integer.valueOf(my_county_ballot_count + the_county_ballots);
+  }
+  
   /**
    * Updates the stored results.
    */
@@ -47,6 +47,8 @@ import javax.persistence.Version;
 import us.freeandfair.corla.model.ImportStatus.ImportState;
 import us.freeandfair.corla.persistence.AuditSelectionIntegerMapConverter;
 import us.freeandfair.corla.persistence.PersistentEntity;
+import us.freeandfair.corla.persistence.SortedLongSetConverter;
+import us.freeandfair.corla.util.SortedLongSet;
 
 /**
  * The county dashboard.
@@ -192,6 +194,15 @@ public class CountyDashboard implements PersistentEntity {
    */
   private Integer my_current_round_index;
   
+  /**
+   * The IDs of all CVRs selected for audit in any round so far. This is null
+   * for dashboards persisted before it was introduced, in which case it is
+   * rebuilt from the rounds when first needed.
+   */
+  @Column(name = "selected_cvr_ids")
+  @Convert(converter = SortedLongSetConverter.class)
+  private SortedLongSet my_selected_cvr_ids = SortedLongSet.EMPTY;
+  
   /**
    * The set of contests driving the audit.
    */
@@ -481,9 +492,24 @@ public class CountyDashboard implements PersistentEntity {
                                   the_start_index,
                                   the_ballots_to_audit,
                                   the_audit_subsequence);
+    my_selected_cvr_ids = selectedCVRIDs().union(the_ballots_to_audit);
     my_rounds.add(round);
   }
   
+  /**
+   * @return the IDs of all CVRs selected for audit in any round so far.
+   */
+  public SortedLongSet selectedCVRIDs() {
+    if (my_selected_cvr_ids == null) {
+      SortedLongSet selected = SortedLongSet.EMPTY;
+      for (final Round round : my_rounds) {
+        selected = selected.union(round.ballotSequence());
+      }
+      my_selected_cvr_ids = selected;
+    }
+    return my_selected_cvr_ids;
+  }
+  
   /**
    * Ends the current round.
    * 
@@ -0,0 +1,251 @@
+/*
+ * Free & Fair Colorado RLA System
+ * 
+ * @title ColoradoRLA
+ * @created Oct 18, 2026
+ * @copyright 2026 Colorado Department of State
+ * @license SPDX-License-Identifier: AGPL-3.0-or-later
+ * @creator Daniel M. Zimmerman <dmz@freeandfair.us>
+ * @description A system to assist in conducting statewide risk-limiting audits.
+ */
+
+package us.freeandfair.corla.model;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalInt;
+
+/**
+ * A precomputed evaluator for the discrepancies in a single contest. The
+ * choices of the contest are numbered once, when the evaluator is built, so
+ * that a set of choices can be represented as a bit mask; a discrepancy is
+ * then computed from the masks of the winners, the losers, and the CVR and
+ * ACVR choices, without allocating.
+ *
+ * Contests with more choices than fit in a mask are not supported; for those,
+ * and for sets of choices that include a choice the evaluator does not know,
+ * mask() returns UNKNOWN and the caller must compute the discrepancy some
+ * other way.
+ *
+ * @author Daniel M. Zimmerman <dmz@freeandfair.us>
+ * @version 1.0.0
+ */
+public class DiscrepancyKernel {
+  /**
+   * The mask returned for a set of choices that cannot be represented.
+   */
+  public static final long UNKNOWN = -1L;
+
+  /**
+   * The maximum number of choices that can be represented; one bit fewer
+   * than a long, so that no mask equals UNKNOWN.
+   */
+  public static final int MAX_CHOICES = Long.SIZE - 1;
+
+  /**
+   * The largest discrepancy, in absolute value.
+   */
+  private static final int MAX_DISCREPANCY = 2;
+
+  /**
+   * The discrepancy results, indexed by discrepancy + MAX_DISCREPANCY, so that
+   * returning one does not allocate.
+   */
+  private static final OptionalInt[] RESULTS = new OptionalInt[2 * MAX_DISCREPANCY + 1];
+
+  static {
+    for (int i = 0; i < RESULTS.length; i++) {
+      RESULTS[i] = OptionalInt.of(i - MAX_DISCREPANCY);
+    }
+  }
+
+  /**
+   * The choice indexes, or null if the contest has too many choices.
+   */
+  private final Map<String, Integer> my_indexes;
+
+  /**
+   * The mask of the winners.
+   */
+  private final long my_winners;
+
+  /**
+   * The mask of the losers.
+   */
+  private final long my_losers;
+
+  /**
+   * The number of votes allowed in the contest.
+   */
+  private final int my_votes_allowed;
+
+  /**
+   * The name of the contest, for error messages.
+   */
+  private final String my_contest_name;
+
+  /**
+   * Constructs a new kernel for the specified contest result.
+   *
+   * @param the_result The contest result, whose winners and losers must
+   * already be determined.
+   */
+  public DiscrepancyKernel(final CountyContestResult the_result) {
+    final Contest contest = the_result.contest();
+    my_votes_allowed = contest.votesAllowed();
+    my_contest_name = contest.name();
+
+    final Map<String, Integer> indexes = new HashMap<>();
+    for (final Choice c : contest.choices()) {
+      indexes.putIfAbsent(c.name(), indexes.size());
+    }
+    for (final String s : the_result.voteTotals().keySet()) {
+      indexes.putIfAbsent(s, indexes.size());
+    }
+    for (final String s : the_result.winners()) {
+      indexes.putIfAbsent(s, indexes.size());
+    }
+    for (final String s : the_result.losers()) {
+      indexes.putIfAbsent(s, indexes.size());
+    }
+
+    if (indexes.size() <= MAX_CHOICES) {
+      my_indexes = indexes;
+      my_winners = maskOf(indexes, the_result.winners());
+      my_losers = maskOf(indexes, the_result.losers());
+    } else {
+      my_indexes = null;
+      my_winners = 0;
+      my_losers = 0;
+    }
+  }
+
+  /**
+   * Computes the mask of the specified choices.
+   *
+   * @param the_choices The choices.
+   * @return the mask, or UNKNOWN if the choices cannot be represented.
+   */
+  public long mask(final List<String> the_choices) {
+    if (my_indexes == null) {
+      return UNKNOWN;
+    }
+    long result = 0;
+    for (int i = 0; i < the_choices.size(); i++) {
+      final Integer index = my_indexes.get(the_choices.get(i));
+      if (index == null) {
+        return UNKNOWN;
+      }
+      result |= 1L << index;
+    }
+    return result;
+  }
+
+  /**
+   * Computes the discrepancy between the choices on a CVR and on the
+   * corresponding ACVR, with the same semantics as
+   * CountyContestComparisonAudit.computeDiscrepancy.
+   *
+   * @param the_cvr_mask The mask of the CVR choices.
+   * @param the_acvr_mask The mask of the ACVR choices.
+   * @param the_acvr_choice_count The number of ACVR choices, which determines
+   * whether the ACVR is an overvote.
+   * @return an optional int that is present if there is a discrepancy and absent
+   * otherwise.
+   * @exception IllegalStateException if there is a difference between the choices
+   * but the contest has no winners.
+   */
+  public OptionalInt auditedDiscrepancy(final long the_cvr_mask, final long the_acvr_mask,
+                                        final int the_acvr_choice_count) {
+    // an overvote counts as no votes at all
+    final long acvr_mask;
+    if (the_acvr_choice_count <= my_votes_allowed) {
+      acvr_mask = the_acvr_mask;
+    } else {
+      acvr_mask = 0;
+    }
+    if (the_cvr_mask == acvr_mask) {
+      return OptionalInt.empty();
+    }
+    if (my_winners == 0) {
+      throw new IllegalStateException("unable to compute discrepancy in contest " +
+                                      my_contest_name);
+    }
+
+    final long gained = acvr_mask & ~the_cvr_mask;
+    final long lost = the_cvr_mask & ~acvr_mask;
+
+    // the smallest change to any winner's votes
+    final int min_winner_change = minChange(my_winners, gained, lost);
+
+    final int result;
+    if (my_losers == 0) {
+      // if there are no losers, we just negate the winner change
+      result = -min_winner_change;
+    } else {
+      // the largest pairwise discrepancy is the largest loser change minus the
+      // smallest winner change; an understatement is only possible if every
+      // pairwise discrepancy is negative, that is, if the largest one is
+      final int max_loser_change = -minChange(my_losers, lost, gained);
+      result = max_loser_change - min_winner_change;
+    }
+    return RESULTS[result + MAX_DISCREPANCY];
+  }
+
+  /**
+   * Computes the discrepancy between the choices on a CVR and a phantom
+   * ballot (or an ACVR without consensus).
+   *
+   * @param the_cvr_mask The mask of the CVR choices.
+   * @return the discrepancy: 1 if the CVR has votes only for losers, 2 otherwise.
+   */
+  public int phantomDiscrepancy(final long the_cvr_mask) {
+    final int result;
+    if ((the_cvr_mask & ~my_losers) == 0) {
+      result = 1;
+    } else {
+      result = 2;
+    }
+    return result;
+  }
+
+  /**
+   * Computes the smallest change in votes among the specified choices, when
+   * the choices in "up" gain a vote and those in "down" lose one.
+   *
+   * @param the_choices The choices.
+   * @param the_up The choices that gain a vote.
+   * @param the_down The choices that lose a vote.
+   * @return -1 if any of the choices loses a vote, otherwise 0 if any of the
+   * choices is unchanged, otherwise 1.
+   */
+  private static int minChange(final long the_choices, final long the_up,
+                               final long the_down) {
+    final int result;
+    if ((the_choices & the_down) != 0) {
+      result = -1;
+    } else if ((the_choices & ~the_up) != 0) {
+      result = 0;
+    } else {
+      result = 1;
+    }
+    return result;
+  }
+
+  /**
+   * Computes the mask of choices that are known to be indexed.
+   *
+   * @param the_indexes The choice indexes.
+   * @param the_choices The choices.
+   * @return the mask.
+   */
+  private static long maskOf(final Map<String, Integer> the_indexes,
+                             final Iterable<String> the_choices) {
+    long result = 0;
+    for (final String s : the_choices) {
+      result |= 1L << the_indexes.get(s);
+    }
+    return result;
+  }
+}
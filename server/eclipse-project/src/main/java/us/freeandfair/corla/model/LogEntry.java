@@ -205,13 +205,30 @@ public class LogEntry implements PersistentEntity, Serializable {
    * returns the root hash.
    */
   private String calculateHash(final LogEntry the_previous_entry) {
-    String result = ROOT_HASH;
-    final StringBuilder hash_input = new StringBuilder(hashString());
+    final String previous_hash;
     if (the_previous_entry == null) {
-      hash_input.append(ROOT_HASH);
+      previous_hash = ROOT_HASH;
     } else {
-      hash_input.append(the_previous_entry.hash());
+      previous_hash = the_previous_entry.hash();
     }
+    return chainHash(hashString(), previous_hash);
+  }
+  
+  /**
+   * Generates a hash chain entry from the hash string of a log entry and
+   * the hash of the previous log entry.
+   * 
+   * @param the_hash_string The hash string.
+   * @param the_previous_hash The hash of the previous log entry, or the root
+   * hash if there is no previous log entry.
+   * @return the hash. If the hash cannot be calculated, this method
+   * returns the root hash.
+   */
+  public static String chainHash(final String the_hash_string, 
+                                 final String the_previous_hash) {
+    String result = ROOT_HASH;
+    final StringBuilder hash_input = new StringBuilder(the_hash_string);
+    hash_input.append(the_previous_hash);
     try {      
       final MessageDigest md = MessageDigest.getInstance("SHA-256");
       final BigInteger bi = 
@@ -280,10 +297,25 @@ public class LogEntry implements PersistentEntity, Serializable {
    * @return the String.
    */
   public final String hashString() {
+    return hashString(my_result_code, my_information, my_timestamp);
+  }
+  
+  /**
+   * Returns a String based on the specified log entry data and used as part
+   * of the hash computation.
+   * 
+   * @param the_result_code The result code.
+   * @param the_information The information.
+   * @param the_timestamp The timestamp.
+   * @return the String.
+   */
+  public static String hashString(final Integer the_result_code, 
+                                  final String the_information,
+                                  final Instant the_timestamp) {
     final StringBuilder hash_input = new StringBuilder();
-    hash_input.append(my_result_code.toString());
-    hash_input.append(my_information);
-    hash_input.append(my_timestamp.toString());
+    hash_input.append(the_result_code.toString());
+    hash_input.append(the_information);
+    hash_input.append(the_timestamp.toString());
     return hash_input.toString();
   }
   
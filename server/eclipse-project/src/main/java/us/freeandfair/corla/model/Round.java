@@ -29,8 +29,8 @@ import javax.persistence.Convert;
 import javax.persistence.Embeddable;
 
 import us.freeandfair.corla.persistence.AuditSelectionIntegerMapConverter;
+import us.freeandfair.corla.persistence.CompactLongListConverter;
 import us.freeandfair.corla.persistence.ElectorListConverter;
-import us.freeandfair.corla.persistence.LongListConverter;
 
 /**
  * Information about an audit round. 
@@ -111,7 +111,7 @@ public class Round implements Serializable {
    */
   @Column(nullable = false, updatable = false,
           name = "ballot_sequence", columnDefinition = TEXT)
-  @Convert(converter = LongListConverter.class)
+  @Convert(converter = CompactLongListConverter.class)
   private List<Long> my_ballot_sequence;
   
   /**
@@ -120,7 +120,7 @@ public class Round implements Serializable {
    */
   @Column(nullable = false, updatable = false,
           name = "audit_subsequence", columnDefinition = TEXT)
-  @Convert(converter = LongListConverter.class)
+  @Convert(converter = CompactLongListConverter.class)
   private List<Long> my_audit_subsequence;
   
   /**
@@ -0,0 +1,276 @@
+/*
+ * Free & Fair Colorado RLA System
+ * 
+ * @title ColoradoRLA
+ * @created Oct 18, 2026
+ * @copyright 2026 Colorado Department of State
+ * @license SPDX-License-Identifier: AGPL-3.0-or-later
+ * @creator Daniel M. Zimmerman <dmz@freeandfair.us>
+ * @description A system to assist in conducting statewide risk-limiting audits.
+ */
+
+package us.freeandfair.corla.model;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import ch.obermuhlner.math.big.BigDecimalMath;
+
+import us.freeandfair.corla.Main;
+import us.freeandfair.corla.util.Pair;
+
+/**
+ * The stopping sample size computation for comparison audits, as defined in
+ * https://www.stat.berkeley.edu/~stark/Preprints/gentle12.pdf, for a
+ * specific gamma and risk limit. The logarithms that depend only on gamma
+ * and the risk limit are computed once, both in DECIMAL128 precision (for
+ * the reference computation) and as doubles (for the fast computation).
+ *
+ * The fast computation falls back to the reference computation whenever
+ * the unrounded sample size is too close to an integer for double precision
+ * to determine its ceiling reliably. In verification mode, every fast result
+ * is also checked against the reference computation, and any difference is
+ * logged as an error.
+ *
+ * @author Daniel M. Zimmerman <dmz@freeandfair.us>
+ * @version 1.0.0
+ */
+public final class SampleSizeEstimator {
+  /**
+   * The name of the verification mode property.
+   */
+  public static final String VERIFY_PROPERTY = "sample_size_verification";
+
+  /**
+   * The distance from an integer, relative to the unrounded sample size,
+   * within which the fast computation defers to the reference computation.
+   */
+  private static final double GUARD = 1e-9;
+
+  /**
+   * The estimators, by gamma and risk limit (with trailing zeros stripped).
+   */
+  private static final Map<Pair<BigDecimal, BigDecimal>, SampleSizeEstimator> CACHE =
+      new ConcurrentHashMap<>();
+
+  /**
+   * Whether verification mode is on, or null if the property has not yet
+   * been read.
+   */
+  private static volatile Boolean verify;
+
+  /**
+   * 2 * gamma.
+   */
+  private final BigDecimal my_two_gamma;
+
+  /**
+   * log(risk limit).
+   */
+  private final BigDecimal my_log_risk_limit;
+
+  /**
+   * log(1 + 1 / gamma), the weight of a two-vote understatement.
+   */
+  private final BigDecimal my_log_two_under;
+
+  /**
+   * log(1 + 1 / (2 * gamma)), the weight of a one-vote understatement.
+   */
+  private final BigDecimal my_log_one_under;
+
+  /**
+   * log(1 - 1 / (2 * gamma)), the weight of a one-vote overstatement.
+   */
+  private final BigDecimal my_log_one_over;
+
+  /**
+   * log(1 - 1 / gamma), the weight of a two-vote overstatement.
+   */
+  private final BigDecimal my_log_two_over;
+
+  /**
+   * 2 * gamma, as a double.
+   */
+  private final double my_two_gamma_d;
+
+  /**
+   * log(risk limit), as a double.
+   */
+  private final double my_log_risk_limit_d;
+
+  /**
+   * The weight of a two-vote understatement, as a double.
+   */
+  private final double my_log_two_under_d;
+
+  /**
+   * The weight of a one-vote understatement, as a double.
+   */
+  private final double my_log_one_under_d;
+
+  /**
+   * The weight of a one-vote overstatement, as a double.
+   */
+  private final double my_log_one_over_d;
+
+  /**
+   * The weight of a two-vote overstatement, as a double.
+   */
+  private final double my_log_two_over_d;
+
+  /**
+   * Constructs a new estimator.
+   *
+   * @param the_gamma The gamma.
+   * @param the_risk_limit The risk limit.
+   */
+  private SampleSizeEstimator(final BigDecimal the_gamma, final BigDecimal the_risk_limit) {
+    final BigDecimal invgamma = BigDecimal.ONE.divide(the_gamma, MathContext.DECIMAL128);
+    my_two_gamma = BigDecimal.valueOf(2).multiply(the_gamma);
+    final BigDecimal invtwogamma =
+        BigDecimal.ONE.divide(my_two_gamma, MathContext.DECIMAL128);
+    my_log_risk_limit = BigDecimalMath.log(the_risk_limit, MathContext.DECIMAL128);
+    my_log_two_under =
+        BigDecimalMath.log(BigDecimal.ONE.add(invgamma), MathContext.DECIMAL128);
+    my_log_one_under =
+        BigDecimalMath.log(BigDecimal.ONE.add(invtwogamma), MathContext.DECIMAL128);
+    my_log_one_over =
+        BigDecimalMath.log(BigDecimal.ONE.subtract(invtwogamma), MathContext.DECIMAL128);
+    my_log_two_over =
+        BigDecimalMath.log(BigDecimal.ONE.subtract(invgamma), MathContext.DECIMAL128);
+
+    my_two_gamma_d = my_two_gamma.doubleValue();
+    my_log_risk_limit_d = my_log_risk_limit.doubleValue();
+    my_log_two_under_d = my_log_two_under.doubleValue();
+    my_log_one_under_d = my_log_one_under.doubleValue();
+    my_log_one_over_d = my_log_one_over.doubleValue();
+    my_log_two_over_d = my_log_two_over.doubleValue();
+  }
+
+  /**
+   * Gets the estimator for the specified gamma and risk limit.
+   *
+   * @param the_gamma The gamma.
+   * @param the_risk_limit The risk limit.
+   * @return the estimator.
+   */
+  public static SampleSizeEstimator forParameters(final BigDecimal the_gamma,
+                                                  final BigDecimal the_risk_limit) {
+    final Pair<BigDecimal, BigDecimal> key =
+        new Pair<>(the_gamma.stripTrailingZeros(), the_risk_limit.stripTrailingZeros());
+    return CACHE.computeIfAbsent(key, k -> new SampleSizeEstimator(the_gamma,
+                                                                   the_risk_limit));
+  }
+
+  /**
+   * Sets verification mode, overriding the property.
+   *
+   * @param the_verify true to check every fast result against the reference
+   * computation, false otherwise.
+   */
+  public static void setVerification(final boolean the_verify) {
+    verify = the_verify;
+  }
+
+  /**
+   * @return true if verification mode is on, false otherwise.
+   */
+  private static boolean verification() {
+    Boolean result = verify;
+    if (result == null) {
+      result = Boolean.valueOf(Main.properties().getProperty(VERIFY_PROPERTY, "false").trim());
+      verify = result;
+    }
+    return result;
+  }
+
+  /**
+   * Computes the stopping sample size in double precision.
+   *
+   * @param the_diluted_margin The diluted margin.
+   * @param the_two_under The two-vote understatements.
+   * @param the_one_under The one-vote understatements.
+   * @param the_one_over The one-vote overstatements.
+   * @param the_two_over The two-vote overstatements.
+   * @return the stopping sample size, which is never less than the total
+   * number of over- and understatements.
+   */
+  public int samplesToAudit(final BigDecimal the_diluted_margin,
+                            final int the_two_under, final int the_one_under,
+                            final int the_one_over, final int the_two_over) {
+    final double numerator =
+        -my_two_gamma_d * (my_log_risk_limit_d +
+                           the_two_under * my_log_two_under_d +
+                           the_one_under * my_log_one_under_d +
+                           the_one_over * my_log_one_over_d +
+                           the_two_over * my_log_two_over_d);
+    final double size = numerator / the_diluted_margin.doubleValue();
+    final double nearest = Math.rint(size);
+
+    int result;
+    if (Double.isNaN(size) || Double.isInfinite(size) ||
+        Math.abs(size) > Integer.MAX_VALUE ||
+        Math.abs(size - nearest) <= GUARD * Math.max(1.0, Math.abs(size))) {
+      // too close to call (or out of range) in double precision
+      result = referenceSamplesToAudit(the_diluted_margin, the_two_under, the_one_under,
+                                       the_one_over, the_two_over).intValue();
+    } else {
+      result = Math.max((int) Math.ceil(size),
+                        the_two_under + the_one_under + the_one_over + the_two_over);
+      if (verification()) {
+        final int reference =
+            referenceSamplesToAudit(the_diluted_margin, the_two_under, the_one_under,
+                                    the_one_over, the_two_over).intValue();
+        if (reference != result) {
+          Main.LOGGER.error("sample size divergence: double precision " + result +
+                            ", reference " + reference + " for margin " +
+                            the_diluted_margin + ", discrepancies " + the_two_under +
+                            "/" + the_one_under + "/" + the_one_over + "/" +
+                            the_two_over);
+          result = reference;
+        }
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Computes the stopping sample size in DECIMAL128 precision.
+   *
+   * @param the_diluted_margin The diluted margin.
+   * @param the_two_under The two-vote understatements.
+   * @param the_one_under The one-vote understatements.
+   * @param the_one_over The one-vote overstatements.
+   * @param the_two_over The two-vote overstatements.
+   * @return the stopping sample size, which is never less than the total
+   * number of over- and understatements.
+   */
+  public BigDecimal referenceSamplesToAudit(final BigDecimal the_diluted_margin,
+                                            final int the_two_under,
+                                            final int the_one_under,
+                                            final int the_one_over,
+                                            final int the_two_over) {
+    final BigDecimal over_under_sum =
+        BigDecimal.valueOf((long) the_two_under + the_one_under + the_one_over +
+                           the_two_over);
+    final BigDecimal two_under =
+        BigDecimal.valueOf(the_two_under).multiply(my_log_two_under);
+    final BigDecimal one_under =
+        BigDecimal.valueOf(the_one_under).multiply(my_log_one_under);
+    final BigDecimal one_over =
+        BigDecimal.valueOf(the_one_over).multiply(my_log_one_over);
+    final BigDecimal two_over =
+        BigDecimal.valueOf(the_two_over).multiply(my_log_two_over);
+    final BigDecimal numerator =
+        my_two_gamma.negate().
+        multiply(my_log_risk_limit.add(two_under.add(one_under).add(one_over).add(two_over)));
+    final BigDecimal ceil =
+        numerator.divide(the_diluted_margin,
+                         MathContext.DECIMAL128).setScale(0, RoundingMode.CEILING);
+    return ceil.max(over_under_sum);
+  }
+}
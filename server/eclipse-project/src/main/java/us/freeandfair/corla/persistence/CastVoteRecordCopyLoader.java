@@ -0,0 +1,310 @@
+/*
+ * Free & Fair Colorado RLA System
+ * 
+ * @title ColoradoRLA
+ * @created Oct 18, 2026
+ * @copyright 2026 Colorado Department of State
+ * @license SPDX-License-Identifier: AGPL-3.0-or-later
+ * @creator Daniel M. Zimmerman <dmz@freeandfair.us>
+ * @description A system to assist in conducting statewide risk-limiting audits.
+ */
+
+package us.freeandfair.corla.persistence;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+
+import javax.persistence.PersistenceException;
+
+import org.hibernate.Session;
+import org.hibernate.dialect.PostgreSQL81Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+
+import us.freeandfair.corla.Main;
+import us.freeandfair.corla.model.CVRContestInfo;
+import us.freeandfair.corla.model.CastVoteRecord;
+import us.freeandfair.corla.model.CastVoteRecord.RecordType;
+
+/**
+ * A bulk loader for imported cast vote records, which streams their rows
+ * (and the rows of their contest information) into PostgreSQL with COPY
+ * instead of saving them through Hibernate. IDs are allocated in blocks from
+ * the sequence Hibernate uses for CastVoteRecord, so the loaded records are
+ * indistinguishable from ones saved through Hibernate. The rows are written
+ * on the connection of the current session, and are therefore part of the
+ * current transaction.
+ *
+ * Loaded records are not attached to the session; they should not be
+ * modified after they are added.
+ *
+ * @author Daniel M. Zimmerman <dmz@freeandfair.us>
+ * @version 1.0.0
+ */
+public class CastVoteRecordCopyLoader {
+  /**
+   * The COPY statement for cast vote records.
+   */
+  static final String CVR_COPY =
+      "COPY cast_vote_record (id, version, record_type, timestamp, county_id, " +
+      "cvr_number, sequence_number, scanner_id, batch_id, record_id, imprinted_id, " +
+      "ballot_type) FROM STDIN WITH (FORMAT csv)";
+
+  /**
+   * The COPY statement for CVR contest information.
+   */
+  static final String CONTEST_INFO_COPY =
+      "COPY cvr_contest_info (cvr_id, \"index\", contest_id, comment, consensus, " +
+      "choices) FROM STDIN WITH (FORMAT csv)";
+
+  /**
+   * The query that allocates a block of IDs from a sequence whose increment
+   * is 1.
+   */
+  private static final String ID_BLOCK_QUERY = 
+      "select nextval(cast(:sequence as regclass)) from generate_series(1, :count)";
+
+  /**
+   * The converter used for the choices column, which must match the one
+   * declared on CVRContestInfo.
+   */
+  private static final StringListConverter CHOICES = new StringListConverter();
+
+  /**
+   * The quote character, in CSV format.
+   */
+  private static final char QUOTE = '"';
+
+  /**
+   * The number of records to buffer before they are copied.
+   */
+  private final int my_buffer_size;
+
+  /**
+   * The pre-allocated IDs not yet assigned.
+   */
+  private final Deque<Long> my_ids = new ArrayDeque<>();
+
+  /**
+   * The buffered cast vote record rows.
+   */
+  private final StringBuilder my_cvr_rows = new StringBuilder();
+
+  /**
+   * The buffered CVR contest information rows.
+   */
+  private final StringBuilder my_contest_info_rows = new StringBuilder();
+
+  /**
+   * The number of buffered records.
+   */
+  private int my_buffered;
+
+  /**
+   * The total number of records loaded.
+   */
+  private int my_loaded;
+
+  /**
+   * Constructs a new loader.
+   *
+   * @param the_buffer_size The number of records to buffer before they are
+   * copied, which is also the number of IDs allocated at a time.
+   */
+  public CastVoteRecordCopyLoader(final int the_buffer_size) {
+    my_buffer_size = Math.max(1, the_buffer_size);
+  }
+
+  /**
+   * @return true if the database supports bulk loading with COPY, that is,
+   * if Hibernate is using a PostgreSQL dialect, false otherwise.
+   */
+  public static boolean isSupported() {
+    boolean result = false;
+    try {
+      result = Persistence.hasDB() &&
+               factory().getJdbcServices().getDialect() instanceof PostgreSQL81Dialect;
+    } catch (final PersistenceException e) {
+      Main.LOGGER.info("could not determine database dialect: " + e.getMessage());
+    }
+    return result;
+  }
+
+  /**
+   * Adds a cast vote record to the load, assigning its ID. The record is
+   * written to the database by the next call to flush(), which happens
+   * automatically when the buffer is full.
+   *
+   * @param the_cvr The cast vote record; it must be an uploaded record, and
+   * must not already have an ID.
+   * @exception IllegalArgumentException if the record is not an uploaded record.
+   * @exception PersistenceException if the record cannot be loaded.
+   */
+  public void add(final CastVoteRecord the_cvr) {
+    if (the_cvr.recordType() != RecordType.UPLOADED) {
+      throw new IllegalArgumentException("only uploaded CVRs can be bulk loaded");
+    }
+    if (my_ids.isEmpty()) {
+      allocateIDs();
+    }
+    final Long id = my_ids.remove();
+    the_cvr.setID(id);
+    appendRows(my_cvr_rows, my_contest_info_rows, the_cvr);
+
+    my_buffered = my_buffered + 1;
+    if (my_buffered >= my_buffer_size) {
+      flush();
+    }
+  }
+
+  /**
+   * Writes all buffered records to the database, in the current transaction.
+   * Any pending Hibernate changes are flushed first, so that the records can
+   * refer to entities (such as contests) saved earlier in the transaction.
+   *
+   * @exception PersistenceException if the records cannot be written.
+   */
+  public void flush() {
+    if (my_buffered == 0) {
+      return;
+    }
+    final Session session = Persistence.currentSession();
+    session.flush();
+    final String cvr_rows = my_cvr_rows.toString();
+    final String contest_info_rows = my_contest_info_rows.toString();
+    session.doWork(connection -> {
+      final CopyManager copy = connection.unwrap(PGConnection.class).getCopyAPI();
+      try {
+        copy.copyIn(CVR_COPY, new StringReader(cvr_rows));
+        copy.copyIn(CONTEST_INFO_COPY, new StringReader(contest_info_rows));
+      } catch (final IOException e) {
+        throw new PersistenceException("could not copy cast vote records", e);
+      }
+    });
+    my_loaded = my_loaded + my_buffered;
+    my_buffered = 0;
+    my_cvr_rows.setLength(0);
+    my_contest_info_rows.setLength(0);
+  }
+
+  /**
+   * @return the number of records written to the database so far.
+   */
+  public int loaded() {
+    return my_loaded;
+  }
+
+  /**
+   * Allocates a block of IDs from the CastVoteRecord sequence. If the
+   * sequence has an increment of 1, the block is fetched in a single query;
+   * otherwise, Hibernate's own optimizer hands out the IDs, so that they
+   * cannot collide with its pooled ranges.
+   */
+  private void allocateIDs() {
+    final Session session = Persistence.currentSession();
+    final IdentifierGenerator generator =
+        factory().getIdentifierGenerator(CastVoteRecord.class.getName());
+    if (generator instanceof SequenceStyleGenerator &&
+        ((SequenceStyleGenerator) generator).getDatabaseStructure().getIncrementSize() == 1) {
+      final String sequence =
+          ((SequenceStyleGenerator) generator).getDatabaseStructure().getName();
+      @SuppressWarnings("unchecked")
+      final List<Number> ids =
+          session.createNativeQuery(ID_BLOCK_QUERY)
+                 .setParameter("sequence", sequence)
+                 .setParameter("count", my_buffer_size)
+                 .getResultList();
+      for (final Number n : ids) {
+        my_ids.add(n.longValue());
+      }
+    } else {
+      final SharedSessionContractImplementor implementor =
+          (SharedSessionContractImplementor) session;
+      for (int i = 0; i < my_buffer_size; i++) {
+        final Number n = (Number) generator.generate(implementor, null);
+        my_ids.add(n.longValue());
+      }
+    }
+    if (my_ids.isEmpty()) {
+      throw new PersistenceException("could not allocate cast vote record IDs");
+    }
+  }
+
+  /**
+   * @return the session factory, as an implementor.
+   */
+  private static SessionFactoryImplementor factory() {
+    return (SessionFactoryImplementor) Persistence.currentSession().getSessionFactory();
+  }
+
+  /**
+   * Appends the rows for a cast vote record, in CSV format with the columns
+   * of CVR_COPY and CONTEST_INFO_COPY respectively.
+   *
+   * @param the_cvr_rows The builder for cast vote record rows.
+   * @param the_contest_info_rows The builder for CVR contest information rows.
+   * @param the_cvr The cast vote record, which must have its ID.
+   */
+  static void appendRows(final StringBuilder the_cvr_rows,
+                         final StringBuilder the_contest_info_rows,
+                         final CastVoteRecord the_cvr) {
+    final Long id = the_cvr.id();
+    appendValue(the_cvr_rows, id).append(',');
+    appendValue(the_cvr_rows, 0L).append(',');
+    appendValue(the_cvr_rows, the_cvr.recordType()).append(',');
+    // uploaded records have no timestamp
+    appendValue(the_cvr_rows, null).append(',');
+    appendValue(the_cvr_rows, the_cvr.countyID()).append(',');
+    appendValue(the_cvr_rows, the_cvr.cvrNumber()).append(',');
+    appendValue(the_cvr_rows, the_cvr.sequenceNumber()).append(',');
+    appendValue(the_cvr_rows, the_cvr.scannerID()).append(',');
+    appendValue(the_cvr_rows, the_cvr.batchID()).append(',');
+    appendValue(the_cvr_rows, the_cvr.recordID()).append(',');
+    appendValue(the_cvr_rows, the_cvr.imprintedID()).append(',');
+    appendValue(the_cvr_rows, the_cvr.ballotType()).append('\n');
+
+    int index = 0;
+    for (final CVRContestInfo ci : the_cvr.contestInfo()) {
+      appendValue(the_contest_info_rows, id).append(',');
+      appendValue(the_contest_info_rows, index).append(',');
+      appendValue(the_contest_info_rows, ci.contest().id()).append(',');
+      appendValue(the_contest_info_rows, ci.comment()).append(',');
+      appendValue(the_contest_info_rows, ci.consensus()).append(',');
+      appendValue(the_contest_info_rows,
+                  CHOICES.convertToDatabaseColumn(ci.choices())).append('\n');
+      index = index + 1;
+    }
+  }
+
+  /**
+   * Appends a value in CSV format; null is written as an empty unquoted
+   * field, which COPY reads as NULL, and every other value is quoted.
+   *
+   * @param the_builder The builder to append to.
+   * @param the_value The value.
+   * @return the builder.
+   */
+  private static StringBuilder appendValue(final StringBuilder the_builder,
+                                           final Object the_value) {
+    if (the_value != null) {
+      final String s = the_value.toString();
+      the_builder.append(QUOTE);
+      for (int i = 0; i < s.length(); i++) {
+        final char c = s.charAt(i);
+        if (c == QUOTE) {
+          the_builder.append(QUOTE);
+        }
+        the_builder.append(c);
+      }
+      the_builder.append(QUOTE);
+    }
+    return the_builder;
+  }
+}
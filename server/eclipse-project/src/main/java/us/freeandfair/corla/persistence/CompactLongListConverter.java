@@ -0,0 +1,98 @@
+/*
+ * Free & Fair Colorado RLA System
+ * 
+ * @title ColoradoRLA
+ * @created Oct 18, 2026
+ * @copyright 2026 Colorado Department of State
+ * @license SPDX-License-Identifier: AGPL-3.0-or-later
+ * @creator Daniel M. Zimmerman <dmz@freeandfair.us>
+ * @description A system to assist in conducting statewide risk-limiting audits.
+ */
+
+package us.freeandfair.corla.persistence;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+import javax.persistence.AttributeConverter;
+import javax.persistence.Converter;
+
+import us.freeandfair.corla.util.Varints;
+
+/**
+ * A converter between lists of Longs and a compact encoding of such lists:
+ * the number of elements followed by the zigzag-encoded differences between
+ * consecutive elements, as varints, in Base64 with a leading marker character.
+ * The encoding is stored in a text column, so it can replace LongListConverter
+ * on an existing column; column entries written by LongListConverter are
+ * recognized and decoded as JSON.
+ *
+ * @author Daniel M. Zimmerman <dmz@freeandfair.us>
+ * @version 1.0.0
+ */
+@Converter
+@SuppressWarnings("PMD.AtLeastOneConstructor")
+public class CompactLongListConverter implements AttributeConverter<List<Long>, String> {
+  /**
+   * The marker character that begins every compact column entry; JSON
+   * entries begin with '[' or are "null".
+   */
+  public static final char MARKER = '#';
+
+  /**
+   * The converter for JSON column entries.
+   */
+  private static final LongListConverter JSON = new LongListConverter();
+
+  /**
+   * Converts the specified list of Longs to a database column entry.
+   *
+   * @param the_list The list of Longs; it must not contain nulls.
+   */
+  @Override
+  public String convertToDatabaseColumn(final List<Long> the_list) {
+    if (the_list == null) {
+      return null;
+    }
+    final ByteArrayOutputStream out = new ByteArrayOutputStream(the_list.size() * 2 + 1);
+    Varints.writeUnsigned(out, the_list.size());
+    long previous = 0;
+    for (final Long element : the_list) {
+      Varints.writeUnsigned(out, Varints.zigzag(element - previous));
+      previous = element;
+    }
+    return MARKER + Base64.getEncoder().withoutPadding().encodeToString(out.toByteArray());
+  }
+
+  /**
+   * Converts the specified database column entry to a list of Longs.
+   *
+   * @param the_column The column entry, in either the compact or the JSON
+   * encoding.
+   * @exception IllegalArgumentException if the column entry is malformed.
+   */
+  @Override
+  public List<Long> convertToEntityAttribute(final String the_column) {
+    if (the_column == null) {
+      return null;
+    }
+    if (the_column.isEmpty() || the_column.charAt(0) != MARKER) {
+      return JSON.convertToEntityAttribute(the_column);
+    }
+    final byte[] bytes = Base64.getDecoder().decode(the_column.substring(1));
+    final int[] position = {0};
+    final long count = Varints.readUnsigned(bytes, position);
+    if (count < 0 || bytes.length < count) {
+      throw new IllegalArgumentException("malformed long list column");
+    }
+    final List<Long> result = new ArrayList<>((int) count);
+    long previous = 0;
+    for (long i = 0; i < count; i++) {
+      previous = previous + Varints.unzigzag(Varints.readUnsigned(bytes, position));
+      result.add(previous);
+    }
+    return result;
+  }
+}
@@ -0,0 +1,632 @@
+/*
+ * Free & Fair Colorado RLA System
+ * 
+ * @title ColoradoRLA
+ * @created Oct 18, 2026
+ * @copyright 2026 Colorado Department of State
+ * @license SPDX-License-Identifier: AGPL-3.0-or-later
+ * @creator Daniel M. Zimmerman <dmz@freeandfair.us>
+ * @description A system to assist in conducting statewide risk-limiting audits.
+ */
+
+package us.freeandfair.corla.persistence;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+import javax.persistence.PersistenceException;
+
+import us.freeandfair.corla.Main;
+import us.freeandfair.corla.model.LogEntry;
+import us.freeandfair.corla.query.LogEntryQueries;
+
+/**
+ * Writes log entries to the hash-chained log on a single writer thread.
+ * Callers queue entries and continue; the writer takes everything that is
+ * queued (up to a batch size), hashes it onto the chain and persists it in
+ * one transaction. The last entry of the chain is kept in memory, so the
+ * tail of the log is read from the database only at startup and after a
+ * failed transaction.
+ *
+ * Callers that must not continue until their entries are committed wait
+ * for the batch that contains them. If log_chain_in_transaction is set,
+ * entries can instead be added to the caller's own transaction with
+ * chainInTransaction, so that they are committed together with its other
+ * changes; the chain is then locked from that call until the transaction
+ * completes, so that it cannot fork, and other writers wait for it.
+ *
+ * This assumes that this server is the only writer of the log.
+ *
+ * @author Daniel M. Zimmerman <dmz@freeandfair.us>
+ * @version 1.0.0
+ */
+@SuppressWarnings({"PMD.DoNotUseThreads", "PMD.AvoidCatchingGenericException"})
+public final class LogEntryWriter {
+  /**
+   * The name of the batch size property.
+   */
+  public static final String BATCH_SIZE_PROPERTY = "log_writer_batch_size";
+
+  /**
+   * The name of the property that enables chaining in callers' transactions.
+   */
+  public static final String CHAIN_IN_TRANSACTION_PROPERTY = "log_chain_in_transaction";
+
+  /**
+   * The default batch size, in requests.
+   */
+  private static final int DEFAULT_BATCH_SIZE = 100;
+
+  /**
+   * The number of times to try writing a batch.
+   */
+  private static final int ATTEMPTS = 5;
+
+  /**
+   * The number of milliseconds to sleep between attempts.
+   */
+  private static final long RETRY_SLEEP_MSEC = 100;
+
+  /**
+   * The maximum number of seconds to wait for a synchronous write.
+   */
+  private static final long SYNC_TIMEOUT_SEC = 30;
+
+  /**
+   * The maximum number of seconds to wait for queued entries at shutdown.
+   */
+  private static final long SHUTDOWN_TIMEOUT_SEC = 5;
+
+  /**
+   * The maximum number of queued requests; callers wait for space, up to
+   * SYNC_TIMEOUT_SEC, when the queue is full.
+   */
+  private static final int QUEUE_CAPACITY = 10_000;
+
+  /**
+   * The queued requests.
+   */
+  private static final BlockingQueue<WriteRequest> QUEUE =
+      new LinkedBlockingQueue<>(QUEUE_CAPACITY);
+
+  /**
+   * The lock on the chain, held by the writer thread while it writes a
+   * batch and by any other thread from its first call to chainInTransaction
+   * or restartChainInTransaction until its transaction completes.
+   */
+  private static final ReentrantLock CHAIN_LOCK = new ReentrantLock();
+
+  /**
+   * A flag indicating that the tail must be read from the database before the
+   * next batch is written.
+   */
+  private static final AtomicBoolean RELOAD = new AtomicBoolean(true);
+
+  /**
+   * The store to which the chain is written.
+   */
+  private static volatile Store store = new PersistenceStore();
+
+  /**
+   * The writer thread, or null if it has not been started.
+   */
+  private static Thread writer;
+
+  /**
+   * The last committed entry of the chain; used only while holding
+   * CHAIN_LOCK.
+   */
+  private static LogEntry tail;
+
+  /**
+   * The last entry of the chain in the transaction of the thread holding
+   * CHAIN_LOCK, other than the writer thread.
+   */
+  private static LogEntry pending_tail;
+
+  /**
+   * Private constructor to prevent instantiation.
+   */
+  private LogEntryWriter() {
+    // do nothing
+  }
+
+  /**
+   * Queues the specified log entries to be added to the log, in order.
+   *
+   * @param the_entries The entries, which are used for their result codes,
+   * information and timestamps.
+   * @param the_authentication_data The authentication data for the entries.
+   * @param the_client_host The client host for the entries.
+   * @param the_sync true to wait until the entries have been committed, false
+   * to return immediately.
+   * @return true if the entries were committed, or were queued and the_sync
+   * is false; false if the entries could not be queued or committed in time.
+   */
+  public static boolean write(final List<LogEntry> the_entries,
+                              final String the_authentication_data,
+                              final String the_client_host,
+                              final boolean the_sync) {
+    if (the_entries.isEmpty()) {
+      return true;
+    }
+    final WriteRequest request =
+        new WriteRequest(new ArrayList<>(the_entries), the_authentication_data,
+                         the_client_host);
+    startWriter();
+
+    boolean result;
+    try {
+      result = QUEUE.offer(request, SYNC_TIMEOUT_SEC, TimeUnit.SECONDS);
+      if (!result) {
+        fail(Collections.singletonList(request),
+             new IllegalStateException("log entry queue full"));
+      } else if (the_sync) {
+        request.my_done.get(SYNC_TIMEOUT_SEC, TimeUnit.SECONDS);
+      }
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      result = false;
+    } catch (final ExecutionException | TimeoutException e) {
+      result = false;
+    }
+    return result;
+  }
+
+  /**
+   * @return true if log entries that must be committed together with other
+   * changes should be added to the log with chainInTransaction, false if they
+   * should be written with write.
+   */
+  public static boolean chainsInTransaction() {
+    return Boolean.parseBoolean(Main.properties().
+                                getProperty(CHAIN_IN_TRANSACTION_PROPERTY,
+                                            Persistence.FALSE).trim());
+  }
+
+  /**
+   * Adds the specified log entries to the log, in order, in the current
+   * transaction. The chain stays locked until the transaction completes; if
+   * it does not commit, the entries are not part of the log.
+   *
+   * @param the_entries The entries, which are used for their result codes,
+   * information and timestamps.
+   * @param the_authentication_data The authentication data for the entries.
+   * @param the_client_host The client host for the entries.
+   * @exception PersistenceException if the entries cannot be saved, or the
+   * chain cannot be locked in time.
+   * @exception IllegalStateException if no transaction is running.
+   */
+  public static void chainInTransaction(final List<LogEntry> the_entries,
+                                        final String the_authentication_data,
+                                        final String the_client_host) {
+    // the transaction's other changes are flushed first, so that it does not
+    // wait for row locks while holding the chain
+    store.flush();
+    lockChain();
+    for (final LogEntry entry : the_entries) {
+      final LogEntry real_entry =
+          new LogEntry(entry.resultCode(), entry.information(), the_authentication_data,
+                       the_client_host, entry.timestamp(), pending_tail);
+      store.save(real_entry);
+      pending_tail = real_entry;
+    }
+  }
+
+  /**
+   * Restarts the chain in the current transaction, which must have deleted
+   * all the entries of the log. The chain stays locked until the transaction
+   * completes, so this should be called before the log is deleted.
+   *
+   * @exception PersistenceException if the chain cannot be locked in time.
+   * @exception IllegalStateException if no transaction is running.
+   */
+  public static void restartChainInTransaction() {
+    lockChain();
+    pending_tail = null;
+  }
+
+  /**
+   * Releases any lock on the chain that the current thread still holds,
+   * which happens only if its transaction was never completed; the tail is
+   * then read from the database before the next entries are added.
+   */
+  public static void releaseChain() {
+    while (CHAIN_LOCK.isHeldByCurrentThread()) {
+      RELOAD.set(true);
+      CHAIN_LOCK.unlock();
+    }
+  }
+
+  /**
+   * Locks the chain until the current transaction completes, and reads the
+   * tail of the log into pending_tail if this is the first lock taken in it.
+   * Waiting for the lock is limited, so that a transaction that holds row
+   * locks needed by the holder of the chain fails rather than deadlocking.
+   *
+   * @exception PersistenceException if the chain cannot be locked in time or
+   * the tail cannot be read.
+   * @exception IllegalStateException if no transaction is running.
+   */
+  private static void lockChain() {
+    if (!store.isTransactionActive()) {
+      throw new IllegalStateException("no running transaction");
+    }
+    try {
+      if (!CHAIN_LOCK.tryLock(SYNC_TIMEOUT_SEC, TimeUnit.SECONDS)) {
+        throw new PersistenceException("timed out waiting for the log chain");
+      }
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new PersistenceException("interrupted waiting for the log chain", e);
+    }
+    try {
+      if (CHAIN_LOCK.getHoldCount() == 1) {
+        if (RELOAD.getAndSet(false)) {
+          tail = store.last();
+        }
+        pending_tail = tail;
+      }
+    } catch (final PersistenceException e) {
+      RELOAD.set(true);
+      CHAIN_LOCK.unlock();
+      throw e;
+    }
+    store.afterCompletion(LogEntryWriter::unlockChain);
+  }
+
+  /**
+   * Releases one lock on the chain taken by lockChain, after the transaction
+   * completes; when the last one is released, the tail becomes that of the
+   * transaction if it committed.
+   *
+   * @param the_committed true if the transaction committed, false otherwise.
+   */
+  private static void unlockChain(final boolean the_committed) {
+    if (CHAIN_LOCK.isHeldByCurrentThread()) {
+      if (CHAIN_LOCK.getHoldCount() == 1) {
+        if (the_committed) {
+          tail = pending_tail;
+        } else {
+          RELOAD.set(true);
+        }
+        pending_tail = null;
+      }
+      CHAIN_LOCK.unlock();
+    }
+  }
+
+  /**
+   * Starts the writer thread, if it has not been started.
+   */
+  private static synchronized void startWriter() {
+    if (writer == null) {
+      writer = new Thread(LogEntryWriter::run, "log-entry-writer");
+      writer.setDaemon(true);
+      writer.start();
+      Runtime.getRuntime().addShutdownHook(new Thread(LogEntryWriter::drain));
+    }
+  }
+
+  /**
+   * The body of the writer thread.
+   */
+  private static void run() {
+    while (true) {
+      final List<WriteRequest> batch = new ArrayList<>();
+      try {
+        batch.add(QUEUE.take());
+      } catch (final InterruptedException e) {
+        Main.LOGGER.error("log entry writer interrupted");
+        continue;
+      }
+      QUEUE.drainTo(batch, batchSize() - 1);
+      try {
+        writeBatch(batch);
+      } catch (final RuntimeException e) {
+        // the writer must survive anything a batch can throw
+        Main.LOGGER.error("unexpected exception in log entry writer: " + e);
+        fail(batch, e);
+      }
+    }
+  }
+
+  /**
+   * Writes a batch of requests in one transaction, retrying if the
+   * transaction fails.
+   *
+   * @param the_batch The batch.
+   */
+  private static void writeBatch(final List<WriteRequest> the_batch) {
+    PersistenceException failure = null;
+    for (int attempt = 1; attempt <= ATTEMPTS; attempt++) {
+      CHAIN_LOCK.lock();
+      try {
+        store.begin();
+        if (RELOAD.getAndSet(false)) {
+          tail = store.last();
+        }
+        LogEntry previous = tail;
+        for (final WriteRequest request : the_batch) {
+          for (final LogEntry entry : request.my_entries) {
+            final LogEntry real_entry =
+                new LogEntry(entry.resultCode(), entry.information(),
+                             request.my_authentication_data, request.my_client_host,
+                             entry.timestamp(), previous);
+            store.save(real_entry);
+            previous = real_entry;
+          }
+        }
+        store.commit();
+        tail = previous;
+        for (final WriteRequest request : the_batch) {
+          request.my_done.complete(null);
+        }
+        return;
+      } catch (final PersistenceException | IllegalStateException e) {
+        failure = new PersistenceException(e);
+        Main.LOGGER.error("could not persist log entries, attempt " + attempt + ": " + e);
+        store.rollback();
+        // the tail may not be what we think it is
+        RELOAD.set(true);
+      } finally {
+        CHAIN_LOCK.unlock();
+      }
+      sleep();
+    }
+    fail(the_batch, failure);
+  }
+
+  /**
+   * Reports the failure of a batch to the system log and to waiting callers.
+   *
+   * @param the_batch The batch.
+   * @param the_cause The cause of the failure.
+   */
+  private static void fail(final List<WriteRequest> the_batch, final Throwable the_cause) {
+    for (final WriteRequest request : the_batch) {
+      for (final LogEntry entry : request.my_entries) {
+        Main.LOGGER.error("log entry lost: " + entry.resultCode() + " " +
+                          entry.information() + " by " + request.my_authentication_data +
+                          " from " + request.my_client_host + " at " + entry.timestamp());
+      }
+      request.my_done.completeExceptionally(the_cause);
+    }
+  }
+
+  /**
+   * Waits, for a limited time, for all queued requests to be written; used
+   * at shutdown.
+   */
+  private static void drain() {
+    final WriteRequest marker = new WriteRequest(new ArrayList<>(), null, null);
+    try {
+      if (QUEUE.offer(marker, SHUTDOWN_TIMEOUT_SEC, TimeUnit.SECONDS)) {
+        marker.my_done.get(SHUTDOWN_TIMEOUT_SEC, TimeUnit.SECONDS);
+      } else {
+        Main.LOGGER.error("log entries may not have been written at shutdown");
+      }
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (final ExecutionException | TimeoutException e) {
+      Main.LOGGER.error("log entries may not have been written at shutdown");
+    }
+  }
+
+  /**
+   * Sleeps between attempts.
+   */
+  private static void sleep() {
+    try {
+      Thread.sleep(RETRY_SLEEP_MSEC);
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * @return the batch size, in requests.
+   */
+  private static int batchSize() {
+    int result;
+    try {
+      result = Integer.parseInt(Main.properties().
+                                getProperty(BATCH_SIZE_PROPERTY,
+                                            String.valueOf(DEFAULT_BATCH_SIZE)).trim());
+    } catch (final NumberFormatException e) {
+      result = DEFAULT_BATCH_SIZE;
+    }
+    return Math.max(1, result);
+  }
+
+  /**
+   * Replaces the store to which the chain is written, which is then read
+   * from that store before the next entries are added; used for testing.
+   *
+   * @param the_store The store.
+   */
+  static void useStore(final Store the_store) {
+    CHAIN_LOCK.lock();
+    try {
+      store = the_store;
+      RELOAD.set(true);
+    } finally {
+      CHAIN_LOCK.unlock();
+    }
+  }
+
+  /**
+   * The operations used to read and persist the chain. Transactions are
+   * those of the calling thread.
+   */
+  interface Store {
+    /**
+     * Begins a transaction.
+     */
+    void begin();
+
+    /**
+     * Commits the transaction.
+     */
+    void commit();
+
+    /**
+     * Rolls back the transaction, if possible; never throws.
+     */
+    void rollback();
+
+    /**
+     * @return true if a transaction is running, false otherwise.
+     */
+    boolean isTransactionActive();
+
+    /**
+     * Flushes the transaction's changes.
+     */
+    void flush();
+
+    /**
+     * Saves a log entry in the transaction.
+     *
+     * @param the_entry The entry.
+     */
+    void save(LogEntry the_entry);
+
+    /**
+     * @return the last committed entry of the log, or null if it is empty.
+     */
+    LogEntry last();
+
+    /**
+     * Arranges for an action to run when the transaction completes.
+     *
+     * @param the_action The action, which is passed true if the transaction
+     * committed and false otherwise.
+     */
+    void afterCompletion(Consumer<Boolean> the_action);
+  }
+
+  /**
+   * The store that uses the database.
+   */
+  private static final class PersistenceStore implements Store {
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void begin() {
+      Persistence.beginTransaction();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void commit() {
+      Persistence.commitTransaction();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void rollback() {
+      try {
+        if (Persistence.canTransactionRollback()) {
+          Persistence.rollbackTransaction();
+        }
+      } catch (final PersistenceException | IllegalStateException e) {
+        Main.LOGGER.error("could not roll back log entry transaction: " + e);
+      }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isTransactionActive() {
+      return Persistence.isTransactionActive();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void flush() {
+      Persistence.flush();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void save(final LogEntry the_entry) {
+      Persistence.save(the_entry);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public LogEntry last() {
+      return LogEntryQueries.last();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void afterCompletion(final Consumer<Boolean> the_action) {
+      Persistence.afterCompletion(the_action);
+    }
+  }
+
+  /**
+   * A request to write a sequence of log entries.
+   */
+  private static final class WriteRequest {
+    /**
+     * The entries.
+     */
+    private final List<LogEntry> my_entries;
+
+    /**
+     * The authentication data.
+     */
+    private final String my_authentication_data;
+
+    /**
+     * The client host.
+     */
+    private final String my_client_host;
+
+    /**
+     * Completed when the entries are committed.
+     */
+    private final CompletableFuture<Void> my_done = new CompletableFuture<>();
+
+    /**
+     * Constructs a new request.
+     *
+     * @param the_entries The entries.
+     * @param the_authentication_data The authentication data.
+     * @param the_client_host The client host.
+     */
+    WriteRequest(final List<LogEntry> the_entries, final String the_authentication_data,
+                 final String the_client_host) {
+      my_entries = the_entries;
+      my_authentication_data = the_authentication_data;
+      my_client_host = the_client_host;
+    }
+  }
+}
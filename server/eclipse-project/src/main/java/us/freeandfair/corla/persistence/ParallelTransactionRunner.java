@@ -0,0 +1,382 @@
+/*
+ * Free & Fair Colorado RLA System
+ * 
+ * @title ColoradoRLA
+ * @created Oct 18, 2026
+ * @copyright 2026 Colorado Department of State
+ * @license SPDX-License-Identifier: AGPL-3.0-or-later
+ * @creator Daniel M. Zimmerman <dmz@freeandfair.us>
+ * @description A system to assist in conducting statewide risk-limiting audits.
+ */
+
+package us.freeandfair.corla.persistence;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+import javax.persistence.PersistenceException;
+
+import us.freeandfair.corla.Main;
+import us.freeandfair.corla.util.ExponentialBackoffHelper;
+
+/**
+ * Runs a task for each of a list of keys (typically county IDs) on a bounded
+ * pool of worker threads, each worker using its own session and transaction.
+ * Tasks must only use the Persistence methods of the thread they run on, and
+ * must not touch entities loaded by the calling thread.
+ *
+ * @author Daniel M. Zimmerman <dmz@freeandfair.us>
+ * @version 1.0.0
+ */
+@SuppressWarnings({"PMD.DoNotUseThreads", "PMD.AvoidCatchingGenericException",
+    "PMD.AvoidRethrowingException"})
+public final class ParallelTransactionRunner {
+  /**
+   * The number of milliseconds to sleep between transaction retries.
+   */
+  private static final long TRANSACTION_SLEEP_MSEC = 10;
+
+  /**
+   * The transactions used by worker threads.
+   */
+  private static volatile Transactions transactions = new PersistenceTransactions();
+
+  /**
+   * Private constructor to prevent instantiation.
+   */
+  private ParallelTransactionRunner() {
+    // do nothing
+  }
+
+  /**
+   * The commit policies that can be used to run tasks.
+   */
+  public enum CommitPolicy {
+    /**
+     * The tasks run one after another in the transaction of the calling
+     * thread, which commits or rolls back all of them, together with any
+     * other changes it makes. No worker threads are used.
+     */
+    ATOMIC,
+
+    /**
+     * Each task runs in its own transaction, is retried if the transaction
+     * fails, and is committed independently of the others.
+     */
+    PER_TASK;
+
+    /**
+     * Parses a commit policy from a property value.
+     *
+     * @param the_value The property value ("atomic", "per_task" or "per_county").
+     * @param the_default The policy to use if the value is null or unrecognized.
+     * @return the commit policy.
+     */
+    public static CommitPolicy parse(final String the_value,
+                                     final CommitPolicy the_default) {
+      CommitPolicy result = the_default;
+      if (the_value != null) {
+        final String value = the_value.trim().toUpperCase(Locale.US);
+        if ("PER_COUNTY".equals(value)) {
+          result = PER_TASK;
+        } else {
+          try {
+            result = valueOf(value);
+          } catch (final IllegalArgumentException e) {
+            Main.LOGGER.info("unrecognized commit policy " + the_value +
+                             ", using " + the_default);
+          }
+        }
+      }
+      return result;
+    }
+  }
+
+  /**
+   * Runs the specified task for each of the specified keys. This method must
+   * not be called from a worker of another run.
+   *
+   * @param the_keys The keys.
+   * @param the_task The task.
+   * @param the_threads The maximum number of worker threads (ignored by
+   * ATOMIC).
+   * @param the_policy The commit policy.
+   * @param the_retries The number of times to retry a failed transaction
+   * (PER_TASK only).
+   * @return the outcome for each key, in the order of the_keys; with ATOMIC,
+   * only the keys that were run, as by runInCurrentTransaction.
+   * @exception PersistenceException with ATOMIC, if a task fails because of
+   * persistent storage.
+   */
+  public static <K, R> Map<K, Outcome<R>> run(final List<K> the_keys,
+                                              final Function<K, R> the_task,
+                                              final int the_threads,
+                                              final CommitPolicy the_policy,
+                                              final int the_retries) {
+    if (the_policy == CommitPolicy.ATOMIC) {
+      return runInCurrentTransaction(the_keys, the_task);
+    }
+    final int threads = Math.max(1, Math.min(the_threads, the_keys.size()));
+    final Map<K, Outcome<R>> result = new LinkedHashMap<>();
+    if (the_keys.isEmpty()) {
+      return result;
+    }
+    final ExecutorService pool = Executors.newFixedThreadPool(threads);
+    try {
+      runPerTask(pool, the_keys, the_task, the_retries, result);
+    } finally {
+      pool.shutdown();
+    }
+    return result;
+  }
+
+  /**
+   * Runs the specified task for each of the specified keys, one after another,
+   * in the transaction of the calling thread, stopping at the first task that
+   * fails. Nothing is committed; the caller is responsible for committing or
+   * rolling back its transaction.
+   *
+   * @param the_keys The keys.
+   * @param the_task The task.
+   * @return the outcome for each key that was run, in the order of the_keys.
+   * @exception PersistenceException if a task fails because of persistent
+   * storage, since the transaction can then no longer be used.
+   */
+  public static <K, R> Map<K, Outcome<R>> runInCurrentTransaction(final List<K> the_keys,
+                                                                  final Function<K, R>
+                                                                      the_task) {
+    final Map<K, Outcome<R>> result = new LinkedHashMap<>();
+    for (final K key : the_keys) {
+      try {
+        result.put(key, new Outcome<>(the_task.apply(key), null, false));
+      } catch (final PersistenceException e) {
+        throw e;
+      } catch (final RuntimeException e) {
+        result.put(key, new Outcome<>(null, e, false));
+        break;
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Runs each task in its own transaction.
+   *
+   * @param the_pool The worker pool.
+   * @param the_keys The keys.
+   * @param the_task The task.
+   * @param the_retries The number of retries.
+   * @param the_result The map in which to place the outcomes.
+   */
+  private static <K, R> void runPerTask(final ExecutorService the_pool,
+                                        final List<K> the_keys,
+                                        final Function<K, R> the_task,
+                                        final int the_retries,
+                                        final Map<K, Outcome<R>> the_result) {
+    final Map<K, Future<Outcome<R>>> futures = new LinkedHashMap<>();
+    for (final K key : the_keys) {
+      futures.put(key, the_pool.submit(() -> runWithRetries(key, the_task, the_retries)));
+    }
+    for (final Map.Entry<K, Future<Outcome<R>>> entry : futures.entrySet()) {
+      the_result.put(entry.getKey(), await(entry.getValue()));
+    }
+  }
+
+  /**
+   * Runs one task in its own transaction, retrying if the transaction fails.
+   *
+   * @param the_key The key.
+   * @param the_task The task.
+   * @param the_retries The number of retries.
+   * @return the outcome.
+   */
+  private static <K, R> Outcome<R> runWithRetries(final K the_key,
+                                                  final Function<K, R> the_task,
+                                                  final int the_retries) {
+    int attempts = 0;
+    Outcome<R> result = null;
+    while (result == null) {
+      attempts = attempts + 1;
+      try {
+        transactions.begin();
+        final R value = the_task.apply(the_key);
+        transactions.commit();
+        result = new Outcome<>(value, null, true);
+      } catch (final PersistenceException e) {
+        transactions.rollback();
+        if (the_retries < attempts) {
+          Main.LOGGER.error("transaction for " + the_key + " failed after " +
+                            attempts + " attempt(s): " + e);
+          result = new Outcome<>(null, e, false);
+        } else {
+          sleep(ExponentialBackoffHelper.exponentialBackoff(attempts,
+                                                            TRANSACTION_SLEEP_MSEC));
+        }
+      } catch (final RuntimeException e) {
+        transactions.rollback();
+        result = new Outcome<>(null, e, false);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Waits for a future outcome.
+   *
+   * @param the_future The future.
+   * @return the outcome, or a failed outcome if the wait fails.
+   */
+  private static <R> Outcome<R> await(final Future<Outcome<R>> the_future) {
+    Outcome<R> result;
+    try {
+      result = the_future.get();
+    } catch (final InterruptedException | ExecutionException e) {
+      result = new Outcome<>(null, new IllegalStateException(e), false);
+    }
+    return result;
+  }
+
+  /**
+   * Sleeps for the specified time.
+   *
+   * @param the_millis The time, in milliseconds.
+   */
+  private static void sleep(final long the_millis) {
+    try {
+      Thread.sleep(the_millis);
+    } catch (final InterruptedException e) {
+      // it's OK to be interrupted
+    }
+  }
+
+  /**
+   * Replaces the transactions used by worker threads; used for testing.
+   *
+   * @param the_transactions The transactions.
+   */
+  static void useTransactions(final Transactions the_transactions) {
+    transactions = the_transactions;
+  }
+
+  /**
+   * The operations used to run a task in a transaction of the current
+   * thread.
+   */
+  interface Transactions {
+    /**
+     * Begins a transaction.
+     */
+    void begin();
+
+    /**
+     * Commits the transaction.
+     */
+    void commit();
+
+    /**
+     * Rolls back the transaction, if there is one, ignoring any problems
+     * doing so.
+     */
+    void rollback();
+  }
+
+  /**
+   * The transactions of Persistence.
+   */
+  private static final class PersistenceTransactions implements Transactions {
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void begin() {
+      Persistence.beginTransaction();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void commit() {
+      Persistence.commitTransaction();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void rollback() {
+      try {
+        if (Persistence.isSessionOpen() && Persistence.canTransactionRollback()) {
+          Persistence.rollbackTransaction();
+        }
+      } catch (final PersistenceException | IllegalStateException e) {
+        // not much we can do about it
+      }
+    }
+  }
+
+  /**
+   * The outcome of a task.
+   *
+   * @param <R> The type of the task result.
+   */
+  public static final class Outcome<R> {
+    /**
+     * The result of the task, or null if it failed or did not run.
+     */
+    private final R my_value;
+
+    /**
+     * The exception that caused the task to fail, or null.
+     */
+    private final RuntimeException my_failure;
+
+    /**
+     * A flag indicating whether the task's transaction was committed.
+     */
+    private final boolean my_committed;
+
+    /**
+     * Constructs a new outcome.
+     *
+     * @param the_value The result.
+     * @param the_failure The failure.
+     * @param the_committed The committed flag.
+     */
+    Outcome(final R the_value, final RuntimeException the_failure,
+            final boolean the_committed) {
+      my_value = the_value;
+      my_failure = the_failure;
+      my_committed = the_committed;
+    }
+
+    /**
+     * @return the result of the task, or null if it failed or did not run.
+     */
+    public R value() {
+      return my_value;
+    }
+
+    /**
+     * @return the exception that caused the task to fail, or null if it
+     * did not fail (it may still not have been committed).
+     */
+    public RuntimeException failure() {
+      return my_failure;
+    }
+
+    /**
+     * @return true if the task's changes were committed, false otherwise.
+     */
+    public boolean committed() {
+      return my_committed;
+    }
+  }
+}
@@ -21,6 +21,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Scanner;
+import java.util.function.Consumer;
 import java.util.stream.Stream;
 
 import javax.persistence.PersistenceException;
@@ -29,12 +30,15 @@ import javax.persistence.TypedQuery;
 import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.CriteriaQuery;
 import javax.persistence.criteria.Root;
+import javax.transaction.Status;
+import javax.transaction.Synchronization;
 
 import org.hibernate.Hibernate;
 import org.hibernate.HibernateException;
 import org.hibernate.ObjectNotFoundException;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
 import org.hibernate.Transaction;
 import org.hibernate.boot.Metadata;
 import org.hibernate.boot.MetadataSources;
@@ -119,6 +123,19 @@ public final class Persistence {
     return !failed && (session_info.get() != null || openSession() != null);
   }
   
+  /**
+   * @return the number of JDBC statements prepared so far by this process,
+   * or -1 if statistics generation is disabled (the default) or there is
+   * no database.
+   */
+  public static synchronized long statementCount() {
+    long result = -1;
+    if (session_factory != null && session_factory.getStatistics().isStatisticsEnabled()) {
+      result = session_factory.getStatistics().getPrepareStatementCount();
+    }
+    return result;
+  }
+  
   /**
    * Sets the properties for the system.
    * 
@@ -174,6 +191,19 @@ public final class Persistence {
     }
   }
   
+  /**
+   * Opens a new stateless session. A stateless session is independent of the
+   * session on this thread, does not keep the entities it reads, and must be
+   * closed by its caller; it is meant for reading many rows at once.
+   * 
+   * @return the new stateless session.
+   * @exception IllegalStateException if there is no database.
+   */
+  public static synchronized StatelessSession openStatelessSession() {
+    checkForDatabase();
+    return session_factory.openStatelessSession();
+  }
+  
   /**
    * Sets up the session factory from the properties in the properties file.
    */
@@ -261,7 +291,8 @@ public final class Persistence {
       settings.put(Environment.CREATE_EMPTY_COMPOSITES_ENABLED, TRUE);
       
       // statistics
-      settings.put(Environment.GENERATE_STATISTICS, FALSE);
+      settings.put(Environment.GENERATE_STATISTICS, 
+                   system_properties.getProperty("hibernate.generate_statistics", FALSE));
       
       // apply settings
       rb.applySettings(settings);
@@ -436,6 +467,47 @@ public final class Persistence {
       throw new IllegalStateException("no active transaction to roll back");
     }
   }
+
+  /**
+   * Arranges for the specified action to run after the active long-lived
+   * transaction commits successfully; it does not run if the transaction is
+   * rolled back. If no transaction is running, the action runs immediately.
+   *
+   * @param the_action The action.
+   */
+  public static void afterCommit(final Runnable the_action) {
+    afterCompletion(the_committed -> {
+      if (the_committed) {
+        the_action.run();
+      }
+    });
+  }
+
+  /**
+   * Arranges for the specified action to run after the active long-lived
+   * transaction completes, with an argument that is true if the transaction
+   * committed successfully and false otherwise. If no transaction is running,
+   * the action runs immediately, with the argument true.
+   *
+   * @param the_action The action.
+   */
+  public static void afterCompletion(final Consumer<Boolean> the_action) {
+    if (hasDB() && isTransactionActive()) {
+      currentSession().getTransaction().registerSynchronization(new Synchronization() {
+        @Override
+        public void beforeCompletion() {
+          // do nothing
+        }
+
+        @Override
+        public void afterCompletion(final int the_status) {
+          the_action.accept(the_status == Status.STATUS_COMMITTED);
+        }
+      });
+    } else {
+      the_action.accept(true);
+    }
+  }
   
   /**
    * Saves or updates the specified object in persistent storage. This
@@ -717,6 +789,16 @@ public final class Persistence {
     return Hibernate.unproxy(the_object);
   }
   
+  /**
+   * Loads the specified proxy or lazily-loaded collection, if it has not
+   * already been loaded, so that it can be used after its session is closed.
+   * 
+   * @param the_object The proxy or collection; null is ignored.
+   */
+  public static void initialize(final Object the_object) {
+    Hibernate.initialize(the_object);
+  }
+  
   /**
    * Throws an IllegalStateException if there is no running transaction.
    */
@@ -0,0 +1,80 @@
+/*
+ * Free & Fair Colorado RLA System
+ * 
+ * @title ColoradoRLA
+ * @created Oct 18, 2026
+ * @copyright 2026 Colorado Department of State
+ * @license SPDX-License-Identifier: AGPL-3.0-or-later
+ * @creator Daniel M. Zimmerman <dmz@freeandfair.us>
+ * @description A system to assist in conducting statewide risk-limiting audits.
+ */
+
+package us.freeandfair.corla.persistence;
+
+import java.io.ByteArrayOutputStream;
+
+import javax.persistence.AttributeConverter;
+import javax.persistence.Converter;
+
+import us.freeandfair.corla.util.SortedLongSet;
+import us.freeandfair.corla.util.Varints;
+
+/**
+ * A converter between sets of longs and a compact binary representation:
+ * the number of elements followed by the first element and the gaps between
+ * consecutive elements, each as an unsigned LEB128 varint. Sets of database
+ * IDs, which are mostly close together, take one or two bytes per element.
+ *
+ * @author Daniel M. Zimmerman <dmz@freeandfair.us>
+ * @version 1.0.0
+ */
+@Converter
+@SuppressWarnings("PMD.AtLeastOneConstructor")
+public class SortedLongSetConverter implements AttributeConverter<SortedLongSet, byte[]> {
+  /**
+   * Converts the specified set to a database column entry.
+   *
+   * @param the_set The set.
+   */
+  @Override
+  public byte[] convertToDatabaseColumn(final SortedLongSet the_set) {
+    if (the_set == null) {
+      return null;
+    }
+    final long[] elements = the_set.toArray();
+    final ByteArrayOutputStream out = new ByteArrayOutputStream(elements.length * 2 + 1);
+    Varints.writeUnsigned(out, elements.length);
+    long previous = 0;
+    for (final long element : elements) {
+      // the gap is interpreted as unsigned, so wraparound decodes correctly
+      Varints.writeUnsigned(out, element - previous);
+      previous = element;
+    }
+    return out.toByteArray();
+  }
+
+  /**
+   * Converts the specified database column entry to a set.
+   *
+   * @param the_column The column entry.
+   * @exception IllegalArgumentException if the column entry is malformed.
+   */
+  @Override
+  public SortedLongSet convertToEntityAttribute(final byte[] the_column) {
+    if (the_column == null) {
+      return null;
+    }
+    final int[] position = {0};
+    final long count = Varints.readUnsigned(the_column, position);
+    if (count < 0 || the_column.length < count) {
+      throw new IllegalArgumentException("malformed long set column");
+    }
+    final long[] elements = new long[(int) count];
+    long previous = 0;
+    for (int i = 0; i < elements.length; i++) {
+      previous = previous + Varints.readUnsigned(the_column, position);
+      elements[i] = previous;
+    }
+    return SortedLongSet.ofSorted(elements);
+  }
+}
@@ -12,14 +12,17 @@
 package us.freeandfair.corla.query;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.OptionalLong;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Stream;
 
 import javax.persistence.PersistenceException;
+import javax.persistence.Tuple;
 import javax.persistence.TypedQuery;
 import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.CriteriaQuery;
@@ -33,6 +36,7 @@ import us.freeandfair.corla.Main;
 import us.freeandfair.corla.model.BallotManifestInfo;
 import us.freeandfair.corla.model.CastVoteRecord;
 import us.freeandfair.corla.persistence.Persistence;
+import us.freeandfair.corla.util.Pair;
 
 /**
  * Queries having to do with BallotManfestInfo entities.
@@ -79,32 +83,81 @@ public final class BallotManifestInfoQueries {
   }
   
   /**
-   * Returns the location for the specified CVR, assuming one can be found.
+   * Returns the ballot manifests for the specified county ID.
    * 
-   * @param the_cvr The CVR.
-   * @return the location for the CVR, or null if no location can be found.
+   * @param the_county_id The county ID.
+   * @return the ballot manifests for the county, or null if the query fails.
    */
-  public static String locationFor(final CastVoteRecord the_cvr) {
-    String result = null;
+  public static List<BallotManifestInfo> getForCounty(final Long the_county_id) {
+    List<BallotManifestInfo> result = null;
     
     try {
       final Session s = Persistence.currentSession();
       final CriteriaBuilder cb = s.getCriteriaBuilder();
-      final CriteriaQuery<String> cq = cb.createQuery(String.class);
+      final CriteriaQuery<BallotManifestInfo> cq = 
+          cb.createQuery(BallotManifestInfo.class);
       final Root<BallotManifestInfo> root = cq.from(BallotManifestInfo.class);
-      cq.select(root.get("my_storage_location"));
-      cq.where(cb.and(cb.equal(root.get("my_county_id"), the_cvr.countyID()),
-                      cb.equal(root.get("my_scanner_id"), the_cvr.scannerID()),
-                      cb.equal(root.get("my_batch_id"), the_cvr.batchID())));
-      final TypedQuery<String> query = s.createQuery(cq);
-      final List<String> query_result = query.getResultList();
-      // there should never be more than one result, but if there is, we'll 
-      // return the first one
-      if (!query_result.isEmpty()) {
-        result = query_result.get(0);
+      cq.select(root).where(cb.equal(root.get("my_county_id"), the_county_id));
+      final TypedQuery<BallotManifestInfo> query = s.createQuery(cq);
+      result = query.getResultList();
+    } catch (final PersistenceException e) {
+      Main.LOGGER.error("Exception when reading ballot manifests from database: " + e);
+    }
+
+    return result;
+  }
+  
+  /**
+   * Returns the locations for the specified CVRs. The manifests of all the 
+   * counties involved are read with a single query and indexed by county, 
+   * scanner and batch, so the number of queries does not depend on the 
+   * number of CVRs.
+   * 
+   * @param the_cvrs The CVRs.
+   * @return a list of the locations of the CVRs, in the same order as the 
+   * CVRs, containing null for each CVR for which no location can be found; 
+   * or null if the query fails.
+   */
+  public static List<String> locationsFor(final List<CastVoteRecord> the_cvrs) {
+    final Set<Long> county_ids = new HashSet<>();
+    for (final CastVoteRecord cvr : the_cvrs) {
+      county_ids.add(cvr.countyID());
+    }
+    if (county_ids.isEmpty()) {
+      return new ArrayList<>();
+    }
+    
+    List<String> result = null;
+    try {
+      final Session s = Persistence.currentSession();
+      final CriteriaBuilder cb = s.getCriteriaBuilder();
+      final CriteriaQuery<Tuple> cq = cb.createTupleQuery();
+      final Root<BallotManifestInfo> root = cq.from(BallotManifestInfo.class);
+      cq.multiselect(root.get("my_county_id"), root.get("my_scanner_id"),
+                     root.get("my_batch_id"), root.get("my_storage_location"));
+      cq.where(root.get("my_county_id").in(county_ids));
+      final TypedQuery<Tuple> query = s.createQuery(cq);
+      
+      final Map<Long, Map<Pair<Integer, Integer>, String>> index = new HashMap<>();
+      for (final Tuple t : query.getResultList()) {
+        // there should never be more than one location per batch, but if 
+        // there is, we use the first one
+        index.computeIfAbsent(t.get(0, Long.class), k -> new HashMap<>()).
+            putIfAbsent(new Pair<>(t.get(1, Integer.class), t.get(2, Integer.class)),
+                        t.get(3, String.class));
+      }
+      
+      result = new ArrayList<>(the_cvrs.size());
+      for (final CastVoteRecord cvr : the_cvrs) {
+        final Map<Pair<Integer, Integer>, String> county_index = index.get(cvr.countyID());
+        if (county_index == null) {
+          result.add(null);
+        } else {
+          result.add(county_index.get(new Pair<>(cvr.scannerID(), cvr.batchID())));
+        }
       }
     } catch (final PersistenceException e) {
-      Main.LOGGER.error("Exception when finding ballot location: " + e);
+      Main.LOGGER.error("Exception when finding ballot locations: " + e);
     }
     
     return result;
@@ -0,0 +1,74 @@
+/*
+ * Free & Fair Colorado RLA System
+ * 
+ * @title ColoradoRLA
+ * @created Oct 18, 2026
+ * @copyright 2026 Colorado Department of State
+ * @license SPDX-License-Identifier: AGPL-3.0-or-later
+ * @creator Daniel M. Zimmerman <dmz@freeandfair.us>
+ * @description A system to assist in conducting statewide risk-limiting audits.
+ */
+
+package us.freeandfair.corla.query;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.persistence.PersistenceException;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Root;
+
+import org.hibernate.Session;
+
+import us.freeandfair.corla.Main;
+import us.freeandfair.corla.model.BallotReportFact;
+import us.freeandfair.corla.persistence.Persistence;
+
+/**
+ * Queries having to do with BallotReportFact entities.
+ *
+ * @author Daniel M. Zimmerman <dmz@freeandfair.us>
+ * @version 1.0.0
+ */
+public final class BallotReportFactQueries {
+  /**
+   * Private constructor to prevent instantiation.
+   */
+  private BallotReportFactQueries() {
+    // do nothing
+  }
+
+  /**
+   * Obtain the BallotReportFact objects for the specified county, mapped by
+   * ID (which is the ID of their CVRs).
+   *
+   * @param the_county_id The county ID.
+   * @return the BallotReportFact objects for the county, mapped by ID, an
+   * empty map if none are found, or null if the query fails.
+   */
+  public static Map<Long, BallotReportFact> forCounty(final Long the_county_id) {
+    Map<Long, BallotReportFact> result = new HashMap<>();
+
+    try {
+      final Session s = Persistence.currentSession();
+      final CriteriaBuilder cb = s.getCriteriaBuilder();
+      final CriteriaQuery<BallotReportFact> cq = cb.createQuery(BallotReportFact.class);
+      final Root<BallotReportFact> root = cq.from(BallotReportFact.class);
+      cq.select(root).where(cb.equal(root.get("my_county_id"), the_county_id));
+      final TypedQuery<BallotReportFact> query = s.createQuery(cq);
+      for (final BallotReportFact fact : query.getResultList()) {
+        result.put(fact.id(), fact);
+      }
+    } catch (final PersistenceException e) {
+      Main.LOGGER.error("could not query database for ballot report facts");
+      result = null;
+    }
+    if (result != null) {
+      Main.LOGGER.debug("found " + result.size() + " ballot report facts for county " +
+                        the_county_id);
+    }
+    return result;
+  }
+}
@@ -0,0 +1,88 @@
+/*
+ * Free & Fair Colorado RLA System
+ * 
+ * @title ColoradoRLA
+ * @created Oct 18, 2026
+ * @copyright 2026 Colorado Department of State
+ * @license SPDX-License-Identifier: AGPL-3.0-or-later
+ * @creator Daniel M. Zimmerman <dmz@freeandfair.us>
+ * @description A system to assist in conducting statewide risk-limiting audits.
+ */
+
+package us.freeandfair.corla.query;
+
+import static us.freeandfair.corla.query.CastVoteRecordQueries.IN_CLAUSE_CHUNK_SIZE;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import javax.persistence.PersistenceException;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Root;
+
+import org.hibernate.Session;
+
+import us.freeandfair.corla.Main;
+import us.freeandfair.corla.model.CVRAuditInfo;
+import us.freeandfair.corla.persistence.Persistence;
+
+/**
+ * Queries having to do with CVRAuditInfo entities.
+ *
+ * @author Daniel M. Zimmerman <dmz@freeandfair.us>
+ * @version 1.0.0
+ */
+public final class CVRAuditInfoQueries {
+  /**
+   * Private constructor to prevent instantiation.
+   */
+  private CVRAuditInfoQueries() {
+    // do nothing
+  }
+
+  /**
+   * Obtain the CVRAuditInfo objects with the specified IDs (which are the
+   * IDs of their CVRs), mapped by ID. The IDs are queried in chunks of at
+   * most IN_CLAUSE_CHUNK_SIZE.
+   *
+   * @param the_ids The IDs; duplicates are ignored.
+   * @return the matching CVRAuditInfo objects, mapped by ID, an empty map
+   * if none are found, or null if the query fails.
+   */
+  public static Map<Long, CVRAuditInfo> get(final Collection<Long> the_ids) {
+    final List<Long> unique_ids = new ArrayList<>(new HashSet<>(the_ids));
+    Map<Long, CVRAuditInfo> result = new HashMap<>();
+
+    try {
+      final Session s = Persistence.currentSession();
+      final CriteriaBuilder cb = s.getCriteriaBuilder();
+      for (int i = 0; i < unique_ids.size(); i = i + IN_CLAUSE_CHUNK_SIZE) {
+        final List<Long> chunk =
+            unique_ids.subList(i, Math.min(i + IN_CLAUSE_CHUNK_SIZE, unique_ids.size()));
+        final CriteriaQuery<CVRAuditInfo> cq = cb.createQuery(CVRAuditInfo.class);
+        final Root<CVRAuditInfo> root = cq.from(CVRAuditInfo.class);
+        cq.select(root).where(root.get("my_id").in(chunk));
+        final TypedQuery<CVRAuditInfo> query = s.createQuery(cq);
+        for (final CVRAuditInfo info : query.getResultList()) {
+          result.put(info.id(), info);
+        }
+      }
+    } catch (final PersistenceException e) {
+      Main.LOGGER.error("could not query database for cvr audit info");
+      result = null;
+    }
+    if (result == null) {
+      Main.LOGGER.debug("found no cvr audit info with ids " + the_ids);
+    } else {
+      Main.LOGGER.debug("found " + result.size() + " cvr audit info records for " +
+                        unique_ids.size() + " ids");
+    }
+    return result;
+  }
+}
@@ -12,8 +12,10 @@
 package us.freeandfair.corla.query;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.OptionalLong;
@@ -43,6 +45,17 @@ import us.freeandfair.corla.persistence.Persistence;
  * @version 1.0.0
  */
 public final class CastVoteRecordQueries {
+  /**
+   * The maximum number of IDs to put in a single "IN" clause; larger ID
+   * sets are fetched in chunks of this size.
+   */
+  public static final int IN_CLAUSE_CHUNK_SIZE = 1000;
+  
+  /**
+   * The "ID" field.
+   */
+  private static final String ID = "my_id";
+  
   /**
    * The "county ID" field.
    */
@@ -316,7 +329,7 @@ public final class CastVoteRecordQueries {
       final List<Predicate> conjuncts = new ArrayList<>();
       conjuncts.add(cb.equal(root.get(COUNTY_ID), the_county_id));
       conjuncts.add(cb.equal(root.get(RECORD_TYPE), the_type));
-      conjuncts.add(root.get("my_sequence_number").in(unique_numbers));
+      conjuncts.add(root.get(SEQUENCE_NUMBER).in(unique_numbers));
       cq.select(root).where(cb.and(conjuncts.toArray(new Predicate[conjuncts.size()])));
       final TypedQuery<CastVoteRecord> query = s.createQuery(cq);
       final List<CastVoteRecord> query_results = query.getResultList();
@@ -341,29 +354,64 @@ public final class CastVoteRecordQueries {
    * Obtain the CastVoteRecord objects with the specified IDs. 
    * 
    * @param the_ids The IDs.
-   * @return the matching CastVoteRecord objects, an empty list if none are found,
-   * or null if the query fails.
+   * @return the matching CastVoteRecord objects, in the order their IDs first 
+   * appear in the_ids, an empty list if none are found, or null if the query 
+   * fails.
    */
   public static List<CastVoteRecord> get(final List<Long> the_ids) {
+    final Map<Long, CastVoteRecord> found = getByIDs(the_ids);
     List<CastVoteRecord> result = null;
     
+    if (found != null) {
+      result = new ArrayList<>(found.size());
+      for (final Long id : new LinkedHashSet<>(the_ids)) {
+        final CastVoteRecord cvr = found.get(id);
+        if (cvr != null) {
+          result.add(cvr);
+        }
+      }
+    }
+    
+    return result;
+  }
+  
+  /**
+   * Obtain the CastVoteRecord objects with the specified IDs, mapped by ID. 
+   * The IDs are queried in chunks of at most IN_CLAUSE_CHUNK_SIZE, so the 
+   * number of database round trips is proportional to the number of unique 
+   * IDs divided by the chunk size rather than to the number of IDs.
+   * 
+   * @param the_ids The IDs; duplicates are ignored.
+   * @return the matching CastVoteRecord objects, mapped by ID, an empty map 
+   * if none are found, or null if the query fails.
+   */
+  public static Map<Long, CastVoteRecord> getByIDs(final Collection<Long> the_ids) {
+    final List<Long> unique_ids = new ArrayList<>(new HashSet<>(the_ids));
+    Map<Long, CastVoteRecord> result = new HashMap<>();
+    
     try {
       final Session s = Persistence.currentSession();
       final CriteriaBuilder cb = s.getCriteriaBuilder();
-      final CriteriaQuery<CastVoteRecord> cq = cb.createQuery(CastVoteRecord.class);
-      final Root<CastVoteRecord> root = cq.from(CastVoteRecord.class);
-      final List<Predicate> conjuncts = new ArrayList<>();
-      conjuncts.add(root.get("my_id").in(the_ids));
-      cq.select(root).where(cb.and(conjuncts.toArray(new Predicate[conjuncts.size()])));
-      final TypedQuery<CastVoteRecord> query = s.createQuery(cq);
-      result = query.getResultList();
+      for (int i = 0; i < unique_ids.size(); i = i + IN_CLAUSE_CHUNK_SIZE) {
+        final List<Long> chunk = 
+            unique_ids.subList(i, Math.min(i + IN_CLAUSE_CHUNK_SIZE, unique_ids.size()));
+        final CriteriaQuery<CastVoteRecord> cq = cb.createQuery(CastVoteRecord.class);
+        final Root<CastVoteRecord> root = cq.from(CastVoteRecord.class);
+        cq.select(root).where(root.get(ID).in(chunk));
+        final TypedQuery<CastVoteRecord> query = s.createQuery(cq);
+        for (final CastVoteRecord cvr : query.getResultList()) {
+          result.put(cvr.id(), cvr);
+        }
+      }
     } catch (final PersistenceException e) {
       Main.LOGGER.error(COULD_NOT_QUERY_DATABASE);
+      result = null;
     }
     if (result == null) {
       Main.LOGGER.debug("found no CVRs with ids " + the_ids);
     } else {
-      Main.LOGGER.debug("found " + result.size() + "CVRs ");
+      Main.LOGGER.debug("found " + result.size() + " CVRs for " + unique_ids.size() + 
+                        " ids");
     }
     
     return result;
@@ -0,0 +1,268 @@
+/*
+ * Free & Fair Colorado RLA System
+ * 
+ * @title ColoradoRLA
+ * @created Oct 18, 2026
+ * @copyright 2026 Colorado Department of State
+ * @license SPDX-License-Identifier: AGPL-3.0-or-later
+ * @creator Daniel M. Zimmerman <dmz@freeandfair.us>
+ * @description A system to assist in conducting statewide risk-limiting audits.
+ */
+
+package us.freeandfair.corla.query;
+
+import java.io.IOException;
+
+import javax.persistence.PersistenceException;
+
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
+import org.hibernate.query.Query;
+
+import us.freeandfair.corla.Main;
+import us.freeandfair.corla.model.CastVoteRecord.RecordType;
+import us.freeandfair.corla.persistence.Persistence;
+
+/**
+ * Reads cast vote records for export as rows of columns, without loading
+ * them as entities. The CVRs and their contest information are read with
+ * a single join, through a forward-only cursor on a read-only stateless
+ * session, so the number of queries and the memory used do not depend on
+ * the number of CVRs. Each row holds one CVR and one of its contest
+ * information records, and all the rows of a CVR are adjacent and in
+ * contest information order; a CVR with no contest information has one
+ * row, with null contest information columns.
+ *
+ * @author Daniel M. Zimmerman <dmz@freeandfair.us>
+ * @version 1.0.0
+ */
+public final class CastVoteRecordRows {
+  /**
+   * The name of the fetch size property.
+   */
+  public static final String FETCH_SIZE_PROPERTY = "cvr_export_fetch_size";
+
+  /**
+   * The column of the CVR ID.
+   */
+  public static final int ID = 0;
+
+  /**
+   * The column of the record type.
+   */
+  public static final int RECORD_TYPE = 1;
+
+  /**
+   * The column of the timestamp.
+   */
+  public static final int TIMESTAMP = 2;
+
+  /**
+   * The column of the county ID.
+   */
+  public static final int COUNTY_ID = 3;
+
+  /**
+   * The column of the CVR number.
+   */
+  public static final int CVR_NUMBER = 4;
+
+  /**
+   * The column of the sequence number.
+   */
+  public static final int SEQUENCE_NUMBER = 5;
+
+  /**
+   * The column of the scanner ID.
+   */
+  public static final int SCANNER_ID = 6;
+
+  /**
+   * The column of the batch ID.
+   */
+  public static final int BATCH_ID = 7;
+
+  /**
+   * The column of the record ID.
+   */
+  public static final int RECORD_ID = 8;
+
+  /**
+   * The column of the imprinted ID.
+   */
+  public static final int IMPRINTED_ID = 9;
+
+  /**
+   * The column of the ballot type.
+   */
+  public static final int BALLOT_TYPE = 10;
+
+  /**
+   * The column of the contest ID of the contest information.
+   */
+  public static final int CONTEST_ID = 11;
+
+  /**
+   * The column of the comment of the contest information.
+   */
+  public static final int COMMENT = 12;
+
+  /**
+   * The column of the consensus value of the contest information.
+   */
+  public static final int CONSENSUS = 13;
+
+  /**
+   * The column of the choices of the contest information.
+   */
+  public static final int CHOICES = 14;
+
+  /**
+   * The column of the contest name of the contest information.
+   */
+  public static final int CONTEST_NAME = 15;
+
+  /**
+   * The default fetch size, in rows.
+   */
+  private static final int DEFAULT_FETCH_SIZE = 1000;
+
+  /**
+   * The query for the rows, without its order clause.
+   */
+  private static final String ROW_QUERY =
+      "select c.my_id, c.my_record_type, c.my_timestamp, c.my_county_id, " +
+      "c.my_cvr_number, c.my_sequence_number, c.my_scanner_id, c.my_batch_id, " +
+      "c.my_record_id, c.my_imprinted_id, c.my_ballot_type, co.my_id, " +
+      "ci.my_comment, ci.my_consensus, ci.my_choices, co.my_name " +
+      "from CastVoteRecord c left join c.my_contest_info ci left join ci.my_contest co " +
+      "where c.my_record_type = :type";
+
+  /**
+   * Private constructor to prevent instantiation.
+   */
+  private CastVoteRecordRows() {
+    // do nothing
+  }
+
+  /**
+   * Reads the rows of the CVRs of the specified type, in ID order.
+   *
+   * @param the_type The record type.
+   * @param the_handler The handler for the rows.
+   * @return the number of rows read.
+   * @exception IOException if the handler throws one.
+   * @exception PersistenceException if the rows cannot be read.
+   */
+  public static long scroll(final RecordType the_type, final RowHandler the_handler)
+      throws IOException {
+    return scroll(ROW_QUERY + " order by c.my_id, index(ci)", the_type, null,
+                  the_handler);
+  }
+
+  /**
+   * Reads the rows of the CVRs of the specified county and type, in
+   * sequence number order.
+   *
+   * @param the_county_id The county ID.
+   * @param the_type The record type.
+   * @param the_handler The handler for the rows.
+   * @return the number of rows read.
+   * @exception IOException if the handler throws one.
+   * @exception PersistenceException if the rows cannot be read.
+   */
+  public static long scroll(final Long the_county_id, final RecordType the_type,
+                            final RowHandler the_handler)
+      throws IOException {
+    return scroll(ROW_QUERY + " and c.my_county_id = :county " +
+                  "order by c.my_sequence_number, c.my_id, index(ci)",
+                  the_type, the_county_id, the_handler);
+  }
+
+  /**
+   * Reads the rows of a query in their own read-only transaction.
+   *
+   * @param the_query The query.
+   * @param the_type The record type.
+   * @param the_county_id The county ID, or null if the query has no county
+   * parameter.
+   * @param the_handler The handler for the rows.
+   * @return the number of rows read.
+   * @exception IOException if the handler throws one.
+   * @exception PersistenceException if the rows cannot be read.
+   */
+  private static long scroll(final String the_query, final RecordType the_type,
+                             final Long the_county_id, final RowHandler the_handler)
+      throws IOException {
+    long result = 0;
+    final StatelessSession session;
+    try {
+      session = Persistence.openStatelessSession();
+    } catch (final IllegalStateException e) {
+      throw new PersistenceException(e);
+    }
+    try {
+      final Transaction transaction = session.beginTransaction();
+      try {
+        final Query<?> query = session.createQuery(the_query);
+        query.setParameter("type", the_type);
+        if (the_county_id != null) {
+          query.setParameter("county", the_county_id);
+        }
+        query.setReadOnly(true);
+        // without a fetch size, the driver reads the whole result into memory
+        query.setFetchSize(fetchSize());
+        final ScrollableResults rows = query.scroll(ScrollMode.FORWARD_ONLY);
+        try {
+          while (rows.next()) {
+            the_handler.handle(rows.get());
+            result = result + 1;
+          }
+        } finally {
+          rows.close();
+        }
+      } finally {
+        // nothing was written, so there is nothing to commit
+        if (transaction.isActive()) {
+          transaction.rollback();
+        }
+      }
+    } finally {
+      session.close();
+    }
+    Main.LOGGER.debug("read " + result + " export rows for CVRs of type " + the_type);
+    return result;
+  }
+
+  /**
+   * @return the fetch size, in rows.
+   */
+  private static int fetchSize() {
+    int result;
+    try {
+      result = Integer.parseInt(Main.properties().
+                                getProperty(FETCH_SIZE_PROPERTY,
+                                            String.valueOf(DEFAULT_FETCH_SIZE)).trim());
+    } catch (final NumberFormatException e) {
+      result = DEFAULT_FETCH_SIZE;
+    }
+    return Math.max(1, result);
+  }
+
+  /**
+   * A handler for the rows read by this class.
+   */
+  @FunctionalInterface
+  public interface RowHandler {
+    /**
+     * Handles one row.
+     *
+     * @param the_row The columns of the row, indexed by the column constants
+     * of CastVoteRecordRows.
+     * @exception IOException if the row cannot be handled.
+     */
+    void handle(Object[] the_row) throws IOException;
+  }
+}
@@ -54,8 +54,8 @@ public final class DatabaseResetQueries {
         "county_contest_comparison_audit_disagreement",
         "county_contest_comparison_audit", 
         "county_contest_result", "cvr_contest_info", 
-        "driving_contest", "contest", "cvr_audit_info", "cast_vote_record", 
-        "dos_dashboard", "round", "audit_board", "county_dashboard",
+        "driving_contest", "contest", "ballot_report_fact", "cvr_audit_info",
+        "cast_vote_record", "dos_dashboard", "round", "audit_board", "county_dashboard",
         "uploaded_file"
     };
     
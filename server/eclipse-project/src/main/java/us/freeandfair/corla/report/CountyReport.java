@@ -13,8 +13,8 @@ package us.freeandfair.corla.report;
 
 import static us.freeandfair.corla.util.PrettyPrinter.booleanYesNo;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.math.BigDecimal;
 import java.time.Instant;
 import java.time.LocalDateTime;
@@ -23,7 +23,6 @@ import java.time.format.DateTimeFormatter;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -39,13 +38,11 @@ import org.apache.poi.ss.usermodel.Font;
 import org.apache.poi.ss.usermodel.HorizontalAlignment;
 import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Sheet;
-import org.apache.poi.ss.usermodel.Workbook;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 
 import us.freeandfair.corla.controller.ComparisonAuditController;
 import us.freeandfair.corla.model.AuditSelection;
-import us.freeandfair.corla.model.CVRAuditInfo;
-import us.freeandfair.corla.model.CastVoteRecord.RecordType;
+import us.freeandfair.corla.model.BallotReportFact;
 import us.freeandfair.corla.model.County;
 import us.freeandfair.corla.model.CountyContestResult;
 import us.freeandfair.corla.model.CountyDashboard;
@@ -109,9 +106,9 @@ public class CountyReport {
   private final Instant my_timestamp;
   
   /**
-   * The CVRs to audit for each round.
+   * The report data for the CVRs to audit for each round.
    */
-  private final Map<Integer, List<CVRAuditInfo>> my_cvrs_to_audit_by_round;
+  private final Map<Integer, List<BallotReportFact>> my_cvrs_to_audit_by_round;
   
   /**
    * The contests driving the audit, and their results.
@@ -152,16 +149,21 @@ public class CountyReport {
       }
     }
     my_rounds = my_cdb.rounds();
-    my_cvrs_to_audit_by_round = new HashMap<>();
-    for (final Round r : my_rounds) {
-      final List<CVRAuditInfo> cvrs_to_audit = 
-          ComparisonAuditController.cvrsToAuditInRound(my_cdb, r.number());
-      cvrs_to_audit.sort(new CVRAuditInfo.BallotOrderComparator());
-      my_cvrs_to_audit_by_round.put(r.number(), cvrs_to_audit);
-    }
+    my_cvrs_to_audit_by_round = 
+        ComparisonAuditController.ballotReportFactsByRound(my_cdb);
     my_dosdb = Persistence.getByID(DoSDashboard.ID, DoSDashboard.class);
   }
   
+  /**
+   * Loads everything this report refers to that is loaded lazily, so that
+   * the report can be rendered after the session that built it is closed.
+   */
+  void loadAll() {
+    for (final CountyContestResult ccr : my_driving_contest_results) {
+      Persistence.initialize(ccr.contest());
+    }
+  }
+  
   /**
    * @return the county for this report.
    */
@@ -177,9 +179,9 @@ public class CountyReport {
   }
   
   /**
-   * @return the CVRs imprinted IDs to audit by round map for this report.
+   * @return the report data for the CVRs to audit by round map for this report.
    */
-  public Map<Integer, List<CVRAuditInfo>> cvrsToAuditByRound() {
+  public Map<Integer, List<BallotReportFact>> cvrsToAuditByRound() {
     return Collections.unmodifiableMap(my_cvrs_to_audit_by_round);
   }
   
@@ -205,27 +207,27 @@ public class CountyReport {
   }
   
   /**
-   * @return the Excel representation of this report, as a byte array.
-   * @exception IOException if the report cannot be generated.
+   * Writes the Excel representation of this report to the specified stream,
+   * which is not closed. The workbook is streamed, so only a window of
+   * rows of each sheet is held in memory at a time.
+   * 
+   * @param the_stream The stream.
+   * @exception IOException if the report cannot be written.
    */
-  public byte[] generateExcel() throws IOException {
-    final ByteArrayOutputStream baos = new ByteArrayOutputStream();
-    final Workbook workbook = generateExcelWorkbook();
-    workbook.write(baos);
-    baos.flush();
-    baos.close();
-    workbook.close();
-    return baos.toByteArray();
+  public void writeExcel(final OutputStream the_stream) throws IOException {
+    ReportWorkbooks.write(generateExcelWorkbook(), the_stream);
   }
   
   /**
-   * @return the Excel workbook for this report.
+   * @return the Excel workbook for this report. Its rows are flushed to 
+   * temporary files as it is built; it must be written with writeExcel(), 
+   * or disposed of.
    */
   @SuppressWarnings({"checkstyle:magicnumber", "checkstyle:executablestatementcount",
       "checkstyle:methodlength", "PMD.ExcessiveMethodLength", "PMD.NcssMethodCount",
       "PMD.NPathComplexity", "PMD.AvoidLiteralsInIfCondition"})
-  public Workbook generateExcelWorkbook() {
-    final Workbook workbook = new XSSFWorkbook();
+  public SXSSFWorkbook generateExcelWorkbook() {
+    final SXSSFWorkbook workbook = ReportWorkbooks.newWorkbook();
 
     // data format
     final DataFormat format = workbook.createDataFormat();
@@ -263,7 +265,7 @@ public class CountyReport {
     box_style.setBorderRight(BorderStyle.THICK);
     
     // the summary sheet
-    final Sheet summary_sheet = workbook.createSheet("Summary");
+    final Sheet summary_sheet = ReportWorkbooks.createSheet(workbook, "Summary");
     int row_number = 0;
     Row row = summary_sheet.createRow(row_number++);
     int cell_number = 0;
@@ -609,7 +611,8 @@ public class CountyReport {
     // round sheets
     
     for (final Round round : my_rounds) {
-      final Sheet round_sheet = workbook.createSheet("Round " + round.number());
+      final Sheet round_sheet = 
+          ReportWorkbooks.createSheet(workbook, "Round " + round.number());
       row_number = 0;
       row = round_sheet.createRow(row_number++);
       cell_number = 0;
@@ -734,23 +737,18 @@ public class CountyReport {
       cell.setCellValue("Disagreement");
       
       max_cell_number = Math.max(max_cell_number, cell_number);
-      for (final CVRAuditInfo audit_info : 
+      for (final BallotReportFact audit_info : 
            my_cvrs_to_audit_by_round.get(round.number())) {
         row = round_sheet.createRow(row_number++);
         cell_number = 0;
         cell = row.createCell(cell_number++);
         cell.setCellType(CellType.STRING);
         cell.setCellStyle(standard_style);
-        cell.setCellValue(audit_info.cvr().imprintedID());
+        cell.setCellValue(audit_info.imprintedID());
         cell = row.createCell(cell_number++);
         cell.setCellType(CellType.STRING);
         cell.setCellStyle(standard_right_style);
-        if (audit_info.acvr() == null) {
-          cell.setCellValue(booleanYesNo(false));
-        } else {
-          cell.setCellValue(booleanYesNo(audit_info.acvr().recordType() == 
-                                         RecordType.AUDITOR_ENTERED));
-        }
+        cell.setCellValue(booleanYesNo(audit_info.audited()));
         cell = row.createCell(cell_number++);
         cell.setCellType(CellType.STRING);
         cell.setCellStyle(standard_right_style);
@@ -767,7 +765,7 @@ public class CountyReport {
     }
     
     // affirmation sheet
-    final Sheet affirmation_sheet = workbook.createSheet("Affirmation");
+    final Sheet affirmation_sheet = ReportWorkbooks.createSheet(workbook, "Affirmation");
     row_number = 0;
     row = affirmation_sheet.createRow(row_number++);
     cell_number = 0;
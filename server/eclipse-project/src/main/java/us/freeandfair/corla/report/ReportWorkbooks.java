@@ -0,0 +1,85 @@
+/*
+ * Free & Fair Colorado RLA System
+ * 
+ * @title ColoradoRLA
+ * @created Oct 18, 2026
+ * @copyright 2026 Colorado Department of State
+ * @license SPDX-License-Identifier: AGPL-3.0-or-later
+ * @creator Daniel M. Zimmerman <dmz@freeandfair.us>
+ * @description A system to assist in conducting statewide risk-limiting audits.
+ */
+
+package us.freeandfair.corla.report;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+
+/**
+ * Streaming Excel workbooks for reports. Only a window of the most recent
+ * rows of each sheet is kept in memory; older rows are flushed to temporary
+ * files, which are deleted once the workbook is written. Rows must
+ * therefore be written in order, and cannot be revisited once they have
+ * left the window.
+ *
+ * @author Daniel M. Zimmerman <dmz@freeandfair.us>
+ * @version 1.0.0
+ */
+final class ReportWorkbooks {
+  /**
+   * The number of rows of each sheet kept in memory.
+   */
+  static final int ROW_WINDOW = 100;
+
+  /**
+   * Private constructor to prevent instantiation.
+   */
+  private ReportWorkbooks() {
+    // do nothing
+  }
+
+  /**
+   * @return a new, empty, streaming workbook.
+   */
+  static SXSSFWorkbook newWorkbook() {
+    final SXSSFWorkbook result = new SXSSFWorkbook(ROW_WINDOW);
+    // the temporary files are mostly repeated text, which compresses well
+    result.setCompressTempFiles(true);
+    return result;
+  }
+
+  /**
+   * Creates a sheet whose columns can be sized to fit their contents once
+   * all its rows are written.
+   *
+   * @param the_workbook The workbook.
+   * @param the_name The name of the sheet.
+   * @return the sheet.
+   */
+  static Sheet createSheet(final SXSSFWorkbook the_workbook, final String the_name) {
+    final SXSSFSheet result = the_workbook.createSheet(the_name);
+    result.trackAllColumnsForAutoSizing();
+    return result;
+  }
+
+  /**
+   * Writes a workbook to a stream and deletes its temporary files. The
+   * stream is not closed.
+   *
+   * @param the_workbook The workbook.
+   * @param the_stream The stream.
+   * @exception IOException if the workbook cannot be written.
+   */
+  static void write(final SXSSFWorkbook the_workbook, final OutputStream the_stream)
+      throws IOException {
+    try {
+      the_workbook.write(the_stream);
+    } finally {
+      the_workbook.dispose();
+      the_workbook.close();
+    }
+  }
+}
@@ -13,8 +13,8 @@ package us.freeandfair.corla.report;
 
 import static us.freeandfair.corla.util.PrettyPrinter.booleanYesNo;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.math.BigDecimal;
 import java.time.Instant;
 import java.time.LocalDateTime;
@@ -32,6 +32,8 @@ import java.util.SortedMap;
 import java.util.TimeZone;
 import java.util.TreeMap;
 
+import javax.persistence.PersistenceException;
+
 import org.apache.poi.ss.usermodel.BorderStyle;
 import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.CellStyle;
@@ -41,17 +43,19 @@ import org.apache.poi.ss.usermodel.Font;
 import org.apache.poi.ss.usermodel.HorizontalAlignment;
 import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Sheet;
-import org.apache.poi.ss.usermodel.Workbook;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 
+import us.freeandfair.corla.Main;
 import us.freeandfair.corla.model.AuditSelection;
-import us.freeandfair.corla.model.CVRAuditInfo;
-import us.freeandfair.corla.model.CastVoteRecord.RecordType;
+import us.freeandfair.corla.model.BallotReportFact;
 import us.freeandfair.corla.model.County;
 import us.freeandfair.corla.model.County.NameComparator;
 import us.freeandfair.corla.model.CountyContestResult;
 import us.freeandfair.corla.model.DoSDashboard;
 import us.freeandfair.corla.model.Round;
+import us.freeandfair.corla.persistence.ParallelTransactionRunner;
+import us.freeandfair.corla.persistence.ParallelTransactionRunner.CommitPolicy;
+import us.freeandfair.corla.persistence.ParallelTransactionRunner.Outcome;
 import us.freeandfair.corla.persistence.Persistence;
 
 /**
@@ -68,6 +72,23 @@ public class StateReport {
    */
   @SuppressWarnings("PMD.AvoidUsingShortType")
   public static final short FONT_SIZE = 12;
+  
+  /**
+   * The name of the property for the number of threads used to build
+   * county reports.
+   */
+  public static final String THREADS_PROPERTY = "report_threads";
+  
+  /**
+   * The default number of threads used to build county reports.
+   */
+  private static final int DEFAULT_THREADS = 4;
+  
+  /**
+   * The number of times to retry building a county report whose 
+   * transaction fails.
+   */
+  private static final int RETRIES = 2;
 
   /**
    * The date formatter.
@@ -112,12 +133,68 @@ public class StateReport {
   public StateReport(final Instant the_timestamp) {
     my_county_reports = new TreeMap<>(new NameComparator());
     my_timestamp = the_timestamp;
-    for (final County c : Persistence.getAll(County.class)) {
-      my_county_reports.put(c, new CountyReport(c, my_timestamp));
+    final List<County> counties = Persistence.getAll(County.class);
+    final int threads = threads();
+    if (threads <= 1) {
+      for (final County c : counties) {
+        my_county_reports.put(c, new CountyReport(c, my_timestamp));
+      }
+    } else {
+      // the county reports are built on worker threads with their own sessions
+      final List<Long> county_ids = new ArrayList<>(counties.size());
+      for (final County c : counties) {
+        county_ids.add(c.id());
+      }
+      final Map<Long, Outcome<CountyReport>> outcomes = 
+          ParallelTransactionRunner.run(county_ids, 
+                                        id -> countyReport(id, the_timestamp), 
+                                        threads, CommitPolicy.PER_TASK, RETRIES);
+      for (final Entry<Long, Outcome<CountyReport>> e : outcomes.entrySet()) {
+        final Outcome<CountyReport> outcome = e.getValue();
+        if (outcome.failure() != null) {
+          throw new PersistenceException("could not read report data for county " + 
+                                         e.getKey(), outcome.failure());
+        }
+        my_county_reports.put(outcome.value().county(), outcome.value());
+      }
     }
     my_dosdb = Persistence.getByID(DoSDashboard.ID, DoSDashboard.class);
   }
   
+  /**
+   * Builds the county report for the specified county on a worker thread,
+   * loading everything it refers to so that it can be rendered after the
+   * worker's session is closed.
+   * 
+   * @param the_county_id The county ID.
+   * @param the_timestamp The timestamp.
+   * @return the county report.
+   */
+  private static CountyReport countyReport(final Long the_county_id, 
+                                           final Instant the_timestamp) {
+    // nothing is changed, so the session need not keep snapshots for dirty checking
+    Persistence.currentSession().setDefaultReadOnly(true);
+    final County county = Persistence.getByID(the_county_id, County.class);
+    final CountyReport result = new CountyReport(county, the_timestamp);
+    result.loadAll();
+    return result;
+  }
+  
+  /**
+   * @return the number of threads to use to build county reports.
+   */
+  private static int threads() {
+    int result;
+    try {
+      result = Integer.parseInt(Main.properties().
+                                getProperty(THREADS_PROPERTY, 
+                                            String.valueOf(DEFAULT_THREADS)).trim());
+    } catch (final NumberFormatException e) {
+      result = DEFAULT_THREADS;
+    }
+    return result;
+  }
+  
   /**
    * @return the timestamp of this report.
    */
@@ -134,27 +211,27 @@ public class StateReport {
   
   
   /**
-   * @return the Excel representation of this report, as a byte array.
-   * @exception IOException if the report cannot be generated.
+   * Writes the Excel representation of this report to the specified stream,
+   * which is not closed. The workbook is streamed, so only a window of
+   * rows of each sheet is held in memory at a time.
+   * 
+   * @param the_stream The stream.
+   * @exception IOException if the report cannot be written.
    */
-  public byte[] generateExcel() throws IOException {
-    final ByteArrayOutputStream baos = new ByteArrayOutputStream();
-    final Workbook workbook = generateExcelWorkbook();
-    workbook.write(baos);
-    baos.flush();
-    baos.close();
-    workbook.close();
-    return baos.toByteArray();
+  public void writeExcel(final OutputStream the_stream) throws IOException {
+    ReportWorkbooks.write(generateExcelWorkbook(), the_stream);
   }
   
   /**
-   * @return the Excel workbook for this report.
+   * @return the Excel workbook for this report. Its rows are flushed to 
+   * temporary files as it is built; it must be written with writeExcel(), 
+   * or disposed of.
    */
   @SuppressWarnings({"checkstyle:magicnumber", "checkstyle:executablestatementcount",
       "checkstyle:methodlength", "PMD.ExcessiveMethodLength", "PMD.NcssMethodCount",
       "PMD.NPathComplexity", "PMD.AvoidLiteralsInIfCondition"})
-  public Workbook generateExcelWorkbook() {
-    final Workbook workbook = new XSSFWorkbook();
+  public SXSSFWorkbook generateExcelWorkbook() {
+    final SXSSFWorkbook workbook = ReportWorkbooks.newWorkbook();
 
     // data format
     final DataFormat format = workbook.createDataFormat();
@@ -192,7 +269,7 @@ public class StateReport {
     box_style.setBorderRight(BorderStyle.THICK);
     
     // the summary sheet
-    final Sheet summary_sheet = workbook.createSheet("Summary");
+    final Sheet summary_sheet = ReportWorkbooks.createSheet(workbook, "Summary");
     int row_number = 0;
     Row row = summary_sheet.createRow(row_number++);
     int cell_number = 0;
@@ -563,7 +640,8 @@ public class StateReport {
         // don't generate empty sheets
         continue;
       }
-      final Sheet county_sheet = workbook.createSheet(e.getKey().name() + " County");
+      final Sheet county_sheet = 
+          ReportWorkbooks.createSheet(workbook, e.getKey().name() + " County");
       row_number = 0;
       row = county_sheet.createRow(row_number++);
       cell_number = 0;
@@ -695,23 +773,18 @@ public class StateReport {
         cell.setCellValue("Disagreement");
 
         max_cell_number = Math.max(max_cell_number, cell_number);
-        for (final CVRAuditInfo audit_info : 
+        for (final BallotReportFact audit_info : 
              e.getValue().cvrsToAuditByRound().get(round.number())) {
           row = county_sheet.createRow(row_number++);
           cell_number = 0;
           cell = row.createCell(cell_number++);
           cell.setCellType(CellType.STRING);
           cell.setCellStyle(standard_style);
-          cell.setCellValue(audit_info.cvr().imprintedID());
+          cell.setCellValue(audit_info.imprintedID());
           cell = row.createCell(cell_number++);
           cell.setCellType(CellType.STRING);
           cell.setCellStyle(standard_right_style);
-          if (audit_info.acvr() == null) {
-            cell.setCellValue(booleanYesNo(false));
-          } else {
-            cell.setCellValue(booleanYesNo(audit_info.acvr().recordType() == 
-                                           RecordType.AUDITOR_ENTERED));
-          }
+          cell.setCellValue(booleanYesNo(audit_info.audited()));
           cell = row.createCell(cell_number++);
           cell.setCellType(CellType.STRING);
           cell.setCellStyle(standard_right_style);
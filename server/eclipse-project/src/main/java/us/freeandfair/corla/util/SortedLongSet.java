@@ -0,0 +1,240 @@
+/*
+ * Free & Fair Colorado RLA System
+ * 
+ * @title ColoradoRLA
+ * @created Oct 18, 2026
+ * @copyright 2026 Colorado Department of State
+ * @license SPDX-License-Identifier: AGPL-3.0-or-later
+ * @creator Daniel M. Zimmerman <dmz@freeandfair.us>
+ * @description A system to assist in conducting statewide risk-limiting audits.
+ */
+
+package us.freeandfair.corla.util;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * An immutable set of primitive longs, stored as a sorted array without
+ * duplicates. Membership tests are binary searches and involve no boxing;
+ * the union operation merges in time linear in the sizes of the two sets.
+ *
+ * @author Daniel M. Zimmerman <dmz@freeandfair.us>
+ * @version 1.0.0
+ */
+public final class SortedLongSet {
+  /**
+   * The empty set.
+   */
+  public static final SortedLongSet EMPTY = new SortedLongSet(new long[0]);
+
+  /**
+   * The elements, sorted in ascending order, with no duplicates.
+   */
+  private final long[] my_elements;
+
+  /**
+   * Constructs a new set from an array that is already sorted and free of
+   * duplicates; the array is not copied.
+   *
+   * @param the_elements The elements.
+   */
+  private SortedLongSet(final long[] the_elements) {
+    my_elements = the_elements;
+  }
+
+  /**
+   * Creates a set containing the specified values.
+   *
+   * @param the_values The values, in any order and possibly with duplicates.
+   * @return the set.
+   */
+  public static SortedLongSet of(final long... the_values) {
+    final long[] sorted = Arrays.copyOf(the_values, the_values.length);
+    Arrays.sort(sorted);
+    return new SortedLongSet(dedupe(sorted, sorted.length));
+  }
+
+  /**
+   * Creates a set containing the specified values.
+   *
+   * @param the_values The values, in any order and possibly with duplicates;
+   * they must not be null.
+   * @return the set.
+   */
+  public static SortedLongSet of(final Collection<Long> the_values) {
+    final long[] values = new long[the_values.size()];
+    int i = 0;
+    for (final Long value : the_values) {
+      values[i] = value;
+      i = i + 1;
+    }
+    Arrays.sort(values);
+    return new SortedLongSet(dedupe(values, values.length));
+  }
+
+  /**
+   * Creates a set from an array that is already sorted in ascending order
+   * and free of duplicates, such as one produced by toArray().
+   *
+   * @param the_sorted_values The values.
+   * @return the set.
+   * @exception IllegalArgumentException if the values are not strictly
+   * ascending.
+   */
+  public static SortedLongSet ofSorted(final long[] the_sorted_values) {
+    for (int i = 1; i < the_sorted_values.length; i++) {
+      if (the_sorted_values[i] <= the_sorted_values[i - 1]) {
+        throw new IllegalArgumentException("values are not strictly ascending");
+      }
+    }
+    return new SortedLongSet(Arrays.copyOf(the_sorted_values,
+                                           the_sorted_values.length));
+  }
+
+  /**
+   * Checks whether this set contains the specified value.
+   *
+   * @param the_value The value.
+   * @return true if it does, false otherwise.
+   */
+  public boolean contains(final long the_value) {
+    return 0 <= Arrays.binarySearch(my_elements, the_value);
+  }
+
+  /**
+   * @return the number of elements in this set.
+   */
+  public int size() {
+    return my_elements.length;
+  }
+
+  /**
+   * @return true if this set is empty, false otherwise.
+   */
+  public boolean isEmpty() {
+    return my_elements.length == 0;
+  }
+
+  /**
+   * @return a copy of the elements of this set, in ascending order.
+   */
+  public long[] toArray() {
+    return Arrays.copyOf(my_elements, my_elements.length);
+  }
+
+  /**
+   * Computes the union of this set and the specified set.
+   *
+   * @param the_other The other set.
+   * @return the union; this is the same object as this set, or as the other
+   * set, if one of the two contains all of the other's elements.
+   */
+  public SortedLongSet union(final SortedLongSet the_other) {
+    final long[] other = the_other.my_elements;
+    final long[] merged = new long[my_elements.length + other.length];
+    int i = 0;
+    int j = 0;
+    int k = 0;
+    while (i < my_elements.length && j < other.length) {
+      if (my_elements[i] < other[j]) {
+        merged[k] = my_elements[i];
+        i = i + 1;
+      } else if (other[j] < my_elements[i]) {
+        merged[k] = other[j];
+        j = j + 1;
+      } else {
+        merged[k] = my_elements[i];
+        i = i + 1;
+        j = j + 1;
+      }
+      k = k + 1;
+    }
+    while (i < my_elements.length) {
+      merged[k] = my_elements[i];
+      i = i + 1;
+      k = k + 1;
+    }
+    while (j < other.length) {
+      merged[k] = other[j];
+      j = j + 1;
+      k = k + 1;
+    }
+
+    final SortedLongSet result;
+    if (k == my_elements.length) {
+      result = this;
+    } else if (k == other.length) {
+      result = the_other;
+    } else {
+      result = new SortedLongSet(dedupe(merged, k));
+    }
+    return result;
+  }
+
+  /**
+   * Computes the union of this set and the specified values.
+   *
+   * @param the_values The values.
+   * @return the union.
+   */
+  public SortedLongSet union(final Collection<Long> the_values) {
+    return union(of(the_values));
+  }
+
+  /**
+   * Compares this set to another object for equality.
+   *
+   * @param the_other The other object.
+   * @return true if the other object is a set with the same elements,
+   * false otherwise.
+   */
+  @Override
+  public boolean equals(final Object the_other) {
+    boolean result = false;
+    if (the_other instanceof SortedLongSet) {
+      result = Arrays.equals(my_elements, ((SortedLongSet) the_other).my_elements);
+    }
+    return result;
+  }
+
+  /**
+   * @return a hash code for this set.
+   */
+  @Override
+  public int hashCode() {
+    return Arrays.hashCode(my_elements);
+  }
+
+  /**
+   * @return a String representation of this set.
+   */
+  @Override
+  public String toString() {
+    return "SortedLongSet [size=" + my_elements.length + "]";
+  }
+
+  /**
+   * Removes duplicates from the first the_length elements of a sorted array.
+   *
+   * @param the_sorted The sorted array, which may be modified.
+   * @param the_length The number of elements to consider.
+   * @return an exactly-sized array of the distinct elements.
+   */
+  private static long[] dedupe(final long[] the_sorted, final int the_length) {
+    int k = 0;
+    for (int i = 0; i < the_length; i++) {
+      if (k == 0 || the_sorted[i] != the_sorted[k - 1]) {
+        the_sorted[k] = the_sorted[i];
+        k = k + 1;
+      }
+    }
+    final long[] result;
+    if (k == the_sorted.length) {
+      result = the_sorted;
+    } else {
+      result = Arrays.copyOf(the_sorted, k);
+    }
+    return result;
+  }
+}
@@ -0,0 +1,219 @@
+/*
+ * Free & Fair Colorado RLA System
+ * 
+ * @title ColoradoRLA
+ * @created Oct 18, 2026
+ * @copyright 2026 Colorado Department of State
+ * @license SPDX-License-Identifier: AGPL-3.0-or-later
+ * @creator Daniel M. Zimmerman <dmz@freeandfair.us>
+ * @description A system to assist in conducting statewide risk-limiting audits.
+ */
+
+package us.freeandfair.corla.util;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import us.freeandfair.corla.Main;
+import us.freeandfair.corla.crypto.HashChecker;
+
+/**
+ * An output stream that writes an uploaded file to its destination and,
+ * in the same pass, computes its SHA-256 hash, counts its lines, and
+ * optionally writes an archive copy. Failure to write the archive copy is
+ * logged but does not affect the primary destination.
+ *
+ * @author Daniel M. Zimmerman <dmz@freeandfair.us>
+ * @version 1.0.0
+ */
+public class UploadTeeOutputStream extends OutputStream {
+  /**
+   * The line feed byte.
+   */
+  private static final byte LF = '\n';
+
+  /**
+   * The carriage return byte.
+   */
+  private static final byte CR = '\r';
+
+  /**
+   * The primary destination.
+   */
+  private final OutputStream my_output;
+
+  /**
+   * The archive destination, or null if there is none (or writing to it
+   * has failed).
+   */
+  private OutputStream my_archive;
+
+  /**
+   * The archive file, for logging.
+   */
+  private final File my_archive_file;
+
+  /**
+   * The SHA-256 digest, or null if SHA-256 is unavailable.
+   */
+  private final MessageDigest my_digest;
+
+  /**
+   * The number of line terminators seen so far.
+   */
+  private int my_line_count;
+
+  /**
+   * True if the last byte written was a carriage return.
+   */
+  private boolean my_last_was_cr;
+
+  /**
+   * Constructs a new stream.
+   *
+   * @param the_file The primary destination file.
+   * @param the_archive_file The archive file, or null for no archive copy.
+   * @exception IOException if the primary destination cannot be opened.
+   */
+  public UploadTeeOutputStream(final File the_file, final File the_archive_file)
+      throws IOException {
+    super();
+    my_output = new FileOutputStream(the_file);
+    my_archive_file = the_archive_file;
+    if (the_archive_file != null) {
+      try {
+        my_archive = new FileOutputStream(the_archive_file);
+      } catch (final IOException e) {
+        Main.LOGGER.info("Encountered exception while archiving file (" +
+                         the_archive_file + ") - " + e.getMessage());
+      }
+    }
+    MessageDigest digest = null;
+    try {
+      digest = MessageDigest.getInstance("SHA-256");
+    } catch (final NoSuchAlgorithmException e) {
+      Main.LOGGER.error("No Java security framework installed.");
+      Main.LOGGER.info("Unable to compute SHA-256 hashes.");
+    }
+    my_digest = digest;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void write(final int the_byte) throws IOException {
+    write(new byte[] {(byte) the_byte}, 0, 1);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void write(final byte[] the_bytes, final int the_offset, final int the_length)
+      throws IOException {
+    my_output.write(the_bytes, the_offset, the_length);
+    if (my_archive != null) {
+      try {
+        my_archive.write(the_bytes, the_offset, the_length);
+      } catch (final IOException e) {
+        abandonArchive(e);
+      }
+    }
+    if (my_digest != null) {
+      my_digest.update(the_bytes, the_offset, the_length);
+    }
+    countLines(the_bytes, the_offset, the_length);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void flush() throws IOException {
+    my_output.flush();
+  }
+
+  /**
+   * Closes both destinations.
+   *
+   * @exception IOException if the primary destination cannot be closed.
+   */
+  @Override
+  public void close() throws IOException {
+    try {
+      my_output.close();
+    } finally {
+      if (my_archive != null) {
+        try {
+          my_archive.close();
+          Main.LOGGER.info("Successfully archived file (" + my_archive_file + ").");
+        } catch (final IOException e) {
+          abandonArchive(e);
+        }
+      }
+    }
+  }
+
+  /**
+   * @return the SHA-256 hash of the bytes written so far, in the format
+   * used by HashChecker, or null if SHA-256 is unavailable. This resets
+   * the digest, so it should be called once, after all bytes are written.
+   */
+  public String hash() {
+    String result = null;
+    if (my_digest != null) {
+      result = HashChecker.toHex(my_digest.digest());
+    }
+    return result;
+  }
+
+  /**
+   * @return the number of line terminators (LF, CR, or CRLF) written so far;
+   * this matches the line number a Java 8 LineNumberReader reaches at the end
+   * of the same bytes.
+   */
+  public int lineCount() {
+    return my_line_count;
+  }
+
+  /**
+   * Counts the line terminators in a range of bytes.
+   *
+   * @param the_bytes The bytes.
+   * @param the_offset The offset.
+   * @param the_length The length.
+   */
+  private void countLines(final byte[] the_bytes, final int the_offset,
+                          final int the_length) {
+    for (int i = the_offset; i < the_offset + the_length; i++) {
+      final byte b = the_bytes[i];
+      if (b == CR) {
+        my_line_count = my_line_count + 1;
+      } else if (b == LF && !my_last_was_cr) {
+        my_line_count = my_line_count + 1;
+      }
+      my_last_was_cr = b == CR;
+    }
+  }
+
+  /**
+   * Stops writing the archive copy after a failure.
+   *
+   * @param the_exception The exception that caused the failure.
+   */
+  private void abandonArchive(final IOException the_exception) {
+    Main.LOGGER.info("Encountered exception while archiving file (" +
+                     my_archive_file + ") - " + the_exception.getMessage());
+    try {
+      my_archive.close();
+    } catch (final IOException e) {
+      // ignored, the archive copy is already incomplete
+    }
+    my_archive = null;
+  }
+}
@@ -0,0 +1,138 @@
+/*
+ * Free & Fair Colorado RLA System
+ * 
+ * @title ColoradoRLA
+ * @created Oct 18, 2026
+ * @copyright 2026 Colorado Department of State
+ * @license SPDX-License-Identifier: AGPL-3.0-or-later
+ * @creator Daniel M. Zimmerman <dmz@freeandfair.us>
+ * @description A system to assist in conducting statewide risk-limiting audits.
+ */
+
+package us.freeandfair.corla.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Utility methods for variable-length integer encoding: unsigned LEB128
+ * varints, which use one byte for each 7 bits of magnitude, and zigzag
+ * encoding, which maps small negative numbers to small unsigned ones.
+ *
+ * @author Daniel M. Zimmerman <dmz@freeandfair.us>
+ * @version 1.0.0
+ */
+public final class Varints {
+  /**
+   * The number of payload bits in each varint byte.
+   */
+  private static final int PAYLOAD_BITS = 7;
+
+  /**
+   * The mask for the payload bits of a varint byte.
+   */
+  private static final int PAYLOAD_MASK = 0x7f;
+
+  /**
+   * The continuation bit of a varint byte.
+   */
+  private static final int CONTINUE = 0x80;
+
+  /**
+   * Private constructor to prevent instantiation.
+   */
+  private Varints() {
+    // do nothing
+  }
+
+  /**
+   * Writes an unsigned varint.
+   *
+   * @param the_out The output stream.
+   * @param the_value The value, interpreted as unsigned.
+   */
+  public static void writeUnsigned(final ByteArrayOutputStream the_out,
+                                   final long the_value) {
+    long value = the_value;
+    while ((value & ~PAYLOAD_MASK) != 0) {
+      the_out.write((int) (value & PAYLOAD_MASK) | CONTINUE);
+      value = value >>> PAYLOAD_BITS;
+    }
+    the_out.write((int) value);
+  }
+
+  /**
+   * Reads an unsigned varint.
+   *
+   * @param the_bytes The bytes.
+   * @param the_position A one-element array holding the position to read
+   * from, which is advanced past the varint.
+   * @return the value.
+   * @exception IllegalArgumentException if the varint is truncated or
+   * longer than 64 bits.
+   */
+  public static long readUnsigned(final byte[] the_bytes, final int[] the_position) {
+    long result = 0;
+    int shift = 0;
+    int b;
+    do {
+      if (the_bytes.length <= the_position[0] || Long.SIZE <= shift) {
+        throw new IllegalArgumentException("malformed varint");
+      }
+      b = the_bytes[the_position[0]];
+      the_position[0] = the_position[0] + 1;
+      result = result | (long) (b & PAYLOAD_MASK) << shift;
+      shift = shift + PAYLOAD_BITS;
+    } while ((b & CONTINUE) != 0);
+    return result;
+  }
+
+  /**
+   * Reads an unsigned varint from a stream.
+   *
+   * @param the_in The stream.
+   * @return the value.
+   * @exception EOFException if the stream ends before the varint does.
+   * @exception IOException if the stream cannot be read, or if the varint
+   * is longer than 64 bits.
+   */
+  public static long readUnsigned(final InputStream the_in) throws IOException {
+    long result = 0;
+    int shift = 0;
+    int b;
+    do {
+      if (Long.SIZE <= shift) {
+        throw new IOException("malformed varint");
+      }
+      b = the_in.read();
+      if (b < 0) {
+        throw new EOFException("truncated varint");
+      }
+      result = result | (long) (b & PAYLOAD_MASK) << shift;
+      shift = shift + PAYLOAD_BITS;
+    } while ((b & CONTINUE) != 0);
+    return result;
+  }
+
+  /**
+   * Zigzag-encodes a signed value.
+   *
+   * @param the_value The value.
+   * @return the encoded value, to be interpreted as unsigned.
+   */
+  public static long zigzag(final long the_value) {
+    return (the_value << 1) ^ (the_value >> (Long.SIZE - 1));
+  }
+
+  /**
+   * Decodes a zigzag-encoded value.
+   *
+   * @param the_value The encoded value.
+   * @return the signed value.
+   */
+  public static long unzigzag(final long the_value) {
+    return (the_value >>> 1) ^ -(the_value & 1);
+  }
+}
@@ -0,0 +1,215 @@
+/*
+ * Free & Fair Colorado RLA System
+ * 
+ * @title ColoradoRLA
+ * @created Oct 18, 2026
+ * @copyright 2026 Colorado Department of State
+ * @license SPDX-License-Identifier: AGPL-3.0-or-later
+ * @creator Daniel M. Zimmerman <dmz@freeandfair.us>
+ * @description A system to assist in conducting statewide risk-limiting audits.
+ */
+
+package us.freeandfair.corla.asm;
+
+import static us.freeandfair.corla.asm.ASMEvent.CountyDashboardEvent.*;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import us.freeandfair.corla.asm.ASMState.CountyDashboardState;
+import us.freeandfair.corla.asm.ASMState.DoSDashboardState;
+import us.freeandfair.corla.persistence.Persistence;
+import us.freeandfair.corla.persistence.TestDatabase;
+import us.freeandfair.corla.query.PersistentASMStateQueries;
+
+/**
+ * A test case for the construction, caching and saving of ASMs in ASMUtilities.
+ * The tests that save ASMs need a database, and are skipped without one (see
+ * TestDatabase).
+ *
+ * @author Daniel M. Zimmerman <dmz@freeandfair.us>
+ * @version 1.0.0
+ */
+// TestNG classes do not need constructors
+@SuppressWarnings("PMD.AtLeastOneConstructor")
+public class ASMUtilitiesTest {
+  /**
+   * The last identity used for a county ASM; identities are unlikely to
+   * collide with those of real counties, or of earlier runs.
+   */
+  private static final AtomicLong IDENTITY = 
+      new AtomicLong(1_000_000_000L + System.currentTimeMillis() % 1_000_000_000L);
+  
+  /**
+   * Checks that ASMs with no-argument and identity constructors are both
+   * constructed in their initial states, repeatedly.
+   */
+  @Test()
+  public void testConstruct() {
+    for (int i = 0; i < 2; i++) {
+      final DoSDashboardASM dos = ASMUtilities.construct(DoSDashboardASM.class, "ignored");
+      Assert.assertEquals(dos.identity(), DoSDashboardASM.IDENTITY);
+      Assert.assertEquals(dos.currentState(), DoSDashboardState.DOS_INITIAL_STATE);
+      Assert.assertNull(dos.persistentVersion());
+
+      final CountyDashboardASM county =
+          ASMUtilities.construct(CountyDashboardASM.class, String.valueOf(i));
+      Assert.assertEquals(county.identity(), String.valueOf(i));
+      Assert.assertEquals(county.currentState(),
+                          CountyDashboardState.COUNTY_INITIAL_STATE);
+    }
+  }
+
+  /**
+   * Checks that a saved state is visible to the transaction that saved it at
+   * once, and is cached for everyone once it commits.
+   */
+  @Test()
+  public void testCommittedSaveIsCached() {
+    TestDatabase.require();
+    final String identity = newState();
+    final Long version = version(identity);
+    
+    Persistence.beginTransaction();
+    final CountyDashboardASM asm = ASMUtilities.asmFor(CountyDashboardASM.class, identity);
+    Assert.assertEquals(asm.persistentVersion(), version);
+    asm.stepEvent(IMPORT_BALLOT_MANIFEST_EVENT);
+    Assert.assertTrue(ASMUtilities.save(asm));
+    Assert.assertEquals(ASMUtilities.asmFor(CountyDashboardASM.class, identity).
+                        currentState(), CountyDashboardState.BALLOT_MANIFEST_OK);
+    Persistence.commitTransaction();
+    
+    Persistence.beginTransaction();
+    final CountyDashboardASM after = 
+        ASMUtilities.asmFor(CountyDashboardASM.class, identity);
+    Persistence.commitTransaction();
+    Assert.assertEquals(after.currentState(), CountyDashboardState.BALLOT_MANIFEST_OK);
+    Assert.assertEquals(after.persistentVersion(), Long.valueOf(version + 1));
+    Assert.assertEquals(version(identity), Long.valueOf(version + 1));
+  }
+  
+  /**
+   * Checks that a state saved by a transaction that is rolled back is not
+   * cached, so that the state can still be saved from its committed version.
+   */
+  @Test()
+  public void testRolledBackSaveIsNotCached() {
+    TestDatabase.require();
+    final String identity = newState();
+    final Long version = version(identity);
+    
+    Persistence.beginTransaction();
+    final CountyDashboardASM asm = ASMUtilities.asmFor(CountyDashboardASM.class, identity);
+    asm.stepEvent(IMPORT_BALLOT_MANIFEST_EVENT);
+    Assert.assertTrue(ASMUtilities.save(asm));
+    Persistence.rollbackTransaction();
+    
+    Persistence.beginTransaction();
+    final CountyDashboardASM after = 
+        ASMUtilities.asmFor(CountyDashboardASM.class, identity);
+    Assert.assertEquals(after.currentState(), CountyDashboardState.COUNTY_INITIAL_STATE);
+    Assert.assertEquals(after.persistentVersion(), version);
+    after.stepEvent(IMPORT_CVRS_EVENT);
+    Assert.assertTrue(ASMUtilities.save(after));
+    Persistence.commitTransaction();
+    Assert.assertEquals(version(identity), Long.valueOf(version + 1));
+  }
+  
+  /**
+   * Checks that the cache is used until it is invalidated, and that states 
+   * read from the database are cached again afterwards.
+   */
+  @Test()
+  public void testInvalidateAll() {
+    TestDatabase.require();
+    final String identity = newState();
+    
+    Persistence.beginTransaction();
+    ASMUtilities.asmFor(CountyDashboardASM.class, identity);
+    // change the state behind the cache's back
+    final CountyDashboardASM changed = new CountyDashboardASM(identity);
+    changed.stepEvent(IMPORT_BALLOT_MANIFEST_EVENT);
+    final PersistentASMState changed_state = PersistentASMState.stateFor(changed);
+    Persistence.currentSession().
+        createQuery("update PersistentASMState set my_state_class = :state_class, " +
+                    "my_state_value = :state_value, my_version = my_version + 1 " +
+                    "where my_asm_class = :asm_class and my_asm_identity = :identity").
+        setParameter("state_class", changed_state.stateClass()).
+        setParameter("state_value", changed_state.stateValue()).
+        setParameter("asm_class", CountyDashboardASM.class.getName()).
+        setParameter("identity", identity).
+        executeUpdate();
+    Persistence.commitTransaction();
+    
+    Persistence.beginTransaction();
+    Assert.assertEquals(ASMUtilities.asmFor(CountyDashboardASM.class, identity).
+                        currentState(), CountyDashboardState.COUNTY_INITIAL_STATE);
+    ASMUtilities.invalidateAll();
+    Assert.assertEquals(ASMUtilities.asmFor(CountyDashboardASM.class, identity).
+                        currentState(), CountyDashboardState.BALLOT_MANIFEST_OK);
+    Persistence.commitTransaction();
+  }
+  
+  /**
+   * Checks that a state read into the session before it is written through
+   * can still be saved as an entity, and flushed, in the same transaction.
+   */
+  @Test()
+  public void testSaveAfterWriteThrough() {
+    TestDatabase.require();
+    final String identity = newState();
+    final Long version = version(identity);
+    
+    Persistence.beginTransaction();
+    Assert.assertNotNull(PersistentASMStateQueries.get(CountyDashboardASM.class, identity));
+    final CountyDashboardASM asm = ASMUtilities.asmFor(CountyDashboardASM.class, identity);
+    asm.stepEvent(IMPORT_BALLOT_MANIFEST_EVENT);
+    Assert.assertTrue(ASMUtilities.save(asm));
+    
+    final CountyDashboardASM unversioned = 
+        ASMUtilities.construct(CountyDashboardASM.class, identity);
+    unversioned.stepEvent(IMPORT_BALLOT_MANIFEST_EVENT);
+    unversioned.stepEvent(IMPORT_CVRS_EVENT);
+    Assert.assertTrue(ASMUtilities.save(unversioned));
+    Persistence.flush();
+    Persistence.commitTransaction();
+    
+    Persistence.beginTransaction();
+    final CountyDashboardASM after = 
+        ASMUtilities.asmFor(CountyDashboardASM.class, identity);
+    Persistence.commitTransaction();
+    Assert.assertEquals(after.currentState(), 
+                        CountyDashboardState.BALLOT_MANIFEST_OK_AND_CVRS_IMPORTING);
+    Assert.assertEquals(version(identity), Long.valueOf(version + 2));
+  }
+  
+  /**
+   * Persists the initial state of a new county dashboard ASM.
+   * 
+   * @return the identity of the ASM.
+   */
+  private static String newState() {
+    final String result = String.valueOf(IDENTITY.incrementAndGet());
+    Persistence.beginTransaction();
+    Persistence.save(PersistentASMState.stateFor(new CountyDashboardASM(result)));
+    Persistence.commitTransaction();
+    return result;
+  }
+  
+  /**
+   * Reads the committed version of the state of a county dashboard ASM from
+   * the database.
+   * 
+   * @param the_identity The identity of the ASM.
+   * @return the version.
+   */
+  private static Long version(final String the_identity) {
+    Persistence.beginTransaction();
+    final Long result = 
+        PersistentASMStateQueries.get(CountyDashboardASM.class, the_identity).version();
+    Persistence.commitTransaction();
+    return result;
+  }
+}
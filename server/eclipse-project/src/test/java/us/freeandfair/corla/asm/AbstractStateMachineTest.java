@@ -0,0 +1,108 @@
+/*
+ * Free & Fair Colorado RLA System
+ * 
+ * @title ColoradoRLA
+ * @created Oct 18, 2026
+ * @copyright 2026 Colorado Department of State
+ * @license SPDX-License-Identifier: AGPL-3.0-or-later
+ * @creator Daniel M. Zimmerman <dmz@freeandfair.us>
+ * @description A system to assist in conducting statewide risk-limiting audits.
+ */
+
+package us.freeandfair.corla.asm;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import us.freeandfair.corla.asm.ASMEvent.CountyDashboardEvent;
+import us.freeandfair.corla.asm.ASMEvent.DoSDashboardEvent;
+
+/**
+ * A test case for the compiled transition functions of the ASMs.
+ *
+ * @author Daniel M. Zimmerman <dmz@freeandfair.us>
+ * @version 1.0.0
+ */
+// TestNG classes do not need constructors
+@SuppressWarnings("PMD.AtLeastOneConstructor")
+public class AbstractStateMachineTest {
+  /**
+   * Checks that, for every state of every ASM, the enabled events and the
+   * results of every event are those given by the transition function.
+   */
+  @Test()
+  public void testTransitionTables() {
+    check(new DoSDashboardASM());
+    check(new CountyDashboardASM("1"));
+    check(new AuditBoardDashboardASM("1"));
+  }
+
+  /**
+   * Checks that the enabled events cannot be modified, and that events of
+   * other ASMs are never enabled.
+   */
+  @Test()
+  public void testForeignEvents() {
+    final DoSDashboardASM asm = new DoSDashboardASM();
+    Assert.assertFalse(asm.enabledASMEvents().contains(CountyDashboardEvent.IMPORT_CVRS_EVENT));
+    try {
+      asm.enabledASMEvents().add(DoSDashboardEvent.PUBLIC_SEED_EVENT);
+      Assert.fail("enabled events were modified");
+    } catch (final UnsupportedOperationException e) {
+      // expected
+    }
+    assertIllegal(asm, CountyDashboardEvent.IMPORT_CVRS_EVENT);
+  }
+
+  /**
+   * Checks one ASM against its transition function in every state.
+   *
+   * @param the_asm The ASM.
+   */
+  private void check(final AbstractStateMachine the_asm) {
+    for (final ASMState state : the_asm.my_states) {
+      final Set<ASMEvent> expected_events = new HashSet<>();
+      for (final ASMTransition t : the_asm.my_transition_function) {
+        if (t.startStates().contains(state)) {
+          expected_events.addAll(t.events());
+        }
+      }
+      the_asm.setCurrentState(state);
+      Assert.assertEquals(the_asm.enabledASMEvents(), expected_events, state.toString());
+
+      for (final ASMEvent event : the_asm.my_events) {
+        ASMState expected_state = null;
+        for (final ASMTransition t : the_asm.my_transition_function) {
+          if (t.startStates().contains(state) && t.events().contains(event)) {
+            expected_state = t.endState();
+          }
+        }
+        the_asm.setCurrentState(state);
+        if (expected_state == null) {
+          assertIllegal(the_asm, event);
+        } else {
+          Assert.assertEquals(the_asm.stepEvent(event), expected_state);
+        }
+      }
+    }
+  }
+
+  /**
+   * Checks that an event is illegal in the current state of an ASM.
+   *
+   * @param the_asm The ASM.
+   * @param the_event The event.
+   */
+  private void assertIllegal(final AbstractStateMachine the_asm, final ASMEvent the_event) {
+    final ASMState state = the_asm.currentState();
+    try {
+      the_asm.stepEvent(the_event);
+      Assert.fail(the_event + " was allowed in " + state);
+    } catch (final IllegalStateException e) {
+      Assert.assertEquals(the_asm.currentState(), state);
+    }
+  }
+}
@@ -0,0 +1,331 @@
+/*
+ * Free & Fair Colorado RLA System
+ * 
+ * @title ColoradoRLA
+ * @created Oct 18, 2026
+ * @copyright 2026 Colorado Department of State
+ * @license SPDX-License-Identifier: AGPL-3.0-or-later
+ * @creator Daniel M. Zimmerman <dmz@freeandfair.us>
+ * @description A system to assist in conducting statewide risk-limiting audits.
+ */
+
+package us.freeandfair.corla.columnar;
+
+import static us.freeandfair.corla.query.CastVoteRecordRows.CONTEST_NAME;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import com.google.gson.stream.JsonWriter;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import us.freeandfair.corla.json.CastVoteRecordRowJsonWriter;
+import us.freeandfair.corla.model.CVRContestInfo.ConsensusValue;
+import us.freeandfair.corla.model.CastVoteRecord.RecordType;
+import us.freeandfair.corla.query.CastVoteRecordRows.RowHandler;
+
+/**
+ * A test case for ColumnarCVRWriter and ColumnarCVRReader.
+ *
+ * @author Daniel M. Zimmerman <dmz@freeandfair.us>
+ * @version 1.0.0
+ */
+// TestNG classes do not need constructors
+@SuppressWarnings("PMD.AtLeastOneConstructor")
+public class ColumnarCVRTest {
+  /**
+   * The number of CVRs to generate; enough for several blocks.
+   */
+  private static final int CVR_COUNT = 3 * ColumnarCVRFormat.BLOCK_SIZE + 17;
+
+  /**
+   * The contest names, by contest.
+   */
+  private static final String[] CONTESTS = {
+    "Governor", "Proposition 112", "Regent of the University of Colorado"
+  };
+
+  /**
+   * The choices, by contest.
+   */
+  private static final String[][] CHOICES = {
+    {"Jared Polis", "Walker Stapleton", "Bill Hammons", "Scott Helker"},
+    {"Yes/For", "No/Against"},
+    {"Lesley Smith", "Ken Montera", "Christopher E. Otwell", "James K. Treibert",
+     "Jaimie Kulikowski", "Zé Ñúñez", "\"Write\" In", "Eight", "Nine"}
+  };
+
+  /**
+   * The ID of the first contest; the others follow in the order of CONTESTS.
+   */
+  private static final long FIRST_CONTEST_ID = 10;
+
+  /**
+   * Gets the declared choices of a contest.
+   *
+   * @param the_contest_id The contest ID.
+   * @return the choices, or null if there is no such contest.
+   */
+  private static List<String> declaredChoices(final Long the_contest_id) {
+    final int contest = (int) (the_contest_id - FIRST_CONTEST_ID);
+    List<String> result = null;
+    if (0 <= contest && contest < CHOICES.length) {
+      result = Arrays.asList(CHOICES[contest]);
+    }
+    return result;
+  }
+
+  /**
+   * Generates the rows CastVoteRecordRows would read for a set of
+   * audit CVRs. The choices of each row are in the order of CHOICES, as
+   * they are in the database.
+   *
+   * @return the rows.
+   */
+  private List<Object[]> rows() {
+    final Random random = new Random(2017);
+    final List<Object[]> result = new ArrayList<>();
+    final Instant start = Instant.parse("2017-11-07T12:00:00Z");
+    for (int i = 0; i < CVR_COUNT; i++) {
+      final boolean phantom = i % 97 == 5;
+      final Object[] cvr = new Object[CONTEST_NAME + 1];
+      cvr[0] = 1000L + 3 * i;
+      if (phantom) {
+        cvr[1] = RecordType.PHANTOM_BALLOT;
+      } else {
+        cvr[1] = RecordType.AUDITOR_ENTERED;
+        cvr[2] = start.plusSeconds(i * 7).plusNanos(random.nextInt(1_000_000_000));
+      }
+      cvr[3] = (long) (1 + i / 2000);
+      cvr[4] = i + 1;
+      if (i % 5 != 0) {
+        cvr[5] = i;
+      }
+      cvr[6] = 1 + i % 3;
+      cvr[7] = 1 + i / 100;
+      cvr[8] = 1 + i % 100;
+      cvr[9] = cvr[6] + "-" + cvr[7] + "-" + cvr[8];
+      cvr[10] = "Ballot Type " + (1 + i % 4);
+      final int first_row = result.size();
+      for (int c = 0; c < CONTESTS.length && !phantom; c++) {
+        if (random.nextInt(10) == 0) {
+          continue;
+        }
+        final Object[] row = Arrays.copyOf(cvr, cvr.length);
+        row[11] = FIRST_CONTEST_ID + c;
+        if (random.nextInt(50) == 0) {
+          row[12] = "ambiguous mark #" + i;
+        }
+        if (random.nextInt(20) == 0) {
+          row[13] = ConsensusValue.values()[random.nextInt(ConsensusValue.values().length)];
+        }
+        final List<String> choices = new ArrayList<>();
+        for (final String choice : CHOICES[c]) {
+          if (random.nextInt(CHOICES[c].length) == 0) {
+            choices.add(choice);
+          }
+        }
+        row[14] = choices;
+        row[CONTEST_NAME] = CONTESTS[c];
+        result.add(row);
+      }
+      if (result.size() == first_row) {
+        // a CVR without contest information is a single row of nulls
+        result.add(cvr);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Writes rows as the JSON of the CVR download endpoints.
+   *
+   * @param the_rows The rows.
+   * @return the JSON.
+   * @exception IOException if the JSON cannot be written.
+   */
+  private String json(final List<Object[]> the_rows) throws IOException {
+    return json(the_handler -> {
+      for (final Object[] row : the_rows) {
+        the_handler.handle(row);
+      }
+    });
+  }
+
+  /**
+   * Writes the rows produced by a source as the JSON of the CVR download
+   * endpoints.
+   *
+   * @param the_source The source of the rows.
+   * @return the JSON.
+   * @exception IOException if the JSON cannot be written.
+   */
+  private String json(final RowSource the_source) throws IOException {
+    final StringWriter result = new StringWriter();
+    try (JsonWriter jw = new JsonWriter(result)) {
+      final CastVoteRecordRowJsonWriter cvrs = new CastVoteRecordRowJsonWriter(jw);
+      jw.beginArray();
+      the_source.readInto(cvrs);
+      cvrs.finish();
+      jw.endArray();
+    }
+    return result.toString();
+  }
+
+  /**
+   * Writes rows in the columnar format.
+   *
+   * @param the_rows The rows.
+   * @param the_count The expected number of CVRs.
+   * @return the file.
+   * @exception IOException if the file cannot be written.
+   */
+  private byte[] columnar(final List<Object[]> the_rows, final long the_count)
+      throws IOException {
+    final ByteArrayOutputStream result = new ByteArrayOutputStream();
+    final ColumnarCVRWriter writer =
+        new ColumnarCVRWriter(result, ColumnarCVRTest::declaredChoices);
+    for (final Object[] row : the_rows) {
+      writer.handle(row);
+    }
+    writer.finish();
+    Assert.assertEquals(writer.count(), the_count);
+    return result.toByteArray();
+  }
+
+  /**
+   * Reads a file in the columnar format back as the JSON of the CVR
+   * download endpoints.
+   *
+   * @param the_columnar The file.
+   * @param the_count The expected number of CVRs.
+   * @return the JSON.
+   * @exception IOException if the file cannot be read.
+   */
+  private String readBack(final byte[] the_columnar, final long the_count)
+      throws IOException {
+    final long[] count = new long[1];
+    final String result = json(the_handler -> {
+      final ColumnarCVRReader reader =
+          new ColumnarCVRReader(new ByteArrayInputStream(the_columnar));
+      count[0] = reader.read(the_handler);
+    });
+    Assert.assertEquals(count[0], the_count);
+    return result;
+  }
+
+  /**
+   * Checks that CVRs read back from the columnar format are the same JSON
+   * as the JSON export of the same rows, and that the columnar format is
+   * much smaller.
+   *
+   * @exception IOException if the file cannot be written or read.
+   */
+  @Test()
+  public void testRoundTrip() throws IOException {
+    final List<Object[]> rows = rows();
+    final byte[] columnar = columnar(rows, CVR_COUNT);
+    final String expected = json(rows);
+    Assert.assertEquals(readBack(columnar, CVR_COUNT), expected);
+    Assert.assertTrue(columnar.length * 10 < expected.getBytes(StandardCharsets.UTF_8).length,
+                      "columnar " + columnar.length + " bytes, JSON " + expected.length());
+  }
+
+  /**
+   * Checks that choices are read back in their declared order, even when
+   * they are first seen in a different order.
+   *
+   * @exception IOException if the file cannot be written or read.
+   */
+  @Test()
+  public void testDeclaredChoiceOrder() throws IOException {
+    final List<Object[]> rows = new ArrayList<>();
+    final String[] regents = CHOICES[2];
+    rows.add(contestRow(1, 2, Arrays.asList(regents[7], regents[8])));
+    rows.add(contestRow(2, 2, Arrays.asList(regents[0], regents[7])));
+    rows.add(contestRow(3, 2, Arrays.asList(regents[3], regents[5], regents[8])));
+    rows.add(contestRow(4, 0, Arrays.asList(CHOICES[0][3])));
+    rows.add(contestRow(4, 1, Arrays.asList(CHOICES[1][1])));
+    Assert.assertEquals(readBack(columnar(rows, 4), 4), json(rows));
+  }
+
+  /**
+   * Creates the row of one contest of a CVR.
+   *
+   * @param the_id The CVR ID.
+   * @param the_contest The index of the contest in CONTESTS.
+   * @param the_choices The choices.
+   * @return the row.
+   */
+  private Object[] contestRow(final long the_id, final int the_contest,
+                              final List<String> the_choices) {
+    final Object[] result = new Object[CONTEST_NAME + 1];
+    result[0] = the_id;
+    result[1] = RecordType.AUDITOR_ENTERED;
+    result[3] = 1L;
+    result[9] = "1-1-" + the_id;
+    result[11] = FIRST_CONTEST_ID + the_contest;
+    result[14] = the_choices;
+    result[CONTEST_NAME] = CONTESTS[the_contest];
+    return result;
+  }
+
+  /**
+   * Checks that an empty export can be read.
+   *
+   * @exception IOException if the file cannot be written or read.
+   */
+  @Test()
+  public void testEmpty() throws IOException {
+    final ColumnarCVRReader reader =
+        new ColumnarCVRReader(new ByteArrayInputStream(columnar(new ArrayList<>(), 0)));
+    Assert.assertEquals(reader.read(the_row -> Assert.fail("unexpected row")), 0);
+  }
+
+  /**
+   * Checks that a file that is not in the columnar format is rejected.
+   *
+   * @exception IOException if the file is rejected, as expected.
+   */
+  @Test(expectedExceptions = IOException.class)
+  public void testNotColumnar() throws IOException {
+    new ColumnarCVRReader(new ByteArrayInputStream(
+        "[{\"id\": 1}]".getBytes(StandardCharsets.UTF_8)));
+  }
+
+  /**
+   * Checks that a truncated file is rejected.
+   *
+   * @exception IOException if the file is rejected, as expected.
+   */
+  @Test(expectedExceptions = IOException.class)
+  public void testTruncated() throws IOException {
+    final byte[] columnar = columnar(rows(), CVR_COUNT);
+    final byte[] bytes = Arrays.copyOf(columnar, columnar.length / 2);
+    new ColumnarCVRReader(new ByteArrayInputStream(bytes)).read(the_row -> { });
+  }
+
+  /**
+   * A source of rows.
+   */
+  @FunctionalInterface
+  private interface RowSource {
+    /**
+     * Passes all the rows to a handler.
+     *
+     * @param the_handler The handler.
+     * @exception IOException if the handler throws one.
+     */
+    void readInto(RowHandler the_handler) throws IOException;
+  }
+}
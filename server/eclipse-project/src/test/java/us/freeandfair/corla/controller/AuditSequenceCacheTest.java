@@ -0,0 +1,67 @@
+/*
+ * Free & Fair Colorado RLA System
+ * 
+ * @title ColoradoRLA
+ * @created Oct 18, 2026
+ * @copyright 2026 Colorado Department of State
+ * @license SPDX-License-Identifier: AGPL-3.0-or-later
+ * @creator Daniel M. Zimmerman <dmz@freeandfair.us>
+ * @description A system to assist in conducting statewide risk-limiting audits.
+ */
+
+package us.freeandfair.corla.controller;
+
+import java.util.List;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import us.freeandfair.corla.crypto.PseudoRandomNumberGenerator;
+
+/**
+ * A test case for the AuditSequenceCache.
+ * 
+ * @author Daniel M. Zimmerman <dmz@freeandfair.us>
+ * @version 1.0.0
+ */
+// TestNG classes do not need constructors
+@SuppressWarnings("PMD.AtLeastOneConstructor")
+public class AuditSequenceCacheTest {
+  /**
+   * The seed used by the tests.
+   */
+  private static final String SEED = "3546311556112163624615351222";
+  
+  /**
+   * Checks that cached ranges match a fresh generator, that repeated requests
+   * are hits, and that a changed CVR count replaces the cached sequence.
+   */
+  @Test()
+  public void testCaching() {
+    final Long county = -1L;
+    AuditSequenceCache.invalidate(county);
+    final PseudoRandomNumberGenerator fresh = 
+        new PseudoRandomNumberGenerator(SEED, true, 0, 875);
+    
+    final long misses = AuditSequenceCache.misses();
+    final List<Integer> first = AuditSequenceCache.sequence(county, SEED, 876, 0, 99);
+    Assert.assertEquals(first, fresh.getRandomNumbers(0, 99));
+    Assert.assertEquals(AuditSequenceCache.misses(), misses + 1);
+    
+    final long hits = AuditSequenceCache.hits();
+    final List<Integer> prefix = AuditSequenceCache.sequence(county, SEED, 876, 10, 49);
+    Assert.assertEquals(prefix, fresh.getRandomNumbers(10, 49));
+    Assert.assertEquals(AuditSequenceCache.hits(), hits + 1);
+    
+    final List<Integer> extended = AuditSequenceCache.sequence(county, SEED, 876, 90, 199);
+    Assert.assertEquals(extended, fresh.getRandomNumbers(90, 199));
+    
+    final long invalidations = AuditSequenceCache.invalidations();
+    final PseudoRandomNumberGenerator smaller = 
+        new PseudoRandomNumberGenerator(SEED, true, 0, 499);
+    Assert.assertEquals(AuditSequenceCache.sequence(county, SEED, 500, 0, 99),
+                        smaller.getRandomNumbers(0, 99));
+    Assert.assertEquals(AuditSequenceCache.invalidations(), invalidations + 1);
+    AuditSequenceCache.invalidate(county);
+  }
+}
@@ -0,0 +1,107 @@
+/*
+ * Free & Fair Colorado RLA System
+ * 
+ * @title ColoradoRLA
+ * @created Oct 18, 2026
+ * @copyright 2026 Colorado Department of State
+ * @license SPDX-License-Identifier: AGPL-3.0-or-later
+ * @creator Daniel M. Zimmerman <dmz@freeandfair.us>
+ * @description A system to assist in conducting statewide risk-limiting audits.
+ */
+
+package us.freeandfair.corla.controller;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import us.freeandfair.corla.model.BallotManifestInfo;
+
+/**
+ * A test case for BallotManifestIndex.
+ *
+ * @author Daniel M. Zimmerman <dmz@freeandfair.us>
+ * @version 1.0.0
+ */
+// TestNG classes do not need constructors
+@SuppressWarnings("PMD.AtLeastOneConstructor")
+public class BallotManifestIndexTest {
+  /**
+   * The number of batches in the large manifest.
+   */
+  private static final int BATCHES = 100_000;
+
+  /**
+   * Checks every ballot of a small manifest, given out of order and with an
+   * empty batch, against the expected batch and position.
+   */
+  @Test()
+  public void testSmallManifest() {
+    final List<BallotManifestInfo> batches = new ArrayList<>();
+    batches.add(new BallotManifestInfo(1L, 2, 1, 2, "box 3"));
+    batches.add(new BallotManifestInfo(1L, 1, 2, 0, "box 2"));
+    batches.add(new BallotManifestInfo(1L, 1, 1, 3, "box 1"));
+    batches.add(new BallotManifestInfo(1L, 1, 3, 1, "box 2"));
+    final BallotManifestIndex index = new BallotManifestIndex(batches);
+
+    Assert.assertEquals(index.ballotCount(), 6);
+    Assert.assertEquals(index.batchCount(), 3);
+    final String[] expected_batches = {"1/1", "1/1", "1/1", "1/3", "2/1", "2/1"};
+    final int[] expected_positions = {1, 2, 3, 1, 1, 2};
+    for (int i = 0; i < expected_batches.length; i++) {
+      final BallotManifestIndex.Location location = index.locate(i);
+      Assert.assertEquals(location.batch().scannerID() + "/" + location.batch().batchID(),
+                          expected_batches[i]);
+      Assert.assertEquals(location.position(), expected_positions[i]);
+    }
+  }
+
+  /**
+   * Checks that ballot numbers outside the manifest are rejected.
+   */
+  @Test(expectedExceptions = IndexOutOfBoundsException.class)
+  public void testOutOfRange() {
+    final List<BallotManifestInfo> batches = new ArrayList<>();
+    batches.add(new BallotManifestInfo(1L, 1, 1, 3, "box 1"));
+    new BallotManifestIndex(batches).locate(3);
+  }
+
+  /**
+   * Checks random ballots of a large manifest against a linear scan.
+   */
+  @Test()
+  public void testLargeManifest() {
+    final Random random = new Random(2017);
+    final List<BallotManifestInfo> batches = new ArrayList<>();
+    for (int i = 0; i < BATCHES; i++) {
+      batches.add(new BallotManifestInfo(1L, i / 1000, i % 1000, random.nextInt(200),
+                                         "box " + i));
+    }
+    final List<BallotManifestInfo> shuffled = new ArrayList<>(batches);
+    Collections.shuffle(shuffled, random);
+    final BallotManifestIndex index = new BallotManifestIndex(shuffled);
+
+    long total = 0;
+    for (final BallotManifestInfo bmi : batches) {
+      total = total + bmi.batchSize();
+    }
+    Assert.assertEquals(index.ballotCount(), total);
+
+    for (int n = 0; n < 1000; n++) {
+      final long ballot = (long) (random.nextDouble() * total);
+      long start = 0;
+      int batch = 0;
+      while (start + batches.get(batch).batchSize() <= ballot) {
+        start = start + batches.get(batch).batchSize();
+        batch = batch + 1;
+      }
+      final BallotManifestIndex.Location location = index.locate(ballot);
+      Assert.assertSame(location.batch(), batches.get(batch));
+      Assert.assertEquals(location.position(), ballot - start + 1);
+    }
+  }
+}
@@ -11,6 +11,11 @@
 
 package us.freeandfair.corla.crypto;
 
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
@@ -42,4 +47,86 @@ public class PseudoRandomNumberGeneratorTest {
         537, 197);
     Assert.assertEquals(numbers, expected);
   }
+  
+  /**
+   * Checks the generator against the original String/BigInteger implementation
+   * for several seeds and ranges, with and without replacement.
+   */
+  @Test()
+  public void testGoldenVectors() throws NoSuchAlgorithmException {
+    final String[] seeds = {"3546311556112163624615351222", "01234567890123456789",
+                            "99999999999999999999999999999999999999999999"};
+    final int[][] ranges = {{1, 876}, {0, 1}, {0, 99999}, {0, Integer.MAX_VALUE - 1},
+                            {-50, 50}};
+    for (final String seed : seeds) {
+      for (final int[] range : ranges) {
+        final PseudoRandomNumberGenerator gen =
+            new PseudoRandomNumberGenerator(seed, true, range[0], range[1]);
+        Assert.assertEquals(gen.getRandomNumbers(0, 1999),
+                            reference(seed, true, range[0], range[1], 2000));
+      }
+      final PseudoRandomNumberGenerator gen =
+          new PseudoRandomNumberGenerator(seed, false, 1, 876);
+      Assert.assertEquals(gen.getRandomNumbers(0, 499),
+                          reference(seed, false, 1, 876, 500));
+    }
+  }
+  
+  /**
+   * Checks that single-index, array and list range queries agree, regardless
+   * of the order in which they extend the sequence.
+   */
+  @Test()
+  public void testRangeQueries() {
+    final String seed = "3546311556112163624615351222";
+    final PseudoRandomNumberGenerator gen =
+        new PseudoRandomNumberGenerator(seed, true, 0, 12345);
+    final List<Integer> later = gen.getRandomNumbers(300, 999);
+    final List<Integer> earlier = gen.getRandomNumbers(0, 299);
+    final int[] all = gen.getRandomNumberArray(0, 999);
+    Assert.assertEquals(gen.size(), 1000);
+    for (int i = 0; i < all.length; i++) {
+      Assert.assertEquals(gen.getRandomNumber(i), all[i]);
+      if (i < 300) {
+        Assert.assertEquals(earlier.get(i).intValue(), all[i]);
+      } else {
+        Assert.assertEquals(later.get(i - 300).intValue(), all[i]);
+      }
+    }
+  }
+  
+  /**
+   * The original implementation of the generator, which hashes a freshly
+   * built String and reduces the digest with BigInteger arithmetic.
+   * 
+   * @param the_seed The seed.
+   * @param the_with_replacement true to allow repeats.
+   * @param the_minimum The minimum value.
+   * @param the_maximum The maximum value.
+   * @param the_length The number of values to generate.
+   * @return the generated values.
+   */
+  private List<Integer> reference(final String the_seed, 
+                                  final boolean the_with_replacement,
+                                  final int the_minimum, final int the_maximum,
+                                  final int the_length) 
+      throws NoSuchAlgorithmException {
+    final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+    final List<Integer> result = new ArrayList<>();
+    int count = 0;
+    while (result.size() < the_length) {
+      count++;
+      final String hash_input = the_seed + "," + count;
+      final byte[] hash_output = 
+          digest.digest(hash_input.getBytes(StandardCharsets.UTF_8));
+      final BigInteger int_output = new BigInteger(1, hash_output);
+      final BigInteger in_range = 
+          int_output.mod(BigInteger.valueOf((long) the_maximum - the_minimum + 1));
+      final int pick = the_minimum + in_range.intValueExact();
+      if (the_with_replacement || !result.contains(pick)) {
+        result.add(pick);
+      }
+    }
+    return result;
+  }
 }
@@ -0,0 +1,82 @@
+/*
+ * Free & Fair Colorado RLA System
+ * 
+ * @title ColoradoRLA
+ * @created Oct 18, 2026
+ * @copyright 2026 Colorado Department of State
+ * @license SPDX-License-Identifier: AGPL-3.0-or-later
+ * @creator Daniel M. Zimmerman <dmz@freeandfair.us>
+ * @description A system to assist in conducting statewide risk-limiting audits.
+ */
+
+package us.freeandfair.corla.csv;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * A test case for CSVRecordChunker.
+ *
+ * @author Daniel M. Zimmerman <dmz@freeandfair.us>
+ * @version 1.0.0
+ */
+// TestNG classes do not need constructors
+@SuppressWarnings("PMD.AtLeastOneConstructor")
+public class CSVRecordChunkerTest {
+  /**
+   * Checks that chunking and then tokenizing each chunk yields the same 
+   * records as tokenizing the whole text, for every chunk size, with quoted 
+   * line breaks, mixed line terminators, empty lines and no final terminator.
+   *
+   * @exception IOException if the text cannot be read.
+   */
+  @Test()
+  public void testChunksMatchWholeParse() throws IOException {
+    final String text = "=\"1\",\"a\"\r\n=\"2\",\"b\nc\"\n\n=\"3\",\"d\"\"e\"\r" + 
+                        "\r\n=\"4\",\"f\r\ng\"\r\n=\"5\",\"\"";
+    final List<List<String>> expected = 
+        tokenize(CSVParser.parse(text, CSVFormat.DEFAULT).getRecords());
+    Assert.assertEquals(expected.size(), 5);
+
+    for (int size = 1; size <= expected.size() + 1; size++) {
+      final CSVRecordChunker chunker = new CSVRecordChunker(new StringReader(text));
+      final List<List<String>> actual = new ArrayList<>();
+      CSVRecordChunker.Chunk chunk = chunker.next(size);
+      while (chunk != null) {
+        final List<CSVRecord> records = 
+            CSVParser.parse(chunk.text(), CSVFormat.DEFAULT).getRecords();
+        Assert.assertEquals(records.size(), chunk.records());
+        Assert.assertTrue(chunk.records() <= size);
+        actual.addAll(tokenize(records));
+        chunk = chunker.next(size);
+      }
+      Assert.assertEquals(actual, expected);
+    }
+  }
+
+  /**
+   * Converts records to lists of values.
+   *
+   * @param the_records The records.
+   * @return the values.
+   */
+  private List<List<String>> tokenize(final List<CSVRecord> the_records) {
+    final List<List<String>> result = new ArrayList<>();
+    for (final CSVRecord record : the_records) {
+      final List<String> values = new ArrayList<>();
+      for (final String value : record) {
+        values.add(value);
+      }
+      result.add(values);
+    }
+    return result;
+  }
+}
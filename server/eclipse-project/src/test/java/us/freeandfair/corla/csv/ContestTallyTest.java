@@ -0,0 +1,101 @@
+/*
+ * Free & Fair Colorado RLA System
+ * 
+ * @title ColoradoRLA
+ * @created Oct 18, 2026
+ * @copyright 2026 Colorado Department of State
+ * @license SPDX-License-Identifier: AGPL-3.0-or-later
+ * @creator Daniel M. Zimmerman <dmz@freeandfair.us>
+ * @description A system to assist in conducting statewide risk-limiting audits.
+ */
+
+package us.freeandfair.corla.csv;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import us.freeandfair.corla.model.CVRContestInfo;
+import us.freeandfair.corla.model.CastVoteRecord;
+import us.freeandfair.corla.model.CastVoteRecord.RecordType;
+import us.freeandfair.corla.model.Choice;
+import us.freeandfair.corla.model.Contest;
+import us.freeandfair.corla.model.County;
+import us.freeandfair.corla.model.CountyContestResult;
+
+/**
+ * A test case for ContestTally.
+ *
+ * @author Daniel M. Zimmerman <dmz@freeandfair.us>
+ * @version 1.0.0
+ */
+// TestNG classes do not need constructors
+@SuppressWarnings("PMD.AtLeastOneConstructor")
+public class ContestTallyTest {
+  /**
+   * Checks that tallying CVRs and adding the tally to the results gives the
+   * same results as adding the CVRs to the results one at a time.
+   */
+  @Test()
+  public void testMatchesAddCVR() {
+    final County county = new County("Test", 1L);
+    final List<Contest> contests = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      final List<Choice> choices = new ArrayList<>();
+      for (int j = 0; j <= i + 1; j++) {
+        choices.add(new Choice("choice " + j, "", false, false));
+      }
+      choices.add(new Choice("Write-in", "", false, true));
+      contests.add(new Contest("contest " + i, county, "", choices, 1, 1, i));
+    }
+
+    final List<CountyContestResult> expected = new ArrayList<>();
+    final List<CountyContestResult> actual = new ArrayList<>();
+    for (final Contest c : contests) {
+      expected.add(new CountyContestResult(county, c));
+      actual.add(new CountyContestResult(county, c));
+    }
+    final ContestTally tally = new ContestTally(contests);
+
+    final Random random = new Random(2017);
+    for (int n = 0; n < 500; n++) {
+      final List<CVRContestInfo> info = new ArrayList<>();
+      for (final Contest c : contests) {
+        final int pick = random.nextInt(c.choices().size() + 1);
+        if (pick < c.choices().size() - 1) {
+          info.add(new CVRContestInfo(c, null, null,
+                                      Arrays.asList(c.choices().get(pick).name())));
+        } else if (pick == c.choices().size() - 1) {
+          // an undervote
+          info.add(new CVRContestInfo(c, null, null, Collections.emptyList()));
+        }
+        // otherwise, the contest is not on this ballot
+      }
+      final CastVoteRecord cvr =
+          new CastVoteRecord(RecordType.UPLOADED, null, county.id(), n, n, 1, 1, n,
+                             "1-1-" + n, "style", info);
+      for (final CountyContestResult r : expected) {
+        r.addCVR(cvr);
+      }
+      tally.add(cvr);
+    }
+
+    for (int i = 0; i < contests.size(); i++) {
+      tally.addTo(i, actual.get(i));
+      expected.get(i).updateResults();
+      actual.get(i).updateResults();
+      Assert.assertEquals(actual.get(i).voteTotals(), expected.get(i).voteTotals());
+      Assert.assertEquals(actual.get(i).contestBallotCount(),
+                          expected.get(i).contestBallotCount());
+      Assert.assertEquals(actual.get(i).countyBallotCount(),
+                          expected.get(i).countyBallotCount());
+      Assert.assertEquals(actual.get(i).winners(), expected.get(i).winners());
+      Assert.assertEquals(actual.get(i).minMargin(), expected.get(i).minMargin());
+    }
+  }
+}
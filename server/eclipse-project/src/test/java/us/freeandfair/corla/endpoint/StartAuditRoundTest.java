@@ -0,0 +1,115 @@
+/*
+ * Free & Fair Colorado RLA System
+ * 
+ * @title ColoradoRLA
+ * @created Oct 18, 2026
+ * @copyright 2026 Colorado Department of State
+ * @license SPDX-License-Identifier: AGPL-3.0-or-later
+ * @creator Daniel M. Zimmerman <dmz@freeandfair.us>
+ * @description A system to assist in conducting statewide risk-limiting audits.
+ */
+
+package us.freeandfair.corla.endpoint;
+
+import static us.freeandfair.corla.asm.ASMEvent.AuditBoardDashboardEvent.*;
+import static us.freeandfair.corla.asm.ASMEvent.CountyDashboardEvent.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import us.freeandfair.corla.asm.AuditBoardDashboardASM;
+import us.freeandfair.corla.asm.CountyDashboardASM;
+import us.freeandfair.corla.model.County;
+import us.freeandfair.corla.model.CountyDashboard;
+
+/**
+ * A test case for the choice of counties in which StartAuditRound starts
+ * rounds, when a round start is retried after starting some of them.
+ *
+ * @author Daniel M. Zimmerman <dmz@freeandfair.us>
+ * @version 1.0.0
+ */
+// TestNG classes do not need constructors
+@SuppressWarnings("PMD.AtLeastOneConstructor")
+public class StartAuditRoundTest {
+  /**
+   * Checks that a county's audit counts as started once round 1 has been
+   * started in it, whether or not it made the upload deadline.
+   */
+  @Test()
+  public void testAuditStarted() {
+    final CountyDashboardASM waiting = new CountyDashboardASM("1");
+    Assert.assertFalse(StartAuditRound.auditStarted(waiting));
+
+    final CountyDashboardASM missed = new CountyDashboardASM("2");
+    missed.stepEvent(COUNTY_START_AUDIT_EVENT);
+    Assert.assertTrue(StartAuditRound.auditStarted(missed));
+
+    final CountyDashboardASM underway = new CountyDashboardASM("3");
+    underway.stepEvent(IMPORT_BALLOT_MANIFEST_EVENT);
+    underway.stepEvent(IMPORT_CVRS_EVENT);
+    underway.stepEvent(CVR_IMPORT_SUCCESS_EVENT);
+    Assert.assertFalse(StartAuditRound.auditStarted(underway));
+    underway.stepEvent(COUNTY_START_AUDIT_EVENT);
+    Assert.assertTrue(StartAuditRound.auditStarted(underway));
+    Assert.assertFalse(underway.isInFinalState());
+  }
+
+  /**
+   * Checks that counties already in a round are skipped when so requested,
+   * along with counties with no audit ongoing.
+   */
+  @Test()
+  public void testSkipStartedCounties() {
+    final Map<Long, AuditBoardDashboardASM> asms = new HashMap<>();
+    final List<CountyDashboard> cdbs = counties(asms);
+
+    Assert.assertEquals(StartAuditRound.countiesToStart(cdbs, asms::get, true),
+                        Arrays.asList(4L, 5L));
+  }
+
+  /**
+   * Checks that a county already in a round is an error when started counties
+   * are not to be skipped.
+   */
+  @Test(expectedExceptions = IllegalStateException.class,
+        expectedExceptionsMessageRegExp = ".* county 3")
+  public void testStartedCountyIsError() {
+    final Map<Long, AuditBoardDashboardASM> asms = new HashMap<>();
+    StartAuditRound.countiesToStart(counties(asms), asms::get, false);
+  }
+
+  /**
+   * Creates five county dashboards: 1 with no audit ongoing, 2 with its audit
+   * complete, 3 in the middle of a round, and 4 and 5 waiting for a round.
+   *
+   * @param the_asms A map in which to place the audit board ASMs.
+   * @return the dashboards.
+   */
+  private static List<CountyDashboard> counties(final Map<Long, AuditBoardDashboardASM>
+                                                    the_asms) {
+    final List<CountyDashboard> result = new ArrayList<>();
+    for (long id = 1; id <= 5; id++) {
+      final CountyDashboard cdb = new CountyDashboard(new County("County " + id, id));
+      final AuditBoardDashboardASM asm = new AuditBoardDashboardASM(String.valueOf(id));
+      if (id == 2) {
+        asm.stepEvent(RISK_LIMIT_ACHIEVED_EVENT);
+      } else if (id > 2) {
+        asm.stepEvent(SIGN_IN_AUDIT_BOARD_EVENT);
+      }
+      if (id == 3) {
+        asm.stepEvent(ROUND_START_EVENT);
+        cdb.startRound(1, 1, 0, Arrays.asList(10L), Arrays.asList(10L));
+      }
+      the_asms.put(id, asm);
+      result.add(cdb);
+    }
+    return result;
+  }
+}
@@ -0,0 +1,152 @@
+/*
+ * Free & Fair Colorado RLA System
+ * 
+ * @title ColoradoRLA
+ * @created Oct 18, 2026
+ * @copyright 2026 Colorado Department of State
+ * @license SPDX-License-Identifier: AGPL-3.0-or-later
+ * @creator Daniel M. Zimmerman <dmz@freeandfair.us>
+ * @description A system to assist in conducting statewide risk-limiting audits.
+ */
+
+package us.freeandfair.corla.json;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonWriter;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import us.freeandfair.corla.Main;
+import us.freeandfair.corla.model.CVRContestInfo;
+import us.freeandfair.corla.model.CVRContestInfo.ConsensusValue;
+import us.freeandfair.corla.model.CastVoteRecord;
+import us.freeandfair.corla.model.CastVoteRecord.RecordType;
+import us.freeandfair.corla.model.Choice;
+import us.freeandfair.corla.model.Contest;
+
+/**
+ * A test case for CastVoteRecordRowJsonWriter.
+ *
+ * @author Daniel M. Zimmerman <dmz@freeandfair.us>
+ * @version 1.0.0
+ */
+// TestNG classes do not need constructors
+@SuppressWarnings("PMD.AtLeastOneConstructor")
+public class CastVoteRecordRowJsonWriterTest {
+  /**
+   * Creates a contest.
+   *
+   * @param the_id The ID.
+   * @return the contest.
+   */
+  private Contest contest(final long the_id) {
+    final List<Choice> choices = new ArrayList<>();
+    for (final String name : Arrays.asList("Alice", "Bob", "Carol \"C\" Jones")) {
+      choices.add(new Choice(name, "", false, false));
+    }
+    final Contest result = new Contest("Contest " + the_id, null, "", choices, 1, 1, 0);
+    result.setID(the_id);
+    return result;
+  }
+
+  /**
+   * Creates a CVR.
+   *
+   * @param the_id The ID.
+   * @param the_type The record type.
+   * @param the_sequence_number The sequence number.
+   * @param the_contest_info The contest information.
+   * @return the CVR.
+   */
+  private CastVoteRecord cvr(final long the_id, final RecordType the_type,
+                             final Integer the_sequence_number,
+                             final List<CVRContestInfo> the_contest_info) {
+    final CastVoteRecord result =
+        new CastVoteRecord(the_type, Instant.parse("2017-11-07T12:00:00Z"), 3L,
+                           (int) the_id + 100, the_sequence_number, 1, 2, (int) the_id,
+                           "1-2-" + the_id, "ballot type", the_contest_info);
+    result.setID(the_id);
+    return result;
+  }
+
+  /**
+   * Converts a CVR to the rows CastVoteRecordRows would read for it.
+   *
+   * @param the_cvr The CVR.
+   * @return the rows.
+   */
+  private List<Object[]> rows(final CastVoteRecord the_cvr) {
+    final List<Object[]> result = new ArrayList<>();
+    final Object[] cvr_columns = {
+      the_cvr.id(), the_cvr.recordType(), the_cvr.timestamp(), the_cvr.countyID(),
+      the_cvr.cvrNumber(), the_cvr.sequenceNumber(), the_cvr.scannerID(),
+      the_cvr.batchID(), the_cvr.recordID(), the_cvr.imprintedID(), the_cvr.ballotType()
+    };
+    if (the_cvr.contestInfo().isEmpty()) {
+      final Object[] row = Arrays.copyOf(cvr_columns, cvr_columns.length + 5);
+      result.add(row);
+    }
+    for (final CVRContestInfo ci : the_cvr.contestInfo()) {
+      final Object[] row = Arrays.copyOf(cvr_columns, cvr_columns.length + 5);
+      row[cvr_columns.length] = ci.contest().id();
+      row[cvr_columns.length + 1] = ci.comment();
+      row[cvr_columns.length + 2] = ci.consensus();
+      row[cvr_columns.length + 3] = ci.choices();
+      row[cvr_columns.length + 4] = ci.contest().name();
+      result.add(row);
+    }
+    return result;
+  }
+
+  /**
+   * Checks that CVRs written from rows are the same JSON as the entities
+   * written by Main.GSON, as the CVR download endpoints used to write them.
+   *
+   * @exception IOException if the JSON cannot be written.
+   */
+  @Test()
+  public void testSameAsEntityJson() throws IOException {
+    final List<CastVoteRecord> cvrs = new ArrayList<>();
+    cvrs.add(cvr(1, RecordType.UPLOADED, 7, Arrays.asList(
+        new CVRContestInfo(contest(10), null, null, Arrays.asList("Alice", "Bob")),
+        new CVRContestInfo(contest(11), null, null, new ArrayList<>()))));
+    cvrs.add(cvr(2, RecordType.AUDITOR_ENTERED, null, Arrays.asList(
+        new CVRContestInfo(contest(10), "smudged", ConsensusValue.NO,
+                           Arrays.asList("Carol \"C\" Jones")))));
+    cvrs.add(cvr(3, RecordType.PHANTOM_BALLOT, null, new ArrayList<>()));
+
+    final StringWriter expected = new StringWriter();
+    final StringWriter actual = new StringWriter();
+    try (JsonWriter expected_writer = new JsonWriter(expected);
+         JsonWriter actual_writer = new JsonWriter(actual)) {
+      final CastVoteRecordRowJsonWriter writer =
+          new CastVoteRecordRowJsonWriter(actual_writer);
+      expected_writer.beginArray();
+      actual_writer.beginArray();
+      for (final CastVoteRecord cvr : cvrs) {
+        expected_writer.jsonValue(Main.GSON.toJson(cvr));
+        for (final Object[] row : rows(cvr)) {
+          writer.handle(row);
+        }
+      }
+      writer.finish();
+      expected_writer.endArray();
+      actual_writer.endArray();
+      Assert.assertEquals(writer.count(), cvrs.size());
+    }
+
+    final JsonParser parser = new JsonParser();
+    final JsonArray expected_json = parser.parse(expected.toString()).getAsJsonArray();
+    final JsonArray actual_json = parser.parse(actual.toString()).getAsJsonArray();
+    Assert.assertEquals(actual_json, expected_json);
+  }
+}
@@ -0,0 +1,104 @@
+/*
+ * Free & Fair Colorado RLA System
+ * 
+ * @title ColoradoRLA
+ * @created Oct 18, 2026
+ * @copyright 2026 Colorado Department of State
+ * @license SPDX-License-Identifier: AGPL-3.0-or-later
+ * @creator Daniel M. Zimmerman <dmz@freeandfair.us>
+ * @description A system to assist in conducting statewide risk-limiting audits.
+ */
+
+package us.freeandfair.corla.model;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import us.freeandfair.corla.model.CastVoteRecord.RecordType;
+
+/**
+ * A test case for BallotReportFact.
+ *
+ * @author Daniel M. Zimmerman <dmz@freeandfair.us>
+ * @version 1.0.0
+ */
+// TestNG classes do not need constructors
+@SuppressWarnings("PMD.AtLeastOneConstructor")
+public class BallotReportFactTest {
+  /**
+   * Creates a CVR.
+   *
+   * @param the_id The ID.
+   * @param the_type The record type.
+   * @param the_scanner_id The scanner ID.
+   * @param the_batch_id The batch ID.
+   * @param the_record_id The record ID.
+   * @return the CVR.
+   */
+  private CastVoteRecord cvr(final long the_id, final RecordType the_type,
+                             final int the_scanner_id, final int the_batch_id,
+                             final int the_record_id) {
+    final CastVoteRecord result =
+        new CastVoteRecord(the_type, Instant.now(), 1L, (int) the_id, null,
+                           the_scanner_id, the_batch_id, the_record_id,
+                           the_scanner_id + "-" + the_batch_id + "-" + the_record_id,
+                           "ballot", new ArrayList<>());
+    result.setID(the_id);
+    return result;
+  }
+
+  /**
+   * Checks that a fact follows its CVRAuditInfo through an audit and an
+   * unaudit, as the report listings did when computed from the CVRAuditInfo.
+   */
+  @Test()
+  public void testUpdate() {
+    final CVRAuditInfo info = new CVRAuditInfo(cvr(7, RecordType.UPLOADED, 1, 2, 3));
+    final BallotReportFact fact = new BallotReportFact(info);
+    Assert.assertEquals(fact.id(), Long.valueOf(7));
+    Assert.assertEquals(fact.countyID(), Long.valueOf(1));
+    Assert.assertEquals(fact.imprintedID(), "1-2-3");
+    Assert.assertFalse(fact.audited());
+    Assert.assertTrue(fact.discrepancy().isEmpty());
+
+    info.setACVR(cvr(8, RecordType.AUDITOR_ENTERED, 1, 2, 3));
+    info.setDiscrepancy(EnumSet.of(AuditReason.COUNTY_WIDE_CONTEST));
+    info.setDisagreement(EnumSet.of(AuditReason.CLOSE_CONTEST));
+    fact.update(info);
+    Assert.assertTrue(fact.audited());
+    Assert.assertEquals(fact.discrepancy(), EnumSet.of(AuditReason.COUNTY_WIDE_CONTEST));
+    Assert.assertEquals(fact.disagreement(), EnumSet.of(AuditReason.CLOSE_CONTEST));
+
+    info.setDiscrepancy(null);
+    info.setDisagreement(null);
+    fact.update(info);
+    Assert.assertTrue(fact.discrepancy().isEmpty());
+    Assert.assertTrue(fact.disagreement().isEmpty());
+
+    info.setACVR(cvr(9, RecordType.PHANTOM_BALLOT, 1, 2, 3));
+    fact.update(info);
+    Assert.assertFalse(fact.audited());
+  }
+
+  /**
+   * Checks that facts sort in ballot order.
+   */
+  @Test()
+  public void testBallotOrder() {
+    final BallotReportFact first =
+        new BallotReportFact(new CVRAuditInfo(cvr(3, RecordType.UPLOADED, 1, 2, 10)));
+    final BallotReportFact second =
+        new BallotReportFact(new CVRAuditInfo(cvr(1, RecordType.UPLOADED, 1, 3, 1)));
+    final BallotReportFact third =
+        new BallotReportFact(new CVRAuditInfo(cvr(2, RecordType.UPLOADED, 2, 1, 1)));
+    final List<BallotReportFact> facts = new ArrayList<>(Arrays.asList(third, first, second));
+    facts.sort(new BallotReportFact.BallotOrderComparator());
+    Assert.assertEquals(facts, Arrays.asList(first, second, third));
+  }
+}
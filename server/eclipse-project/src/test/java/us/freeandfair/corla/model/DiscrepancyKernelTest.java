@@ -0,0 +1,193 @@
+/*
+ * Free & Fair Colorado RLA System
+ * 
+ * @title ColoradoRLA
+ * @created Oct 18, 2026
+ * @copyright 2026 Colorado Department of State
+ * @license SPDX-License-Identifier: AGPL-3.0-or-later
+ * @creator Daniel M. Zimmerman <dmz@freeandfair.us>
+ * @description A system to assist in conducting statewide risk-limiting audits.
+ */
+
+package us.freeandfair.corla.model;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.Set;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * A test case for DiscrepancyKernel.
+ *
+ * @author Daniel M. Zimmerman <dmz@freeandfair.us>
+ * @version 1.0.0
+ */
+// TestNG classes do not need constructors
+@SuppressWarnings("PMD.AtLeastOneConstructor")
+public class DiscrepancyKernelTest {
+  /**
+   * The number of choices in the test contests.
+   */
+  private static final int CHOICES = 4;
+
+  /**
+   * Checks the kernel against a direct pairwise computation for every pair
+   * of CVR and ACVR choice sets, with 1, 2 and 4 winners allowed (the last
+   * having no losers), including overvotes.
+   */
+  @Test()
+  public void testAllChoiceSets() {
+    for (final int winners : new int[] {1, 2, CHOICES}) {
+      final CountyContestResult result = result(winners);
+      final DiscrepancyKernel kernel = new DiscrepancyKernel(result);
+      for (int cvr = 0; cvr < 1 << CHOICES; cvr++) {
+        final List<String> cvr_choices = choices(cvr);
+        final long cvr_mask = kernel.mask(cvr_choices);
+        Assert.assertEquals(kernel.phantomDiscrepancy(cvr_mask),
+                            referencePhantom(result, cvr_choices));
+        for (int acvr = 0; acvr < 1 << CHOICES; acvr++) {
+          final List<String> acvr_choices = choices(acvr);
+          Assert.assertEquals(kernel.auditedDiscrepancy(cvr_mask, kernel.mask(acvr_choices),
+                                                        acvr_choices.size()),
+                              reference(result, cvr_choices, acvr_choices),
+                              "winners " + winners + ", cvr " + cvr_choices +
+                              ", acvr " + acvr_choices);
+        }
+      }
+    }
+  }
+
+  /**
+   * Checks that unknown choices, and contests with too many choices, are
+   * reported as unrepresentable.
+   */
+  @Test()
+  public void testUnknown() {
+    final DiscrepancyKernel kernel = new DiscrepancyKernel(result(1));
+    final List<String> unknown = new ArrayList<>();
+    unknown.add("nobody");
+    Assert.assertEquals(kernel.mask(unknown), DiscrepancyKernel.UNKNOWN);
+
+    final County county = new County("Test", 1L);
+    final List<Choice> choices = new ArrayList<>();
+    for (int i = 0; i <= DiscrepancyKernel.MAX_CHOICES; i++) {
+      choices.add(new Choice("choice " + i, "", false, false));
+    }
+    final Contest contest = new Contest("large", county, "", choices, 1, 1, 0);
+    final CountyContestResult large = new CountyContestResult(county, contest);
+    large.updateResults();
+    Assert.assertEquals(new DiscrepancyKernel(large).mask(new ArrayList<>()),
+                        DiscrepancyKernel.UNKNOWN);
+  }
+
+  /**
+   * Creates a contest result with CHOICES choices, where choice i has
+   * CHOICES - i votes.
+   *
+   * @param the_winners The number of winners allowed, which is also the
+   * number of votes allowed.
+   * @return the result.
+   */
+  private CountyContestResult result(final int the_winners) {
+    final County county = new County("Test", 1L);
+    final List<Choice> choices = new ArrayList<>();
+    for (int i = 0; i < CHOICES; i++) {
+      choices.add(new Choice("choice " + i, "", false, false));
+    }
+    final Contest contest = new Contest("test", county, "", choices, the_winners,
+                                        the_winners, 0);
+    final CountyContestResult result = new CountyContestResult(county, contest);
+    final Map<String, Integer> votes = new HashMap<>();
+    for (int i = 0; i < CHOICES; i++) {
+      votes.put("choice " + i, CHOICES - i);
+    }
+    result.addTally(votes, CHOICES, CHOICES);
+    result.updateResults();
+    return result;
+  }
+
+  /**
+   * @param the_bits A set of choices as bits.
+   * @return the list of choice names.
+   */
+  private List<String> choices(final int the_bits) {
+    final List<String> result = new ArrayList<>();
+    for (int i = 0; i < CHOICES; i++) {
+      if ((the_bits & 1 << i) != 0) {
+        result.add("choice " + i);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Computes a discrepancy pair by pair, as the audit did before the kernel.
+   *
+   * @param the_result The contest result.
+   * @param the_cvr The CVR choices.
+   * @param the_acvr The ACVR choices.
+   * @return the discrepancy.
+   */
+  private OptionalInt reference(final CountyContestResult the_result,
+                                final List<String> the_cvr, final List<String> the_acvr) {
+    final Set<String> acvr = new HashSet<>();
+    if (the_acvr.size() <= the_result.contest().votesAllowed()) {
+      acvr.addAll(the_acvr);
+    }
+    final Set<String> cvr = new HashSet<>(the_cvr);
+    if (cvr.equals(acvr)) {
+      return OptionalInt.empty();
+    }
+    int raw = Integer.MIN_VALUE;
+    boolean understatement = true;
+    for (final String w : the_result.winners()) {
+      final int wc = change(w, cvr, acvr);
+      if (the_result.losers().isEmpty()) {
+        raw = Math.max(raw, -wc);
+      }
+      for (final String l : the_result.losers()) {
+        final int d = change(l, cvr, acvr) - wc;
+        raw = Math.max(raw, d);
+        understatement &= d < 0;
+      }
+    }
+    if (understatement) {
+      return OptionalInt.of(raw);
+    }
+    return OptionalInt.of(Math.max(0, raw));
+  }
+
+  /**
+   * Computes a phantom ballot discrepancy as the audit did before the kernel.
+   *
+   * @param the_result The contest result.
+   * @param the_cvr The CVR choices.
+   * @return the discrepancy.
+   */
+  private int referencePhantom(final CountyContestResult the_result,
+                               final List<String> the_cvr) {
+    final Set<String> winner_votes = new HashSet<>(the_cvr);
+    winner_votes.removeAll(the_result.losers());
+    if (winner_votes.isEmpty()) {
+      return 1;
+    }
+    return 2;
+  }
+
+  /**
+   * @param the_choice A choice.
+   * @param the_cvr The CVR choices.
+   * @param the_acvr The ACVR choices.
+   * @return the change in the choice's votes from CVR to ACVR.
+   */
+  private int change(final String the_choice, final Set<String> the_cvr,
+                     final Set<String> the_acvr) {
+    return Boolean.compare(the_acvr.contains(the_choice), the_cvr.contains(the_choice));
+  }
+}
@@ -0,0 +1,50 @@
+/*
+ * Free & Fair Colorado RLA System
+ * 
+ * @title ColoradoRLA
+ * @created Oct 18, 2026
+ * @copyright 2026 Colorado Department of State
+ * @license SPDX-License-Identifier: AGPL-3.0-or-later
+ * @creator Daniel M. Zimmerman <dmz@freeandfair.us>
+ * @description A system to assist in conducting statewide risk-limiting audits.
+ */
+
+package us.freeandfair.corla.model;
+
+import java.time.Instant;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * A test case for the LogEntry hash chain.
+ *
+ * @author Daniel M. Zimmerman <dmz@freeandfair.us>
+ * @version 1.0.0
+ */
+// TestNG classes do not need constructors
+@SuppressWarnings("PMD.AtLeastOneConstructor")
+public class LogEntryTest {
+  /**
+   * Checks that the hashes of a chain of entries can be recomputed from their
+   * contents alone, as the log verifier does.
+   */
+  @Test()
+  public void testChainHash() {
+    final Instant now = Instant.parse("2017-11-07T12:00:00.123Z");
+    final LogEntry first = new LogEntry(200, "/first", "admin", "host", now, null);
+    final LogEntry second =
+        new LogEntry(404, "/second", "admin", "host", now.plusSeconds(1), first);
+
+    Assert.assertEquals(first.hash().length(), LogEntry.ROOT_HASH.length());
+    Assert.assertEquals(LogEntry.chainHash(LogEntry.hashString(200, "/first", now),
+                                           LogEntry.ROOT_HASH),
+                        first.hash());
+    Assert.assertEquals(LogEntry.chainHash(LogEntry.hashString(404, "/second",
+                                                               now.plusSeconds(1)),
+                                           first.hash()),
+                        second.hash());
+    Assert.assertNotEquals(LogEntry.chainHash(second.hashString(), LogEntry.ROOT_HASH),
+                           second.hash());
+  }
+}
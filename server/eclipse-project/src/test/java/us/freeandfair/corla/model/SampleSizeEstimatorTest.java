@@ -0,0 +1,68 @@
+/*
+ * Free & Fair Colorado RLA System
+ * 
+ * @title ColoradoRLA
+ * @created Oct 18, 2026
+ * @copyright 2026 Colorado Department of State
+ * @license SPDX-License-Identifier: AGPL-3.0-or-later
+ * @creator Daniel M. Zimmerman <dmz@freeandfair.us>
+ * @description A system to assist in conducting statewide risk-limiting audits.
+ */
+
+package us.freeandfair.corla.model;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * A test case for SampleSizeEstimator.
+ *
+ * @author Daniel M. Zimmerman <dmz@freeandfair.us>
+ * @version 1.0.0
+ */
+// TestNG classes do not need constructors
+@SuppressWarnings("PMD.AtLeastOneConstructor")
+public class SampleSizeEstimatorTest {
+  /**
+   * Checks that the double precision computation matches the reference
+   * computation over a range of margins, risk limits and discrepancy counts.
+   */
+  @Test()
+  public void testMatchesReference() {
+    for (final String risk_limit : new String[] {"0.1", "0.05", "0.03", "0.01"}) {
+      final SampleSizeEstimator estimator =
+          SampleSizeEstimator.forParameters(CountyContestComparisonAudit.GAMMA,
+                                            new BigDecimal(risk_limit));
+      for (int ballots = 1000; ballots <= 1_000_000; ballots = ballots * 10) {
+        for (int margin = 1; margin <= ballots / 2; margin = margin * 3) {
+          final BigDecimal diluted_margin =
+              BigDecimal.valueOf(margin).divide(BigDecimal.valueOf(ballots),
+                                                MathContext.DECIMAL128);
+          for (int over = 0; over < 4; over++) {
+            for (int under = 0; under < 3; under++) {
+              Assert.assertEquals(estimator.samplesToAudit(diluted_margin, under, under,
+                                                           over, over / 2),
+                                  estimator.referenceSamplesToAudit(diluted_margin, under,
+                                                                    under, over,
+                                                                    over / 2).intValue());
+            }
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Checks that estimators are shared between equal parameters.
+   */
+  @Test()
+  public void testCaching() {
+    Assert.assertSame(SampleSizeEstimator.forParameters(new BigDecimal("1.10"),
+                                                        new BigDecimal("0.1")),
+                      SampleSizeEstimator.forParameters(new BigDecimal("1.1"),
+                                                        new BigDecimal("0.10")));
+  }
+}
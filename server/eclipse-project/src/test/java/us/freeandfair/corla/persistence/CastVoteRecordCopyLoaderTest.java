@@ -0,0 +1,257 @@
+/*
+ * Free & Fair Colorado RLA System
+ * 
+ * @title ColoradoRLA
+ * @created Oct 18, 2026
+ * @copyright 2026 Colorado Department of State
+ * @license SPDX-License-Identifier: AGPL-3.0-or-later
+ * @creator Daniel M. Zimmerman <dmz@freeandfair.us>
+ * @description A system to assist in conducting statewide risk-limiting audits.
+ */
+
+package us.freeandfair.corla.persistence;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import us.freeandfair.corla.model.CVRContestInfo;
+import us.freeandfair.corla.model.CVRContestInfo.ConsensusValue;
+import us.freeandfair.corla.model.CastVoteRecord;
+import us.freeandfair.corla.model.CastVoteRecord.RecordType;
+import us.freeandfair.corla.model.Choice;
+import us.freeandfair.corla.model.Contest;
+import us.freeandfair.corla.model.County;
+
+/**
+ * A test case for CastVoteRecordCopyLoader: the encoding of its COPY rows,
+ * and (given a test database) its allocation of IDs.
+ *
+ * @author Daniel M. Zimmerman <dmz@freeandfair.us>
+ * @version 1.0.0
+ */
+// TestNG classes do not need constructors
+@SuppressWarnings("PMD.AtLeastOneConstructor")
+public class CastVoteRecordCopyLoaderTest {
+  /**
+   * An imprinted ID with an embedded quote, comma and newline.
+   */
+  private static final String IMPRINTED_ID = "1-\"2\",3\n4";
+
+  /**
+   * A ballot type with an embedded quote, comma and newline.
+   */
+  private static final String BALLOT_TYPE = "Style \"A\",\nB";
+
+  /**
+   * A comment with an embedded quote, comma and newline.
+   */
+  private static final String COMMENT = "torn, \"marked\"\nhere";
+
+  /**
+   * Choice names with embedded quotes, commas and newlines.
+   */
+  private static final List<String> CHOICES =
+      Arrays.asList("Smith, \"Jo\"", "Line\nBreak");
+
+  /**
+   * Checks that values are quoted, with embedded quotes doubled, so that
+   * quotes, commas and newlines survive the CSV encoding, and that every
+   * value lands in its column of CVR_COPY.
+   */
+  @Test()
+  public void testCVRRow() throws IOException {
+    final StringBuilder cvr_rows = new StringBuilder();
+    final StringBuilder contest_info_rows = new StringBuilder();
+    CastVoteRecordCopyLoader.appendRows(cvr_rows, contest_info_rows,
+                                        cvr(42L, IMPRINTED_ID, BALLOT_TYPE));
+
+    final List<CSVRecord> records = parse(cvr_rows.toString());
+    Assert.assertEquals(records.size(), 1);
+    final Map<String, String> row =
+        columns(CastVoteRecordCopyLoader.CVR_COPY, records.get(0));
+    final Map<String, String> expected = new HashMap<>();
+    expected.put("id", "42");
+    expected.put("version", "0");
+    expected.put("record_type", "UPLOADED");
+    expected.put("timestamp", "");
+    expected.put("county_id", "7");
+    expected.put("cvr_number", "100");
+    expected.put("sequence_number", "3");
+    expected.put("scanner_id", "11");
+    expected.put("batch_id", "12");
+    expected.put("record_id", "13");
+    expected.put("imprinted_id", IMPRINTED_ID);
+    expected.put("ballot_type", BALLOT_TYPE);
+    Assert.assertEquals(row, expected);
+  }
+
+  /**
+   * Checks that null is written as an empty unquoted value, which COPY reads
+   * as NULL, and the empty string as an empty quoted value, which it does not.
+   */
+  @Test()
+  public void testNullAndEmpty() {
+    final StringBuilder cvr_rows = new StringBuilder();
+    final StringBuilder contest_info_rows = new StringBuilder();
+    CastVoteRecordCopyLoader.appendRows(cvr_rows, contest_info_rows, cvr(42L, null, ""));
+
+    Assert.assertEquals(cvr_rows.toString(),
+                        "\"42\",\"0\",\"UPLOADED\",,\"7\",\"100\",\"3\",\"11\"," +
+                        "\"12\",\"13\",,\"\"\n");
+  }
+
+  /**
+   * Checks that contest information rows are written in the record's order,
+   * numbered by index whatever the contest IDs, with every value in its
+   * column of CONTEST_INFO_COPY.
+   */
+  @Test()
+  public void testContestInfoRows() throws IOException {
+    final StringBuilder cvr_rows = new StringBuilder();
+    final StringBuilder contest_info_rows = new StringBuilder();
+    CastVoteRecordCopyLoader.appendRows(cvr_rows, contest_info_rows,
+                                        cvr(42L, IMPRINTED_ID, BALLOT_TYPE));
+
+    final List<CSVRecord> records = parse(contest_info_rows.toString());
+    Assert.assertEquals(records.size(), 2);
+
+    final Map<String, String> first =
+        columns(CastVoteRecordCopyLoader.CONTEST_INFO_COPY, records.get(0));
+    Assert.assertEquals(first.get("cvr_id"), "42");
+    Assert.assertEquals(first.get("index"), "0");
+    Assert.assertEquals(first.get("contest_id"), "20");
+    Assert.assertEquals(first.get("comment"), COMMENT);
+    Assert.assertEquals(first.get("consensus"), "YES");
+    Assert.assertEquals(new StringListConverter().
+                        convertToEntityAttribute(first.get("choices")), CHOICES);
+
+    final Map<String, String> second =
+        columns(CastVoteRecordCopyLoader.CONTEST_INFO_COPY, records.get(1));
+    Assert.assertEquals(second.get("cvr_id"), "42");
+    Assert.assertEquals(second.get("index"), "1");
+    Assert.assertEquals(second.get("contest_id"), "10");
+    Assert.assertEquals(second.get("comment"), "");
+    Assert.assertEquals(second.get("consensus"), "");
+    Assert.assertEquals(second.get("choices"), "[]");
+
+    // the comment and consensus of the second row are NULL
+    Assert.assertTrue(contest_info_rows.toString().endsWith(",,\"[]\"\n"));
+  }
+
+  /**
+   * Checks that IDs allocated by the loader do not collide with those
+   * Hibernate generates for cast vote records in the same transaction, and
+   * that the loaded records can be read back. Needs a test database.
+   */
+  @Test()
+  public void testIDsDoNotCollide() {
+    TestDatabase.require();
+    final long county = System.nanoTime();
+    final Set<Long> ids = new HashSet<>();
+    final CastVoteRecordCopyLoader loader = new CastVoteRecordCopyLoader(3);
+
+    Persistence.beginTransaction();
+    try {
+      for (int i = 0; i < 20; i++) {
+        final CastVoteRecord cvr =
+            new CastVoteRecord(RecordType.UPLOADED, null, county, i, i, 1, 1, i,
+                               "1-1-" + i, "A", new ArrayList<>());
+        if (i % 3 == 0) {
+          Persistence.save(cvr);
+        } else {
+          loader.add(cvr);
+        }
+        Assert.assertNotNull(cvr.id());
+        Assert.assertTrue(ids.add(cvr.id()), "duplicate ID " + cvr.id());
+      }
+      loader.flush();
+      Persistence.flush();
+
+      final Long count =
+          Persistence.currentSession()
+                     .createQuery("select count(c) from CastVoteRecord c " +
+                                  "where c.my_county_id = :county", Long.class)
+                     .setParameter("county", county)
+                     .getSingleResult();
+      Assert.assertEquals(count, Long.valueOf(20));
+    } finally {
+      Persistence.rollbackTransaction();
+    }
+  }
+
+  /**
+   * Creates a cast vote record with information for two contests, the one
+   * with the higher ID first.
+   *
+   * @param the_id The ID.
+   * @param the_imprinted_id The imprinted ID.
+   * @param the_ballot_type The ballot type.
+   * @return the record.
+   */
+  private static CastVoteRecord cvr(final Long the_id, final String the_imprinted_id,
+                                    final String the_ballot_type) {
+    final County county = new County("County", 7L);
+    final List<Choice> choices = new ArrayList<>();
+    for (final String name : CHOICES) {
+      choices.add(new Choice(name, "", false, false));
+    }
+    final Contest first = new Contest("First", county, "", choices, 2, 1, 0);
+    first.setID(20L);
+    final Contest second = new Contest("Second", county, "", choices, 1, 1, 1);
+    second.setID(10L);
+
+    final List<CVRContestInfo> contest_info = new ArrayList<>();
+    contest_info.add(new CVRContestInfo(first, COMMENT, ConsensusValue.YES, CHOICES));
+    contest_info.add(new CVRContestInfo(second, null, null, new ArrayList<>()));
+
+    final CastVoteRecord result =
+        new CastVoteRecord(RecordType.UPLOADED, null, 7L, 100, 3, 11, 12, 13,
+                           the_imprinted_id, the_ballot_type, contest_info);
+    result.setID(the_id);
+    return result;
+  }
+
+  /**
+   * Parses CSV rows as COPY would.
+   *
+   * @param the_rows The rows.
+   * @return the records.
+   */
+  private static List<CSVRecord> parse(final String the_rows) throws IOException {
+    try (CSVParser parser = CSVParser.parse(the_rows, CSVFormat.DEFAULT)) {
+      return parser.getRecords();
+    }
+  }
+
+  /**
+   * Maps the values of a row to the columns named in a COPY statement.
+   *
+   * @param the_copy The COPY statement.
+   * @param the_record The row.
+   * @return the map from column names to values.
+   */
+  private static Map<String, String> columns(final String the_copy,
+                                             final CSVRecord the_record) {
+    final String list =
+        the_copy.substring(the_copy.indexOf('(') + 1, the_copy.indexOf(')'));
+    final String[] names = list.split(",");
+    Assert.assertEquals(the_record.size(), names.length);
+    final Map<String, String> result = new HashMap<>();
+    for (int i = 0; i < names.length; i++) {
+      result.put(names[i].trim().replace("\"", ""), the_record.get(i));
+    }
+    return result;
+  }
+}
@@ -0,0 +1,74 @@
+/*
+ * Free & Fair Colorado RLA System
+ * 
+ * @title ColoradoRLA
+ * @created Oct 18, 2026
+ * @copyright 2026 Colorado Department of State
+ * @license SPDX-License-Identifier: AGPL-3.0-or-later
+ * @creator Daniel M. Zimmerman <dmz@freeandfair.us>
+ * @description A system to assist in conducting statewide risk-limiting audits.
+ */
+
+package us.freeandfair.corla.persistence;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * A test case for CompactLongListConverter.
+ *
+ * @author Daniel M. Zimmerman <dmz@freeandfair.us>
+ * @version 1.0.0
+ */
+// TestNG classes do not need constructors
+@SuppressWarnings("PMD.AtLeastOneConstructor")
+public class CompactLongListConverterTest {
+  /**
+   * Checks that lists survive a round trip, including duplicates, decreasing
+   * runs and extreme values.
+   */
+  @Test()
+  public void testRoundTrip() {
+    final CompactLongListConverter converter = new CompactLongListConverter();
+    final List<List<Long>> lists = new ArrayList<>();
+    lists.add(Collections.emptyList());
+    lists.add(Arrays.asList(12L));
+    lists.add(Arrays.asList(500L, 499L, 500L, 500L, 3L, 90_000L));
+    lists.add(Arrays.asList(Long.MIN_VALUE, Long.MAX_VALUE, 0L, -1L));
+    for (final List<Long> list : lists) {
+      final String column = converter.convertToDatabaseColumn(list);
+      Assert.assertEquals(column.charAt(0), CompactLongListConverter.MARKER);
+      Assert.assertEquals(converter.convertToEntityAttribute(column), list);
+    }
+    Assert.assertNull(converter.convertToDatabaseColumn(null));
+    Assert.assertNull(converter.convertToEntityAttribute(null));
+  }
+
+  /**
+   * Checks that column entries written by LongListConverter are still read,
+   * and that a 10,000-element audit subsequence is much smaller compactly.
+   */
+  @Test()
+  public void testJSONCompatibility() {
+    final CompactLongListConverter compact = new CompactLongListConverter();
+    final LongListConverter json = new LongListConverter();
+    final Random random = new Random(2017);
+    final List<Long> sequence = new ArrayList<>();
+    for (int i = 0; i < 10_000; i++) {
+      sequence.add(1_000_000L + random.nextInt(50_000));
+    }
+
+    final String json_column = json.convertToDatabaseColumn(sequence);
+    Assert.assertEquals(compact.convertToEntityAttribute(json_column), sequence);
+    Assert.assertEquals(compact.convertToEntityAttribute("[]"), Collections.emptyList());
+
+    final String compact_column = compact.convertToDatabaseColumn(sequence);
+    Assert.assertTrue(compact_column.length() * 2 < json_column.length());
+  }
+}
@@ -0,0 +1,348 @@
+/*
+ * Free & Fair Colorado RLA System
+ * 
+ * @title ColoradoRLA
+ * @created Oct 18, 2026
+ * @copyright 2026 Colorado Department of State
+ * @license SPDX-License-Identifier: AGPL-3.0-or-later
+ * @creator Daniel M. Zimmerman <dmz@freeandfair.us>
+ * @description A system to assist in conducting statewide risk-limiting audits.
+ */
+
+package us.freeandfair.corla.persistence;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import javax.persistence.PersistenceException;
+
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import us.freeandfair.corla.model.LogEntry;
+
+/**
+ * A test case for the hash chaining of LogEntryWriter, using an in-memory
+ * store in place of the database.
+ *
+ * @author Daniel M. Zimmerman <dmz@freeandfair.us>
+ * @version 1.0.0
+ */
+// TestNG classes do not need constructors
+@SuppressWarnings("PMD.AtLeastOneConstructor")
+public class LogEntryWriterTest {
+  /**
+   * The timestamp of the test entries.
+   */
+  private static final Instant NOW = Instant.parse("2017-11-07T12:00:00Z");
+
+  /**
+   * The store used by the current test.
+   */
+  private MemoryStore my_store;
+
+  /**
+   * Gives each test an empty store.
+   */
+  @BeforeMethod()
+  public void setUp() {
+    my_store = new MemoryStore();
+    LogEntryWriter.useStore(my_store);
+  }
+
+  /**
+   * Checks that queued entries are chained in the order they were queued,
+   * both within and across requests.
+   */
+  @Test()
+  public void testQueuedOrder() {
+    Assert.assertTrue(write(false, "a", "b"));
+    Assert.assertTrue(write(false, "c"));
+    Assert.assertTrue(write(true, "d", "e"));
+
+    assertChain(my_store.committed(), "a", "b", "c", "d", "e");
+  }
+
+  /**
+   * Checks that entries chained in a caller's transaction and queued entries
+   * form a single chain, in commit order.
+   */
+  @Test()
+  public void testMixedOrder() {
+    Assert.assertTrue(write(true, "a"));
+    my_store.begin();
+    LogEntryWriter.chainInTransaction(entries("b", "c"), "admin", "host");
+    my_store.commit();
+    Assert.assertTrue(write(true, "d"));
+    my_store.begin();
+    LogEntryWriter.chainInTransaction(entries("e"), "admin", "host");
+    LogEntryWriter.chainInTransaction(entries("f"), "admin", "host");
+    my_store.commit();
+    Assert.assertTrue(write(true, "g"));
+
+    assertChain(my_store.committed(), "a", "b", "c", "d", "e", "f", "g");
+  }
+
+  /**
+   * Checks that the tail is read from the store again after a caller's
+   * transaction is rolled back, and that the rolled back entries are not
+   * part of the chain.
+   */
+  @Test()
+  public void testReloadAfterRollback() {
+    Assert.assertTrue(write(true, "a"));
+    final int reads = my_store.lastReads();
+    my_store.begin();
+    LogEntryWriter.chainInTransaction(entries("lost"), "admin", "host");
+    my_store.rollback();
+
+    // an entry added behind the writer's back must become the tail
+    final LogEntry outside =
+        new LogEntry(200, "outside", "admin", "host", NOW, my_store.committed().get(0));
+    my_store.append(outside);
+    Assert.assertTrue(write(true, "b"));
+
+    Assert.assertEquals(my_store.lastReads(), reads + 1);
+    assertChain(my_store.committed(), "a", "outside", "b");
+  }
+
+  /**
+   * Checks that the tail is read from the store again, and the batch written
+   * again, after the writer's transaction fails to commit.
+   */
+  @Test()
+  public void testReloadAfterFailedBatch() {
+    Assert.assertTrue(write(true, "a"));
+    final int reads = my_store.lastReads();
+    my_store.failCommits(1);
+    Assert.assertTrue(write(true, "b", "c"));
+
+    Assert.assertEquals(my_store.lastReads(), reads + 1);
+    assertChain(my_store.committed(), "a", "b", "c");
+  }
+
+  /**
+   * Checks that chaining without a transaction fails, and leaves the chain
+   * unlocked.
+   */
+  @Test(expectedExceptions = IllegalStateException.class)
+  public void testNoTransaction() {
+    try {
+      LogEntryWriter.chainInTransaction(entries("a"), "admin", "host");
+    } finally {
+      Assert.assertTrue(write(true, "b"));
+      assertChain(my_store.committed(), "b");
+    }
+  }
+
+  /**
+   * Writes entries with the specified information through the writer queue.
+   *
+   * @param the_sync true to wait for the entries to be committed.
+   * @param the_information The information.
+   * @return the result of the write.
+   */
+  private static boolean write(final boolean the_sync, final String... the_information) {
+    return LogEntryWriter.write(entries(the_information), "admin", "host", the_sync);
+  }
+
+  /**
+   * @param the_information The information.
+   * @return unhashed entries with the specified information.
+   */
+  private static List<LogEntry> entries(final String... the_information) {
+    final List<LogEntry> result = new ArrayList<>();
+    for (final String information : the_information) {
+      result.add(new LogEntry(200, information, NOW));
+    }
+    return result;
+  }
+
+  /**
+   * Checks that the specified entries form a chain from the root hash, with
+   * the specified information in order.
+   *
+   * @param the_chain The entries.
+   * @param the_information The expected information.
+   */
+  private static void assertChain(final List<LogEntry> the_chain,
+                                  final String... the_information) {
+    final List<String> information = new ArrayList<>();
+    LogEntry previous = null;
+    String previous_hash = LogEntry.ROOT_HASH;
+    for (final LogEntry entry : the_chain) {
+      information.add(entry.information());
+      Assert.assertSame(entry.previousEntry(), previous);
+      Assert.assertEquals(entry.hash(), LogEntry.chainHash(entry.hashString(), previous_hash));
+      previous = entry;
+      previous_hash = entry.hash();
+    }
+    Assert.assertEquals(information, Arrays.asList(the_information));
+  }
+
+  /**
+   * An in-memory store with a transaction per thread.
+   */
+  private static final class MemoryStore implements LogEntryWriter.Store {
+    /**
+     * The committed entries.
+     */
+    private final List<LogEntry> my_committed = new ArrayList<>();
+
+    /**
+     * The entries saved in each thread's transaction, or null if it has none.
+     */
+    private final ThreadLocal<List<LogEntry>> my_pending = new ThreadLocal<>();
+
+    /**
+     * The actions to run when each thread's transaction completes.
+     */
+    private final ThreadLocal<List<Consumer<Boolean>>> my_actions =
+        ThreadLocal.withInitial(ArrayList::new);
+
+    /**
+     * The number of times the tail has been read.
+     */
+    private final AtomicInteger my_last_reads = new AtomicInteger();
+
+    /**
+     * The number of commits still to fail.
+     */
+    private final AtomicInteger my_failures = new AtomicInteger();
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void begin() {
+      my_pending.set(new ArrayList<>());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void commit() {
+      if (my_failures.getAndDecrement() > 0) {
+        throw new PersistenceException("commit failed");
+      }
+      synchronized (my_committed) {
+        my_committed.addAll(my_pending.get());
+      }
+      complete(true);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void rollback() {
+      if (isTransactionActive()) {
+        complete(false);
+      }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isTransactionActive() {
+      return my_pending.get() != null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void flush() {
+      // do nothing
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void save(final LogEntry the_entry) {
+      my_pending.get().add(the_entry);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public LogEntry last() {
+      my_last_reads.incrementAndGet();
+      synchronized (my_committed) {
+        LogEntry result = null;
+        if (!my_committed.isEmpty()) {
+          result = my_committed.get(my_committed.size() - 1);
+        }
+        return result;
+      }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void afterCompletion(final Consumer<Boolean> the_action) {
+      my_actions.get().add(the_action);
+    }
+
+    /**
+     * Ends the current thread's transaction and runs its completion actions.
+     *
+     * @param the_committed true if the transaction committed.
+     */
+    private void complete(final boolean the_committed) {
+      my_pending.remove();
+      final List<Consumer<Boolean>> actions = new ArrayList<>(my_actions.get());
+      my_actions.get().clear();
+      for (final Consumer<Boolean> action : actions) {
+        action.accept(the_committed);
+      }
+    }
+
+    /**
+     * Commits an entry outside of any transaction.
+     *
+     * @param the_entry The entry.
+     */
+    void append(final LogEntry the_entry) {
+      synchronized (my_committed) {
+        my_committed.add(the_entry);
+      }
+    }
+
+    /**
+     * Makes the specified number of subsequent commits fail.
+     *
+     * @param the_count The number.
+     */
+    void failCommits(final int the_count) {
+      my_failures.set(the_count);
+    }
+
+    /**
+     * @return the number of times the tail has been read.
+     */
+    int lastReads() {
+      return my_last_reads.get();
+    }
+
+    /**
+     * @return a copy of the committed entries.
+     */
+    List<LogEntry> committed() {
+      synchronized (my_committed) {
+        return Collections.unmodifiableList(new ArrayList<>(my_committed));
+      }
+    }
+  }
+}
@@ -0,0 +1,222 @@
+/*
+ * Free & Fair Colorado RLA System
+ * 
+ * @title ColoradoRLA
+ * @created Oct 18, 2026
+ * @copyright 2026 Colorado Department of State
+ * @license SPDX-License-Identifier: AGPL-3.0-or-later
+ * @creator Daniel M. Zimmerman <dmz@freeandfair.us>
+ * @description A system to assist in conducting statewide risk-limiting audits.
+ */
+
+package us.freeandfair.corla.persistence;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import javax.persistence.PersistenceException;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import us.freeandfair.corla.persistence.ParallelTransactionRunner.CommitPolicy;
+import us.freeandfair.corla.persistence.ParallelTransactionRunner.Outcome;
+
+/**
+ * A test case for ParallelTransactionRunner, using counted transactions in
+ * place of the database.
+ *
+ * @author Daniel M. Zimmerman <dmz@freeandfair.us>
+ * @version 1.0.0
+ */
+// TestNG classes do not need constructors
+@SuppressWarnings("PMD.AtLeastOneConstructor")
+public class ParallelTransactionRunnerTest {
+  /**
+   * The transactions used by the current test.
+   */
+  private CountingTransactions my_transactions;
+
+  /**
+   * Gives each test new transactions.
+   */
+  @BeforeMethod()
+  public void setUp() {
+    my_transactions = new CountingTransactions();
+    ParallelTransactionRunner.useTransactions(my_transactions);
+  }
+
+  /**
+   * Checks that the tests' transactions are balanced.
+   */
+  @AfterMethod()
+  public void tearDown() {
+    Assert.assertEquals(my_transactions.my_begins.get(),
+                        my_transactions.my_commits.get() +
+                        my_transactions.my_rollbacks.get());
+  }
+
+  /**
+   * Checks that PER_TASK retries tasks whose transactions fail, up to the
+   * limit, does not retry other failures, and reports every outcome in key
+   * order.
+   */
+  @Test()
+  public void testPerTask() {
+    final Map<String, AtomicInteger> attempts = new ConcurrentHashMap<>();
+    final Function<String, Integer> task = the_key -> {
+      final int attempt =
+          attempts.computeIfAbsent(the_key, k -> new AtomicInteger()).incrementAndGet();
+      if ("flaky".equals(the_key) && attempt < 3 || "broken".equals(the_key)) {
+        throw new PersistenceException(the_key);
+      } else if ("bad".equals(the_key)) {
+        throw new IllegalArgumentException(the_key);
+      }
+      return attempt;
+    };
+    final List<String> keys = Arrays.asList("ok", "flaky", "broken", "bad", "fine");
+    final Map<String, Outcome<Integer>> outcomes =
+        ParallelTransactionRunner.run(keys, task, 2, CommitPolicy.PER_TASK, 3);
+
+    Assert.assertEquals(new ArrayList<>(outcomes.keySet()), keys);
+    for (final String key : Arrays.asList("ok", "fine")) {
+      Assert.assertTrue(outcomes.get(key).committed());
+      Assert.assertNull(outcomes.get(key).failure());
+      Assert.assertEquals(outcomes.get(key).value(), Integer.valueOf(1));
+    }
+    Assert.assertTrue(outcomes.get("flaky").committed());
+    Assert.assertEquals(outcomes.get("flaky").value(), Integer.valueOf(3));
+
+    Assert.assertFalse(outcomes.get("broken").committed());
+    Assert.assertNull(outcomes.get("broken").value());
+    Assert.assertTrue(outcomes.get("broken").failure() instanceof PersistenceException);
+    Assert.assertEquals(attempts.get("broken").get(), 4);
+
+    Assert.assertFalse(outcomes.get("bad").committed());
+    Assert.assertTrue(outcomes.get("bad").failure() instanceof IllegalArgumentException);
+    Assert.assertEquals(attempts.get("bad").get(), 1);
+
+    Assert.assertEquals(my_transactions.my_commits.get(), 3);
+    Assert.assertEquals(my_transactions.my_rollbacks.get(), 2 + 4 + 1);
+  }
+
+  /**
+   * Checks that ATOMIC runs the tasks in the calling thread's transaction,
+   * without committing anything, and stops at the first failure, so that
+   * rolling back that transaction undoes every task.
+   */
+  @Test()
+  public void testAtomicStopsAtFirstFailure() {
+    final List<Integer> run = Collections.synchronizedList(new ArrayList<>());
+    final Function<Integer, Integer> task = the_key -> {
+      run.add(the_key);
+      if (the_key == 2) {
+        throw new IllegalStateException("illegal transition");
+      }
+      return the_key;
+    };
+    final Map<Integer, Outcome<Integer>> outcomes =
+        ParallelTransactionRunner.run(Arrays.asList(1, 2, 3), task, 4,
+                                      CommitPolicy.ATOMIC, 3);
+
+    Assert.assertEquals(run, Arrays.asList(1, 2));
+    Assert.assertEquals(new ArrayList<>(outcomes.keySet()), Arrays.asList(1, 2));
+    Assert.assertNull(outcomes.get(1).failure());
+    Assert.assertTrue(outcomes.get(2).failure() instanceof IllegalStateException);
+    for (final Outcome<Integer> outcome : outcomes.values()) {
+      Assert.assertFalse(outcome.committed());
+    }
+    Assert.assertEquals(my_transactions.my_begins.get(), 0);
+  }
+
+  /**
+   * Checks that ATOMIC stops at, and rethrows, a failure of persistent
+   * storage, since the transaction cannot be used after one.
+   */
+  @Test(expectedExceptions = PersistenceException.class)
+  public void testAtomicPersistenceFailure() {
+    final List<Integer> run = Collections.synchronizedList(new ArrayList<>());
+    try {
+      ParallelTransactionRunner.run(Arrays.asList(1, 2, 3), the_key -> {
+        run.add(the_key);
+        if (the_key == 2) {
+          throw new PersistenceException("flush failed");
+        }
+        return the_key;
+      }, 4, CommitPolicy.ATOMIC, 3);
+    } finally {
+      Assert.assertEquals(run, Arrays.asList(1, 2));
+      Assert.assertEquals(my_transactions.my_begins.get(), 0);
+    }
+  }
+
+  /**
+   * Checks the parsing of commit policies.
+   */
+  @Test()
+  public void testParse() {
+    Assert.assertEquals(CommitPolicy.parse(" atomic ", CommitPolicy.PER_TASK),
+                        CommitPolicy.ATOMIC);
+    Assert.assertEquals(CommitPolicy.parse("per_county", CommitPolicy.ATOMIC),
+                        CommitPolicy.PER_TASK);
+    Assert.assertEquals(CommitPolicy.parse("PER_TASK", CommitPolicy.ATOMIC),
+                        CommitPolicy.PER_TASK);
+    Assert.assertEquals(CommitPolicy.parse("coordinated", CommitPolicy.ATOMIC),
+                        CommitPolicy.ATOMIC);
+    Assert.assertEquals(CommitPolicy.parse(null, CommitPolicy.ATOMIC),
+                        CommitPolicy.ATOMIC);
+  }
+
+  /**
+   * Transactions that are only counted.
+   */
+  private static final class CountingTransactions
+      implements ParallelTransactionRunner.Transactions {
+    /**
+     * The number of transactions begun.
+     */
+    private final AtomicInteger my_begins = new AtomicInteger();
+
+    /**
+     * The number of transactions committed.
+     */
+    private final AtomicInteger my_commits = new AtomicInteger();
+
+    /**
+     * The number of transactions rolled back.
+     */
+    private final AtomicInteger my_rollbacks = new AtomicInteger();
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void begin() {
+      my_begins.incrementAndGet();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void commit() {
+      my_commits.incrementAndGet();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void rollback() {
+      my_rollbacks.incrementAndGet();
+    }
+  }
+}
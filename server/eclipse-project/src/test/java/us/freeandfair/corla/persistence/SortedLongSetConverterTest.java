@@ -0,0 +1,83 @@
+/*
+ * Free & Fair Colorado RLA System
+ * 
+ * @title ColoradoRLA
+ * @created Oct 18, 2026
+ * @copyright 2026 Colorado Department of State
+ * @license SPDX-License-Identifier: AGPL-3.0-or-later
+ * @creator Daniel M. Zimmerman <dmz@freeandfair.us>
+ * @description A system to assist in conducting statewide risk-limiting audits.
+ */
+
+package us.freeandfair.corla.persistence;
+
+import java.util.Arrays;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import us.freeandfair.corla.util.SortedLongSet;
+
+/**
+ * A test case for SortedLongSet and its database converter.
+ *
+ * @author Daniel M. Zimmerman <dmz@freeandfair.us>
+ * @version 1.0.0
+ */
+// TestNG classes do not need constructors
+@SuppressWarnings("PMD.AtLeastOneConstructor")
+public class SortedLongSetConverterTest {
+  /**
+   * Checks membership, deduplication and union.
+   */
+  @Test()
+  public void testSetOperations() {
+    final SortedLongSet first = SortedLongSet.of(42, 7, 1_000_000, 7);
+    Assert.assertEquals(first.size(), 3);
+    Assert.assertTrue(first.contains(7));
+    Assert.assertFalse(first.contains(8));
+
+    final SortedLongSet second = SortedLongSet.of(Arrays.asList(42L, 8L));
+    final SortedLongSet union = first.union(second);
+    Assert.assertEquals(union.toArray(), new long[] {7, 8, 42, 1_000_000});
+    Assert.assertSame(union.union(first), union);
+    Assert.assertSame(SortedLongSet.EMPTY.union(first), first);
+  }
+
+  /**
+   * Checks that sets survive a round trip through the converter, including
+   * the empty set and values needing full-width varints.
+   */
+  @Test()
+  public void testRoundTrip() {
+    final SortedLongSetConverter converter = new SortedLongSetConverter();
+    final SortedLongSet[] sets = {
+      SortedLongSet.EMPTY,
+      SortedLongSet.of(0),
+      SortedLongSet.of(1, 2, 3, 127, 128, 16_384, 5_000_000_000L, Long.MAX_VALUE),
+    };
+    for (final SortedLongSet set : sets) {
+      final byte[] column = converter.convertToDatabaseColumn(set);
+      Assert.assertEquals(converter.convertToEntityAttribute(column), set);
+    }
+
+    // consecutive IDs take one byte each, plus the count and the first ID
+    final long[] ids = new long[1000];
+    for (int i = 0; i < ids.length; i++) {
+      ids[i] = 250_000 + i;
+    }
+    final byte[] column = converter.convertToDatabaseColumn(SortedLongSet.of(ids));
+    Assert.assertEquals(column.length, 2 + 3 + 999);
+    Assert.assertNull(converter.convertToEntityAttribute(null));
+  }
+
+  /**
+   * Checks that a truncated column is rejected.
+   */
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testTruncated() {
+    final SortedLongSetConverter converter = new SortedLongSetConverter();
+    final byte[] column = converter.convertToDatabaseColumn(SortedLongSet.of(1, 300));
+    converter.convertToEntityAttribute(Arrays.copyOf(column, column.length - 1));
+  }
+}
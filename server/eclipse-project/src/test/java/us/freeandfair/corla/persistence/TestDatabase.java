@@ -0,0 +1,89 @@
+/*
+ * Free & Fair Colorado RLA System
+ * 
+ * @title ColoradoRLA
+ * @created Oct 18, 2026
+ * @copyright 2026 Colorado Department of State
+ * @license SPDX-License-Identifier: AGPL-3.0-or-later
+ * @creator Daniel M. Zimmerman <dmz@freeandfair.us>
+ * @description A system to assist in conducting statewide risk-limiting audits.
+ */
+
+package us.freeandfair.corla.persistence;
+
+import java.util.Properties;
+
+import org.testng.SkipException;
+
+import us.freeandfair.corla.Main;
+
+/**
+ * Connects tests to a PostgreSQL database, if one is given with the
+ * corla.test.db.url system property (and, optionally, corla.test.db.user and
+ * corla.test.db.pass); tests that need a database are skipped otherwise. The
+ * schema is created or updated as by the server, so the database should be
+ * one that can be written to freely.
+ *
+ * @author Daniel M. Zimmerman <dmz@freeandfair.us>
+ * @version 1.0.0
+ */
+public final class TestDatabase {
+  /**
+   * The system property that gives the JDBC URL of the database.
+   */
+  public static final String URL_PROPERTY = "corla.test.db.url";
+
+  /**
+   * The system property that gives the database user.
+   */
+  public static final String USER_PROPERTY = "corla.test.db.user";
+
+  /**
+   * The system property that gives the database password.
+   */
+  public static final String PASS_PROPERTY = "corla.test.db.pass";
+
+  /**
+   * A flag indicating whether Persistence has been configured.
+   */
+  private static boolean configured;
+
+  /**
+   * Private constructor to prevent instantiation.
+   */
+  private TestDatabase() {
+    // do nothing
+  }
+
+  /**
+   * Configures Persistence to use the test database, skipping the calling
+   * test if there is none.
+   *
+   * @exception SkipException if no test database is given.
+   * @exception IllegalStateException if the test database cannot be used.
+   */
+  public static synchronized void require() {
+    final String url = System.getProperty(URL_PROPERTY);
+    if (url == null || url.trim().isEmpty()) {
+      throw new SkipException("no test database; set " + URL_PROPERTY +
+                              " to a PostgreSQL JDBC URL to run this test");
+    }
+    if (!configured) {
+      final Properties properties = Main.defaultProperties();
+      properties.setProperty("hibernate.url", url.trim());
+      properties.setProperty("hibernate.user",
+                             System.getProperty(USER_PROPERTY,
+                                                properties.getProperty("hibernate.user")));
+      properties.setProperty("hibernate.pass",
+                             System.getProperty(PASS_PROPERTY,
+                                                properties.getProperty("hibernate.pass")));
+      properties.setProperty("hibernate.c3p0.min_size", "1");
+      properties.setProperty("hibernate.c3p0.max_size", "4");
+      Persistence.setProperties(properties);
+      configured = true;
+    }
+    if (!Persistence.hasDB()) {
+      throw new IllegalStateException("could not connect to test database " + url);
+    }
+  }
+}
@@ -0,0 +1,69 @@
+/*
+ * Free & Fair Colorado RLA System
+ * 
+ * @title ColoradoRLA
+ * @created Oct 18, 2026
+ * @copyright 2026 Colorado Department of State
+ * @license SPDX-License-Identifier: AGPL-3.0-or-later
+ * @creator Daniel M. Zimmerman <dmz@freeandfair.us>
+ * @description A system to assist in conducting statewide risk-limiting audits.
+ */
+
+package us.freeandfair.corla.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import us.freeandfair.corla.crypto.HashChecker;
+
+/**
+ * A test case for UploadTeeOutputStream.
+ *
+ * @author Daniel M. Zimmerman <dmz@freeandfair.us>
+ * @version 1.0.0
+ */
+// TestNG classes do not need constructors
+@SuppressWarnings("PMD.AtLeastOneConstructor")
+public class UploadTeeOutputStreamTest {
+  /**
+   * Checks that the destination and archive copies, hash and line count
+   * match what separate passes over the file would produce, with a line
+   * terminator split across writes.
+   *
+   * @exception IOException if the temporary files cannot be used.
+   */
+  @Test()
+  public void testSinglePass() throws IOException {
+    final String contents = "a,b\r\nc,d\re,f\ng,h\r\n\r\nlast line without terminator";
+    final byte[] bytes = contents.getBytes(StandardCharsets.UTF_8);
+    final File file = File.createTempFile("tee", ".csv");
+    final File archive = File.createTempFile("tee-archive", ".csv");
+    try {
+      final UploadTeeOutputStream os = new UploadTeeOutputStream(file, archive);
+      try {
+        // split the first CRLF between two writes
+        os.write(bytes, 0, 4);
+        os.write(bytes, 4, 1);
+        os.write(bytes[5]);
+        os.write(bytes, 6, bytes.length - 6);
+      } finally {
+        os.close();
+      }
+
+      // CRLF, CR, LF, CRLF, CRLF; the unterminated last line is not counted,
+      // as with LineNumberReader on the Java 8 runtime
+      Assert.assertEquals(os.lineCount(), 5);
+      Assert.assertEquals(os.hash(), HashChecker.hashFile(file));
+      Assert.assertEquals(Files.readAllBytes(file.toPath()), bytes);
+      Assert.assertEquals(Files.readAllBytes(archive.toPath()), bytes);
+    } finally {
+      Assert.assertTrue(file.delete());
+      Assert.assertTrue(archive.delete());
+    }
+  }
+}